@@ -20,6 +20,7 @@
  */
 package org.jdesktop.swingx.autocomplete;
 
+import javax.swing.ListModel;
 import javax.swing.text.JTextComponent;
 
 /**
@@ -99,6 +100,21 @@ public abstract class AbstractAutoCompleteAdaptor {
      */
     public abstract JTextComponent getTextComponent();
     
+    /**
+     * Returns the model holding the items, if any. The model is expected
+     * to notify its listeners about any change of the items. It is used
+     * to keep an index of the items up to date. <p>
+     * 
+     * This implementation returns null, that is the items can't be observed
+     * and are not indexed.
+     * 
+     * @return the model holding the items, or null if there is none
+     * @see AutoCompleteDocument#setIndexed(boolean)
+     */
+    protected ListModel getItemModel() {
+        return null;
+    }
+    
     /**
      * Marks/selects the entire text that is displayed inside the text component.
      */
@@ -99,6 +99,16 @@ final class AutoComplete {
                 handleEditor(evt);
             } else if ("enabled".equals(evt.getPropertyName())) {
                 handleEnabled(evt);
+            } else if ("model".equals(evt.getPropertyName())) {
+                handleModel();
+            }
+        }
+        
+        private void handleModel() {
+            // the index must not keep listening to the old model
+            JTextComponent textComponent = (JTextComponent) comboBox.getEditor().getEditorComponent();
+            if (textComponent.getDocument() instanceof AutoCompleteDocument) {
+                ((AutoCompleteDocument) textComponent.getDocument()).releaseIndex();
             }
         }
         
@@ -178,6 +178,7 @@ public class AutoCompleteDecorator {
         AutoComplete.PropertyChangeListener pcl = new AutoComplete.PropertyChangeListener(comboBox);
         comboBox.addPropertyChangeListener("editor", pcl);
         comboBox.addPropertyChangeListener("enabled", pcl);
+        comboBox.addPropertyChangeListener("model", pcl);
         
         if (!strictMatching) {
             ActionMap map = comboBox.getActionMap();
@@ -216,6 +217,12 @@ public class AutoCompleteDecorator {
                 }
             }
             
+            for (PropertyChangeListener l : comboBox.getPropertyChangeListeners("model")) {
+                if (l instanceof AutoComplete.PropertyChangeListener) {
+                    comboBox.removePropertyChangeListener("model", l);
+                }
+            }
+            
             AutoCompleteComboBoxEditor editor = (AutoCompleteComboBoxEditor) comboBox.getEditor();
             comboBox.setEditor(editor.wrapped);
             
@@ -365,6 +372,8 @@ public class AutoCompleteDecorator {
             
             textComponent.getActionMap().put("nonstrict-backspace", null);
             
+            ((AutoCompleteDocument) doc).releaseIndex();
+            
             //remove old focus listener
             for (FocusListener l : textComponent.getFocusListeners()) {
                 if (l instanceof AutoComplete.FocusAdapter) {
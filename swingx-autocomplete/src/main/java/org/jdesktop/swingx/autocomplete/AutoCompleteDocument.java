@@ -23,10 +23,13 @@ package org.jdesktop.swingx.autocomplete;
 import java.util.Comparator;
 import static org.jdesktop.swingx.autocomplete.ObjectToStringConverter.DEFAULT_IMPLEMENTATION;
 
+import javax.swing.ListModel;
 import javax.swing.UIManager;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.EventListenerList;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.event.UndoableEditListener;
 import javax.swing.text.AttributeSet;
@@ -178,6 +181,14 @@ public class AutoCompleteDocument implements Document {
 
     private final Handler handler;
 
+    /** flag indicating whether lookups use an index of the items. */
+    private boolean indexed;
+    /** the index, null if not yet built or outdated. */
+    private PrefixIndex index;
+    /** the model the index is listening to. */
+    private ListModel indexedModel;
+    private ListDataListener indexListener;
+
     // Note: these comparators do not impose any ordering - e.g. they do not ensure that sgn(compare(x, y)) == -sgn(compare(y, x))
     private static final Comparator<String> EQUALS_IGNORE_CASE = new Comparator<String>() {
         @Override
@@ -261,6 +272,97 @@ public class AutoCompleteDocument implements Document {
         this(adaptor, strictMatching, null);
     }
 
+    /**
+     * Sets a flag indicating whether lookups should use an index of the 
+     * items. If true, the possible strings of all items are kept sorted, 
+     * so a lookup takes O(log n) instead of converting and comparing all 
+     * items on every keystroke. The result is the same as without index. <p>
+     * 
+     * The index is built lazily on the first lookup and re-built after any
+     * change of the items. This requires the adaptor to expose the items 
+     * as ListModel, lookups are not indexed otherwise. Note that the index 
+     * can't detect changes of the string representation of an unchanged 
+     * item. The default is false.
+     * 
+     * @param indexed whether or not lookups should use an index
+     * @see AbstractAutoCompleteAdaptor#getItemModel()
+     */
+    public void setIndexed(boolean indexed) {
+        if (this.indexed == indexed) return;
+        this.indexed = indexed;
+        if (!indexed) {
+            releaseIndex();
+        }
+    }
+
+    /**
+     * Returns a boolean indicating whether lookups use an index of the items.
+     * 
+     * @return true if lookups use an index, false otherwise
+     * @see #setIndexed(boolean)
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    /**
+     * Returns the index of the items, re-built if outdated, or null if
+     * not indexed or the items can't be observed.
+     */
+    private PrefixIndex getIndex() {
+        if (!indexed) return null;
+        ListModel model = adaptor.getItemModel();
+        if (model != indexedModel) {
+            releaseIndex();
+            if (model == null) return null;
+            indexedModel = model;
+            indexedModel.addListDataListener(getIndexListener());
+        }
+        if (index == null) {
+            index = new PrefixIndex(adaptor, stringConverter);
+        }
+        return index;
+    }
+
+    /**
+     * Drops the index and stops listening to the items. Called when
+     * lookups are no longer indexed, the items' model is replaced or
+     * this document is uninstalled.
+     */
+    void releaseIndex() {
+        if (indexedModel != null) {
+            indexedModel.removeListDataListener(getIndexListener());
+            indexedModel = null;
+        }
+        index = null;
+    }
+
+    private ListDataListener getIndexListener() {
+        if (indexListener == null) {
+            indexListener = new ListDataListener() {
+
+                @Override
+                public void intervalAdded(ListDataEvent e) {
+                    index = null;
+                }
+
+                @Override
+                public void intervalRemoved(ListDataEvent e) {
+                    index = null;
+                }
+
+                @Override
+                public void contentsChanged(ListDataEvent e) {
+                    // a combobox model fires a contentsChanged with 
+                    // -1 indices on selection change, the items are unchanged
+                    if ((e.getIndex0() < 0) && (e.getIndex1() < 0)) return;
+                    index = null;
+                }
+            };
+        }
+        return indexListener;
+    }
+
     /**
      * Creates the default backing document when no delegate is passed to this
      * document.
@@ -409,6 +511,14 @@ public class AutoCompleteDocument implements Document {
     }
 
     private LookupResult lookupItem(String pattern, Comparator<String> comparator) {
+        PrefixIndex prefixIndex = getIndex();
+        if (prefixIndex != null) {
+            boolean prefix = (comparator == STARTS_WITH) || (comparator == STARTS_WITH_IGNORE_CASE);
+            boolean ignoreCase = (comparator == EQUALS_IGNORE_CASE) || (comparator == STARTS_WITH_IGNORE_CASE);
+            int k = prefixIndex.lookup(pattern, prefix, ignoreCase);
+            if (k < 0) return null;
+            return new LookupResult(adaptor.getItem(prefixIndex.getItemIndex(k)), prefixIndex.getString(k));
+        }
         // iterate over all items and return first match
         for (int i = 0, n = adaptor.getItemCount(); i < n; i++) {
             Object currentItem = adaptor.getItem(i);
@@ -27,6 +27,7 @@ import java.awt.event.ActionListener;
 import javax.accessibility.Accessible;
 import javax.swing.JComboBox;
 import javax.swing.JList;
+import javax.swing.ListModel;
 import javax.swing.plaf.basic.ComboPopup;
 import javax.swing.text.JTextComponent;
 
@@ -72,6 +73,16 @@ public class ComboBoxAdaptor extends AbstractAutoCompleteAdaptor implements Acti
         return comboBox.getItemAt(index);
     }
     
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Implemented to return the combobox' model.
+     */
+    @Override
+    protected ListModel getItemModel() {
+        return comboBox.getModel();
+    }
+    
     @Override
     public void setSelectedItem(Object item) {
         //SwingX 834: avoid moving when already selected
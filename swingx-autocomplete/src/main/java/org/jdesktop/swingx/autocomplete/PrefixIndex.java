@@ -0,0 +1,227 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A sorted index over the possible strings of all items of an adaptor,
+ * for lookups in O(log n) instead of a linear scan. <p>
+ *
+ * The strings are numbered in scan order, that is by item index and then
+ * by position in the item's possible strings. A lookup returns the
+ * lowest-numbered matching string, which is the same match a linear scan
+ * finds first. Each view (case sensitive and case-folded) is sorted and
+ * backed by a range-minimum tree over the numbers, so a lookup is a
+ * binary search for the range of matching strings plus a range query. <p>
+ *
+ * The index is a snapshot, it must be re-built if the items change.
+ */
+class PrefixIndex {
+
+    /** the strings in scan order. */
+    private final String[] strings;
+    /** the item index of the strings in scan order. */
+    private final int[] itemIndices;
+    private final View exact;
+    private final View folded;
+
+    /**
+     * Builds the index over the current items of the adaptor.
+     *
+     * @param adaptor the adaptor to get the items from
+     * @param converter the converter to get the possible strings of the items
+     */
+    public PrefixIndex(AbstractAutoCompleteAdaptor adaptor, ObjectToStringConverter converter) {
+        List<String> list = new ArrayList<String>();
+        List<Integer> indices = new ArrayList<Integer>();
+        for (int i = 0, n = adaptor.getItemCount(); i < n; i++) {
+            String[] possibleStrings = converter.getPossibleStringsForItem(adaptor.getItem(i));
+            if (possibleStrings == null) continue;
+            for (String possible : possibleStrings) {
+                if (possible == null) continue;
+                list.add(possible);
+                indices.add(i);
+            }
+        }
+        strings = list.toArray(new String[list.size()]);
+        itemIndices = new int[strings.length];
+        String[] foldedStrings = new String[strings.length];
+        for (int k = 0; k < strings.length; k++) {
+            itemIndices[k] = indices.get(k);
+            foldedStrings[k] = fold(strings[k]);
+        }
+        exact = new View(strings);
+        folded = new View(foldedStrings);
+    }
+
+    /**
+     * Returns the number of the first string in scan order which matches
+     * the pattern, or -1 if none.
+     *
+     * @param pattern the pattern to match
+     * @param prefix true if the string must start with the pattern, false if
+     *    it must be equal
+     * @param ignoreCase true to match ignoring case
+     * @return the number of the first matching string, -1 if none
+     */
+    public int lookup(String pattern, boolean prefix, boolean ignoreCase) {
+        return ignoreCase ? folded.lookup(fold(pattern), prefix)
+                : exact.lookup(pattern, prefix);
+    }
+
+    /**
+     * @param k the number of a string
+     * @return the string
+     */
+    public String getString(int k) {
+        return strings[k];
+    }
+
+    /**
+     * @param k the number of a string
+     * @return the index of the item the string belongs to
+     */
+    public int getItemIndex(int k) {
+        return itemIndices[k];
+    }
+
+    /**
+     * Returns the string with each char folded the way
+     * <code>String.regionMatches</code> compares ignoring case.
+     */
+    static String fold(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Compares the start of s to the prefix: 0 if s starts with prefix, the
+     * sign of the string comparison otherwise. Consistent with the natural
+     * order of strings, so all strings starting with a prefix form a
+     * contiguous range in a sorted array.
+     */
+    static int comparePrefix(String s, String prefix) {
+        int n = Math.min(s.length(), prefix.length());
+        for (int i = 0; i < n; i++) {
+            int diff = s.charAt(i) - prefix.charAt(i);
+            if (diff != 0) return diff;
+        }
+        return s.length() < prefix.length() ? -1 : 0;
+    }
+
+    /**
+     * A view of the strings sorted by their natural order, with a
+     * range-minimum tree over the string numbers.
+     */
+    private static class View {
+        private final String[] sorted;
+        /** the range-minimum tree, leaves at [n, 2n) in sorted order. */
+        private final int[] tree;
+
+        View(final String[] strings) {
+            int n = strings.length;
+            Integer[] order = new Integer[n];
+            for (int k = 0; k < n; k++) {
+                order[k] = k;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return strings[o1].compareTo(strings[o2]);
+                }
+            });
+            sorted = new String[n];
+            tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = strings[order[i]];
+                tree[n + i] = order[i];
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = Math.min(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        int lookup(String pattern, boolean prefix) {
+            int from = lowerBound(pattern, false);
+            int to = prefix ? lowerBound(pattern, true) : upperBound(pattern, from);
+            return minimum(from, to);
+        }
+
+        /**
+         * Returns the first position which starts with the pattern
+         * (after = false) or sorts after all such (after = true).
+         */
+        private int lowerBound(String pattern, boolean after) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = comparePrefix(sorted[mid], pattern);
+                if ((cmp < 0) || (after && (cmp == 0))) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the first position after from which is greater
+         * than the pattern.
+         */
+        private int upperBound(String pattern, int from) {
+            int low = from;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid].compareTo(pattern) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the minimal string number in the sorted range [from, to),
+         * -1 if the range is empty.
+         */
+        private int minimum(int from, int to) {
+            int n = sorted.length;
+            int result = Integer.MAX_VALUE;
+            for (from += n, to += n; from < to; from >>= 1, to >>= 1) {
+                if ((from & 1) == 1) {
+                    result = Math.min(result, tree[from++]);
+                }
+                if ((to & 1) == 1) {
+                    result = Math.min(result, tree[--to]);
+                }
+            }
+            return result == Integer.MAX_VALUE ? -1 : result;
+        }
+    }
+}
@@ -49,6 +49,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import javax.swing.DefaultComboBoxModel;
 import javax.swing.InputMap;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
@@ -56,6 +57,7 @@ import javax.swing.JList;
 import javax.swing.JTextField;
 import javax.swing.JTextPane;
 import javax.swing.UIManager;
+import javax.swing.event.ListDataListener;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.text.JTextComponent;
 
@@ -183,6 +185,39 @@ public class AutoCompleteDecoratorTest  {
         
     }
     
+    /**
+     * The index of an indexed document must stop listening to the combo's
+     * model on model change and on undecorate.
+     */
+    @Test
+    public void testIndexListenerRemoved() throws Exception {
+        DefaultComboBoxModel model = (DefaultComboBoxModel) combo.getModel();
+        AutoCompleteDecorator.decorate(combo);
+        JTextComponent editorComponent = (JTextComponent) combo.getEditor().getEditorComponent();
+        AutoCompleteDocument document = (AutoCompleteDocument) editorComponent.getDocument();
+        document.setIndexed(true);
+        List<ListDataListener> listeners = Arrays.asList(model.getListDataListeners());
+        document.insertString(0, "B", null);
+        ListDataListener indexListener = null;
+        for (ListDataListener l : model.getListDataListeners()) {
+            if (!listeners.contains(l)) {
+                indexListener = l;
+            }
+        }
+        assertThat(indexListener, is(not(nullValue())));
+        
+        DefaultComboBoxModel other = new DefaultComboBoxModel(new String[] {"Echo", "Foxtrot"});
+        combo.setModel(other);
+        assertThat(Arrays.asList(model.getListDataListeners()).contains(indexListener), is(false));
+        document.remove(0, document.getLength());
+        document.insertString(0, "F", null);
+        assertThat(combo.getSelectedItem(), is((Object) "Foxtrot"));
+        assertThat(Arrays.asList(other.getListDataListeners()).contains(indexListener), is(true));
+        
+        AutoCompleteDecorator.undecorate(combo);
+        assertThat(Arrays.asList(other.getListDataListeners()).contains(indexListener), is(false));
+    }
+    
     /**
      * SwingX Issue #299.
      */
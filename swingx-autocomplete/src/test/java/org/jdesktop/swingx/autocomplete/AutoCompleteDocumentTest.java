@@ -22,8 +22,11 @@
 package org.jdesktop.swingx.autocomplete;
 
 import java.util.Arrays;
+import java.util.Random;
 
+import javax.swing.DefaultListModel;
 import javax.swing.JTextField;
+import javax.swing.ListModel;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 
@@ -66,4 +69,134 @@ public class AutoCompleteDocumentTest extends TestCase {
         document.insertString(4, "t", null);
         assertTrue(adaptor.getSelectedItem().equals("exact"));
     }
+    
+    /**
+     * Indexed lookup selects the same item and string as the linear scan,
+     * for items with multiple strings, mixed case and duplicates.
+     */
+    @Test
+    public void testIndexedSameAsLinear() throws Exception {
+        Random random = new Random(1);
+        String letters = "aAbBc";
+        DefaultListModel model = new DefaultListModel();
+        for (int i = 0; i < 300; i++) {
+            model.addElement(randomString(random, letters, 1 + random.nextInt(5)));
+        }
+        ObjectToStringConverter converter = new ObjectToStringConverter() {
+            @Override
+            public String getPreferredStringForItem(Object item) {
+                return item == null ? null : item.toString();
+            }
+
+            @Override
+            public String[] getPossibleStringsForItem(Object item) {
+                if (item == null) return new String[0];
+                String string = item.toString();
+                return new String[] {string, new StringBuilder(string).reverse().toString()};
+            }
+        };
+        ModelAdaptor linearAdaptor = new ModelAdaptor(model);
+        AutoCompleteDocument linear = new AutoCompleteDocument(linearAdaptor, false, converter);
+        linearAdaptor.getTextComponent().setDocument(linear);
+        ModelAdaptor indexedAdaptor = new ModelAdaptor(model);
+        AutoCompleteDocument indexed = new AutoCompleteDocument(indexedAdaptor, false, converter);
+        indexedAdaptor.getTextComponent().setDocument(indexed);
+        indexed.setIndexed(true);
+        assertTrue(indexed.isIndexed());
+        for (int i = 0; i < 300; i++) {
+            String pattern = randomString(random, letters, random.nextInt(4));
+            linear.remove(0, linear.getLength());
+            linear.insertString(0, pattern, null);
+            indexed.remove(0, indexed.getLength());
+            indexed.insertString(0, pattern, null);
+            assertEquals(pattern, identityIndexOf(model, linearAdaptor.getSelectedItem()),
+                    identityIndexOf(model, indexedAdaptor.getSelectedItem()));
+            assertEquals(pattern, linearAdaptor.getSelectedItem(), indexedAdaptor.getSelectedItem());
+            assertEquals(pattern, linear.getText(0, linear.getLength()), 
+                    indexed.getText(0, indexed.getLength()));
+        }
+    }
+    
+    /**
+     * Changes of the items are picked up by the index.
+     */
+    @Test
+    public void testIndexedModelChange() throws Exception {
+        DefaultListModel model = new DefaultListModel();
+        model.addElement("alpha");
+        model.addElement("beta");
+        ModelAdaptor adaptor = new ModelAdaptor(model);
+        AutoCompleteDocument document = new AutoCompleteDocument(adaptor, true);
+        adaptor.getTextComponent().setDocument(document);
+        document.setIndexed(true);
+        document.insertString(0, "b", null);
+        assertEquals("beta", adaptor.getSelectedItem());
+        model.insertElementAt("bar", 0);
+        document.remove(0, document.getLength());
+        document.insertString(0, "ba", null);
+        assertEquals("bar", adaptor.getSelectedItem());
+        model.removeElementAt(0);
+        model.setElementAt("gamma", 1);
+        document.remove(0, document.getLength());
+        document.insertString(0, "g", null);
+        assertEquals("gamma", adaptor.getSelectedItem());
+    }
+    
+    private int identityIndexOf(ListModel model, Object item) {
+        for (int i = 0; i < model.getSize(); i++) {
+            if (model.getElementAt(i) == item) return i;
+        }
+        return -1;
+    }
+    
+    private String randomString(Random random, String letters, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * Adaptor with items in a ListModel.
+     */
+    private static class ModelAdaptor extends AbstractAutoCompleteAdaptor {
+        private final DefaultListModel model;
+        private final JTextComponent textComponent = new JTextField();
+        private Object selectedItem;
+
+        ModelAdaptor(DefaultListModel model) {
+            this.model = model;
+        }
+
+        @Override
+        public Object getSelectedItem() {
+            return selectedItem;
+        }
+
+        @Override
+        public void setSelectedItem(Object item) {
+            selectedItem = item;
+        }
+
+        @Override
+        public int getItemCount() {
+            return model.getSize();
+        }
+
+        @Override
+        public Object getItem(int index) {
+            return model.getElementAt(index);
+        }
+
+        @Override
+        public JTextComponent getTextComponent() {
+            return textComponent;
+        }
+
+        @Override
+        protected ListModel getItemModel() {
+            return model;
+        }
+    }
 }
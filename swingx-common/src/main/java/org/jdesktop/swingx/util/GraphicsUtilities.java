@@ -79,7 +79,10 @@ import javax.swing.JComponent;
  * {@link java.awt.Image#getScaledInstance(int, int, int)} and produce
  * better-looking results than the various <code>drawImage()</code> methods
  * in {@link java.awt.Graphics}, which can be used for image scaling.</p>
- * 
+ *
+ * <p>To create the thumbnails of many images, or of image files, in the
+ * background, use a {@link ThumbnailGenerator}.</p>
+ *
  * <h2>Image Manipulation</h2>
  *
  * <p>This class provides two methods to get and set pixels in a buffered image.
@@ -668,6 +671,87 @@ public class GraphicsUtilities {
         return thumb;
     }
 
+    /**
+     * <p>Returns a thumbnail of a source image, scaled down progressively like
+     * {@link #createThumbnail(BufferedImage, int, int)}. The intermediate steps
+     * are drawn into the two scratch images, alternately, which are replaced
+     * if they are too small or of another transparency than the source
+     * image. Only the thumbnail is a new image, opaque or translucent
+     * compatible depending on the transparency of the source image.</p>
+     *
+     * @param image the source image
+     * @param newWidth the width of the thumbnail, not greater than the width
+     *   of <code>image</code>
+     * @param newHeight the height of the thumbnail, not greater than the
+     *   height of <code>image</code>
+     * @param scratch an array of two scratch images, possibly null
+     * @return a new compatible <code>BufferedImage</code> containing a
+     *   thumbnail of <code>image</code>
+     */
+    static BufferedImage createThumbnail(BufferedImage image, int newWidth, int newHeight,
+                                         BufferedImage[] scratch) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean isTranslucent = image.getTransparency() != Transparency.OPAQUE;
+
+        BufferedImage thumb = image;
+        int previousWidth = width;
+        int previousHeight = height;
+        int index = 0;
+        boolean isLast;
+
+        do {
+            if (width > newWidth) {
+                width /= 2;
+                if (width < newWidth) {
+                    width = newWidth;
+                }
+            }
+
+            if (height > newHeight) {
+                height /= 2;
+                if (height < newHeight) {
+                    height = newHeight;
+                }
+            }
+
+            isLast = width == newWidth && height == newHeight;
+            BufferedImage temp;
+            if (isLast) {
+                temp = isTranslucent ? createCompatibleTranslucentImage(width, height)
+                        : createCompatibleImage(width, height);
+            } else {
+                temp = scratch[index];
+                if (temp == null || temp.getWidth() < width || temp.getHeight() < height
+                        || temp.getTransparency() != image.getTransparency()) {
+                    temp = isTranslucent ? createCompatibleTranslucentImage(width, height)
+                            : createCompatibleImage(width, height);
+                    scratch[index] = temp;
+                }
+                index = 1 - index;
+            }
+
+            Graphics2D g2 = temp.createGraphics();
+            try {
+                // replaces the content left from a former image
+                g2.setComposite(AlphaComposite.Src);
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2.drawImage(thumb, 0, 0, width, height,
+                             0, 0, previousWidth, previousHeight, null);
+            } finally {
+                g2.dispose();
+            }
+
+            previousWidth = width;
+            previousHeight = height;
+
+            thumb = temp;
+        } while (!isLast);
+
+        return thumb;
+    }
+
     /**
      * <p>Returns an array of pixels, stored as integers, from a
      * <code>BufferedImage</code>. The pixels are grabbed from a rectangular
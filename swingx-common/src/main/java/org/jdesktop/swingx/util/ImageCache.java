@@ -0,0 +1,282 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.util;
+
+import java.awt.image.BufferedImage;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread-safe cache of images, bounded by the estimated number of bytes
+ * the images hold. <p>
+ *
+ * If adding an image exceeds the budget, the least recently used images
+ * are evicted. Images are held by soft references, so the garbage collector
+ * may clear them before the budget is reached if memory runs low. Images
+ * larger than the budget are not cached at all. <p>
+ *
+ * The keys must be value objects, that is implement <code>equals</code> and
+ * <code>hashCode</code> based on all properties the image depends on. <p>
+ *
+ * The cache keeps statistics of hits, misses and evictions, to allow tuning
+ * the budget:
+ *
+ * <pre><code>
+ * ImageCache&lt;ShadowKey&gt; cache = new ImageCache&lt;ShadowKey&gt;(4 * 1024 * 1024);
+ * BufferedImage image = cache.get(key);
+ * if (image == null) {
+ *     image = createShadow(key);
+ *     cache.put(key, image);
+ * }
+ * </code></pre>
+ *
+ * @param <K> the type of the keys
+ */
+public class ImageCache<K> {
+
+    private final Map<K, Entry<K>> entries = new LinkedHashMap<K, Entry<K>>(16, 0.75f, true);
+    private final ReferenceQueue<BufferedImage> queue = new ReferenceQueue<BufferedImage>();
+
+    private long maxBytes;
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Instantiates a cache with the given budget.
+     *
+     * @param maxBytes the maximal number of bytes held by cached images,
+     *   must not be negative
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    public ImageCache(long maxBytes) {
+        setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Returns the image cached for the given key or null if none.
+     *
+     * @param key the key to look up
+     * @return the cached image or null if none
+     */
+    public synchronized BufferedImage get(K key) {
+        purge();
+        Entry<K> entry = entries.get(key);
+        BufferedImage image = entry != null ? entry.get() : null;
+        if (image != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return image;
+    }
+
+    /**
+     * Caches the image for the given key, replacing a former image for the
+     * same key. Evicts the least recently used images until the budget
+     * is met. Does nothing if the image alone exceeds the budget.
+     *
+     * @param key the key to cache the image for, must not be null
+     * @param image the image to cache, must not be null
+     * @throws NullPointerException if key or image is null
+     */
+    public synchronized void put(K key, BufferedImage image) {
+        Contract.asNotNull(key, "key must not be null");
+        Contract.asNotNull(image, "image must not be null");
+        purge();
+        remove(key);
+        long size = sizeOf(image);
+        if (size > maxBytes) return;
+        entries.put(key, new Entry<K>(key, image, size, queue));
+        bytes += size;
+        trim();
+    }
+
+    /**
+     * Removes the image cached for the given key, if any.
+     *
+     * @param key the key to remove
+     */
+    public synchronized void remove(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry != null) {
+            entry.removed = true;
+            bytes -= entry.bytes;
+        }
+    }
+
+    /**
+     * Removes all cached images. The statistics are unchanged.
+     */
+    public synchronized void clear() {
+        for (Entry<K> entry : entries.values()) {
+            entry.removed = true;
+        }
+        entries.clear();
+        bytes = 0;
+        purge();
+    }
+
+    /**
+     * Sets the budget, evicts the least recently used images if needed.
+     *
+     * @param maxBytes the maximal number of bytes held by cached images,
+     *   must not be negative
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("budget must not be negative, was: " + maxBytes);
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    /**
+     * @return the maximal number of bytes held by cached images
+     */
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the estimated number of bytes held by the cached images
+     */
+    public synchronized long getByteCount() {
+        purge();
+        return bytes;
+    }
+
+    /**
+     * @return the number of cached images
+     */
+    public synchronized int size() {
+        purge();
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups which returned a cached image
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of lookups which returned null
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of images evicted for budget or cleared by the
+     *   garbage collector
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the ratio of hits to all lookups, 0 if there was no lookup
+     */
+    public synchronized double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Resets hit, miss and eviction counts to 0.
+     */
+    public synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    /**
+     * Returns the estimated number of bytes held by the given image,
+     * based on its dimension and pixel size.
+     *
+     * @param image the image to estimate the size of
+     * @return the estimated number of bytes held by the image
+     */
+    public static long sizeOf(BufferedImage image) {
+        int bitsPerPixel = image.getColorModel().getPixelSize();
+        return ((long) image.getWidth() * image.getHeight() * bitsPerPixel + 7) / 8;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return getClass().getSimpleName() + "[images=" + entries.size()
+            + ", bytes=" + bytes + "/" + maxBytes
+            + ", hits=" + hitCount + ", misses=" + missCount
+            + ", evictions=" + evictionCount + "]";
+    }
+
+    /**
+     * Evicts the least recently used images until the budget is met.
+     */
+    private void trim() {
+        Iterator<Entry<K>> iterator = entries.values().iterator();
+        while ((bytes > maxBytes) && iterator.hasNext()) {
+            Entry<K> entry = iterator.next();
+            iterator.remove();
+            entry.removed = true;
+            bytes -= entry.bytes;
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Removes the entries of images cleared by the garbage collector. Entries
+     * already removed are skipped by their flag: looking them up would count
+     * as access and reorder a newer entry for the same key.
+     */
+    @SuppressWarnings("unchecked")
+    private void purge() {
+        Entry<K> entry;
+        while ((entry = (Entry<K>) queue.poll()) != null) {
+            if (!entry.removed) {
+                entries.remove(entry.key);
+                entry.removed = true;
+                bytes -= entry.bytes;
+                evictionCount++;
+            }
+        }
+    }
+
+    /**
+     * Soft reference to a cached image, remembers its key and size and 
+     * whether it has been removed from the map.
+     */
+    private static class Entry<K> extends SoftReference<BufferedImage> {
+        final K key;
+        final long bytes;
+        boolean removed;
+
+        Entry(K key, BufferedImage image, long bytes, ReferenceQueue<BufferedImage> queue) {
+            super(image, queue);
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,557 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.util;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EventListener;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.SwingUtilities;
+
+/**
+ * Creates thumbnails of many images in the background. <p>
+ *
+ * The sources are images or URLs of images, which are decoded with ImageIO,
+ * subsampled to no less than twice the size of the thumbnail. Each source is
+ * scaled down progressively, like
+ * {@link GraphicsUtilities#createThumbnail(BufferedImage, int)}, reusing the
+ * intermediate images of the previous source. At most
+ * {@link #getParallelism() parallelism} sources are processed at once, on the
+ * {@link #getExecutor() executor}, and no more than {@link #getMaxBytes()}
+ * estimated bytes of decoded and intermediate images are held at once. The
+ * intermediate images kept for the next source count against the budget, they 
+ * are dropped if the next source would have to wait for them. A source
+ * exceeding the budget alone is processed once no other source is. <p>
+ *
+ * The thumbnails are passed to the listener on the event dispatch thread, as
+ * they are created, in batches of events:
+ *
+ * <pre><code>
+ * ThumbnailGenerator generator = new ThumbnailGenerator(96);
+ * generator.createThumbnails(urls, new ThumbnailListener() {
+ *     public void thumbnailCreated(Object source, BufferedImage thumbnail) {
+ *         model.setThumbnail((URL) source, thumbnail);
+ *     }
+ *
+ *     public void thumbnailFailed(Object source, Exception e) {
+ *         model.setThumbnail((URL) source, brokenImage);
+ *     }
+ * });
+ * </code></pre>
+ */
+@SuppressWarnings("nls")
+public class ThumbnailGenerator {
+
+    /**
+     * The listener notified of the thumbnails created by a
+     * <code>ThumbnailGenerator</code>, on the event dispatch thread.
+     */
+    public interface ThumbnailListener extends EventListener {
+        /**
+         * Notifies that the thumbnail of the source has been created.
+         *
+         * @param source the image or URL the thumbnail was created from
+         * @param thumbnail the thumbnail
+         */
+        void thumbnailCreated(Object source, BufferedImage thumbnail);
+
+        /**
+         * Notifies that the source could not be read or scaled.
+         *
+         * @param source the image or URL the thumbnail was not created from
+         * @param e the exception thrown
+         */
+        void thumbnailFailed(Object source, Exception e);
+    }
+
+    /** the default budget of decoded and intermediate images, in bytes. */
+    public static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+
+    private static ExecutorService defaultExecutor;
+
+    private final int size;
+    private Executor executor;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    // guarded by the queue
+    private final Queue<Task> tasks = new LinkedList<Task>();
+    private int workerCount;
+    private int generation;
+
+    // guarded by this
+    private long reservedBytes;
+
+    private final Queue<Task> results = new ConcurrentLinkedQueue<Task>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * Instantiates a generator of thumbnails of the given size.
+     *
+     * @param size the length of the largest dimension of the thumbnails,
+     *   must be greater than 0
+     * @throws IllegalArgumentException if size is not greater than 0
+     */
+    public ThumbnailGenerator(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be greater than 0");
+        }
+        this.size = size;
+    }
+
+    /**
+     * Returns the length of the largest dimension of the thumbnails. Smaller
+     * sources are copied at their size.
+     *
+     * @return the size of the thumbnails
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the executor to create the thumbnails on. If null, a shared pool of
+     * daemon threads is used.
+     *
+     * @param executor the executor to create the thumbnails on
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the executor to create the thumbnails on, or null for the
+     * shared pool.
+     *
+     * @return the executor to create the thumbnails on
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the maximal number of sources processed at once. Defaults to the
+     * number of available processors.
+     *
+     * @param parallelism the maximal number of sources processed at once,
+     *   must be greater than 0
+     * @throws IllegalArgumentException if parallelism is not greater than 0
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+        synchronized (tasks) {
+            this.parallelism = parallelism;
+        }
+    }
+
+    /**
+     * Returns the maximal number of sources processed at once.
+     *
+     * @return the maximal number of sources processed at once
+     */
+    public int getParallelism() {
+        synchronized (tasks) {
+            return parallelism;
+        }
+    }
+
+    /**
+     * Sets the estimated number of bytes the decoded and intermediate images
+     * may hold at once. Defaults to {@link #DEFAULT_MAX_BYTES}.
+     *
+     * @param maxBytes the budget of decoded and intermediate images, must be
+     *   greater than 0
+     * @throws IllegalArgumentException if maxBytes is not greater than 0
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be greater than 0");
+        }
+        this.maxBytes = maxBytes;
+        notifyAll();
+    }
+
+    /**
+     * Returns the estimated number of bytes the decoded and intermediate
+     * images may hold at once.
+     *
+     * @return the budget of decoded and intermediate images
+     */
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Creates the thumbnails of the sources in the background, in order, after
+     * the sources passed before. The listener is notified of each thumbnail
+     * on the event dispatch thread.
+     *
+     * @param sources the images or URLs to create thumbnails of
+     * @param listener the listener to notify
+     * @throws NullPointerException if sources, one of them or the listener is
+     *   null
+     * @throws IllegalArgumentException if a source is neither a
+     *   <code>BufferedImage</code> nor a <code>URL</code>
+     */
+    public void createThumbnails(Collection<?> sources, ThumbnailListener listener) {
+        Contract.asNotNull(listener, "listener must not be null");
+        List<Task> added = new ArrayList<Task>(sources.size());
+        synchronized (tasks) {
+            for (Object source : sources) {
+                Contract.asNotNull(source, "source must not be null");
+                if (!(source instanceof BufferedImage) && !(source instanceof URL)) {
+                    throw new IllegalArgumentException("source must be an image or URL: "
+                            + source);
+                }
+                added.add(new Task(source, listener, generation));
+            }
+            tasks.addAll(added);
+            int workers = Math.min(parallelism - workerCount, tasks.size());
+            for (int i = 0; i < workers; i++) {
+                startWorker();
+            }
+        }
+    }
+
+    /**
+     * Drops the sources passed so far. The thumbnails being created are
+     * dropped as well, the listeners are notified of no thumbnail created
+     * after this call.
+     */
+    public void cancel() {
+        synchronized (tasks) {
+            tasks.clear();
+            generation++;
+        }
+    }
+
+    private void startWorker() {
+        workerCount++;
+        Runnable worker = new Worker();
+        try {
+            (executor != null ? executor : getDefaultExecutor()).execute(worker);
+        } catch (RuntimeException e) {
+            workerCount--;
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the next task, or null after decrementing the worker count if
+     * there is none left.
+     */
+    private Task nextTask() {
+        synchronized (tasks) {
+            Task task = tasks.poll();
+            if (task == null) {
+                workerCount--;
+            }
+            return task;
+        }
+    }
+
+    private void process(Task task, Worker worker) {
+        try {
+            if (isCancelled(task)) {
+                return;
+            }
+            if (task.source instanceof URL) {
+                task.thumbnail = load((URL) task.source, worker);
+            } else {
+                BufferedImage image = (BufferedImage) task.source;
+                // the source is in memory already, only the intermediate images count
+                long bytes = worker.reserve(ImageCache.sizeOf(image) / 2);
+                try {
+                    task.thumbnail = scale(image, worker.scratch);
+                } finally {
+                    worker.release(bytes);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.exception = e;
+        } catch (Exception e) {
+            task.exception = e;
+        }
+        deliver(task);
+    }
+
+    /**
+     * Decodes the image at the URL, subsampled to no less than twice the size
+     * of the thumbnail, and scales it down.
+     */
+    private BufferedImage load(URL url, Worker worker)
+            throws IOException, InterruptedException {
+        InputStream in = url.openStream();
+        try {
+            ImageInputStream input = ImageIO.createImageInputStream(in);
+            if (input == null) {
+                throw new IOException("cannot read " + url);
+            }
+            try {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+                if (!readers.hasNext()) {
+                    throw new IOException("no image reader for " + url);
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    int width = reader.getWidth(0);
+                    int height = reader.getHeight(0);
+                    int[] thumbnailSize = getThumbnailSize(width, height);
+                    int subsampling = Math.max(1, Math.min(width / (2 * thumbnailSize[0]),
+                            height / (2 * thumbnailSize[1])));
+                    long decodedBytes = 4L * ((width + subsampling - 1) / subsampling)
+                            * ((height + subsampling - 1) / subsampling);
+
+                    // the decoded image and the intermediate images, of a quarter of it each
+                    long bytes = worker.reserve(decodedBytes + decodedBytes / 2);
+                    try {
+                        ImageReadParam param = reader.getDefaultReadParam();
+                        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                        return scale(reader.read(0, param), worker.scratch);
+                    } finally {
+                        worker.release(bytes);
+                    }
+                } finally {
+                    reader.dispose();
+                }
+            } finally {
+                input.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image, BufferedImage[] scratch) {
+        int[] thumbnailSize = getThumbnailSize(image.getWidth(), image.getHeight());
+        return GraphicsUtilities.createThumbnail(image, thumbnailSize[0], thumbnailSize[1],
+                scratch);
+    }
+
+    /**
+     * Returns the width and height of the thumbnail of an image of the given
+     * dimension, keeping the ratio of the dimension.
+     */
+    private int[] getThumbnailSize(int width, int height) {
+        if (width <= size && height <= size) {
+            return new int[] {width, height};
+        }
+        if (width > height) {
+            return new int[] {size, Math.max(1, (int) ((long) height * size / width))};
+        }
+        return new int[] {Math.max(1, (int) ((long) width * size / height)), size};
+    }
+
+    /**
+     * Waits until the bytes fit into the budget and reserves them. Bytes
+     * exceeding the budget alone are reserved once nothing else is.
+     *
+     * @return the bytes reserved
+     */
+    private synchronized long reserve(long bytes) throws InterruptedException {
+        while ((reservedBytes > 0) && (reservedBytes + bytes > maxBytes)) {
+            wait();
+        }
+        reservedBytes += bytes;
+        return bytes;
+    }
+
+    /**
+     * Reserves the bytes if they fit into the budget, without waiting.
+     *
+     * @return true if reserved
+     */
+    private synchronized boolean tryReserve(long bytes) {
+        if ((reservedBytes > 0) && (reservedBytes + bytes > maxBytes)) {
+            return false;
+        }
+        reservedBytes += bytes;
+        return true;
+    }
+
+    private synchronized void release(long bytes) {
+        reservedBytes -= bytes;
+        notifyAll();
+    }
+
+    /**
+     * @return the bytes currently reserved, exposed for testing
+     */
+    synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    private boolean isCancelled(Task task) {
+        synchronized (tasks) {
+            return task.generation != generation;
+        }
+    }
+
+    /**
+     * Queues the task for notification on the event dispatch thread, along
+     * with the tasks completing before the notification runs.
+     */
+    private void deliver(Task task) {
+        results.add(task);
+        if (flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    flushScheduled.set(false);
+                    Task result;
+                    while ((result = results.poll()) != null) {
+                        if (isCancelled(result)) {
+                            continue;
+                        }
+                        if (result.exception != null) {
+                            result.listener.thumbnailFailed(result.source, result.exception);
+                        } else {
+                            result.listener.thumbnailCreated(result.source, result.thumbnail);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private static synchronized Executor getDefaultExecutor() {
+        if (defaultExecutor == null) {
+            defaultExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+                    10, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                    new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "ThumbnailGenerator "
+                                    + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Processes tasks until there is none left. Keeps the intermediate images
+     * from source to source, their bytes stay reserved in between.
+     */
+    private class Worker implements Runnable {
+        final BufferedImage[] scratch = new BufferedImage[2];
+        private long scratchBytes;
+
+        @Override
+        public void run() {
+            try {
+                Task task;
+                while ((task = nextTask()) != null) {
+                    process(task, this);
+                }
+            } finally {
+                dropScratch();
+            }
+        }
+
+        /**
+         * Reserves the bytes needed by a source, counting the bytes of the
+         * intermediate images held as part of them. Drops the intermediate
+         * images instead of waiting while holding them.
+         *
+         * @return the bytes reserved for the source, including those of the
+         *   intermediate images
+         */
+        long reserve(long bytes) throws InterruptedException {
+            long missing = Math.max(0, bytes - scratchBytes);
+            if (tryReserve(missing)) {
+                return scratchBytes + missing;
+            }
+            dropScratch();
+            return ThumbnailGenerator.this.reserve(bytes);
+        }
+
+        /**
+         * Releases the bytes reserved for a source except those of the
+         * intermediate images kept. Drops the intermediate images if they
+         * exceed the reserved bytes.
+         */
+        void release(long bytes) {
+            long kept = sizeOf(scratch[0]) + sizeOf(scratch[1]);
+            if (kept > bytes) {
+                scratch[0] = null;
+                scratch[1] = null;
+                kept = 0;
+            }
+            scratchBytes = kept;
+            ThumbnailGenerator.this.release(bytes - kept);
+        }
+
+        private void dropScratch() {
+            scratch[0] = null;
+            scratch[1] = null;
+            ThumbnailGenerator.this.release(scratchBytes);
+            scratchBytes = 0;
+        }
+
+        private long sizeOf(BufferedImage image) {
+            return image != null ? ImageCache.sizeOf(image) : 0;
+        }
+    }
+
+    /**
+     * A source to create the thumbnail of, and the result.
+     */
+    private static class Task {
+        final Object source;
+        final ThumbnailListener listener;
+        final int generation;
+        BufferedImage thumbnail;
+        Exception exception;
+
+        Task(Object source, ThumbnailListener listener, int generation) {
+            this.source = source;
+            this.listener = listener;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.jdesktop.swingx.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.awt.image.BufferedImage;
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ImageCacheTest {
+    private ImageCache<String> cache;
+
+    @Before
+    public void setUp() {
+        // room for 2 images of 10x10 int pixels
+        cache = new ImageCache<String>(800);
+    }
+
+    @Test
+    public void testSizeOf() {
+        assertThat(ImageCache.sizeOf(createImage()), is(400L));
+    }
+
+    @Test
+    public void testGetPut() {
+        BufferedImage image = createImage();
+        assertThat(cache.get("a"), nullValue());
+        cache.put("a", image);
+        assertThat(cache.get("a"), sameInstance(image));
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.getHitRate(), is(0.5));
+        assertThat(cache.getByteCount(), is(400L));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        BufferedImage a = createImage();
+        cache.put("a", a);
+        cache.put("b", createImage());
+        // touch a, b is least recently used
+        cache.get("a");
+        cache.put("c", createImage());
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get("a"), sameInstance(a));
+        assertThat(cache.get("b"), nullValue());
+        assertThat(cache.getEvictionCount(), is(1L));
+        assertThat(cache.getByteCount(), is(800L));
+    }
+
+    @Test
+    public void testReplace() {
+        cache.put("a", createImage());
+        BufferedImage replaced = createImage();
+        cache.put("a", replaced);
+        assertThat(cache.size(), is(1));
+        assertThat(cache.getByteCount(), is(400L));
+        assertThat(cache.get("a"), sameInstance(replaced));
+    }
+
+    /**
+     * A replaced entry cleared by the garbage collector must not touch the
+     * newer entry for the same key.
+     */
+    @Test
+    public void testPurgeKeepsOrder() throws Exception {
+        cache.put("a", createImage());
+        Field field = ImageCache.class.getDeclaredField("entries");
+        field.setAccessible(true);
+        Reference<?> replaced = (Reference<?>) ((Map<?, ?>) field.get(cache)).get("a");
+        cache.put("a", createImage());
+        BufferedImage b = createImage();
+        cache.put("b", b);
+        // as if cleared by the garbage collector
+        replaced.enqueue();
+        cache.put("c", createImage());
+        assertThat(cache.get("a"), nullValue());
+        assertThat(cache.get("b"), sameInstance(b));
+        assertThat(cache.getByteCount(), is(800L));
+    }
+
+    @Test
+    public void testTooLarge() {
+        cache.put("a", new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB));
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getByteCount(), is(0L));
+    }
+
+    @Test
+    public void testShrinkBudget() {
+        cache.put("a", createImage());
+        cache.put("b", createImage());
+        cache.setMaxBytes(400);
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get("a"), nullValue());
+        cache.clear();
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getByteCount(), is(0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeBudget() {
+        cache.setMaxBytes(-1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPutNull() {
+        cache.put("a", null);
+    }
+
+    private BufferedImage createImage() {
+        return new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    }
+}
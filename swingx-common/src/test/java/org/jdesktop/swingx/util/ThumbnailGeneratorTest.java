@@ -0,0 +1,261 @@
+package org.jdesktop.swingx.util;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import org.jdesktop.swingx.util.ThumbnailGenerator.ThumbnailListener;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class ThumbnailGeneratorTest {
+
+    @Test
+    public void testThumbnailsOfImages() throws Exception {
+        BufferedImage wide = createImage(400, 100, Color.RED, BufferedImage.TYPE_INT_RGB);
+        BufferedImage tall = createImage(50, 200, Color.BLUE, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage small = createImage(20, 10, Color.GREEN, BufferedImage.TYPE_INT_RGB);
+        Recorder recorder = new Recorder(3);
+        new ThumbnailGenerator(40).createThumbnails(Arrays.asList(wide, tall, small), recorder);
+        recorder.await();
+
+        assertThat(recorder.sources, is(Arrays.<Object>asList(wide, tall, small)));
+        assertSize(recorder.thumbnails.get(0), 40, 10);
+        assertThat(recorder.thumbnails.get(0).getRGB(20, 5), is(Color.RED.getRGB()));
+        assertSize(recorder.thumbnails.get(1), 10, 40);
+        assertThat(recorder.thumbnails.get(1).getTransparency(), is(Transparency.TRANSLUCENT));
+        assertThat(recorder.thumbnails.get(1).getRGB(5, 20), is(Color.BLUE.getRGB()));
+        // smaller than the thumbnail size, copied
+        assertSize(recorder.thumbnails.get(2), 20, 10);
+    }
+
+    @Test
+    public void testThumbnailOfUrl() throws Exception {
+        File file = File.createTempFile("thumbnail", ".png");
+        file.deleteOnExit();
+        ImageIO.write(createImage(300, 150, Color.ORANGE, BufferedImage.TYPE_INT_RGB), "png", file);
+        URL url = file.toURI().toURL();
+        URL missing = new File(file.getParentFile(), "missing-" + file.getName()).toURI().toURL();
+        Recorder recorder = new Recorder(2);
+        new ThumbnailGenerator(30).createThumbnails(Arrays.asList(url, missing), recorder);
+        recorder.await();
+
+        assertThat(recorder.sources.get(0), is((Object) url));
+        assertSize(recorder.thumbnails.get(0), 30, 15);
+        assertThat(recorder.thumbnails.get(0).getRGB(15, 7), is(Color.ORANGE.getRGB()));
+        assertThat(recorder.failures.size(), is(1));
+        assertThat(recorder.failures.get(0), is(instanceOf(IOException.class)));
+    }
+
+    /**
+     * The budget limits the images processed at once, a source exceeding it
+     * is processed alone.
+     */
+    @Test
+    public void testMaxBytes() throws Exception {
+        int size = 200 * 200 * 4;
+        // the intermediate images of one source only
+        assertThat(getMaxRunning(size / 2), is(1));
+        assertTrue(getMaxRunning(size) > 1);
+        // exceeding the budget alone
+        assertThat(getMaxRunning(size / 4), is(1));
+    }
+
+    /**
+     * Returns the maximal number of sources scaled at once with the budget.
+     */
+    private int getMaxRunning(long maxBytes) throws Exception {
+        final int[] running = new int[2];
+        List<BufferedImage> sources = new ArrayList<BufferedImage>();
+        for (int i = 0; i < 8; i++) {
+            sources.add(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB) {
+                @Override
+                public int getTransparency() {
+                    // called while scaling
+                    synchronized (running) {
+                        running[0]++;
+                        running[1] = Math.max(running[1], running[0]);
+                    }
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    synchronized (running) {
+                        running[0]--;
+                    }
+                    return super.getTransparency();
+                }
+            });
+        }
+        ThumbnailGenerator generator = new ThumbnailGenerator(10);
+        generator.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                new Thread(command).start();
+            }
+        });
+        generator.setParallelism(4);
+        generator.setMaxBytes(maxBytes);
+        Recorder recorder = new Recorder(sources.size());
+        generator.createThumbnails(sources, recorder);
+        recorder.await();
+        assertThat(recorder.thumbnails.size(), is(sources.size()));
+        return running[1];
+    }
+
+    /**
+     * The intermediate images kept for the next source stay reserved until
+     * the worker ends.
+     */
+    @Test
+    public void testScratchReserved() throws Exception {
+        final ThumbnailGenerator generator = new ThumbnailGenerator(10);
+        final long[] reserved = new long[1];
+        BufferedImage small = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB) {
+            @Override
+            public int getTransparency() {
+                reserved[0] = generator.getReservedBytes();
+                return super.getTransparency();
+            }
+        };
+        final List<Runnable> commands = new ArrayList<Runnable>();
+        generator.setParallelism(1);
+        generator.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                commands.add(command);
+            }
+        });
+        Recorder recorder = new Recorder(2);
+        generator.createThumbnails(Arrays.asList(
+                createImage(400, 400, Color.RED, BufferedImage.TYPE_INT_RGB), small), recorder);
+        commands.get(0).run();
+        recorder.await();
+        // the intermediate images of the large source, half its size and a quarter
+        long scratchBytes = ImageCache.sizeOf(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB))
+                + ImageCache.sizeOf(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB));
+        assertThat(reserved[0], is(scratchBytes));
+        assertThat(generator.getReservedBytes(), is(0L));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final List<Runnable> commands = new ArrayList<Runnable>();
+        ThumbnailGenerator generator = new ThumbnailGenerator(10);
+        generator.setParallelism(1);
+        generator.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                commands.add(command);
+            }
+        });
+        Recorder recorder = new Recorder(1);
+        generator.createThumbnails(Collections.singletonList(
+                createImage(100, 100, Color.RED, BufferedImage.TYPE_INT_RGB)), recorder);
+        generator.cancel();
+        BufferedImage image = createImage(100, 100, Color.RED, BufferedImage.TYPE_INT_RGB);
+        generator.createThumbnails(Collections.singletonList(image), recorder);
+        // a single worker was started
+        assertThat(commands.size(), is(1));
+        commands.get(0).run();
+        recorder.await();
+        assertThat(recorder.sources, is(Collections.<Object>singletonList(image)));
+    }
+
+    @Test
+    public void testScratchReused() {
+        BufferedImage[] scratch = new BufferedImage[2];
+        BufferedImage image = createImage(400, 400, Color.RED, BufferedImage.TYPE_INT_RGB);
+        BufferedImage thumbnail = GraphicsUtilities.createThumbnail(image, 40, 40, scratch);
+        assertSize(thumbnail, 40, 40);
+        BufferedImage first = scratch[0];
+        BufferedImage second = scratch[1];
+        assertSize(first, 200, 200);
+        assertSize(second, 100, 100);
+        thumbnail = GraphicsUtilities.createThumbnail(
+                createImage(300, 300, Color.BLUE, BufferedImage.TYPE_INT_RGB), 30, 30, scratch);
+        assertThat(scratch[0], sameInstance(first));
+        assertThat(scratch[1], sameInstance(second));
+        assertThat(thumbnail.getRGB(15, 15), is(Color.BLUE.getRGB()));
+        assertThat(thumbnail.getRGB(29, 29), is(Color.BLUE.getRGB()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalSource() {
+        new ThumbnailGenerator(10).createThumbnails(Arrays.asList("image.png"), new Recorder(0));
+    }
+
+    private static void assertSize(BufferedImage image, int width, int height) {
+        assertThat(image.getWidth(), is(width));
+        assertThat(image.getHeight(), is(height));
+    }
+
+    private static BufferedImage createImage(int width, int height, Color color, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Records the notifications, which must happen on the EDT.
+     */
+    private static class Recorder implements ThumbnailListener {
+        final List<Object> sources = new ArrayList<Object>();
+        final List<BufferedImage> thumbnails = new ArrayList<BufferedImage>();
+        final List<Exception> failures = new ArrayList<Exception>();
+        private final CountDownLatch latch;
+
+        Recorder(int count) {
+            latch = new CountDownLatch(count);
+        }
+
+        @Override
+        public void thumbnailCreated(Object source, BufferedImage thumbnail) {
+            assertTrue(SwingUtilities.isEventDispatchThread());
+            sources.add(source);
+            thumbnails.add(thumbnail);
+            latch.countDown();
+        }
+
+        @Override
+        public void thumbnailFailed(Object source, Exception e) {
+            assertTrue(SwingUtilities.isEventDispatchThread());
+            failures.add(e);
+            latch.countDown();
+        }
+
+        void await() throws Exception {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            // let the notifications of the same batch complete
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+        }
+    }
+}
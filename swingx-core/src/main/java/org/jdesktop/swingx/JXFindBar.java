@@ -22,6 +22,7 @@ package org.jdesktop.swingx;
 
 import java.awt.Color;
 import java.awt.FlowLayout;
+import java.text.MessageFormat;
 
 import javax.swing.JButton;
 import javax.swing.JLabel;
@@ -29,6 +30,9 @@ import javax.swing.KeyStroke;
 import javax.swing.SwingConstants;
 
 import org.jdesktop.beans.JavaBean;
+import org.jdesktop.swingx.search.AbstractSearchable;
+import org.jdesktop.swingx.search.AbstractSearchable.FindAllCallback;
+import org.jdesktop.swingx.search.MatchIndex;
 import org.jdesktop.swingx.search.Searchable;
 
 /**
@@ -49,6 +53,9 @@ import org.jdesktop.swingx.search.Searchable;
  * </ul>
  * 
  * This implementation uses textfield coloring as not-found visualization.
+ * Optionally shows the position of the current match and the number of all
+ * matches, if the searchable is an {@link AbstractSearchable} supporting 
+ * {@link AbstractSearchable#findAll(java.util.regex.Pattern)}.
  * 
  * <p>
  * PENDING: the coloring needs to be read from the UIManager instead of
@@ -78,6 +85,10 @@ public class JXFindBar extends JXFindPanel {
 
     protected JButton findPrevious;
 
+    protected JLabel matchCountLabel;
+
+    private boolean matchCountVisible;
+
     public JXFindBar() {
         this(null);
     }
@@ -101,6 +112,7 @@ public class JXFindBar extends JXFindPanel {
     protected void showNotFoundMessage() {
         //JW: quick hack around #487-swingx - NPE in setSearchable
         if (searchField ==  null) return;
+        updateMatchCount();
         searchField.setForeground(notFoundForegroundColor);
         searchField.setBackground(notFoundBackgroundColor);
     }
@@ -112,10 +124,74 @@ public class JXFindBar extends JXFindPanel {
     protected void showFoundMessage() {
         //JW: quick hack around #487-swingx - NPE in setSearchable
         if (searchField ==  null) return;
+        updateMatchCount();
         searchField.setBackground(previousBackgroundColor);
         searchField.setForeground(previousForegroundColor);
     }
 
+    /**
+     * Sets the visibility of the match count, that is the position of the 
+     * current match and the number of all matches. The default is false. <p>
+     * 
+     * Counting all matches requires an index of the matches, which
+     * is built once per pattern and then used for navigation as well. 
+     * 
+     * @param visible true to show the match count
+     * @see AbstractSearchable#findAll(java.util.regex.Pattern)
+     */
+    public void setMatchCountVisible(boolean visible) {
+        boolean old = isMatchCountVisible();
+        this.matchCountVisible = visible;
+        if (matchCountLabel != null) {
+            matchCountLabel.setVisible(visible);
+        }
+        firePropertyChange("matchCountVisible", old, isMatchCountVisible());
+    }
+
+    /**
+     * Returns the visibility of the match count.
+     * 
+     * @return true if the match count is shown
+     */
+    public boolean isMatchCountVisible() {
+        return matchCountVisible;
+    }
+
+    /**
+     * Updates the match count label from the searchable's match index.
+     * The index is built on the searchable's search executor, if any, and 
+     * the label is updated when done. Does nothing if the match count is 
+     * not visible.
+     * 
+     * @see AbstractSearchable#findAllInBackground(java.util.regex.Pattern, FindAllCallback)
+     */
+    protected void updateMatchCount() {
+        if (!isMatchCountVisible() || (matchCountLabel == null)) return;
+        if (!(searchable instanceof AbstractSearchable) || getPatternModel().isEmpty()) {
+            matchCountLabel.setText("");
+            return;
+        }
+        final AbstractSearchable target = (AbstractSearchable) searchable;
+        target.findAllInBackground(getPatternModel().getPattern(), new FindAllCallback() {
+            @Override
+            public void findAllFinished(MatchIndex index) {
+                // the searchable might have been replaced meanwhile
+                if (searchable != target) return;
+                setMatchCount(target, index);
+            }
+        });
+    }
+
+    private void setMatchCount(AbstractSearchable target, MatchIndex index) {
+        if (index == null) {
+            matchCountLabel.setText("");
+            return;
+        }
+        int position = target.getMatchPosition();
+        matchCountLabel.setText(MessageFormat.format(getUIString("matchCount"), 
+                position + 1, index.getMatchCount()));
+    }
+
     @Override
     public void addNotify() {
         super.addNotify();
@@ -171,6 +247,7 @@ public class JXFindBar extends JXFindPanel {
         add(searchField);
         add(findNext);
         add(findPrevious);
+        add(matchCountLabel);
     }
 
     @Override
@@ -178,6 +255,8 @@ public class JXFindBar extends JXFindPanel {
         super.initComponents();
         findNext = new JButton();
         findPrevious = new JButton();
+        matchCountLabel = new JLabel();
+        matchCountLabel.setVisible(isMatchCountVisible());
     }
 
 }
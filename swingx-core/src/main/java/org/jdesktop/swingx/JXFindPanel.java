@@ -32,6 +32,7 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 
 import org.jdesktop.beans.JavaBean;
+import org.jdesktop.swingx.search.AbstractSearchable;
 import org.jdesktop.swingx.search.PatternModel;
 import org.jdesktop.swingx.search.Searchable;
 
@@ -181,15 +182,24 @@ public class JXFindPanel extends AbstractPatternPanel {
      * Common standalone method to perform search. Used by the action callback methods 
      * for Find/FindNext/FindPrevious actions. Finds next/previous match using current 
      * setting of direction flag. Result is being reporred using showFoundMessage and 
-     * showNotFoundMessage methods respectively.
+     * showNotFoundMessage methods respectively.<p>
+     * 
+     * Searches in the background if the searchable is an AbstractSearchable 
+     * with a search executor.
      *
      * @see #match
      * @see #findNext
      * @see #findPrevious
+     * @see AbstractSearchable#setSearchExecutor(java.util.concurrent.Executor)
      */
     protected void doFind() {
         if (searchable == null)
             return;
+        if ((searchable instanceof AbstractSearchable) 
+                && (((AbstractSearchable) searchable).getSearchExecutor() != null)) {
+            doFindInBackground((AbstractSearchable) searchable, true);
+            return;
+        }
         int foundIndex = doSearch();
         boolean notFound = (foundIndex == -1) && !getPatternModel().isEmpty();
         if (notFound) {
@@ -204,6 +214,37 @@ public class JXFindPanel extends AbstractPatternPanel {
         }
     }
 
+    /**
+     * Searches in the background, wraps once if not found and wrapping is on. 
+     * Reports the result on the EDT, the same way as doFind. A search started 
+     * later supersedes this one.
+     * 
+     * @param searchable the searchable to search in the background
+     * @param wrap true if a wrapping search should be started if not found
+     */
+    private void doFindInBackground(final AbstractSearchable searchable, final boolean wrap) {
+        searchable.searchInBackground(getPatternModel().getPattern(), 
+                getPatternModel().getFoundIndex(), getPatternModel().isBackwards(), 
+                new AbstractSearchable.SearchCallback() {
+            
+            @Override
+            public void searchFinished(int foundIndex) {
+                getPatternModel().setFoundIndex(foundIndex);
+                boolean notFound = (getPatternModel().getFoundIndex() == -1) 
+                    && !getPatternModel().isEmpty();
+                if (notFound && wrap && getPatternModel().isWrapping()) {
+                    doFindInBackground(searchable, false);
+                    return;
+                }
+                if (notFound) {
+                    showNotFoundMessage();
+                } else {
+                    showFoundMessage();
+                }
+            }
+        });
+    }
+
     /**
      * Performs search and returns index of the next match.
      *
@@ -272,6 +272,8 @@ public class JXList extends JList {
 
     private Point popupTriggerLocation;
 
+    private int estimatedCellHeight = -1;
+
     /**
     * Constructs a <code>JXList</code> with an empty model and filters disabled.
     *
@@ -1606,6 +1608,36 @@ public class JXList extends JList {
             ((BasicXListUI) getUI()).invalidateCellSizeCache();
         }
     }
+
+    /**
+     * Sets the estimated height of cells which are not yet measured. If positive
+     * and the cell height is not fixed, the ui delegate may use the estimate for all
+     * cells and measure the real cell heights only when the cells are painted, 
+     * instead of measuring all cells up front. This keeps start-up and model changes
+     * of huge vertical lists with variable cell heights cheap, at the price of
+     * preferred size and scrollbar changing while scrolling.<p>
+     * 
+     * The default value is -1, that is all cells are measured.
+     * 
+     * @param height the estimated cell height, a value &lt;= 0 disables 
+     *   estimation.
+     * @see #getEstimatedCellHeight()
+     */
+    public void setEstimatedCellHeight(int height) {
+        int old = getEstimatedCellHeight();
+        this.estimatedCellHeight = height > 0 ? height : -1;
+        firePropertyChange("estimatedCellHeight", old, getEstimatedCellHeight());
+    }
+    
+    /**
+     * Returns the estimated height of cells which are not yet measured.
+     * 
+     * @return the estimated cell height, -1 if cell heights are not estimated
+     * @see #setEstimatedCellHeight(int)
+     */
+    public int getEstimatedCellHeight() {
+        return estimatedCellHeight;
+    }
     
     // --------------------------- updateUI
 
@@ -27,6 +27,7 @@ import java.awt.Component;
 import java.awt.ComponentOrientation;
 import java.awt.Container;
 import java.awt.Dimension;
+import java.awt.Graphics;
 import java.awt.KeyboardFocusManager;
 import java.awt.Point;
 import java.awt.Rectangle;
@@ -94,6 +95,7 @@ import org.jdesktop.beans.JavaBean;
 import org.jdesktop.swingx.action.AbstractActionExt;
 import org.jdesktop.swingx.action.BoundAction;
 import org.jdesktop.swingx.decorator.ComponentAdapter;
+import org.jdesktop.swingx.decorator.CompiledHighlighter;
 import org.jdesktop.swingx.decorator.CompoundHighlighter;
 import org.jdesktop.swingx.decorator.Highlighter;
 import org.jdesktop.swingx.decorator.ResetDTCRColorHighlighter;
@@ -122,6 +124,7 @@ import org.jdesktop.swingx.search.TableSearchable;
 import org.jdesktop.swingx.sort.DefaultSortController;
 import org.jdesktop.swingx.sort.SortController;
 import org.jdesktop.swingx.sort.SortUtils;
+import org.jdesktop.swingx.sort.StringValueCache;
 import org.jdesktop.swingx.sort.StringValueRegistry;
 import org.jdesktop.swingx.sort.TableSortController;
 import org.jdesktop.swingx.table.ColumnControlButton;
@@ -441,6 +444,9 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
 
     /** The CompoundHighlighter for the table. */
     protected CompoundHighlighter compoundHighlighter;
+    
+    /** The compiled form of the compoundHighlighter, applied in prepareRenderer. */
+    private CompiledHighlighter compiledHighlighter;
 
     /**
      * The key for the client property deciding about whether the color memory
@@ -549,6 +555,8 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
     private boolean ignoreAddColumn;
     /** Registry of per-cell string representation. */
     private transient StringValueRegistry stringValueRegistry;
+    /** Optional cache of per-cell string representation. */
+    private transient StringValueCache stringValueCache;
 
     private SortOrder[] sortOrderCycle;
 
@@ -1643,6 +1651,10 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
      */
     @Override
     public void tableChanged(TableModelEvent e) {
+        // the cache must be invalidated before anybody else sees the change
+        if (stringValueCache != null) {
+            stringValueCache.tableChanged(e);
+        }
         preprocessModelChange(e);
         super.tableChanged(e);
         if (isStructureChanged(e) && getAutoCreateColumnsFromModel()) {
@@ -1721,6 +1733,9 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
     @Override
     public void setModel(TableModel dataModel) {
         boolean old = getAutoCreateRowSorter();
+        if ((stringValueCache != null) && (dataModel != null)) {
+            stringValueCache.install(dataModel, getStringValueRegistry());
+        }
         try {
             this.autoCreateRowSorter = false;
             this.ignoreAddColumn = true;
@@ -1800,6 +1815,10 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         // the rowsorter is not yet updated
         if (ignoreAddColumn || (!getControlsSorterProperties()))  return;
         getSortController().setStringValueProvider(getStringValueRegistry());
+        if (getSortController() instanceof TableSortController<?>) {
+            ((TableSortController<?>) getSortController()).setStringValueCache(
+                    getStringValueCache());
+        }
         // configure from table properties
         getSortController().setSortable(sortable);
         getSortController().setSortsOnUpdates(sortsOnUpdates);
@@ -2574,6 +2593,7 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         } else if (event.getPropertyName().equals("cellRenderer")) {
             updateStringValueForColumn((TableColumn) event.getSource(), 
                     (TableCellRenderer) event.getNewValue());
+            firePropertyChange("stringValues", null, null);
         } else if (event.getPropertyName().startsWith("highlighter")) {
             if (event.getSource() instanceof TableColumnExt
                     && getRowCount() > 0) {
@@ -3290,6 +3310,9 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
          */
         @Override
         public String getStringAt(int row, int column) {
+            if (table.getStringValueCache() != null) {
+                return table.getStringValueCache().getStringAt(row, column);
+            }
             StringValue sv = table.getStringValueRegistry().getStringValue(row, column);
             return sv.getString(getValueAt(row, column));
         }
@@ -3452,6 +3475,23 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         return compoundHighlighter;
     }
 
+    /**
+     * Returns the compiled form of the CompoundHighlighter, re-created if
+     * the CompoundHighlighter is replaced.
+     * 
+     * @return the compiled form of the CompoundHighlighter
+     */
+    private Highlighter getCompiledHighlighter() {
+        if ((compiledHighlighter == null) 
+                || (compiledHighlighter.getSource() != compoundHighlighter)) {
+            if (compiledHighlighter != null) {
+                compiledHighlighter.release();
+            }
+            compiledHighlighter = new CompiledHighlighter(compoundHighlighter);
+        }
+        return compiledHighlighter;
+    }
+
     /**
      * Returns the <code>ChangeListener</code> to use with highlighters. Lazily
      * creates the listener.
@@ -3499,6 +3539,49 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         return stringValueRegistry;
     }
 
+    /**
+     * Sets the cache for the string representation of cells. If not null,
+     * each cell value is converted to a string only once as long as it is 
+     * unchanged: the cache is shared by <code>getStringAt</code>, the 
+     * ComponentAdapter used by highlighters and the search, and a 
+     * <code>TableSortController</code> for sorting and filtering. It is 
+     * invalidated by changes of the model and the registered StringValues.<p>
+     * 
+     * The default value is null, that is no caching. Caching is useful if
+     * the conversion is costly, f.i. with formatters or localized lookups.
+     * 
+     * @param cache the cache to use for the string representation of cells,
+     *    may be null to disable caching.
+     *    
+     * @see #getStringValueCache()
+     * @see #getStringAt(int, int)   
+     */
+    public void setStringValueCache(StringValueCache cache) {
+        StringValueCache old = getStringValueCache();
+        if (old == cache) return;
+        if (old != null) {
+            old.release();
+        }
+        this.stringValueCache = cache;
+        if (cache != null) {
+            cache.install(getModel(), getStringValueRegistry());
+        }
+        if (getSortController() instanceof TableSortController<?>) {
+            ((TableSortController<?>) getSortController()).setStringValueCache(cache);
+        }
+        firePropertyChange("stringValueCache", old, getStringValueCache());
+    }
+    
+    /**
+     * Returns the cache for the string representation of cells.
+     * 
+     * @return the cache for the string representation of cells, may be null.
+     * @see #setStringValueCache(StringValueCache)
+     */
+    public StringValueCache getStringValueCache() {
+        return stringValueCache;
+    }
+
     /**
      * Creates and returns the default registry for StringValues.<p>
      * 
@@ -3560,7 +3643,8 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
      * 
      * Overridden to synchronize the string representation. If the renderer is of type
      * StringValue a mapping it will be used as converter for the class type. If not, 
-     * the mapping is reset to default.
+     * the mapping is reset to default. The change of the string representation is
+     * notified as property change named "stringValues".
      */
     @Override
     public void setDefaultRenderer(Class<?> columnClass,
@@ -3569,6 +3653,7 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         getStringValueRegistry().setStringValue(
                 (renderer instanceof StringValue) ? (StringValue) renderer : null, 
                         columnClass);
+        firePropertyChange("stringValues", null, null);
     }
 
     /**
@@ -3581,6 +3666,10 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
      *         the table.
      */
     public String getStringAt(int row, int column) {
+        if (getStringValueCache() != null) {
+            return getStringValueCache().getStringAt(
+                    convertRowIndexToModel(row), convertColumnIndexToModel(column));
+        }
         // changed implementation to use StringValueRegistry
         StringValue stringValue = getStringValueRegistry().getStringValue(
                 convertRowIndexToModel(row), convertColumnIndexToModel(column));
@@ -3612,6 +3701,25 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         return renderer;
     }
 
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to cache the results of row- and column-scoped 
+     * HighlightPredicates for the duration of the paint pass.
+     * 
+     * @see org.jdesktop.swingx.decorator.ScopedHighlightPredicate
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        ComponentAdapter adapter = getComponentAdapter();
+        adapter.setPredicateCaching(true);
+        try {
+            super.paintComponent(g);
+        } finally {
+            adapter.setPredicateCaching(false);
+        }
+    }
+
     /**
      * Returns the decorated <code>Component</code> used as a stamp to render
      * the specified cell. Overrides superclass version to provide support for
@@ -3656,27 +3764,27 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         resetDefaultTableCellRendererColors(stamp, row, column);
 
         ComponentAdapter adapter = getComponentAdapter(row, column);
-        // a very slight optimization: if this instance never had a highlighter
-        // added then don't create a compound here.
-        if (compoundHighlighter != null) {
-            stamp = compoundHighlighter.highlight(stamp, adapter);
-        }
-
-        TableColumnExt columnExt = getColumnExt(column);
+        // share the cell's value and string across table and column highlighters
+        boolean caching = adapter.isValueCaching();
+        adapter.setValueCaching(true);
+        try {
+            // a very slight optimization: if this instance never had a highlighter
+            // added then don't create a compound here.
+            if (compoundHighlighter != null) {
+                stamp = getCompiledHighlighter().highlight(stamp, adapter);
+            }
 
-        if (columnExt != null) {
-            // JW: fix for #838 - artificial compound installs listener
-            // PENDING JW: instead of doing the looping ourselves, how
-            // about adding a method prepareRenderer to the TableColumnExt
-            for (Highlighter highlighter : columnExt.getHighlighters()) {
-                stamp = highlighter.highlight(stamp, adapter);
+            TableColumnExt columnExt = getColumnExt(column);
 
+            if (columnExt != null) {
+                // JW: fix for #838 - artificial compound installs listener
+                stamp = columnExt.highlight(stamp, adapter);
+            }
+        } finally {
+            if (!caching) {
+                adapter.setValueCaching(false);
             }
-            // CompoundHighlighter columnHighlighters
-            // = new CompoundHighlighter(columnExt.getHighlighters());
-
         }
-
         return stamp;
     }
 
@@ -32,7 +32,12 @@ import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Vector;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -253,9 +258,21 @@ public class JXTree extends JTree {
 
 
     private Point popupTriggerLocation;
-    
-    
-    
+
+    /**
+     * Flag to mark a running expandAll, expansion events for single paths
+     * are held back while true.
+     */
+    private boolean adjustingExpansion;
+    /** Flag to stop a running expandAll. */
+    private boolean expandAllCancelled;
+    /**
+     * The expanded descendants of the root after an expandAll in pre-order,
+     * handed to the ui-delegate while it updates its layout cache.
+     */
+    private List<TreePath> bulkExpandedPaths;
+
+
     /**
      * Constructs a <code>JXTree</code> with a sample model. The default model
      * used by this tree defines a leaf node as any node without children.
@@ -548,40 +565,150 @@ public class JXTree extends JTree {
 
 //--------------------- misc. new api and super overrides
     /**
-     * Collapses all nodes in this tree.
+     * Collapses all nodes in this tree. <p>
+     *
+     * The collapse is done in bulk: only the top-most expanded paths are
+     * collapsed, that is the root if visible, else the expanded children of the
+     * root. TreeExpansionListeners receive a single treeCollapsed event per
+     * top-most path, the ui-delegate updates its layout cache once for each. <p>
+     *
+     * Note: as with {@link #collapsePath(TreePath)}, the expanded descendants of
+     * the collapsed paths keep their expansion state, expanding one of the
+     * collapsed paths again shows its descendants as they were expanded before.
+     * This is unlike collapsing row by row, which collapses the visible
+     * descendants as well.
      */
     public void collapseAll() {
-        for (int i = getRowCount() - 1; i >= 0 ; i--) {
-            collapseRow(i);
+        TreeModel model = getModel();
+        if ((model == null) || (model.getRoot() == null)) return;
+        TreePath rootPath = new TreePath(model.getRoot());
+        if (isRootVisible()) {
+            collapsePath(rootPath);
+            return;
+        }
+        // the root is not a row, it's never collapsed
+        if (!isExpanded(rootPath)) return;
+        Object root = model.getRoot();
+        // last child first, the rows to remove are at the end of the layout cache
+        for (int i = model.getChildCount(root) - 1; i >= 0; i--) {
+            collapsePath(rootPath.pathByAddingChild(model.getChild(root, i)));
         }
     }
 
     /**
      * Expands all nodes in this tree.<p>
-     * 
+     *
      * Note: it's not recommended to use this method on the EDT for large/deep trees
-     * because expansion can take a considerable amount of time. 
+     * because expansion can take a considerable amount of time.
+     *
+     * @see #expandAll(int)
      */
     public void expandAll() {
-        if (getRowCount() == 0) {
-            expandRoot();
+        expandAll(-1);
+    }
+
+    /**
+     * Expands all nodes in this tree up to the given depth. The root is at
+     * depth 0, a maxDepth of 1 expands the root only, a negative maxDepth
+     * all nodes. Nodes deeper than maxDepth which were expanded before keep
+     * their expansion state. <p>
+     *
+     * The expansion is done in bulk: the ui-delegate updates its layout cache in
+     * one pass and TreeExpansionListeners receive a single treeExpanded event
+     * for the root. TreeWillExpandListeners are notified for every path, a veto
+     * skips the subtree of the vetoed path. A listener may call
+     * {@link #cancelExpandAll()} to stop the expansion, the paths
+     * expanded until then remain expanded. <p>
+     *
+     * Note: for trees with hundreds of thousands of nodes, a fixed row height
+     * and largeModel keep the layout cache update fast.
+     *
+     * @param maxDepth the depth of the deepest nodes to make visible,
+     *   negative for no limit
+     */
+    public void expandAll(int maxDepth) {
+        TreeModel model = getModel();
+        if ((model == null) || (model.getRoot() == null)) return;
+        TreePath rootPath = new TreePath(model.getRoot());
+        List<TreePath> expanded = new ArrayList<TreePath>();
+        boolean changed = false;
+        expandAllCancelled = false;
+        adjustingExpansion = true;
+        try {
+            LinkedList<TreePath> stack = new LinkedList<TreePath>();
+            stack.addFirst(rootPath);
+            while (!stack.isEmpty()) {
+                TreePath path = stack.removeFirst();
+                Object node = path.getLastPathComponent();
+                if (model.isLeaf(node)) continue;
+                if (!isExpanded(path)) {
+                    // cancelled or too deep: collect only the expanded paths
+                    if (expandAllCancelled
+                            || ((maxDepth >= 0) && (path.getPathCount() > maxDepth))) continue;
+                    setExpandedState(path, true);
+                    if (!isExpanded(path)) continue;
+                    changed = true;
+                }
+                if (path != rootPath) {
+                    expanded.add(path);
+                }
+                for (int i = model.getChildCount(node) - 1; i >= 0; i--) {
+                    stack.addFirst(path.pathByAddingChild(model.getChild(node, i)));
+                }
+            }
+        } finally {
+            adjustingExpansion = false;
+            expandAllCancelled = false;
         }
-        for (int i = 0; i < getRowCount(); i++) {
-            expandRow(i);
+        if (!changed) return;
+        bulkExpandedPaths = expanded;
+        try {
+            fireTreeExpanded(rootPath);
+        } finally {
+            bulkExpandedPaths = null;
         }
     }
 
     /**
-     * Expands the root path if a TreeModel has been set, does nothing if not.
-     * 
+     * Stops a running expandAll before it expands the next path. Intended to
+     * be called by a TreeWillExpandListener. Does nothing if there's no
+     * expandAll running.
+     *
+     * @see #expandAll(int)
      */
-    private void expandRoot() {
-        TreeModel model = getModel();
-        if (model != null && model.getRoot() != null) {
-            expandPath(new TreePath(model.getRoot()));
+    public void cancelExpandAll() {
+        if (adjustingExpansion) {
+            expandAllCancelled = true;
+        }
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Overridden to return the paths expanded by expandAll in pre-order while
+     * notifying about the expansion. The ui-delegate updates its layout cache
+     * in this order, which keeps the update linear.
+     */
+    @Override
+    public Enumeration<TreePath> getExpandedDescendants(TreePath parent) {
+        if ((bulkExpandedPaths != null) && (parent != null) && (parent.getPathCount() == 1)) {
+            return Collections.enumeration(bulkExpandedPaths);
         }
+        return super.getExpandedDescendants(parent);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Overridden to hold back the notification while expanding all.
+     */
+    @Override
+    public void fireTreeExpanded(TreePath path) {
+        if (adjustingExpansion) return;
+        super.fireTreeExpanded(path);
     }
 
+
     /**
      * {@inheritDoc}
      * <p>
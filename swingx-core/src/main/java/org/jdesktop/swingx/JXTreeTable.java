@@ -33,6 +33,7 @@ import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.EventObject;
 import java.util.List;
@@ -1679,6 +1680,26 @@ public class JXTreeTable extends JXTable {
         renderer.expandAll();
     }
 
+    /**
+     * Expands all nodes in the treetable up to the given depth.
+     *
+     * @param maxDepth the depth of the deepest nodes to make visible,
+     *   negative for no limit
+     * @see JXTree#expandAll(int)
+     */
+    public void expandAll(int maxDepth) {
+        renderer.expandAll(maxDepth);
+    }
+
+    /**
+     * Stops a running expandAll before it expands the next path.
+     *
+     * @see JXTree#cancelExpandAll()
+     */
+    public void cancelExpandAll() {
+        renderer.cancelExpandAll();
+    }
+
     /**
      * Collapses the node at the specified path in the treetable.
      *
@@ -2316,7 +2337,28 @@ public class JXTreeTable extends JXTable {
      */
     protected static class TreeTableModelAdapter extends AbstractTableModel 
         implements TreeTableModelProvider {
+        private static final int FULL_NONE = 0;
+        private static final int FULL_DATA = 1;
+        private static final int FULL_STRUCTURE = 2;
+        /** the maximal number of unmerged row changes before falling back to a data change. */
+        private static final int MAX_PENDING_ROW_CHANGES = 100;
+
         private TreeModelListener treeModelListener;
+        private final Object pendingLock = new Object();
+        private final List<PendingChange> pendingRowChanges = new ArrayList<PendingChange>();
+        private final List<PendingUpdate> pendingUpdates = new ArrayList<PendingUpdate>();
+        private int pendingFullChange;
+        private boolean firePendingScheduled;
+        private int receivedEventCount;
+        private int firedEventCount;
+        private int rowNodesRebuildCount;
+        /** the nodes of the visible rows, null if invalid. */
+        private Object[] rowNodes;
+        /** the depth of the nodes of the visible rows, the root has depth 0. */
+        private int[] rowDepths;
+        private int rowNodeCount;
+        /** the paths expanded/collapsed since the visible nodes were updated. */
+        private final List<TreePath> pendingExpansions = new ArrayList<TreePath>();
         private final JTree tree; // immutable
         private JXTreeTable treeTable; // logically immutable
         
@@ -2347,6 +2389,12 @@ public class JXTreeTable extends JXTable {
                     updateAfterExpansionEvent(event);
                 }
             });
+            tree.addPropertyChangeListener(JTree.ROOT_VISIBLE_PROPERTY, new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent evt) {
+                    invalidateRowNodes();
+                }
+            });
             tree.addPropertyChangeListener("model", new PropertyChangeListener() {
                 @Override
                 public void propertyChange(PropertyChangeEvent evt) {
@@ -2356,6 +2404,8 @@ public class JXTreeTable extends JXTable {
                     model = (TreeTableModel) evt.getNewValue();
                     model.addTreeModelListener(getTreeModelListener());
                     
+                    clearPendingChanges();
+                    invalidateRowNodes();
                     fireTableStructureChanged();
                 }
             });
@@ -2367,6 +2417,10 @@ public class JXTreeTable extends JXTable {
          * @param event the TreeExpansionEvent which triggered the method call.
          */
         protected void updateAfterExpansionEvent(TreeExpansionEvent event) {
+            // the tree's layout might not yet be updated, apply lazily
+            if (rowNodes != null) {
+                pendingExpansions.add(event.getPath());
+            }
             // moved to let the renderer handle directly
 //            treeTable.getTreeTableHacker().setExpansionChangedFlag();
             // JW: delayed fire leads to a certain sluggishness occasionally? 
@@ -2461,10 +2515,214 @@ public class JXTreeTable extends JXTable {
             }
         }
 
+        /**
+         * Returns the node at the given row. Looks up the node in a flat array
+         * of the visible nodes, which is updated incrementally on a single
+         * expansion and on inserts or removes, and rebuilt lazily on other changes. 
+         * 
+         * @param row the row in table coordinates
+         * @return the node at the row or null if the row is not visible
+         */
         protected Object nodeForRow(int row) {
+            updateRowNodes();
             // Issue #270-swingx: guard against invisible row
-            TreePath path = tree.getPathForRow(row);
-            return path != null ? path.getLastPathComponent() : null;
+            if ((row < 0) || (row >= rowNodeCount)) return null;
+            return rowNodes[row];
+        }
+
+        /**
+         * Brings the visible nodes up to date with the tree's rows: applies a
+         * single pending expansion incrementally, rebuilds if invalid or 
+         * after several pending expansions.
+         */
+        private void updateRowNodes() {
+            if (rowNodes != null && pendingExpansions.isEmpty() 
+                    && rowNodeCount == tree.getRowCount()) return;
+            if ((rowNodes == null) || (pendingExpansions.size() != 1) 
+                    || !applyExpansion(pendingExpansions.get(0))) {
+                rebuildRowNodes();
+            }
+            pendingExpansions.clear();
+        }
+
+        /**
+         * Inserts or removes the rows below the expanded or collapsed path. 
+         * 
+         * @return true if applied, false if the change is not a simple expansion 
+         *   or collapse of a visible node
+         */
+        private boolean applyExpansion(TreePath path) {
+            int row = tree.getRowForPath(path);
+            if ((row < 0) || (row >= rowNodeCount) 
+                    || (rowNodes[row] != path.getLastPathComponent())) return false;
+            int rowCount = tree.getRowCount();
+            int delta = rowCount - rowNodeCount;
+            // the row following the subtree of the path must be unchanged
+            int next = row + 1 + Math.max(delta, 0);
+            if ((next < rowCount) && (next - delta < rowNodeCount) 
+                    && (rowNodes[next - delta] != tree.getPathForRow(next).getLastPathComponent())) return false;
+            if (delta > 0) {
+                if (!tree.isExpanded(path)) return false;
+                ensureRowNodesCapacity(rowCount);
+                System.arraycopy(rowNodes, row + 1, rowNodes, row + 1 + delta, rowNodeCount - row - 1);
+                System.arraycopy(rowDepths, row + 1, rowDepths, row + 1 + delta, rowNodeCount - row - 1);
+                for (int i = row + 1; i <= row + delta; i++) {
+                    TreePath rowPath = tree.getPathForRow(i);
+                    rowNodes[i] = rowPath.getLastPathComponent();
+                    rowDepths[i] = rowPath.getPathCount() - 1;
+                }
+            } else if (delta < 0) {
+                if (tree.isExpanded(path)) return false;
+                System.arraycopy(rowNodes, row + 1 - delta, rowNodes, row + 1, rowCount - row - 1);
+                System.arraycopy(rowDepths, row + 1 - delta, rowDepths, row + 1, rowCount - row - 1);
+                Arrays.fill(rowNodes, rowCount, rowNodeCount, null);
+            }
+            rowNodeCount = rowCount;
+            return true;
+        }
+
+        private void rebuildRowNodes() {
+            rowNodesRebuildCount++;
+            int rowCount = tree.getRowCount();
+            rowNodes = null;
+            ensureRowNodesCapacity(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                TreePath path = tree.getPathForRow(i);
+                rowNodes[i] = path != null ? path.getLastPathComponent() : null;
+                rowDepths[i] = path != null ? path.getPathCount() - 1 : 0;
+            }
+            rowNodeCount = rowCount;
+        }
+
+        private void ensureRowNodesCapacity(int capacity) {
+            if ((rowNodes != null) && (rowNodes.length >= capacity)) return;
+            int length = Math.max(capacity, rowNodes != null ? rowNodes.length * 3 / 2 : 0);
+            Object[] nodes = new Object[length];
+            int[] depths = new int[length];
+            if (rowNodes != null) {
+                System.arraycopy(rowNodes, 0, nodes, 0, rowNodeCount);
+                System.arraycopy(rowDepths, 0, depths, 0, rowNodeCount);
+            }
+            rowNodes = nodes;
+            rowDepths = depths;
+        }
+
+        /**
+         * Inserts or removes the rows of the children of the event. The rows
+         * are located by the event only, independent of whether or not the tree 
+         * has already processed the event. Invalidates the visible nodes if the 
+         * change can't be applied.
+         * 
+         * @param e the event of inserted or removed children
+         * @param inserted true if the children are inserted, false if removed
+         */
+        private void spliceRowNodes(TreeModelEvent e, boolean inserted) {
+            if (rowNodes == null) return;
+            TreePath path = e.getTreePath();
+            int[] indices = e.getChildIndices();
+            if ((path == null) || (indices == null) || (indices.length == 0)
+                    || !pendingExpansions.isEmpty()) {
+                invalidateRowNodes();
+                return;
+            }
+            int parentRow;
+            if ((path.getParentPath() == null) && !tree.isRootVisible()) {
+                parentRow = -1;
+            } else {
+                parentRow = tree.getRowForPath(path);
+                // below a collapsed node, no visible rows change
+                if (parentRow < 0) return;
+                if ((parentRow >= rowNodeCount) 
+                        || (rowNodes[parentRow] != path.getLastPathComponent())) {
+                    invalidateRowNodes();
+                    return;
+                }
+            }
+            if (!tree.isExpanded(path)) return;
+            int childDepth = path.getPathCount();
+            // the first row of each child, or of the end of the parent's subtree
+            int[] starts = new int[indices.length];
+            int row = parentRow + 1;
+            int childCount = 0;
+            for (int i = 0; i < indices.length; i++) {
+                // inserted indices are in new coordinates, count the old children
+                int target = inserted ? indices[i] - i : indices[i];
+                while (childCount < target) {
+                    if ((row >= rowNodeCount) || (rowDepths[row] != childDepth)) {
+                        invalidateRowNodes();
+                        return;
+                    }
+                    row = skipSubtree(row);
+                    childCount++;
+                }
+                starts[i] = row;
+            }
+            if (inserted) {
+                insertRowNodes(e, starts, childDepth);
+            } else {
+                removeRowNodes(e, starts, childDepth);
+            }
+        }
+
+        /**
+         * @return the row following the subtree of the node at the given row
+         */
+        private int skipSubtree(int row) {
+            int depth = rowDepths[row];
+            row++;
+            while ((row < rowNodeCount) && (rowDepths[row] > depth)) {
+                row++;
+            }
+            return row;
+        }
+
+        private void insertRowNodes(TreeModelEvent e, int[] starts, int childDepth) {
+            Object[] children = e.getChildren();
+            int[] indices = e.getChildIndices();
+            ensureRowNodesCapacity(rowNodeCount + starts.length);
+            int end = rowNodeCount;
+            int dst = rowNodeCount + starts.length;
+            for (int i = starts.length - 1; i >= 0; i--) {
+                int length = end - starts[i];
+                dst -= length;
+                System.arraycopy(rowNodes, starts[i], rowNodes, dst, length);
+                System.arraycopy(rowDepths, starts[i], rowDepths, dst, length);
+                end = starts[i];
+                dst--;
+                rowNodes[dst] = children != null ? children[i] 
+                        : getTreeTableModel().getChild(e.getTreePath().getLastPathComponent(), indices[i]);
+                rowDepths[dst] = childDepth;
+            }
+            rowNodeCount += starts.length;
+        }
+
+        private void removeRowNodes(TreeModelEvent e, int[] starts, int childDepth) {
+            Object[] children = e.getChildren();
+            int dst = starts[0];
+            for (int i = 0; i < starts.length; i++) {
+                int start = starts[i];
+                if ((start >= rowNodeCount) || (rowDepths[start] != childDepth)
+                        || ((children != null) && (rowNodes[start] != children[i]))) {
+                    invalidateRowNodes();
+                    return;
+                }
+                int next = skipSubtree(start);
+                int keepEnd = i + 1 < starts.length ? starts[i + 1] : rowNodeCount;
+                System.arraycopy(rowNodes, next, rowNodes, dst, keepEnd - next);
+                System.arraycopy(rowDepths, next, rowDepths, dst, keepEnd - next);
+                dst += keepEnd - next;
+            }
+            Arrays.fill(rowNodes, dst, rowNodeCount, null);
+            rowNodeCount = dst;
+        }
+
+        /**
+         * Marks the visible nodes as invalid, they are rebuilt on next access.
+         */
+        private void invalidateRowNodes() {
+            rowNodes = null;
+            rowNodeCount = 0;
+            pendingExpansions.clear();
         }
 
         /**
@@ -2476,6 +2734,7 @@ public class JXTreeTable extends JXTable {
                     
                     @Override
                     public void treeNodesChanged(TreeModelEvent e) {
+                        receivedEventCount++;
 //                        LOG.info("got tree event: changed " + e);
                         delayedFireTableDataUpdated(e);
                     }   
@@ -2485,17 +2744,23 @@ public class JXTreeTable extends JXTable {
                     // the event before us.
                     @Override
                     public void treeNodesInserted(TreeModelEvent e) {
+                        receivedEventCount++;
+                        spliceRowNodes(e, true);
                         delayedFireTableDataChanged(e, 1);
                     }
 
                     @Override
                     public void treeNodesRemoved(TreeModelEvent e) {
+                        receivedEventCount++;
+                        spliceRowNodes(e, false);
 //                        LOG.info("got tree event: removed " + e);
                        delayedFireTableDataChanged(e, 2);
                     }
 
                     @Override
                     public void treeStructureChanged(TreeModelEvent e) {
+                        receivedEventCount++;
+                        invalidateRowNodes();
                         // ?? should be mapped to structureChanged -- JW
                         if (isTableStructureChanged(e)) {
                             delayedFireTableStructureChanged();
@@ -2528,34 +2793,35 @@ public class JXTreeTable extends JXTable {
         }
 
         /**
-         * Invokes fireTableDataChanged after all the pending events have been
-         * processed. SwingUtilities.invokeLater is used to handle this.
+         * Invokes fireTableStructureChanged after all the pending events have been
+         * processed. Supersedes all other pending changes.
          */
         private void delayedFireTableStructureChanged() {
-            SwingUtilities.invokeLater(new Runnable() {
-                @Override
-                public void run() {
-                    fireTableStructureChanged();
-                }
-            });
+            synchronized (pendingLock) {
+                pendingFullChange = FULL_STRUCTURE;
+                pendingRowChanges.clear();
+                pendingUpdates.clear();
+                scheduleFirePending();
+            }
         }
 
         /**
          * Invokes fireTableDataChanged after all the pending events have been
-         * processed. SwingUtilities.invokeLater is used to handle this.
+         * processed. Supersedes all other pending changes except a structure change.
          */
         private void delayedFireTableDataChanged() {
-            SwingUtilities.invokeLater(new Runnable() {
-                @Override
-                public void run() {
-                    fireTableDataChanged();
-                }
-            });
+            synchronized (pendingLock) {
+                pendingFullChange = Math.max(pendingFullChange, FULL_DATA);
+                pendingRowChanges.clear();
+                pendingUpdates.clear();
+                scheduleFirePending();
+            }
         }
 
         /**
-         * Invokes fireTableDataChanged after all the pending events have been
-         * processed. SwingUtilities.invokeLater is used to handle this.
+         * Invokes fireTableRowsInserted/-Deleted after all the pending events have been
+         * processed. Merges with the previous pending change if it is of the same
+         * type on the same parent and the child indices are adjacent.
          * Allowed event types: 1 for insert, 2 for delete
          */
         private void delayedFireTableDataChanged(final TreeModelEvent tme, final int typeChange) {
@@ -2563,114 +2829,256 @@ public class JXTreeTable extends JXTable {
                 throw new IllegalArgumentException("Event type must be 1 or 2, was " + typeChange);
             // expansion state before invoke may be different 
             // from expansion state in invoke 
-            final boolean expanded = tree.isExpanded(tme.getTreePath());
-            // quick test if tree throws for unrelated path. Seems like not.
-//            tree.getRowForPath(new TreePath("dummy"));
-            SwingUtilities.invokeLater(new Runnable() {
-                @Override
-                public void run() {
-                    int indices[] = tme.getChildIndices();
-                    TreePath path = tme.getTreePath();
-                    // quick test to see if bailing out is an option
-//                    if (false) {
-                    if (indices != null) {
-                        if (expanded) { // Dont bother to update if the parent
-                            // node is collapsed
-                            // indices must in ascending order, as per TreeEvent/Listener doc
-                            int min = indices[0];
-                            int max = indices[indices.length - 1];
-                            int startingRow = tree.getRowForPath(path) + 1;
-                            min = startingRow + min;
-                            max = startingRow + max;
-                            switch (typeChange) {
-                            case 1:
-//                                LOG.info("rows inserted: path " + path + "/" + min + "/"
-//                                        + max);
-                                fireTableRowsInserted(min, max);
-                                break;
-                            case 2:
-//                                LOG.info("rows deleted path " + path + "/" + min + "/"
-//                                                + max);
-                                fireTableRowsDeleted(min, max);
-                                break;
-                            }
-                        } else {
-                            // not expanded - but change might effect appearance
-                            // of parent
-                            // Issue #82-swingx
-                            int row = tree.getRowForPath(path);
-                            // fix Issue #247-swingx: prevent accidental
-                            // structureChanged
-                            // for collapsed path
-                            // in this case row == -1, which ==
-                            // TableEvent.HEADER_ROW
-                            if (row >= 0)
-                                fireTableRowsUpdated(row, row);
-                        }
-                    } else { // case where the event is fired to identify
-                                // root.
-                        fireTableDataChanged();
+            boolean expanded = tree.isExpanded(tme.getTreePath());
+            int indices[] = tme.getChildIndices();
+            if (indices == null) {
+                // case where the event is fired to identify root.
+                delayedFireTableDataChanged();
+                return;
+            }
+            // indices must in ascending order, as per TreeEvent/Listener doc
+            PendingChange change = new PendingChange(typeChange, tme.getTreePath(), expanded,
+                    indices[0], indices[indices.length - 1]);
+            synchronized (pendingLock) {
+                if (pendingFullChange != FULL_NONE) return;
+                int last = pendingRowChanges.size() - 1;
+                if ((last < 0) || !pendingRowChanges.get(last).merge(change)) {
+                    if (pendingRowChanges.size() >= MAX_PENDING_ROW_CHANGES) {
+                        // too many unrelated changes - one full change is cheaper 
+                        delayedFireTableDataChanged();
+                        return;
                     }
+                    pendingRowChanges.add(change);
                 }
-            });
+                scheduleFirePending();
+            }
         }
 
         /**
          * This is used for updated only. PENDING: not necessary to delay?
          * Updates are never structural changes which are the critical.
+         * All pending updates are fired as one event covering the updated rows.
          * 
          * @param tme
          */
         protected void delayedFireTableDataUpdated(final TreeModelEvent tme) {
-            final boolean expanded = tree.isExpanded(tme.getTreePath());
+            boolean expanded = tree.isExpanded(tme.getTreePath());
+            if (tme.getChildIndices() == null) {
+                // case where the event is fired to identify root.
+                delayedFireTableDataChanged();
+                return;
+            }
+            synchronized (pendingLock) {
+                if (pendingFullChange != FULL_NONE) return;
+                pendingUpdates.add(new PendingUpdate(tme, expanded));
+                scheduleFirePending();
+            }
+        }
+
+        /**
+         * Schedules firing the pending changes, if not yet scheduled. 
+         * PRE: holds pendingLock.
+         */
+        private void scheduleFirePending() {
+            if (firePendingScheduled) return;
+            firePendingScheduled = true;
             SwingUtilities.invokeLater(new Runnable() {
                 @Override
                 public void run() {
-                    int indices[] = tme.getChildIndices();
-                    TreePath path = tme.getTreePath();
-                    if (indices != null) {
-                        if (expanded) { // Dont bother to update if the parent
-                            // node is collapsed
-                            Object children[] = tme.getChildren();
-                            // can we be sure that children.length > 0?
-                            // int min = tree.getRowForPath(path.pathByAddingChild(children[0]));
-                            // int max = tree.getRowForPath(path.pathByAddingChild(children[children.length -1]));
-                            int min = Integer.MAX_VALUE;
-                            int max = Integer.MIN_VALUE;
-                            for (int i = 0; i < indices.length; i++) {
-                                Object child = children[i];
-                                TreePath childPath = path
-                                        .pathByAddingChild(child);
-                                int index = tree.getRowForPath(childPath);
-                                if (index < min) {
-                                    min = index;
-                                }
-                                if (index > max) {
-                                    max = index;
-                                }
-                            }
-//                            LOG.info("Updated: parentPath/min/max" + path + "/" + min + "/" + max);
-                            // JW: the index is occasionally - 1 - need further digging 
-                            fireTableRowsUpdated(Math.max(0, min), Math.max(0, max));
-                        } else {
-                            // not expanded - but change might effect appearance
-                            // of parent Issue #82-swingx
-                            int row = tree.getRowForPath(path);
-                            // fix Issue #247-swingx: prevent accidental structureChanged
-                            // for collapsed path in this case row == -1, 
-                            // which == TableEvent.HEADER_ROW
-                            if (row >= 0)
-                                fireTableRowsUpdated(row, row);
-                        }
-                    } else { // case where the event is fired to identify
-                                // root.
-                        fireTableDataChanged();
-                    }
+                    firePendingChanges();
                 }
             });
+        }
+
+        /**
+         * Fires the changes pending since the last batch: a structure or data change
+         * if pending, else the inserted/deleted row ranges in order and finally one 
+         * update covering all updated rows.
+         */
+        private void firePendingChanges() {
+            int fullChange;
+            List<PendingChange> rowChanges;
+            List<PendingUpdate> updates;
+            synchronized (pendingLock) {
+                firePendingScheduled = false;
+                fullChange = pendingFullChange;
+                pendingFullChange = FULL_NONE;
+                rowChanges = new ArrayList<PendingChange>(pendingRowChanges);
+                pendingRowChanges.clear();
+                updates = new ArrayList<PendingUpdate>(pendingUpdates);
+                pendingUpdates.clear();
+            }
+            if (fullChange == FULL_STRUCTURE) {
+                fireTableStructureChanged();
+                return;
+            }
+            if (fullChange == FULL_DATA) {
+                fireTableDataChanged();
+                return;
+            }
+            int updateMin = Integer.MAX_VALUE;
+            int updateMax = Integer.MIN_VALUE;
+            for (PendingChange change : rowChanges) {
+                if (change.expanded) { // Dont bother to update if the parent
+                    // node is collapsed
+                    int startingRow = tree.getRowForPath(change.path) + 1;
+                    int min = startingRow + change.min;
+                    int max = startingRow + change.max;
+                    if (change.type == 1) {
+                        fireTableRowsInserted(min, max);
+                    } else {
+                        fireTableRowsDeleted(min, max);
+                    }
+                } else {
+                    // not expanded - but change might effect appearance
+                    // of parent
+                    // Issue #82-swingx
+                    int row = tree.getRowForPath(change.path);
+                    // fix Issue #247-swingx: prevent accidental
+                    // structureChanged
+                    // for collapsed path
+                    // in this case row == -1, which ==
+                    // TableEvent.HEADER_ROW
+                    if (row >= 0) {
+                        updateMin = Math.min(updateMin, row);
+                        updateMax = Math.max(updateMax, row);
+                    }
+                }
+            }
+            for (PendingUpdate update : updates) {
+                TreeModelEvent tme = update.event;
+                TreePath path = tme.getTreePath();
+                if (update.expanded) { // Dont bother to update if the parent
+                    // node is collapsed
+                    Object children[] = tme.getChildren();
+                    for (int i = 0; i < children.length; i++) {
+                        // JW: the index is occasionally - 1 - need further digging 
+                        int index = Math.max(0, tree.getRowForPath(path.pathByAddingChild(children[i])));
+                        updateMin = Math.min(updateMin, index);
+                        updateMax = Math.max(updateMax, index);
+                    }
+                } else {
+                    // not expanded - but change might effect appearance
+                    // of parent Issue #82-swingx
+                    int row = tree.getRowForPath(path);
+                    // fix Issue #247-swingx: prevent accidental structureChanged
+                    // for collapsed path in this case row == -1, 
+                    // which == TableEvent.HEADER_ROW
+                    if (row >= 0) {
+                        updateMin = Math.min(updateMin, row);
+                        updateMax = Math.max(updateMax, row);
+                    }
+                }
+            }
+            if (updateMin <= updateMax) {
+                fireTableRowsUpdated(updateMin, updateMax);
+            }
+        }
+
+        /**
+         * Drops all pending changes, f.i. after a model change.
+         */
+        private void clearPendingChanges() {
+            synchronized (pendingLock) {
+                pendingFullChange = FULL_NONE;
+                pendingRowChanges.clear();
+                pendingUpdates.clear();
+            }
+        }
 
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Overridden to count the fired events.
+         */
+        @Override
+        public void fireTableChanged(TableModelEvent e) {
+            firedEventCount++;
+            super.fireTableChanged(e);
         }
 
+        /**
+         * Returns the number of TreeModelEvents received from the tree model.
+         * 
+         * @return the number of received TreeModelEvents
+         */
+        public int getReceivedEventCount() {
+            return receivedEventCount;
+        }
+
+        /**
+         * Returns the number of TableModelEvents fired. Bursts of received
+         * events are coalesced into few fired events.
+         * 
+         * @return the number of fired TableModelEvents
+         */
+        public int getFiredEventCount() {
+            return firedEventCount;
+        }
+
+        /**
+         * Returns the number of full rebuilds of the visible nodes. Expansions,
+         * inserts and removes update the visible nodes incrementally.
+         * 
+         * @return the number of full rebuilds of the visible nodes
+         */
+        public int getRowNodesRebuildCount() {
+            return rowNodesRebuildCount;
+        }
+
+        /**
+         * A pending insert or remove of the children in the range min - max
+         * of the parent at path.
+         */
+        private static class PendingChange {
+            final int type;
+            final TreePath path;
+            final boolean expanded;
+            int min;
+            int max;
+
+            PendingChange(int type, TreePath path, boolean expanded, int min, int max) {
+                this.type = type;
+                this.path = path;
+                this.expanded = expanded;
+                this.min = min;
+                this.max = max;
+            }
+
+            /**
+             * Merges the next change into this if the child ranges are adjacent.
+             * 
+             * @return true if merged, false if not adjacent
+             */
+            boolean merge(PendingChange next) {
+                if ((type != next.type) || (expanded != next.expanded) 
+                        || !path.equals(next.path)) return false;
+                if (type == 1) {
+                    // inserted after this insert: the next range starts within or right after
+                    if ((next.min < min) || (next.min > max + 1)) return false;
+                    max += next.max - next.min + 1;
+                } else {
+                    // removed after this remove: this range was at next.min before
+                    if ((next.min > min) || (next.max + 1 < min)) return false;
+                    max = next.max + max - min + 1;
+                    min = next.min;
+                }
+                return true;
+            }
+        }
+
+        /**
+         * A pending update of children.
+         */
+        private static class PendingUpdate {
+            final TreeModelEvent event;
+            final boolean expanded;
+
+            PendingUpdate(TreeModelEvent event, boolean expanded) {
+                this.event = event;
+                this.expanded = expanded;
+            }
+        }
     }
 
     static class TreeTableCellRenderer extends JXTree implements
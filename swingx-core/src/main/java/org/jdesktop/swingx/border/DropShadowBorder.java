@@ -34,13 +34,14 @@ import java.awt.image.BufferedImage;
 import java.awt.image.ConvolveOp;
 import java.awt.image.Kernel;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 
 import javax.swing.border.Border;
 
 import org.jdesktop.beans.JavaBean;
 import org.jdesktop.swingx.util.GraphicsUtilities;
+import org.jdesktop.swingx.util.ImageCache;
 
 /**
  * Implements a DropShadow for components. In general, the DropShadowBorder will
@@ -53,9 +54,9 @@ import org.jdesktop.swingx.util.GraphicsUtilities;
  * <p>Note: Since generating drop shadows is relatively expensive operation, 
  * {@code DropShadowBorder} keeps internal static cache that allows sharing 
  * same border for multiple re-rendering and between different instances of the 
- * class. Since this cache is shared at class level and never reset, it might 
- * bleed your app memory in case you tend to create many different borders 
- * rapidly.</p>
+ * class. The cache is bounded, least recently used shadows are evicted if it 
+ * exceeds its budget. The budget can be configured and the hit rate monitored
+ * via {@link #getImageCache()}.</p>
  * @author rbair
  */
 @JavaBean
@@ -68,8 +69,11 @@ public class DropShadowBorder implements Border, Serializable {
     private static enum Position {TOP, TOP_LEFT, LEFT, BOTTOM_LEFT,
                     BOTTOM, BOTTOM_RIGHT, RIGHT, TOP_RIGHT}
                     
-    private static final Map<Double,Map<Position,BufferedImage>> CACHE 
-            = new HashMap<Double,Map<Position,BufferedImage>>();
+    /** the default budget of the shadow cache, in bytes. */
+    private static final long DEFAULT_CACHE_BYTES = 1024 * 1024;
+
+    private static final ImageCache<ShadowKey> CACHE 
+            = new ImageCache<ShadowKey>(DEFAULT_CACHE_BYTES);
                         
     private Color shadowColor;
     private int shadowSize;
@@ -80,6 +84,13 @@ public class DropShadowBorder implements Border, Serializable {
     private boolean showBottomShadow;
     private boolean showRightShadow;
     
+    /** the key to look up the cached shadow, updated for each lookup. */
+    private transient ShadowKey lookupKey;
+    /** the cached shadow the images were copied from. */
+    private transient BufferedImage shadowImage;
+    /** the images of the sides and corners, copied from the shadowImage. */
+    private transient Map<Position,BufferedImage> images;
+    
     public DropShadowBorder() {
         this(Color.BLACK, 5);
     }
@@ -247,98 +258,132 @@ public class DropShadowBorder implements Border, Serializable {
     }
     
     private Map<Position,BufferedImage> getImages(Graphics2D g2) {
-        //first, check to see if an image for this size has already been rendered
-        //if so, use the cache. Else, draw and save
-        Map<Position,BufferedImage> images = CACHE.get(shadowSize + (shadowColor.hashCode() * .3) + (shadowOpacity * .12));//TODO do a real hash
-        if (images == null) {
-            images = new HashMap<Position,BufferedImage>();
-
-            /*
-             * To draw a drop shadow, I have to:
-             *  1) Create a rounded rectangle
-             *  2) Create a BufferedImage to draw the rounded rect in
-             *  3) Translate the graphics for the image, so that the rectangle
-             *     is centered in the drawn space. The border around the rectangle
-             *     needs to be shadowWidth wide, so that there is space for the
-             *     shadow to be drawn.
-             *  4) Draw the rounded rect as shadowColor, with an opacity of shadowOpacity
-             *  5) Create the BLUR_KERNEL
-             *  6) Blur the image
-             *  7) copy off the corners, sides, etc into images to be used for
-             *     drawing the Border
-             */
-            int rectWidth = cornerSize + 1;
-            RoundRectangle2D rect = new RoundRectangle2D.Double(0, 0, rectWidth, rectWidth, cornerSize, cornerSize);
-            int imageWidth = rectWidth + shadowSize * 2;
-            BufferedImage image = GraphicsUtilities.createCompatibleTranslucentImage(imageWidth, imageWidth);
-            Graphics2D buffer = (Graphics2D)image.getGraphics();
-            
-            try {
-                buffer.setPaint(new Color(shadowColor.getRed(), shadowColor.getGreen(),
-                        shadowColor.getBlue(), (int)(shadowOpacity * 255)));
-//                buffer.setColor(new Color(0.0f, 0.0f, 0.0f, shadowOpacity));
-                buffer.translate(shadowSize, shadowSize);
-                buffer.fill(rect);
-            } finally {
-                buffer.dispose();
-            }
-            
-            float blurry = 1.0f / (shadowSize * shadowSize);
-            float[] blurKernel = new float[shadowSize * shadowSize];
-            for (int i=0; i<blurKernel.length; i++) {
-                blurKernel[i] = blurry;
-            }
-            ConvolveOp blur = new ConvolveOp(new Kernel(shadowSize, shadowSize, blurKernel));
-            BufferedImage targetImage = GraphicsUtilities.createCompatibleTranslucentImage(imageWidth, imageWidth);
-            ((Graphics2D)targetImage.getGraphics()).drawImage(image, blur, -(shadowSize/2), -(shadowSize/2));
-
-            int x = 1;
-            int y = 1;
-            int w = shadowSize;
-            int h = shadowSize;
-            images.put(Position.TOP_LEFT, getSubImage(targetImage, x, y, w, h));
-            x = 1;
-            y = h;
-            w = shadowSize;
-            h = 1;
-            images.put(Position.LEFT, getSubImage(targetImage, x, y, w, h));
-            x = 1;
-            y = rectWidth;
-            w = shadowSize;
-            h = shadowSize;
-            images.put(Position.BOTTOM_LEFT, getSubImage(targetImage, x, y, w, h));
-            x = cornerSize + 1;
-            y = rectWidth;
-            w = 1;
-            h = shadowSize;
-            images.put(Position.BOTTOM, getSubImage(targetImage, x, y, w, h));
-            x = rectWidth;
-            y = x;
-            w = shadowSize;
-            h = shadowSize;
-            images.put(Position.BOTTOM_RIGHT, getSubImage(targetImage, x, y, w, h));
-            x = rectWidth;
-            y = cornerSize + 1;
-            w = shadowSize;
-            h = 1;
-            images.put(Position.RIGHT, getSubImage(targetImage, x, y, w, h));
-            x = rectWidth;
-            y = 1;
-            w = shadowSize;
-            h = shadowSize;
-            images.put(Position.TOP_RIGHT, getSubImage(targetImage, x, y, w, h));
-            x = shadowSize;
-            y = 1;
-            w = 1;
-            h = shadowSize;
-            images.put(Position.TOP, getSubImage(targetImage, x, y, w, h));
-
-            image.flush();
-            CACHE.put(shadowSize + (shadowColor.hashCode() * .3) + (shadowOpacity * .12), images); //TODO do a real hash
+        //first, check to see if a shadow for these properties has already been
+        //rendered. If so, use the cache. Else, draw and save
+        if (lookupKey == null) {
+            lookupKey = new ShadowKey(this);
+        } else {
+            lookupKey.update(this);
+        }
+        BufferedImage shadow = CACHE.get(lookupKey);
+        if (shadow == null) {
+            shadow = createShadowImage();
+            CACHE.put(new ShadowKey(this), shadow);
+        }
+        if (shadow != shadowImage) {
+            images = createImages(shadow);
+            shadowImage = shadow;
         }
         return images;
     }
     
+    /**
+     * Creates the blurred shadow of a rounded rectangle, the sides and 
+     * corners of the border are copied from it.
+     */
+    private BufferedImage createShadowImage() {
+        /*
+         * To draw a drop shadow, I have to:
+         *  1) Create a rounded rectangle
+         *  2) Create a BufferedImage to draw the rounded rect in
+         *  3) Translate the graphics for the image, so that the rectangle
+         *     is centered in the drawn space. The border around the rectangle
+         *     needs to be shadowWidth wide, so that there is space for the
+         *     shadow to be drawn.
+         *  4) Draw the rounded rect as shadowColor, with an opacity of shadowOpacity
+         *  5) Create the BLUR_KERNEL
+         *  6) Blur the image
+         *  7) copy off the corners, sides, etc into images to be used for
+         *     drawing the Border, see createImages
+         */
+        int rectWidth = cornerSize + 1;
+        RoundRectangle2D rect = new RoundRectangle2D.Double(0, 0, rectWidth, rectWidth, cornerSize, cornerSize);
+        int imageWidth = rectWidth + shadowSize * 2;
+        BufferedImage image = GraphicsUtilities.createCompatibleTranslucentImage(imageWidth, imageWidth);
+        Graphics2D buffer = (Graphics2D)image.getGraphics();
+        
+        try {
+            buffer.setPaint(new Color(shadowColor.getRed(), shadowColor.getGreen(),
+                    shadowColor.getBlue(), (int)(shadowOpacity * 255)));
+//            buffer.setColor(new Color(0.0f, 0.0f, 0.0f, shadowOpacity));
+            buffer.translate(shadowSize, shadowSize);
+            buffer.fill(rect);
+        } finally {
+            buffer.dispose();
+        }
+        
+        float blurry = 1.0f / (shadowSize * shadowSize);
+        float[] blurKernel = new float[shadowSize * shadowSize];
+        for (int i=0; i<blurKernel.length; i++) {
+            blurKernel[i] = blurry;
+        }
+        ConvolveOp blur = new ConvolveOp(new Kernel(shadowSize, shadowSize, blurKernel));
+        BufferedImage targetImage = GraphicsUtilities.createCompatibleTranslucentImage(imageWidth, imageWidth);
+        ((Graphics2D)targetImage.getGraphics()).drawImage(image, blur, -(shadowSize/2), -(shadowSize/2));
+        image.flush();
+        return targetImage;
+    }
+    
+    /**
+     * Copies the sides and corners of the border from the given shadow.
+     */
+    private Map<Position,BufferedImage> createImages(BufferedImage targetImage) {
+        Map<Position,BufferedImage> images = new EnumMap<Position,BufferedImage>(Position.class);
+        int rectWidth = cornerSize + 1;
+        int x = 1;
+        int y = 1;
+        int w = shadowSize;
+        int h = shadowSize;
+        images.put(Position.TOP_LEFT, getSubImage(targetImage, x, y, w, h));
+        x = 1;
+        y = h;
+        w = shadowSize;
+        h = 1;
+        images.put(Position.LEFT, getSubImage(targetImage, x, y, w, h));
+        x = 1;
+        y = rectWidth;
+        w = shadowSize;
+        h = shadowSize;
+        images.put(Position.BOTTOM_LEFT, getSubImage(targetImage, x, y, w, h));
+        x = cornerSize + 1;
+        y = rectWidth;
+        w = 1;
+        h = shadowSize;
+        images.put(Position.BOTTOM, getSubImage(targetImage, x, y, w, h));
+        x = rectWidth;
+        y = x;
+        w = shadowSize;
+        h = shadowSize;
+        images.put(Position.BOTTOM_RIGHT, getSubImage(targetImage, x, y, w, h));
+        x = rectWidth;
+        y = cornerSize + 1;
+        w = shadowSize;
+        h = 1;
+        images.put(Position.RIGHT, getSubImage(targetImage, x, y, w, h));
+        x = rectWidth;
+        y = 1;
+        w = shadowSize;
+        h = shadowSize;
+        images.put(Position.TOP_RIGHT, getSubImage(targetImage, x, y, w, h));
+        x = shadowSize;
+        y = 1;
+        w = 1;
+        h = shadowSize;
+        images.put(Position.TOP, getSubImage(targetImage, x, y, w, h));
+        return images;
+    }
+    
+    /**
+     * Returns the cache of shadow images shared by all DropShadowBorders. 
+     * Exposed to allow configuring its budget and to monitor its 
+     * statistics. The default budget is 1 MB.
+     * 
+     * @return the cache of shadow images
+     */
+    public static ImageCache<?> getImageCache() {
+        return CACHE;
+    }
+    
     /**
      * Returns a new BufferedImage that represents a subregion of the given
      * BufferedImage.  (Note that this method does not use
@@ -445,4 +490,47 @@ public class DropShadowBorder implements Border, Serializable {
     public void setShowRightShadow(boolean showRightShadow) {
         this.showRightShadow = showRightShadow;
     }
-}
\ No newline at end of file
+
+    /**
+     * The value key of a cached shadow image: the properties the shadow 
+     * depends on. Keys in the cache must not be updated, only a key used 
+     * for lookups.
+     */
+    private static class ShadowKey {
+        private int shadowSize;
+        private int shadowRGB;
+        private float shadowOpacity;
+        private int cornerSize;
+
+        ShadowKey(DropShadowBorder border) {
+            update(border);
+        }
+
+        void update(DropShadowBorder border) {
+            this.shadowSize = border.shadowSize;
+            this.shadowRGB = border.shadowColor.getRGB();
+            this.shadowOpacity = border.shadowOpacity;
+            this.cornerSize = border.cornerSize;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof ShadowKey)) return false;
+            ShadowKey other = (ShadowKey) obj;
+            return (shadowSize == other.shadowSize)
+                && (shadowRGB == other.shadowRGB)
+                && (Float.floatToIntBits(shadowOpacity) == Float.floatToIntBits(other.shadowOpacity))
+                && (cornerSize == other.cornerSize);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = shadowSize;
+            result = 31 * result + shadowRGB;
+            result = 31 * result + Float.floatToIntBits(shadowOpacity);
+            result = 31 * result + cornerSize;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.decorator;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import org.jdesktop.swingx.decorator.HighlightPredicate.AndHighlightPredicate;
+import org.jdesktop.swingx.decorator.HighlightPredicate.NotHighlightPredicate;
+import org.jdesktop.swingx.decorator.HighlightPredicate.OrHighlightPredicate;
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * A Highlighter which applies a source Highlighter, typically a
+ * CompoundHighlighter, in a "compiled" form. The result is the same as
+ * applying the source, but faster for long lists of Highlighters:
+ *
+ * <ul>
+ * <li> nested CompoundHighlighters are flattened into a single list,
+ *  the predicate of a compound is evaluated once and skips all its
+ *  contained Highlighters if false
+ * <li> And/Or/Not predicates with ALWAYS/NEVER constants are folded,
+ *  Highlighters with a predicate which is NEVER are dropped, predicates
+ *  which are ALWAYS are not evaluated
+ * <li> the value and string of the cell are looked up once and shared by all
+ *  predicates, by enabling value caching in the ComponentAdapter
+ * </ul>
+ *
+ * The compiled form is re-built lazily on any change notification of the
+ * source. Only CompoundHighlighters of exactly that class are flattened,
+ * only AbstractHighlighters which don't override <code>highlight</code> or
+ * <code>getHighlightPredicate</code> are taken apart; all others are
+ * applied as-is.
+ *
+ * <pre><code>
+ * Highlighter compiled = new CompiledHighlighter(
+ *      new CompoundHighlighter(striping, negative, rollover));
+ * </code></pre>
+ *
+ * @see ComponentAdapter#setValueCaching(boolean)
+ */
+public class CompiledHighlighter extends AbstractHighlighter {
+
+    private static final Step[] EMPTY_STEPS = new Step[0];
+
+    private final Highlighter source;
+    /** the listener to the source, strongly referenced here. */
+    private final ChangeListener sourceListener;
+    /** the compiled steps, null if not yet compiled or outdated. */
+    private Step[] steps;
+
+    /**
+     * Instantiates a CompiledHighlighter for the given source.
+     *
+     * @param source the Highlighter to compile, must not be null
+     * @throws NullPointerException if source is null
+     */
+    public CompiledHighlighter(Highlighter source) {
+        this.source = Contract.asNotNull(source, "source must not be null");
+        sourceListener = new ChangeListener() {
+
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                steps = null;
+                fireStateChanged();
+            }
+        };
+        source.addChangeListener(sourceListener);
+    }
+
+    /**
+     * Returns the source Highlighter.
+     *
+     * @return the Highlighter which is compiled by this
+     */
+    public Highlighter getSource() {
+        return source;
+    }
+
+    /**
+     * Stops listening to the source. To be called when this is replaced,
+     * otherwise the source keeps it alive. The compiled form is not
+     * updated on changes of the source after this call.
+     */
+    public void release() {
+        source.removeChangeListener(sourceListener);
+    }
+
+    /**
+     * Returns the number of steps the compiled form consists of, that is
+     * the number of not-dropped Highlighters and compound predicates.
+     * Compiles if necessary. Exposed for testing.
+     *
+     * @return the number of steps of the compiled form.
+     */
+    int getStepCount() {
+        return getSteps().length;
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to run the compiled steps, with value caching enabled
+     * on the adapter.
+     */
+    @Override
+    protected Component doHighlight(Component component, ComponentAdapter adapter) {
+        Step[] steps = getSteps();
+        if (steps.length == 0) return component;
+        boolean caching = adapter.isValueCaching();
+        adapter.setValueCaching(true);
+        try {
+            for (int i = 0; i < steps.length; i++) {
+                Step step = steps[i];
+                if (step.opaque != null) {
+                    component = step.opaque.highlight(component, adapter);
+                    continue;
+                }
+                boolean highlight = step.highlighter.canHighlight(component, adapter)
+                    && ((step.predicate == null)
+                            || adapter.isHighlighted(step.predicate, component));
+                if (step.skip >= 0) {
+                    // compound: skip all contained if not highlighting
+                    if (!highlight) {
+                        i += step.skip;
+                    }
+                } else if (highlight) {
+                    component = step.highlighter.doHighlight(component, adapter);
+                }
+            }
+        } finally {
+            if (!caching) {
+                adapter.setValueCaching(false);
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Returns the compiled steps, compiles if necessary.
+     */
+    private Step[] getSteps() {
+        if (steps == null) {
+            List<Step> list = new ArrayList<Step>();
+            compile(source, list);
+            steps = list.isEmpty() ? EMPTY_STEPS : list.toArray(new Step[list.size()]);
+        }
+        return steps;
+    }
+
+    /**
+     * Appends the steps for the given Highlighter to the list.
+     */
+    private void compile(Highlighter highlighter, List<Step> list) {
+        if (!isTransparent(highlighter)) {
+            list.add(new Step(highlighter));
+            return;
+        }
+        AbstractHighlighter abstractHighlighter = (AbstractHighlighter) highlighter;
+        HighlightPredicate predicate = simplify(abstractHighlighter.getHighlightPredicate());
+        if (predicate == HighlightPredicate.NEVER) return;
+        Step step = new Step(abstractHighlighter,
+                predicate == HighlightPredicate.ALWAYS ? null : predicate);
+        if (highlighter.getClass() != CompoundHighlighter.class) {
+            list.add(step);
+            return;
+        }
+        // flatten: the compound's step guards the contained
+        int index = -1;
+        if (step.predicate != null) {
+            index = list.size();
+            list.add(step);
+        }
+        for (Highlighter contained : ((CompoundHighlighter) highlighter).getHighlighters()) {
+            compile(contained, list);
+        }
+        if (index >= 0) {
+            step.skip = list.size() - index - 1;
+        }
+    }
+
+    /**
+     * Returns true if the Highlighter can be taken apart into
+     * predicate and doHighlight.
+     */
+    private boolean isTransparent(Highlighter highlighter) {
+        if (!(highlighter instanceof AbstractHighlighter)) return false;
+        try {
+            Class<?> clazz = highlighter.getClass();
+            return (clazz.getMethod("highlight", Component.class, ComponentAdapter.class)
+                        .getDeclaringClass() == AbstractHighlighter.class)
+                && (clazz.getMethod("getHighlightPredicate")
+                        .getDeclaringClass() == AbstractHighlighter.class);
+        } catch (NoSuchMethodException e) {
+            // can't happen, both are public
+            return false;
+        }
+    }
+
+    /**
+     * Returns a predicate with the same outcome as the given, with
+     * ALWAYS/NEVER folded out of logical predicates. Returns ALWAYS or NEVER
+     * if the outcome is constant. Only logical predicates of exactly the
+     * classes And/Or/NotHighlightPredicate are folded.
+     *
+     * @param predicate the predicate to simplify
+     * @return the simplified predicate
+     */
+    static HighlightPredicate simplify(HighlightPredicate predicate) {
+        if (predicate == null) return HighlightPredicate.ALWAYS;
+        Class<?> clazz = predicate.getClass();
+        if (clazz == NotHighlightPredicate.class) {
+            HighlightPredicate negated = ((NotHighlightPredicate) predicate).getHighlightPredicate();
+            HighlightPredicate simplified = simplify(negated);
+            if (simplified == HighlightPredicate.ALWAYS) return HighlightPredicate.NEVER;
+            if (simplified == HighlightPredicate.NEVER) return HighlightPredicate.ALWAYS;
+            return simplified == negated ? predicate : new NotHighlightPredicate(simplified);
+        }
+        boolean and = clazz == AndHighlightPredicate.class;
+        if (!and && (clazz != OrHighlightPredicate.class)) return predicate;
+        HighlightPredicate[] contained = and
+            ? ((AndHighlightPredicate) predicate).getHighlightPredicates()
+            : ((OrHighlightPredicate) predicate).getHighlightPredicates();
+        // both are false if empty
+        if (contained.length == 0) return HighlightPredicate.NEVER;
+        // the constant which decides the outcome, the other is neutral
+        HighlightPredicate decisive = and ? HighlightPredicate.NEVER : HighlightPredicate.ALWAYS;
+        List<HighlightPredicate> kept = new ArrayList<HighlightPredicate>();
+        boolean changed = false;
+        for (HighlightPredicate p : contained) {
+            HighlightPredicate simplified = simplify(p);
+            if (simplified == decisive) return decisive;
+            if (simplified != p) {
+                changed = true;
+            }
+            if ((simplified == HighlightPredicate.ALWAYS)
+                    || (simplified == HighlightPredicate.NEVER)) continue;
+            kept.add(simplified);
+        }
+        if (kept.isEmpty())
+            return and ? HighlightPredicate.ALWAYS : HighlightPredicate.NEVER;
+        if (kept.size() == 1) return kept.get(0);
+        if (!changed && (kept.size() == contained.length)) return predicate;
+        return and ? new AndHighlightPredicate(kept) : new OrHighlightPredicate(kept);
+    }
+
+    /**
+     * One step of the compiled form.
+     */
+    private static class Step {
+        /** the Highlighter to apply as-is, null if taken apart. */
+        final Highlighter opaque;
+        /** the Highlighter taken apart, null if opaque. */
+        final AbstractHighlighter highlighter;
+        /** the simplified predicate, null for ALWAYS. */
+        final HighlightPredicate predicate;
+        /** the number of contained steps to skip if false, -1 if not a compound. */
+        int skip = -1;
+
+        Step(Highlighter opaque) {
+            this.opaque = opaque;
+            this.highlighter = null;
+            this.predicate = null;
+        }
+
+        Step(AbstractHighlighter highlighter, HighlightPredicate predicate) {
+            this.opaque = null;
+            this.highlighter = highlighter;
+            this.predicate = predicate;
+        }
+    }
+}
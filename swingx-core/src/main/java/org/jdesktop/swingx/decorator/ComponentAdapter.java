@@ -21,10 +21,14 @@
 
 package org.jdesktop.swingx.decorator;
 
+import java.awt.Component;
 import java.awt.Rectangle;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import javax.swing.JComponent;
 
+import org.jdesktop.swingx.decorator.ScopedHighlightPredicate.Scope;
 import org.jdesktop.swingx.renderer.StringValues;
 
 /**
@@ -106,6 +110,24 @@ public abstract class ComponentAdapter {
     /** current column in view coordinates. */
     public int column = 0;
     protected final JComponent    target;
+    
+    /** flag indicating whether value and string of the current cell are cached. */
+    private boolean valueCaching;
+    /** the cell the cached value and string belong to, in view coordinates. */
+    private int cachedRow = -1;
+    private int cachedColumn = -1;
+    private boolean valueCached;
+    private Object cachedValue;
+    private boolean stringCached;
+    private String cachedString;
+    
+    /** flag indicating whether results of scoped predicates are cached. */
+    private boolean predicateCaching;
+    /** the row the cached row-scoped results belong to, in view coordinates. */
+    private int predicateRow = -1;
+    private Map<HighlightPredicate, Boolean> rowResults;
+    /** the cached column-scoped results, indexed by view column. */
+    private Map<HighlightPredicate, Boolean[]> columnResults;
 
     /**
      * Constructs a ComponentAdapter, setting the specified component as the
@@ -318,7 +340,13 @@ public abstract class ComponentAdapter {
      * @see #getValue(int)
      */
     public String getString() {
-        return getString(convertColumnIndexToModel(column));
+        if (!isCellCacheValid()) 
+            return getString(convertColumnIndexToModel(column));
+        if (!stringCached) {
+            cachedString = getString(convertColumnIndexToModel(column));
+            stringCached = true;
+        }
+        return cachedString;
     }
 
     /**
@@ -392,7 +420,151 @@ public abstract class ComponentAdapter {
      * @see #getValue(int)
      */
     public Object getValue() {
-        return getValue(convertColumnIndexToModel(column));
+        if (!isCellCacheValid()) 
+            return getValue(convertColumnIndexToModel(column));
+        if (!valueCached) {
+            cachedValue = getValue(convertColumnIndexToModel(column));
+            valueCached = true;
+        }
+        return cachedValue;
+    }
+    
+    /**
+     * Sets a flag indicating whether value and string of the cell identified 
+     * by this adapter should be cached. If true, <code>getValue()</code> 
+     * and <code>getString()</code> look up the value and string once per 
+     * cell and return the cached result until the adapter's row or column
+     * changes. <p>
+     * 
+     * This is meant to be enabled by the target component for the duration 
+     * of decorating a single cell, so that all Highlighters and 
+     * HighlightPredicates share the value and string. The target component 
+     * is responsible to disable caching if the cell's value might change. 
+     * Disabling clears the cache. The default is false. 
+     * 
+     * @param caching whether or not to cache value and string of the 
+     *   current cell
+     */
+    public void setValueCaching(boolean caching) {
+        this.valueCaching = caching;
+        if (!caching) {
+            clearCellCache();
+        }
+    }
+    
+    /**
+     * Returns a boolean indicating whether value and string of the cell 
+     * identified by this adapter are cached.
+     * 
+     * @return true if value and string are cached, false otherwise
+     * @see #setValueCaching(boolean)
+     */
+    public boolean isValueCaching() {
+        return valueCaching;
+    }
+    
+    /**
+     * Returns true if caching is enabled, clears the cache if the 
+     * cell changed since the last access.
+     */
+    private boolean isCellCacheValid() {
+        if (!valueCaching) return false;
+        if ((cachedRow != row) || (cachedColumn != column)) {
+            clearCellCache();
+            cachedRow = row;
+            cachedColumn = column;
+        }
+        return true;
+    }
+    
+    private void clearCellCache() {
+        cachedRow = -1;
+        cachedColumn = -1;
+        valueCached = false;
+        cachedValue = null;
+        stringCached = false;
+        cachedString = null;
+    }
+
+    /**
+     * Sets a flag indicating whether the results of ScopedHighlightPredicates
+     * should be cached. If true, a predicate with scope ROW is evaluated once
+     * per row, a predicate with scope COLUMN once per column, and the 
+     * result is re-used for all other cells of the same row or column. <p>
+     * 
+     * This is meant to be enabled by the target component for the duration 
+     * of a single paint pass, during which the state the predicates depend
+     * on can't change. Enabling or disabling clears the cache. The 
+     * default is false.
+     * 
+     * @param caching whether or not to cache the results of scoped predicates
+     * @see ScopedHighlightPredicate
+     */
+    public void setPredicateCaching(boolean caching) {
+        this.predicateCaching = caching;
+        predicateRow = -1;
+        rowResults = null;
+        columnResults = null;
+    }
+    
+    /**
+     * Returns a boolean indicating whether the results of scoped predicates
+     * are cached.
+     * 
+     * @return true if results of scoped predicates are cached, false otherwise
+     * @see #setPredicateCaching(boolean)
+     */
+    public boolean isPredicateCaching() {
+        return predicateCaching;
+    }
+    
+    /**
+     * Returns the result of the given predicate for the current cell, 
+     * re-using the result of a former evaluation in the same row or column 
+     * if predicate caching is enabled and the predicate is scoped 
+     * accordingly. 
+     * 
+     * @param predicate the predicate to evaluate
+     * @param renderer the renderer component
+     * @return the result of the predicate for the current cell
+     */
+    boolean isHighlighted(HighlightPredicate predicate, Component renderer) {
+        if (!predicateCaching || !(predicate instanceof ScopedHighlightPredicate)) 
+            return predicate.isHighlighted(renderer, this);
+        Scope scope = ((ScopedHighlightPredicate) predicate).getScope();
+        if (scope == Scope.ROW) {
+            if (rowResults == null) {
+                rowResults = new IdentityHashMap<HighlightPredicate, Boolean>();
+            } else if (predicateRow != row) {
+                rowResults.clear();
+            }
+            predicateRow = row;
+            Boolean result = rowResults.get(predicate);
+            if (result == null) {
+                result = predicate.isHighlighted(renderer, this);
+                rowResults.put(predicate, result);
+            }
+            return result;
+        }
+        if ((scope == Scope.COLUMN) && (column >= 0)) {
+            if (columnResults == null) {
+                columnResults = new IdentityHashMap<HighlightPredicate, Boolean[]>();
+            }
+            Boolean[] results = columnResults.get(predicate);
+            if ((results == null) || (results.length <= column)) {
+                Boolean[] old = results;
+                results = new Boolean[Math.max(column + 1, getColumnCount())];
+                if (old != null) {
+                    System.arraycopy(old, 0, results, 0, old.length);
+                }
+                columnResults.put(predicate, results);
+            }
+            if (results[column] == null) {
+                results[column] = predicate.isHighlighted(renderer, this);
+            }
+            return results[column];
+        }
+        return predicate.isHighlighted(renderer, this);
     }
 
     
@@ -112,7 +112,7 @@ public interface HighlightPredicate {
     /**
      * Rollover  Row.
      */
-    public static final HighlightPredicate ROLLOVER_ROW = new HighlightPredicate() {
+    public static final HighlightPredicate ROLLOVER_ROW = new ScopedHighlightPredicate() {
         
         /**
          * @inheritDoc
@@ -129,13 +129,23 @@ public interface HighlightPredicate {
                     RolloverProducer.ROLLOVER_KEY);
             return p != null &&  p.y == adapter.row;
         }
-        
+
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return ROW.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.ROW;
+        }
+
     };
     
     /**
      * Rollover  Column.
      */
-    public static final HighlightPredicate ROLLOVER_COLUMN = new HighlightPredicate() {
+    public static final HighlightPredicate ROLLOVER_COLUMN = new ScopedHighlightPredicate() {
         
         /**
          * @inheritDoc
@@ -152,7 +162,17 @@ public interface HighlightPredicate {
                     RolloverProducer.ROLLOVER_KEY);
             return p != null &&  p.x == adapter.column;
         }
-        
+
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return COLUMN.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.COLUMN;
+        }
+
     };
     /**
      * Rollover  Cell.
@@ -210,7 +230,7 @@ public interface HighlightPredicate {
     /**
      * Leaf predicate.
      */
-    public static final HighlightPredicate IS_LEAF = new HighlightPredicate() {
+    public static final HighlightPredicate IS_LEAF = new ScopedHighlightPredicate() {
         /**
          * {@inheritDoc} <p>
          * 
@@ -220,12 +240,23 @@ public interface HighlightPredicate {
         public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
             return adapter.isLeaf();
         }
+
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return ROW.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.ROW;
+        }
+
     };
     
     /**
      * Folder predicate - convenience: same as !IS_LEAF.
      */
-    public static final HighlightPredicate IS_FOLDER = new HighlightPredicate() {
+    public static final HighlightPredicate IS_FOLDER = new ScopedHighlightPredicate() {
         /**
          * {@inheritDoc} <p>
          * 
@@ -235,6 +266,17 @@ public interface HighlightPredicate {
         public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
             return !adapter.isLeaf();
         }
+
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return ROW.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.ROW;
+        }
+
     };
     
     /**
@@ -313,13 +355,23 @@ public interface HighlightPredicate {
      * from the old AlternateRowHighlighter.
      * 
      */
-    public static final HighlightPredicate EVEN = new HighlightPredicate() {
+    public static final HighlightPredicate EVEN = new ScopedHighlightPredicate() {
 
         @Override
         public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
             return adapter.row % 2 == 0;
         }
-        
+
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return ROW.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.ROW;
+        }
+
     };
     
     /**
@@ -329,13 +381,23 @@ public interface HighlightPredicate {
      * the old implementation which was one based?
      * 
      */
-    public static final HighlightPredicate ODD = new HighlightPredicate() {
+    public static final HighlightPredicate ODD = new ScopedHighlightPredicate() {
 
         @Override
         public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
             return !EVEN.isHighlighted(renderer, adapter);
         }
-        
+
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return ROW.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.ROW;
+        }
+
     };
     
     /**
@@ -376,7 +438,7 @@ public interface HighlightPredicate {
     /**
      * Negation of a HighlightPredicate.
      */
-    public static class NotHighlightPredicate implements HighlightPredicate {
+    public static class NotHighlightPredicate implements ScopedHighlightPredicate {
         
         private HighlightPredicate predicate;
         
@@ -407,15 +469,27 @@ public interface HighlightPredicate {
             return predicate;
         }
 
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return the scope of the contained predicate.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.of(predicate);
+        }
+
     }
     
     /**
      * Ands a list of predicates.
      */
-    public static class AndHighlightPredicate implements HighlightPredicate {
+    public static class AndHighlightPredicate implements ScopedHighlightPredicate {
         
         private List<HighlightPredicate> predicate;
         
+        private Scope scope;
+        
         /**
          * Instantiates a predicate which ands all given predicates.
          * @param predicate zero or more not null predicates to and
@@ -454,6 +528,19 @@ public interface HighlightPredicate {
             if (predicate.isEmpty()) return EMPTY_PREDICATE_ARRAY;
             return predicate.toArray(new HighlightPredicate[predicate.size()]);
         }
+
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return the scope shared by all contained predicates.
+         */
+        @Override
+        public Scope getScope() {
+            if (scope == null) {
+                scope = Scope.of(predicate);
+            }
+            return scope;
+        }
         
         
     }
@@ -461,10 +548,12 @@ public interface HighlightPredicate {
     /**
      * Or's a list of predicates.
      */
-    public static class OrHighlightPredicate implements HighlightPredicate {
+    public static class OrHighlightPredicate implements ScopedHighlightPredicate {
         
         private List<HighlightPredicate> predicate;
         
+        private Scope scope;
+        
         /**
          * Instantiates a predicate which ORs all given predicates.
          * @param predicate zero or more not null predicates to OR
@@ -502,12 +591,25 @@ public interface HighlightPredicate {
             if (predicate.isEmpty()) return EMPTY_PREDICATE_ARRAY;
             return predicate.toArray(new HighlightPredicate[predicate.size()]);
         }
+
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return the scope shared by all contained predicates.
+         */
+        @Override
+        public Scope getScope() {
+            if (scope == null) {
+                scope = Scope.of(predicate);
+            }
+            return scope;
+        }
         
     }
     
 //------------------------ coordinates
     
-    public static class RowGroupHighlightPredicate implements HighlightPredicate {
+    public static class RowGroupHighlightPredicate implements ScopedHighlightPredicate {
 
         private int linesPerGroup;
 
@@ -535,6 +637,16 @@ public interface HighlightPredicate {
             return (adapter.row / linesPerGroup) % 2 == 1;
         }
 
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return ROW.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.ROW;
+        }
+
         /**
          * 
          * @return the number of lines per group.
@@ -549,7 +661,7 @@ public interface HighlightPredicate {
      * A HighlightPredicate based on column index.
      * 
      */
-    public static class ColumnHighlightPredicate implements HighlightPredicate {
+    public static class ColumnHighlightPredicate implements ScopedHighlightPredicate {
         List<Integer> columnList;
         
         /**
@@ -578,6 +690,16 @@ public interface HighlightPredicate {
             return columnList.contains(modelIndex);
         }
 
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return COLUMN.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.COLUMN;
+        }
+
         /**
          * PENDING JW: get array of int instead of Integer?
          * 
@@ -595,7 +717,7 @@ public interface HighlightPredicate {
      * A HighlightPredicate based on column identifier.
      * 
      */
-    public static class IdentifierHighlightPredicate implements HighlightPredicate {
+    public static class IdentifierHighlightPredicate implements ScopedHighlightPredicate {
         List<Object> columnList;
         
         /**
@@ -625,6 +747,16 @@ public interface HighlightPredicate {
             return identifier != null ? columnList.contains(identifier) : false;
         }
 
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return COLUMN.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.COLUMN;
+        }
+
         /**
          * @return the identifiers
          */
@@ -642,7 +774,7 @@ public interface HighlightPredicate {
      * 
      * @author Karl Schaefer
      */
-    public static class DepthHighlightPredicate implements HighlightPredicate {
+    public static class DepthHighlightPredicate implements ScopedHighlightPredicate {
         private List<Integer> depthList;
         
         /**
@@ -672,6 +804,16 @@ public interface HighlightPredicate {
             return depthList.contains(depth);
         }
 
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return ROW.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.ROW;
+        }
+
         /**
          * @return array of numbers representing different depths
          */
@@ -786,7 +928,7 @@ public interface HighlightPredicate {
      * Predicate testing the componentAdapter column type against a given
      * Class. 
      */
-    public static class ColumnTypeHighlightPredicate implements HighlightPredicate {
+    public static class ColumnTypeHighlightPredicate implements ScopedHighlightPredicate {
 
         private Class<?> clazz;
         
@@ -825,6 +967,16 @@ public interface HighlightPredicate {
         public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
             return clazz.isAssignableFrom(adapter.getColumnClass());
         }
+
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Implemented to return COLUMN.
+         */
+        @Override
+        public Scope getScope() {
+            return Scope.COLUMN;
+        }
         
         public Class<?> getType() {
             return clazz;
@@ -0,0 +1,98 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.decorator;
+
+/**
+ * A HighlightPredicate which declares the coordinates its decision depends
+ * on. A predicate with scope ROW must return the same result for all cells
+ * of a row, a predicate with scope COLUMN the same for all cells of a
+ * column, in both cases independent of the renderer component. <p>
+ *
+ * Components may use the scope to evaluate the predicate only once per row
+ * or column while painting, the result is re-used for all other cells of
+ * the same row or column during that paint pass. <p>
+ *
+ * <pre><code>
+ * HighlightPredicate overdue = new ScopedHighlightPredicate() {
+ *     public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
+ *         Date due = (Date) adapter.getValueAt(adapter.row, DUE_COLUMN);
+ *         return due != null &amp;&amp; due.before(new Date());
+ *     }
+ *
+ *     public Scope getScope() {
+ *         return Scope.ROW;
+ *     }
+ * };
+ * </code></pre>
+ *
+ * @see ComponentAdapter#setPredicateCaching(boolean)
+ */
+public interface ScopedHighlightPredicate extends HighlightPredicate {
+
+    /**
+     * The coordinates a predicate's decision depends on.
+     */
+    public enum Scope {
+        /** depends on the individual cell, not cacheable. */
+        CELL,
+        /** same result for all cells of a row. */
+        ROW,
+        /** same result for all cells of a column. */
+        COLUMN;
+
+        /**
+         * Returns the scope of the given predicate, CELL if not scoped.
+         *
+         * @param predicate the predicate to get the scope of
+         * @return the scope of the predicate
+         */
+        static Scope of(HighlightPredicate predicate) {
+            return predicate instanceof ScopedHighlightPredicate
+                ? ((ScopedHighlightPredicate) predicate).getScope() : CELL;
+        }
+
+        /**
+         * Returns the scope shared by all given predicates. The constants
+         * ALWAYS and NEVER don't restrict the scope. Returns CELL if there
+         * is no common scope.
+         *
+         * @param predicates the predicates to get the common scope of
+         * @return the common scope of the predicates
+         */
+        static Scope of(Iterable<HighlightPredicate> predicates) {
+            Scope common = null;
+            for (HighlightPredicate predicate : predicates) {
+                if ((predicate == HighlightPredicate.ALWAYS)
+                        || (predicate == HighlightPredicate.NEVER)) continue;
+                Scope scope = of(predicate);
+                if ((scope == CELL) || ((common != null) && (common != scope)))
+                    return CELL;
+                common = scope;
+            }
+            return common != null ? common : CELL;
+        }
+    }
+
+    /**
+     * Returns the scope of this predicate.
+     *
+     * @return the scope of this predicate, must not be null.
+     */
+    Scope getScope();
+}
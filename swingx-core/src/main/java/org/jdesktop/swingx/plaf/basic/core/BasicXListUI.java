@@ -40,6 +40,7 @@ import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.Arrays;
 
 import javax.swing.Action;
 import javax.swing.CellRendererPane;
@@ -159,6 +160,24 @@ public class BasicXListUI  extends BasicListUI
     protected int cellHeight = -1;
     protected int cellWidth = -1;
     protected int updateLayoutStateNeeded = modelChanged;
+    /**
+     * Prefix sums over cellHeights, lazily re-built if cellHeights is replaced.
+     */
+    private RowHeights rowHeights;
+    /**
+     * Preferred widths of the cells, to maintain cellWidth on model changes.
+     * Only kept if neither cell height nor width is fixed.
+     */
+    private int[] cellWidths;
+    /**
+     * Flags for cells measured, if cell heights are estimated. Null if all cells 
+     * are measured.
+     */
+    private boolean[] measuredCells;
+    /**
+     * Flag for a revalidate scheduled after measuring cells while painting.
+     */
+    private boolean revalidatePending;
     /**
      * Height of the list. When asked to paint, if the current size of
      * the list differs, this will update the layout state.
@@ -227,6 +246,7 @@ public class BasicXListUI  extends BasicListUI
     private final static int heightChanged = 1 << 8;
     private final static int widthChanged = 1 << 9;
     private final static int componentOrientationChanged = 1 << 10;
+    private final static int estimatedCellHeightChanged = 1 << 11;
 
     private static final int DROP_LINE_THICKNESS = 2;
 
@@ -516,6 +536,9 @@ public class BasicXListUI  extends BasicListUI
 
         // Determine how many columns we need to paint
         Rectangle paintBounds = g.getClipBounds();
+        if (measuredCells != null) {
+            measureCells(paintBounds);
+        }
 
         int startColumn, endColumn;
         if (c.getComponentOrientation().isLeftToRight()) {
@@ -1154,6 +1177,9 @@ public class BasicXListUI  extends BasicListUI
 
         cellWidth = cellHeight = -1;
         cellHeights = null;
+        cellWidths = null;
+        measuredCells = null;
+        rowHeights = null;
 
         listWidth = listHeight = -1;
 
@@ -1280,9 +1306,7 @@ public class BasicXListUI  extends BasicListUI
                 y = 0;
             }
             else {
-                for(int i = 0; i < row; i++) {
-                    y += cellHeights[i];
-                }
+                y += getRowHeights().getY(row);
             }
             w = list.getWidth() - (insets.left + insets.right);
             h = getRowHeight(index);
@@ -1384,24 +1408,26 @@ public class BasicXListUI  extends BasicListUI
             return -1;
         }
         else {
-            int y = insets.top;
-            int row = 0;
+            int y = y0 - insets.top;
 
-            if (closest && y0 < y) {
-                return 0;
+            if (y < 0) {
+                return closest ? 0 : size - 1;
             }
-            int i;
-            for (i = 0; i < size; i++) {
-                if ((y0 >= y) && (y0 < y + cellHeights[i])) {
-                    return row;
-                }
-                y += cellHeights[i];
-                row += 1;
-            }
-            return i - 1;
+            return Math.min(getRowHeights().getRow(y), size - 1);
         }
     }
 
+    /**
+     * Returns the prefix sums over cellHeights, re-builds them if
+     * cellHeights has been replaced.
+     */
+    private RowHeights getRowHeights() {
+        if ((rowHeights == null) || !rowHeights.isBackedBy(cellHeights)) {
+            rowHeights = new RowHeights(cellHeights);
+        }
+        return rowHeights;
+    }
+
     /**
      * Returns the closest row that starts at the specified y-location
      * in the passed in column.
@@ -1585,6 +1611,8 @@ public class BasicXListUI  extends BasicListUI
         int fixedCellWidth = list.getFixedCellWidth();
 
         cellWidth = (fixedCellWidth != -1) ? fixedCellWidth : -1;
+        cellWidths = null;
+        measuredCells = null;
 
         if (fixedCellHeight != -1) {
             cellHeight = fixedCellHeight;
@@ -1608,7 +1636,24 @@ public class BasicXListUI  extends BasicListUI
             int dataModelSize = dataModel.getSize();
             ListCellRenderer renderer = list.getCellRenderer();
 
-            if (renderer != null) {
+            if ((renderer != null) && isEstimatingCellHeights()) {
+                /* Use the estimate for all cells, measure the cells 
+                 * which are visible initially, others are measured 
+                 * when painted.
+                 */
+                if (fixedCellWidth == -1) {
+                    cellWidths = new int[dataModelSize];
+                }
+                measuredCells = new boolean[dataModelSize];
+                Arrays.fill(cellHeights, list.getEstimatedCellHeight());
+                int visibleCount = Math.min(dataModelSize, 
+                        Math.max(1, list.getVisibleRowCount()));
+                updateCellSizes(0, visibleCount - 1);
+            }
+            else if (renderer != null) {
+                if ((fixedCellWidth == -1) && (fixedCellHeight == -1)) {
+                    cellWidths = new int[dataModelSize];
+                }
                 for(int index = 0; index < dataModelSize; index++) {
                     Object value = dataModel.getElementAt(index);
                     Component c = renderer.getListCellRendererComponent(list, value, index, false, false);
@@ -1620,6 +1665,9 @@ public class BasicXListUI  extends BasicListUI
                     if (fixedCellHeight == -1) {
                         cellHeights[index] = cellSize.height;
                     }
+                    if (cellWidths != null) {
+                        cellWidths[index] = cellSize.width;
+                    }
                 }
             }
             else {
@@ -1641,6 +1689,201 @@ public class BasicXListUI  extends BasicListUI
         }
     }
 
+    /**
+     * Updates the cell sizes of the rows in the interval of the event,
+     * instead of re-measuring all rows. Possible only for vertical lists with
+     * variable cell height if the layout state is otherwise up to date, in
+     * view coordinates which are the same as model coordinates. The prefix
+     * sums over the cell heights are updated as well.
+     * 
+     * @param e the event received from the list model
+     * @return true if the layout state is updated, false if the complete
+     *   layout state must be re-computed
+     */
+    private boolean updateLayoutState(ListDataEvent e) {
+        if ((updateLayoutStateNeeded != 0) || (cellHeights == null)
+                || (layoutOrientation != JList.VERTICAL)
+                || (list.getCellRenderer() == null)) {
+            return false;
+        }
+        boolean fixedWidth = list.getFixedCellWidth() != -1;
+        if (!fixedWidth && (cellWidths == null)) {
+            return false;
+        }
+        int minIndex = Math.min(e.getIndex0(), e.getIndex1());
+        int maxIndex = Math.max(e.getIndex0(), e.getIndex1());
+        if (minIndex < 0) {
+            return false;
+        }
+        int count = maxIndex - minIndex + 1;
+        int size = getElementCount();
+        switch (e.getType()) {
+        case ListDataEvent.INTERVAL_ADDED:
+            if ((cellHeights.length + count != size) || (minIndex > cellHeights.length)) {
+                return false;
+            }
+            cellHeights = insertInterval(cellHeights, minIndex, count);
+            if (!fixedWidth) {
+                cellWidths = insertInterval(cellWidths, minIndex, count);
+            }
+            if (measuredCells != null) {
+                measuredCells = insertInterval(measuredCells, minIndex, count);
+                Arrays.fill(cellHeights, minIndex, maxIndex + 1, list.getEstimatedCellHeight());
+            } else {
+                updateCellSizes(minIndex, maxIndex);
+            }
+            break;
+        case ListDataEvent.INTERVAL_REMOVED:
+            if ((cellHeights.length - count != size) || (maxIndex >= cellHeights.length)) {
+                return false;
+            }
+            cellHeights = removeInterval(cellHeights, minIndex, count);
+            if (!fixedWidth) {
+                cellWidths = removeInterval(cellWidths, minIndex, count);
+            }
+            if (measuredCells != null) {
+                measuredCells = removeInterval(measuredCells, minIndex, count);
+            }
+            break;
+        default:
+            if ((cellHeights.length != size) || (maxIndex >= size)) {
+                return false;
+            }
+            if (measuredCells != null) {
+                // re-measured when painted
+                RowHeights heights = getRowHeights();
+                for (int index = minIndex; index <= maxIndex; index++) {
+                    measuredCells[index] = false;
+                    heights.setHeight(index, list.getEstimatedCellHeight());
+                    if (!fixedWidth) {
+                        cellWidths[index] = 0;
+                    }
+                }
+            } else {
+                updateCellSizes(minIndex, maxIndex);
+            }
+        }
+        if (!fixedWidth) {
+            cellWidth = -1;
+            for (int width : cellWidths) {
+                cellWidth = Math.max(width, cellWidth);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Measures the cells in the given range of rows.
+     */
+    private void updateCellSizes(int minIndex, int maxIndex) {
+        ListModel dataModel = getViewModel();
+        ListCellRenderer renderer = list.getCellRenderer();
+        RowHeights heights = getRowHeights();
+        for (int index = minIndex; index <= maxIndex; index++) {
+            Object value = dataModel.getElementAt(index);
+            Component c = renderer.getListCellRendererComponent(list, value, index, false, false);
+            rendererPane.add(c);
+            Dimension cellSize = c.getPreferredSize();
+            heights.setHeight(index, cellSize.height);
+            if (cellWidths != null) {
+                cellWidths[index] = cellSize.width;
+                cellWidth = Math.max(cellSize.width, cellWidth);
+            }
+            if (measuredCells != null) {
+                measuredCells[index] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns a boolean indicating whether the cell heights are estimated
+     * instead of measured up front.
+     */
+    private boolean isEstimatingCellHeights() {
+        return (list.getEstimatedCellHeight() > 0) 
+            && (list.getFixedCellHeight() == -1)
+            && (layoutOrientation == JList.VERTICAL);
+    }
+
+    /**
+     * Measures the cells in the given bounds which are not yet measured. The
+     * cells above are unchanged, so the measured cells keep their location. 
+     * Revalidates the list later if any cell size changed, which updates the
+     * scrollbars to the corrected preferred size.
+     * 
+     * @param bounds the bounds of the cells to measure
+     */
+    private void measureCells(Rectangle bounds) {
+        int size = Math.min(getElementCount(), measuredCells.length);
+        if (size == 0) return;
+        int oldHeight = getRowHeights().getTotal();
+        int oldWidth = cellWidth;
+        boolean measured = true;
+        // measuring may shrink cells and move more cells into the bounds
+        while (measured) {
+            measured = false;
+            int first = convertLocationToRow(0, bounds.y, true);
+            int last = convertLocationToRow(0, bounds.y + bounds.height - 1, true);
+            for (int index = Math.max(0, first); index <= last && index < size; index++) {
+                if (!measuredCells[index]) {
+                    updateCellSizes(index, index);
+                    measured = true;
+                }
+            }
+        }
+        if ((oldHeight != getRowHeights().getTotal()) || (oldWidth != cellWidth)) {
+            scheduleRevalidate();
+        }
+    }
+
+    /**
+     * Revalidates the list after the current paint, once for all cells
+     * measured until then. Revalidating from inside paint would queue a
+     * layout for every paint measuring cells.
+     */
+    private void scheduleRevalidate() {
+        if (revalidatePending) return;
+        revalidatePending = true;
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                revalidatePending = false;
+                // the ui might be uninstalled meanwhile
+                if (list != null) {
+                    list.revalidate();
+                }
+            }
+        });
+    }
+
+    private static int[] insertInterval(int[] values, int index, int count) {
+        int[] result = new int[values.length + count];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index, result, index + count, values.length - index);
+        return result;
+    }
+
+    private static int[] removeInterval(int[] values, int index, int count) {
+        int[] result = new int[values.length - count];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + count, result, index, result.length - index);
+        return result;
+    }
+
+    private static boolean[] insertInterval(boolean[] values, int index, int count) {
+        boolean[] result = new boolean[values.length + count];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index, result, index + count, values.length - index);
+        return result;
+    }
+
+    private static boolean[] removeInterval(boolean[] values, int index, int count) {
+        boolean[] result = new boolean[values.length - count];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + count, result, index, result.length - index);
+        return result;
+    }
+
     /**
      * Invoked when the list is layed out horizontally to determine how
      * many columns to create.
@@ -2781,6 +3024,10 @@ public class BasicXListUI  extends BasicListUI
                 updateLayoutStateNeeded |= cellRendererChanged;
                 redrawList();
             }
+            else if ("estimatedCellHeight" == propertyName) {
+                updateLayoutStateNeeded |= estimatedCellHeightChanged;
+                redrawList();
+            }
             else if (propertyName == "selectionForeground") {
                 list.repaint();
             }
@@ -2838,7 +3085,9 @@ public class BasicXListUI  extends BasicListUI
         // ListDataListener
         //
         public void intervalAdded(ListDataEvent e) {
-            updateLayoutStateNeeded = modelChanged;
+            if (!updateLayoutState(e)) {
+                updateLayoutStateNeeded = modelChanged;
+            }
 
             int minIndex = Math.min(e.getIndex0(), e.getIndex1());
             int maxIndex = Math.max(e.getIndex0(), e.getIndex1());
@@ -2861,7 +3110,9 @@ public class BasicXListUI  extends BasicListUI
 
         public void intervalRemoved(ListDataEvent e)
         {
-            updateLayoutStateNeeded = modelChanged;
+            if (!updateLayoutState(e)) {
+                updateLayoutStateNeeded = modelChanged;
+            }
 
             /* Sync the SelectionModel with the DataModel.
              */
@@ -2881,7 +3132,9 @@ public class BasicXListUI  extends BasicListUI
 
 
         public void contentsChanged(ListDataEvent e) {
-            updateLayoutStateNeeded = modelChanged;
+            if (!updateLayoutState(e)) {
+                updateLayoutStateNeeded = modelChanged;
+            }
             redrawList();
         }
 
@@ -0,0 +1,130 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.plaf.basic.core;
+
+/**
+ * Prefix sums over an array of row heights, backed by a Fenwick (binary
+ * indexed) tree. Maps row to y and y to row in O(log n) and updates a single
+ * height in O(log n). <p>
+ *
+ * The heights array is shared, not copied: changes of a height must go through
+ * {@link #setHeight(int, int)} to keep the sums in sync.
+ */
+class RowHeights {
+
+    private final int[] heights;
+    /** the Fenwick tree, 1-based: tree[i] is the sum of heights (i - lowbit(i), i]. */
+    private final int[] tree;
+    /** the highest power of 2 not greater than the number of rows. */
+    private final int highBit;
+
+    /**
+     * Builds the prefix sums over the given heights in O(n).
+     *
+     * @param heights the row heights, shared not copied
+     */
+    public RowHeights(int[] heights) {
+        this.heights = heights;
+        int n = heights.length;
+        tree = new int[n + 1];
+        for (int i = 1; i <= n; i++) {
+            tree[i] += heights[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= n) {
+                tree[parent] += tree[i];
+            }
+        }
+        int bit = 1;
+        while ((bit << 1) <= n) {
+            bit <<= 1;
+        }
+        highBit = n > 0 ? bit : 0;
+    }
+
+    /**
+     * @param heights the heights to compare
+     * @return true if the sums are backed by the given array
+     */
+    public boolean isBackedBy(int[] heights) {
+        return this.heights == heights;
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size() {
+        return heights.length;
+    }
+
+    /**
+     * Returns the y offset of the row, that is the sum of the heights
+     * of all rows before it.
+     *
+     * @param row the row, 0 &lt;= row &lt;= size
+     * @return the offset of the row
+     */
+    public int getY(int row) {
+        int sum = 0;
+        for (int i = row; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the row which contains the y offset, that is the last row whose
+     * offset is not greater than y. Returns size if y is beyond the last row.
+     *
+     * @param y the offset, must not be negative
+     * @return the row containing the offset or size if y is beyond the last row
+     */
+    public int getRow(int y) {
+        int pos = 0;
+        int remaining = y;
+        for (int bit = highBit; bit > 0; bit >>= 1) {
+            int next = pos + bit;
+            if ((next <= heights.length) && (tree[next] <= remaining)) {
+                pos = next;
+                remaining -= tree[next];
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * @return the sum of all heights
+     */
+    public int getTotal() {
+        return getY(heights.length);
+    }
+
+    /**
+     * Changes the height of the row.
+     *
+     * @param row the row
+     * @param height the new height
+     */
+    public void setHeight(int row, int height) {
+        int delta = height - heights[row];
+        heights[row] = height;
+        if (delta == 0) return;
+        for (int i = row + 1; i <= heights.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+}
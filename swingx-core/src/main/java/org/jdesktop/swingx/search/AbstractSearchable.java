@@ -21,11 +21,14 @@
 package org.jdesktop.swingx.search;
 
 import java.awt.Color;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
 
 import org.jdesktop.swingx.decorator.AbstractHighlighter;
 import org.jdesktop.swingx.decorator.ColorHighlighter;
@@ -40,7 +43,15 @@ import org.jdesktop.swingx.decorator.SearchPredicate;
  * Keeps internal state to represent the previous search result.
  * For all methods taking a String as parameter: compiles the String 
  * to a Pattern as-is and routes to the central method taking a Pattern.
+ * <p>
  * 
+ * Optionally supports matching off the EDT: with a search executor set, 
+ * {@link #searchInBackground(Pattern, int, boolean, SearchCallback)} matches
+ * a snapshot of the string values concurrently on the executor and 
+ * updates the state on the EDT. Subclasses opt in by implementing
+ * {@link #createSnapshot()} and invalidating the snapshot on changes.
+ * The same snapshot backs {@link #findAll(Pattern)}, an index of all matches
+ * which is used for navigation as long as it is valid.
  * 
  * @author Jeanette Winzenburg
  */
@@ -57,6 +68,29 @@ public abstract class AbstractSearchable implements Searchable {
     /** key for client property to use SearchHighlighter as match marker. */
     public static final String MATCH_HIGHLIGHTER = "match.highlighter";
 
+    /** marker returned by startSearch if the search state is already updated. */
+    private static final int SEARCH_DONE = Integer.MIN_VALUE;
+
+    private Executor searchExecutor;
+
+    /** the string values to match in the background, null if invalid. */
+    private String[][] snapshot;
+
+    /** the background search in progress, null if none. */
+    private ParallelSearch pendingSearch;
+
+    /** the matches of all cells, valid as long as the snapshot. */
+    private MatchIndex matchIndex;
+
+    /** the match index built in the background, null if none. */
+    private Runnable pendingFindAll;
+
+    /** incremented on each change of the snapshot. */
+    private int snapshotModCount;
+
+    /** the matcher for the last pattern in synchronous searches. */
+    private LiteralMatcher literalMatcher;
+
     /**
      * Performs a forward search starting at the beginning 
      * across the Searchable using String that represents a
@@ -154,6 +188,7 @@ public abstract class AbstractSearchable implements Searchable {
      */
     @Override
     public int search(Pattern pattern, int startIndex, boolean backwards) {
+        cancelBackgroundSearch();
         int matchingRow = doSearch(pattern, startIndex, backwards);
         moveMatchMarker();
         return matchingRow;
@@ -175,9 +210,23 @@ public abstract class AbstractSearchable implements Searchable {
      *   no match found.
      */
     protected int doSearch(Pattern pattern, final int startIndex, boolean backwards) {
+        int startRow = startSearch(pattern, startIndex, backwards);
+        if ((startRow != SEARCH_DONE) && !findIndexedMatchAndUpdateState(pattern, startRow, backwards)) {
+            findMatchAndUpdateState(pattern, startRow, backwards);
+        }
+        return lastSearchResult.foundRow;
+    }
+
+    /**
+     * Handles the trivial and extended matches and adjusts the start position.
+     * 
+     * @return the row to start matching at or SEARCH_DONE if the
+     *   state is already updated.
+     */
+    private int startSearch(Pattern pattern, final int startIndex, boolean backwards) {
         if (isTrivialNoMatch(pattern, startIndex)) {
             updateState(null);
-            return lastSearchResult.foundRow;
+            return SEARCH_DONE;
         }
         
         int startRow;
@@ -186,7 +235,7 @@ public abstract class AbstractSearchable implements Searchable {
                SearchResult searchResult = findExtendedMatch(pattern, startIndex);
                if (searchResult != null) {
                    updateState(searchResult);
-                   return lastSearchResult.foundRow;
+                   return SEARCH_DONE;
                }
 
             }
@@ -199,8 +248,413 @@ public abstract class AbstractSearchable implements Searchable {
             // and make sure a -1 startIndex is mapped to first/last row, respectively.
             startRow = adjustStartPosition(startIndex, backwards); 
         }
-        findMatchAndUpdateState(pattern, startRow, backwards);
-        return lastSearchResult.foundRow;
+        return startRow;
+    }
+
+    /**
+     * Performs a search as {@link #search(Pattern, int, boolean)}, matching
+     * the rows concurrently on the search executor. Returns immediately, the
+     * visible and internal search state is updated on the EDT and then the 
+     * callback is notified. A search started later supersedes this one, its
+     * callback is not notified then. <p>
+     * 
+     * Falls back to a synchronous search with immediate notification if there 
+     * is no search executor or this searchable doesn't support snapshots.<p>
+     * 
+     * Must be called on the EDT.
+     * 
+     * @param pattern <code>Pattern</code> that we will try to locate
+     * @param startIndex position in the document in the appropriate coordinates
+     * from which we will start search or -1 to start from the beginning
+     * @param backwards <code>true</code> if we should perform search towards the beginning
+     * @param callback the callback to notify on the EDT when done, may be null
+     * 
+     * @see #setSearchExecutor(Executor)
+     */
+    public void searchInBackground(Pattern pattern, int startIndex, boolean backwards,
+            final SearchCallback callback) {
+        cancelBackgroundSearch();
+        String[][] values = getSearchExecutor() != null ? getSnapshot() : null;
+        if (values == null) {
+            int foundIndex = search(pattern, startIndex, backwards);
+            if (callback != null) {
+                callback.searchFinished(foundIndex);
+            }
+            return;
+        }
+        int startRow = startSearch(pattern, startIndex, backwards);
+        if ((startRow == SEARCH_DONE) 
+                || findIndexedMatchAndUpdateState(pattern, startRow, backwards)) {
+            moveMatchMarker();
+            if (callback != null) {
+                callback.searchFinished(lastSearchResult.foundRow);
+            }
+            return;
+        }
+        ParallelSearch search = new ParallelSearch(values, pattern, startRow, 
+                lastSearchResult.foundColumn, backwards, 
+                Runtime.getRuntime().availableProcessors()) {
+            
+            @Override
+            protected void done(final SearchResult result) {
+                final ParallelSearch search = this;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (pendingSearch != search) return;
+                        pendingSearch = null;
+                        updateState(result);
+                        moveMatchMarker();
+                        if (callback != null) {
+                            callback.searchFinished(lastSearchResult.foundRow);
+                        }
+                    }
+                });
+            }
+        };
+        pendingSearch = search;
+        try {
+            search.start(getSearchExecutor());
+        } catch (RejectedExecutionException e) {
+            pendingSearch = null;
+            findMatchAndUpdateState(pattern, startRow, backwards);
+            moveMatchMarker();
+            if (callback != null) {
+                callback.searchFinished(lastSearchResult.foundRow);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of all cells matching the pattern, in row-major order 
+     * and view coordinates. Builds the index in one pass over the snapshot if
+     * it is not valid for the pattern. <p>
+     * 
+     * While the index is valid, searches with an equal pattern move through
+     * the index instead of matching the cells. The index is valid as long as
+     * the snapshot, updates of single rows are applied to both.
+     * 
+     * @param pattern the pattern to match
+     * @return the index of all matches or null if the pattern is null
+     *    or this searchable doesn't support snapshots
+     */
+    public MatchIndex findAll(Pattern pattern) {
+        if (pattern == null) return null;
+        MatchIndex index = getMatchIndex(pattern);
+        if (index != null) return index;
+        String[][] values = getSnapshot();
+        if (values == null) return null;
+        index = createMatchIndex(pattern, values);
+        matchIndex = index;
+        return index;
+    }
+
+    /**
+     * Performs {@link #findAll(Pattern)}, building the index on the search 
+     * executor if it is not valid for the pattern. Returns immediately, the 
+     * index is installed on the EDT and then the callback is notified. If the 
+     * snapshot changes meanwhile, the index is built again. A call started 
+     * later supersedes this one, its callback is not notified then. <p>
+     * 
+     * Falls back to a synchronous findAll with immediate notification if there 
+     * is no search executor or this searchable doesn't support snapshots.<p>
+     * 
+     * Must be called on the EDT.
+     * 
+     * @param pattern the pattern to match
+     * @param callback the callback to notify on the EDT when done
+     * 
+     * @see #setSearchExecutor(Executor)
+     */
+    public void findAllInBackground(final Pattern pattern, final FindAllCallback callback) {
+        pendingFindAll = null;
+        final String[][] values = (pattern != null) && (getSearchExecutor() != null) 
+                && (getMatchIndex(pattern) == null) ? getSnapshot() : null;
+        if (values == null) {
+            callback.findAllFinished(findAll(pattern));
+            return;
+        }
+        final int modCount = snapshotModCount;
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                final MatchIndex index = createMatchIndex(pattern, values);
+                final Runnable task = this;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (pendingFindAll != task) return;
+                        pendingFindAll = null;
+                        if (modCount != snapshotModCount) {
+                            findAllInBackground(pattern, callback);
+                            return;
+                        }
+                        matchIndex = index;
+                        callback.findAllFinished(index);
+                    }
+                });
+            }
+        };
+        pendingFindAll = task;
+        try {
+            getSearchExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            pendingFindAll = null;
+            callback.findAllFinished(findAll(pattern));
+        }
+    }
+
+    /**
+     * Matches all cells of the values. Safe to call from any thread, the values
+     * must not be modified while matching.
+     */
+    private static MatchIndex createMatchIndex(Pattern pattern, String[][] values) {
+        MatchIndex index = new MatchIndex(pattern);
+        LiteralMatcher matcher = new LiteralMatcher(pattern);
+        for (int row = 0; row < values.length; row++) {
+            for (int column = 0; column < values[row].length; column++) {
+                if (matcher.find(values[row][column])) {
+                    index.add(row, column);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the match index valid for the pattern. If the index is valid for a 
+     * previous pattern which the given pattern refines, f.i. the user typed ahead
+     * in a contains or starts-with search, re-matches only the previous matches.
+     * 
+     * @return the match index for the pattern or null if there is none
+     */
+    private MatchIndex getMatchIndex(Pattern pattern) {
+        if (matchIndex == null) return null;
+        if (isIndexedPattern(pattern)) return matchIndex;
+        if (!LiteralMatcher.isRefinement(pattern, matchIndex.getPattern())) return null;
+        MatchIndex index = new MatchIndex(pattern);
+        LiteralMatcher matcher = new LiteralMatcher(pattern);
+        for (int i = 0; i < matchIndex.getMatchCount(); i++) {
+            int row = matchIndex.getRow(i);
+            int column = matchIndex.getColumn(i);
+            if (matcher.find(snapshot[row][column])) {
+                index.add(row, column);
+            }
+        }
+        matchIndex = index;
+        return index;
+    }
+
+    /**
+     * Returns the position of the last found match in the match index.
+     * 
+     * @return the position of the last match in the match index or -1 if 
+     *   there is no match or no valid index for its pattern
+     * @see #findAll(Pattern)   
+     */
+    public int getMatchPosition() {
+        if (!hasMatch() || !isIndexedPattern(lastSearchResult.getPattern())) return -1;
+        return matchIndex.indexOf(lastSearchResult.foundRow, Math.max(0, lastSearchResult.foundColumn));
+    }
+
+    /**
+     * Moves to the nearest match in the index, if valid for or refinable to the pattern. 
+     * 
+     * @return true if the state is updated from the index, false if 
+     *   there is no valid index for the pattern.
+     */
+    private boolean findIndexedMatchAndUpdateState(Pattern pattern, int startRow, boolean backwards) {
+        if (getMatchIndex(pattern) == null) return false;
+        int column = lastSearchResult.foundColumn;
+        if (column < 0) {
+            column = backwards ? Integer.MAX_VALUE : 0;
+        }
+        int position = matchIndex.nextMatch(startRow, column, backwards);
+        if (position < 0) {
+            updateState(null);
+            return true;
+        }
+        int row = matchIndex.getRow(position);
+        column = matchIndex.getColumn(position);
+        Matcher matcher = pattern.matcher(snapshot[row][column]);
+        matcher.find();
+        updateState(createSearchResult(matcher, row, column));
+        return true;
+    }
+
+    /**
+     * @return true if the match index is valid for the pattern
+     */
+    private boolean isIndexedPattern(Pattern pattern) {
+        return (matchIndex != null) && (pattern != null)
+            && pattern.pattern().equals(matchIndex.getPattern().pattern())
+            && (pattern.flags() == matchIndex.getPattern().flags());
+    }
+
+    /**
+     * Finds the pattern in the text. Uses plain string comparison for literal
+     * patterns, like the patterns created by PatternModel for the contains 
+     * and starts-with match rules, and matches the regex only if found.
+     * 
+     * @param pattern the pattern to find
+     * @param text the text to search, may be null
+     * @return the matcher positioned at the first match or null if
+     *   the pattern is not found
+     */
+    protected Matcher findMatcher(Pattern pattern, String text) {
+        if ((literalMatcher == null) || (literalMatcher.getMatcher().pattern() != pattern)) {
+            literalMatcher = new LiteralMatcher(pattern);
+        }
+        return literalMatcher.find(text) ? literalMatcher.getMatcher() : null;
+    }
+
+    /**
+     * Cancels the background search in progress, if any. Its callback 
+     * is not notified.
+     */
+    public void cancelBackgroundSearch() {
+        if (pendingSearch != null) {
+            pendingSearch.cancel();
+            pendingSearch = null;
+        }
+    }
+
+    /**
+     * Sets the executor to match in the background. If null, which is the 
+     * default, searches are synchronous on the calling thread.
+     * 
+     * @param executor the executor to match in the background, may be null
+     */
+    public void setSearchExecutor(Executor executor) {
+        cancelBackgroundSearch();
+        pendingFindAll = null;
+        this.searchExecutor = executor;
+        if (executor == null) {
+            invalidateSnapshot();
+        }
+    }
+
+    /**
+     * Returns the executor to match in the background.
+     * 
+     * @return the executor to match in the background, may be null
+     */
+    public Executor getSearchExecutor() {
+        return searchExecutor;
+    }
+
+    /**
+     * Returns the snapshot of string values to match in the background,
+     * creates it if necessary.
+     * 
+     * @return the snapshot or null if not supported
+     */
+    protected String[][] getSnapshot() {
+        if (snapshot == null) {
+            snapshot = createSnapshot();
+            if (snapshot != null) {
+                installSnapshotListeners();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Creates a snapshot of the string values in view coordinates, rows by
+     * columns. Called on the EDT, the snapshot is matched on the search
+     * executor, its rows may be replaced but must not be modified after creation. <p>
+     * 
+     * This implementation returns null, that is background search is not supported.
+     * Subclasses which override must install listeners which invalidate the snapshot
+     * on changes.
+     * 
+     * @return the string values in view coordinates or null if not supported
+     */
+    protected String[][] createSnapshot() {
+        return null;
+    }
+
+    /**
+     * Creates the snapshot of the string values of a single row in view 
+     * coordinates. <p>
+     * 
+     * This implementation returns null, that is updating single rows is 
+     * not supported.
+     * 
+     * @param row the row in view coordinates
+     * @return the string values of the row or null if not supported
+     * @see #updateSnapshot(int, int)
+     */
+    protected String[] createSnapshotRow(int row) {
+        return null;
+    }
+
+    /**
+     * Drops the snapshot of string values and the match index, a new snapshot is 
+     * created on the next background search. Called by the snapshot listeners on changes.
+     */
+    protected void invalidateSnapshot() {
+        if (snapshot == null) return;
+        snapshotModCount++;
+        snapshot = null;
+        matchIndex = null;
+        uninstallSnapshotListeners();
+    }
+
+    /**
+     * Updates the snapshot and the match index for changed values in 
+     * the given range of rows, the row count must be unchanged. Invalidates the 
+     * snapshot if a row is out of range or updating single rows is not supported.
+     * Called by the snapshot listeners on changes.
+     * 
+     * @param firstRow the first changed row in view coordinates
+     * @param lastRow the last changed row in view coordinates, inclusive
+     */
+    protected void updateSnapshot(int firstRow, int lastRow) {
+        if (snapshot == null) return;
+        if ((firstRow < 0) || (lastRow >= snapshot.length)) {
+            invalidateSnapshot();
+            return;
+        }
+        snapshotModCount++;
+        LiteralMatcher matcher = matchIndex != null ? new LiteralMatcher(matchIndex.getPattern()) : null;
+        for (int row = firstRow; row <= lastRow; row++) {
+            String[] values = createSnapshotRow(row);
+            if (values == null) {
+                invalidateSnapshot();
+                return;
+            }
+            // replace, not modify: the old row might be matched in the background
+            snapshot[row] = values;
+            if (matcher != null) {
+                int[] columns = new int[values.length];
+                int count = 0;
+                for (int column = 0; column < values.length; column++) {
+                    if (matcher.find(values[column])) {
+                        columns[count++] = column;
+                    }
+                }
+                matchIndex.setRow(row, columns, count);
+            }
+        }
+    }
+
+    /**
+     * Installs the listeners which invalidate the snapshot. Called after creating
+     * the snapshot.<p>
+     * 
+     * This implementation does nothing.
+     */
+    protected void installSnapshotListeners() {
+    }
+
+    /**
+     * Uninstalls the listeners which invalidate the snapshot. Called after 
+     * invalidating the snapshot.<p>
+     * 
+     * This implementation does nothing.
+     */
+    protected void uninstallSnapshotListeners() {
     }
 
     /**
@@ -548,6 +1002,39 @@ public abstract class AbstractSearchable implements Searchable {
                 : HighlightPredicate.NEVER;
     }
 
+    /**
+     * Callback notified on the EDT when a background search is done.
+     * 
+     * @see AbstractSearchable#searchInBackground(Pattern, int, boolean, SearchCallback)
+     */
+    public static interface SearchCallback {
+        
+        /**
+         * Notifies that the search is done.
+         * 
+         * @param foundIndex the position of the match in appropriate coordinates 
+         *   or -1 if no match found.
+         */
+        void searchFinished(int foundIndex);
+    }
+
+    /**
+     * Callback notified on the EDT when building the index of all matches
+     * in the background is done.
+     * 
+     * @see AbstractSearchable#findAllInBackground(Pattern, FindAllCallback)
+     */
+    public static interface FindAllCallback {
+        
+        /**
+         * Notifies that the index of all matches is available.
+         * 
+         * @param index the index of all matches or null if the pattern is null
+         *   or the searchable doesn't support snapshots
+         */
+        void findAllFinished(MatchIndex index);
+    }
+
     /**
      * A convenience class to hold search state.<p>
      * 
@@ -20,9 +20,18 @@
  */
 package org.jdesktop.swingx.search;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.swing.ListModel;
+import javax.swing.RowSorter;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.event.RowSorterListener;
+
 import org.jdesktop.swingx.JXList;
 import org.jdesktop.swingx.decorator.AbstractHighlighter;
 import org.jdesktop.swingx.decorator.Highlighter;
@@ -31,6 +40,10 @@ public class ListSearchable extends AbstractSearchable {
 
         protected JXList list;
 
+        private SnapshotListener snapshotListener;
+        private ListModel snapshotModel;
+        private RowSorter<?> snapshotSorter;
+
         public ListSearchable(JXList list) {
            this.list = list; 
         }
@@ -65,16 +78,122 @@ public class ListSearchable extends AbstractSearchable {
          * @return <code>SearchResult</code> if matched otherwise null
          */
         protected SearchResult findMatchAt(Pattern pattern, int row) {
-            String text = list.getStringAt(row);
-            if ((text != null) && (text.length() > 0 )) {
-                Matcher matcher = pattern.matcher(text);
-                if (matcher.find()) {
-                    return createSearchResult(matcher, row, 0);
-                }
+            Matcher matcher = findMatcher(pattern, list.getStringAt(row));
+            if (matcher != null) {
+                return createSearchResult(matcher, row, 0);
             }
             return null;
         }
         
+        /**
+         * {@inheritDoc}
+         * <p>
+         * 
+         * Implemented to take the string values of all elements in view coordinates.
+         */
+        @Override
+        protected String[][] createSnapshot() {
+            String[][] values = new String[list.getElementCount()][];
+            for (int row = 0; row < values.length; row++) {
+                values[row] = createSnapshotRow(row);
+            }
+            return values;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected String[] createSnapshotRow(int row) {
+            return new String[] {list.getStringAt(row)};
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * 
+         * Implemented to listen to changes of the list's model and sorter.
+         */
+        @Override
+        protected void installSnapshotListeners() {
+            snapshotModel = list.getModel();
+            snapshotModel.addListDataListener(getSnapshotListener());
+            snapshotSorter = list.getRowSorter();
+            if (snapshotSorter != null) {
+                snapshotSorter.addRowSorterListener(getSnapshotListener());
+            }
+            list.addPropertyChangeListener(getSnapshotListener());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void uninstallSnapshotListeners() {
+            snapshotModel.removeListDataListener(getSnapshotListener());
+            if (snapshotSorter != null) {
+                snapshotSorter.removeRowSorterListener(getSnapshotListener());
+            }
+            list.removePropertyChangeListener(getSnapshotListener());
+            snapshotModel = null;
+            snapshotSorter = null;
+        }
+
+        private SnapshotListener getSnapshotListener() {
+            if (snapshotListener == null) {
+                snapshotListener = new SnapshotListener();
+            }
+            return snapshotListener;
+        }
+
+        /**
+         * Invalidates the snapshot on changes which affect the string values
+         * in view coordinates.
+         */
+        private class SnapshotListener implements ListDataListener, RowSorterListener,
+                PropertyChangeListener {
+
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                invalidateSnapshot();
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                invalidateSnapshot();
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                if (e.getIndex0() < 0) {
+                    invalidateSnapshot();
+                    return;
+                }
+                // a re-sort or re-filter is notified by the sorter 
+                for (int row = Math.min(e.getIndex0(), e.getIndex1()); 
+                        row <= Math.max(e.getIndex0(), e.getIndex1()); row++) {
+                    int viewRow = list.convertIndexToView(row);
+                    if (viewRow >= 0) {
+                        updateSnapshot(viewRow, viewRow);
+                    }
+                }
+            }
+
+            @Override
+            public void sorterChanged(RowSorterEvent e) {
+                invalidateSnapshot();
+            }
+
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                String property = evt.getPropertyName();
+                if ("model".equals(property) || "rowSorter".equals(property)
+                        || "cellRenderer".equals(property)) {
+                    invalidateSnapshot();
+                }
+            }
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -0,0 +1,168 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.search;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds a pattern in strings, with a shortcut for literal patterns. A literal
+ * pattern is plain text, optionally quoted and optionally anchored at the start,
+ * like the patterns created by PatternModel for the contains and starts-with
+ * match rules. Literal patterns are searched with plain string comparison,
+ * only the strings found that way are matched against the regex. <p>
+ *
+ * Not thread-safe, each thread needs its own instance.
+ */
+class LiteralMatcher {
+
+    private static final int EXACT = 0;
+    private static final int ASCII_CASE = 1;
+    private static final int UNICODE_CASE = 2;
+
+    private final Matcher matcher;
+    /** the literal text, null if the pattern is not literal. */
+    private final String text;
+    private final boolean anchored;
+    private final int caseMode;
+
+    /**
+     * Instantiates a matcher for the given pattern.
+     *
+     * @param pattern the pattern to find, must not be null
+     */
+    public LiteralMatcher(Pattern pattern) {
+        matcher = pattern.matcher("");
+        String regex = pattern.pattern();
+        anchored = regex.startsWith("^");
+        text = getLiteral(anchored ? regex.substring(1) : regex, pattern.flags());
+        int flags = pattern.flags();
+        caseMode = (flags & Pattern.CASE_INSENSITIVE) == 0 ? EXACT
+                : ((flags & Pattern.UNICODE_CASE) == 0 ? ASCII_CASE : UNICODE_CASE);
+    }
+
+    /**
+     * @return true if the pattern is literal
+     */
+    public boolean isLiteral() {
+        return text != null;
+    }
+
+    /**
+     * Finds the pattern in the text. The matcher is positioned at the
+     * match if found.
+     *
+     * @param value the text to search, may be null
+     * @return true if the pattern is found
+     * @see #getMatcher()
+     */
+    public boolean find(String value) {
+        if ((value == null) || (value.length() == 0)) return false;
+        if ((text != null) && !findLiteral(value)) return false;
+        matcher.reset(value);
+        return matcher.find();
+    }
+
+    /**
+     * @return the matcher, positioned at the match after a successful find
+     */
+    public Matcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * Returns a boolean indicating whether all strings the pattern finds are
+     * found by the previous pattern, that is the pattern only narrows the
+     * matches of the previous. This is the case if both are literal with the
+     * same flags and the previous finds the text of the pattern at the
+     * appropriate position. F.i. "abc" is a refinement of "ab" and of "bc",
+     * "^abc" of "^ab" and of "b".
+     *
+     * @param pattern the pattern
+     * @param previous the previous pattern
+     * @return true if all matches of the pattern are matches of the previous
+     */
+    public static boolean isRefinement(Pattern pattern, Pattern previous) {
+        if ((pattern == null) || (previous == null)
+                || (pattern.flags() != previous.flags())) return false;
+        LiteralMatcher current = new LiteralMatcher(pattern);
+        LiteralMatcher old = new LiteralMatcher(previous);
+        if (!current.isLiteral() || !old.isLiteral()) return false;
+        if (old.anchored && !current.anchored) return false;
+        return old.findLiteral(current.text);
+    }
+
+    private boolean findLiteral(String value) {
+        int max = value.length() - text.length();
+        if (anchored) {
+            return (max >= 0) && regionMatches(value, 0);
+        }
+        if (caseMode == EXACT) {
+            return value.indexOf(text) >= 0;
+        }
+        for (int i = 0; i <= max; i++) {
+            if (regionMatches(value, i)) return true;
+        }
+        return false;
+    }
+
+    private boolean regionMatches(String value, int offset) {
+        if (caseMode == UNICODE_CASE) {
+            return value.regionMatches(true, offset, text, 0, text.length());
+        }
+        if (caseMode == EXACT) {
+            return value.regionMatches(offset, text, 0, text.length());
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c1 = value.charAt(offset + i);
+            char c2 = text.charAt(i);
+            if ((c1 != c2) && (toLowerASCII(c1) != toLowerASCII(c2))) return false;
+        }
+        return true;
+    }
+
+    private static char toLowerASCII(char c) {
+        return (c >= 'A') && (c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Returns the literal text of the regex if it is a single quoted section
+     * or plain letters, digits and spaces. Returns null if it's not literal,
+     * the flags are not supported or the text contains surrogates.
+     */
+    private static String getLiteral(String regex, int flags) {
+        if ((flags & ~(Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)) != 0) return null;
+        String literal;
+        if (regex.startsWith("\\Q") && regex.endsWith("\\E") && (regex.length() >= 4)) {
+            literal = regex.substring(2, regex.length() - 2);
+            if (literal.indexOf("\\E") >= 0) return null;
+        } else {
+            for (int i = 0; i < regex.length(); i++) {
+                char c = regex.charAt(i);
+                if (!Character.isLetterOrDigit(c) && (c != ' ')) return null;
+            }
+            literal = regex;
+        }
+        if (literal.length() == 0) return null;
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) return null;
+        }
+        return literal;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.search;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * The cells matching a pattern, in row-major order, kept as compact arrays of
+ * row and column indices in view coordinates. Moving from one match to the next
+ * or previous is a step in the arrays, locating the match nearest to an
+ * arbitrary cell is a binary search. <p>
+ *
+ * A MatchIndex is created by {@link AbstractSearchable#findAll(Pattern)} and
+ * kept up to date by the searchable as long as it is valid.
+ */
+public class MatchIndex {
+
+    private final Pattern pattern;
+    private int[] rows;
+    private int[] columns;
+    private int size;
+
+    /**
+     * Instantiates an empty index for the given pattern.
+     *
+     * @param pattern the pattern the matches are found with
+     */
+    MatchIndex(Pattern pattern) {
+        this.pattern = pattern;
+        rows = new int[16];
+        columns = new int[16];
+    }
+
+    /**
+     * Returns the pattern the matches are found with.
+     *
+     * @return the pattern of this index
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the number of matching cells.
+     *
+     * @return the number of matching cells
+     */
+    public int getMatchCount() {
+        return size;
+    }
+
+    /**
+     * Returns the row of the match at the given position.
+     *
+     * @param position the position of the match, 0 &lt;= position &lt; matchCount
+     * @return the row of the match in view coordinates
+     */
+    public int getRow(int position) {
+        checkPosition(position);
+        return rows[position];
+    }
+
+    /**
+     * Returns the column of the match at the given position.
+     *
+     * @param position the position of the match, 0 &lt;= position &lt; matchCount
+     * @return the column of the match in view coordinates
+     */
+    public int getColumn(int position) {
+        checkPosition(position);
+        return columns[position];
+    }
+
+    /**
+     * Returns the position of the match at the given cell.
+     *
+     * @param row the row in view coordinates
+     * @param column the column in view coordinates
+     * @return the position of the match at the cell or -1 if the cell
+     *   doesn't match
+     */
+    public int indexOf(int row, int column) {
+        int position = search(row, column);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * Returns the position of the first match at or after the given cell,
+     * or at or before if backwards.
+     *
+     * @param row the row in view coordinates
+     * @param column the column in view coordinates
+     * @param backwards true to look towards the beginning
+     * @return the position of the nearest match in search direction or -1 if
+     *   there is none
+     */
+    public int nextMatch(int row, int column, boolean backwards) {
+        int position = search(row, column);
+        if (position >= 0) return position;
+        // the insertion point is the first match after the cell
+        position = -position - 1;
+        if (backwards) {
+            position--;
+        }
+        return (position >= 0) && (position < size) ? position : -1;
+    }
+
+    /**
+     * Replaces the matches in the given row.
+     *
+     * @param row the row in view coordinates
+     * @param matchingColumns the matching columns of the row, ascending
+     * @param count the number of matching columns
+     */
+    void setRow(int row, int[] matchingColumns, int count) {
+        int from = -search(row, -1) - 1;
+        int to = -search(row, Integer.MAX_VALUE) - 1;
+        int newSize = size - (to - from) + count;
+        ensureCapacity(newSize);
+        System.arraycopy(rows, to, rows, from + count, size - to);
+        System.arraycopy(columns, to, columns, from + count, size - to);
+        for (int i = 0; i < count; i++) {
+            rows[from + i] = row;
+            columns[from + i] = matchingColumns[i];
+        }
+        size = newSize;
+    }
+
+    /**
+     * Appends a match, must be after all matches in row-major order.
+     */
+    void add(int row, int column) {
+        ensureCapacity(size + 1);
+        rows[size] = row;
+        columns[size] = column;
+        size++;
+    }
+
+    /**
+     * Binary search for the cell in row-major order.
+     *
+     * @return the position of the cell if it is a match,
+     *   else (-(insertion point) - 1)
+     */
+    private int search(int row, int column) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int compare = rows[mid] != row ? (rows[mid] < row ? -1 : 1)
+                    : (columns[mid] != column ? (columns[mid] < column ? -1 : 1) : 0);
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= rows.length) return;
+        int length = Math.max(capacity, rows.length * 2);
+        rows = Arrays.copyOf(rows, length);
+        columns = Arrays.copyOf(columns, length);
+    }
+
+    private void checkPosition(int position) {
+        if ((position < 0) || (position >= size))
+            throw new IndexOutOfBoundsException("position " + position
+                    + " not in range 0 .." + (size - 1));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.search;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Pattern;
+
+import org.jdesktop.swingx.search.AbstractSearchable.SearchResult;
+
+/**
+ * Matches a pattern against a snapshot of string values, split into chunks of
+ * rows which are matched concurrently on an executor. Finds the first match in
+ * search direction, the same a sequential scan would find. <p>
+ *
+ * The chunks are numbered by their distance from the start row. A match in a chunk
+ * stops all chunks further away. The result is known as soon as all chunks up to the
+ * first one with a match are done, it is passed to {@link #done(SearchResult)} exactly
+ * once on the thread completing the decisive chunk. Nothing blocks, so the executor
+ * may have any number of threads. <p>
+ *
+ * A search can be cancelled, then done is never called.
+ */
+abstract class ParallelSearch {
+
+    /** minimal number of cells in a chunk. */
+    private static final int MIN_CHUNK_CELLS = 1024;
+
+    private final String[][] snapshot;
+    private final Pattern pattern;
+    private final int startRow;
+    private final int startColumn;
+    private final boolean backwards;
+    private final int rowsPerChunk;
+    private final int chunkCount;
+    /** per chunk: null if not done, NO_MATCH if done without match. */
+    private final SearchResult[] results;
+    /** the nearest chunk with a match so far, chunks further away stop. */
+    private volatile int firstFound = Integer.MAX_VALUE;
+    private volatile boolean cancelled;
+    private boolean finished;
+
+    private static final SearchResult NO_MATCH = new SearchResult();
+
+    /**
+     * Instantiates a search.
+     *
+     * @param snapshot the string values, rows by columns
+     * @param pattern the pattern to match
+     * @param startRow the row to start at
+     * @param startColumn the column to start at in the start row, -1 for
+     *   the first column in search direction
+     * @param backwards true to search towards the beginning
+     * @param parallelism the number of threads to expect
+     */
+    public ParallelSearch(String[][] snapshot, Pattern pattern, int startRow, int startColumn,
+            boolean backwards, int parallelism) {
+        this.snapshot = snapshot;
+        this.pattern = pattern;
+        this.startRow = startRow;
+        this.startColumn = startColumn;
+        this.backwards = backwards;
+        int rows = Math.max(0, backwards ? startRow + 1 : snapshot.length - startRow);
+        int columns = snapshot.length > 0 ? Math.max(1, snapshot[0].length) : 1;
+        int minRows = Math.max(1, MIN_CHUNK_CELLS / columns);
+        // a few chunks per thread to balance rows of different cost
+        rowsPerChunk = Math.max(minRows, rows / Math.max(1, 4 * parallelism) + 1);
+        chunkCount = (rows + rowsPerChunk - 1) / rowsPerChunk;
+        results = new SearchResult[chunkCount];
+    }
+
+    /**
+     * Starts matching the chunks on the executor. Calls done immediately if
+     * there is nothing to match.
+     *
+     * @param executor the executor to match the chunks on
+     * @throws RejectedExecutionException if the executor rejects a chunk, the
+     *   search is cancelled then
+     */
+    public void start(Executor executor) {
+        if (chunkCount == 0) {
+            done(null);
+            return;
+        }
+        try {
+            for (int i = 0; i < chunkCount; i++) {
+                final int chunk = i;
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        chunkDone(chunk, matchChunk(chunk));
+                    }
+                });
+            }
+        } catch (RejectedExecutionException e) {
+            cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Cancels this search. Chunks not yet done stop as soon as possible.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if this search is cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Called with the first match in search direction, or null if none. Called
+     * once on the thread which completes the decisive chunk, not called if
+     * cancelled.
+     *
+     * @param result the first match or null if none
+     */
+    protected abstract void done(SearchResult result);
+
+    /**
+     * Matches the rows of the chunk in search direction.
+     *
+     * @return the first match in the chunk, NO_MATCH if none or stopped
+     */
+    private SearchResult matchChunk(int chunk) {
+        int first = backwards ? startRow - chunk * rowsPerChunk : startRow + chunk * rowsPerChunk;
+        LiteralMatcher matcher = new LiteralMatcher(pattern);
+        for (int i = 0; i < rowsPerChunk; i++) {
+            int row = backwards ? first - i : first + i;
+            if ((row < 0) || (row >= snapshot.length)) break;
+            if (cancelled || (firstFound < chunk)) return NO_MATCH;
+            String[] values = snapshot[row];
+            int column = (row == startRow) && (startColumn >= 0) ? startColumn
+                    : (backwards ? values.length - 1 : 0);
+            for (; (column >= 0) && (column < values.length); column += backwards ? -1 : 1) {
+                if (matcher.find(values[column])) {
+                    return new SearchResult(pattern, matcher.getMatcher().toMatchResult(), row, column);
+                }
+            }
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * Records the result of the chunk and calls done if the first match
+     * in search direction is known.
+     */
+    private void chunkDone(int chunk, SearchResult result) {
+        if (result != NO_MATCH) {
+            synchronized (this) {
+                firstFound = Math.min(firstFound, chunk);
+            }
+        }
+        SearchResult first = null;
+        synchronized (this) {
+            results[chunk] = result;
+            if (finished || cancelled) return;
+            for (int i = 0; i < chunkCount; i++) {
+                if (results[i] == null) return;
+                if (results[i] != NO_MATCH) {
+                    first = results[i];
+                    break;
+                }
+            }
+            finished = true;
+        }
+        done(first);
+    }
+}
@@ -21,12 +21,27 @@
 package org.jdesktop.swingx.search;
 
 import java.awt.Rectangle;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.swing.RowSorter;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.event.RowSorterListener;
+import javax.swing.event.TableColumnModelEvent;
+import javax.swing.event.TableColumnModelListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableColumnModel;
+import javax.swing.table.TableModel;
+
 import org.jdesktop.swingx.JXTable;
 import org.jdesktop.swingx.decorator.AbstractHighlighter;
 import org.jdesktop.swingx.decorator.Highlighter;
+import org.jdesktop.swingx.sort.StringValueCache;
 
 /**
  * An Searchable implementation for use in JXTable.
@@ -38,6 +53,11 @@ public class TableSearchable extends AbstractSearchable {
     /** The target JXTable. */
     protected JXTable table;
 
+    private SnapshotListener snapshotListener;
+    private TableModel snapshotModel;
+    private RowSorter<?> snapshotSorter;
+    private TableColumnModel snapshotColumnModel;
+
     /**
      * Instantiates a TableSearchable with the given table as target.
      * 
@@ -150,12 +170,9 @@ public class TableSearchable extends AbstractSearchable {
      * @return an appropriate <code>SearchResult</code> if matching or null
      */
     protected SearchResult findMatchAt(Pattern pattern, int row, int column) {
-        String text = table.getStringAt(row, column);
-        if ((text != null) && (text.length() > 0)) {
-            Matcher matcher = pattern.matcher(text);
-            if (matcher.find()) {
-                return createSearchResult(matcher, row, column);
-            }
+        Matcher matcher = findMatcher(pattern, table.getStringAt(row, column));
+        if (matcher != null) {
+            return createSearchResult(matcher, row, column);
         }
         return null;
     }
@@ -218,6 +235,148 @@ public class TableSearchable extends AbstractSearchable {
         return column >= 0 && column < table.getColumnCount();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 
+     * Implemented to take the string values of all cells in view coordinates.
+     */
+    @Override
+    protected String[][] createSnapshot() {
+        String[][] values = new String[table.getRowCount()][];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = createSnapshotRow(row);
+        }
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String[] createSnapshotRow(int row) {
+        String[] values = new String[table.getColumnCount()];
+        for (int column = 0; column < values.length; column++) {
+            values[column] = table.getStringAt(row, column);
+        }
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 
+     * Implemented to listen to changes of the table's model, sorter, 
+     * column model and the string representation of cells, that is renderers
+     * or StringValues.
+     */
+    @Override
+    protected void installSnapshotListeners() {
+        snapshotModel = table.getModel();
+        snapshotModel.addTableModelListener(getSnapshotListener());
+        snapshotSorter = table.getRowSorter();
+        if (snapshotSorter != null) {
+            snapshotSorter.addRowSorterListener(getSnapshotListener());
+        }
+        snapshotColumnModel = table.getColumnModel();
+        snapshotColumnModel.addColumnModelListener(getSnapshotListener());
+        table.addPropertyChangeListener(getSnapshotListener());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void uninstallSnapshotListeners() {
+        snapshotModel.removeTableModelListener(getSnapshotListener());
+        if (snapshotSorter != null) {
+            snapshotSorter.removeRowSorterListener(getSnapshotListener());
+        }
+        snapshotColumnModel.removeColumnModelListener(getSnapshotListener());
+        table.removePropertyChangeListener(getSnapshotListener());
+        snapshotModel = null;
+        snapshotSorter = null;
+        snapshotColumnModel = null;
+    }
+
+    private SnapshotListener getSnapshotListener() {
+        if (snapshotListener == null) {
+            snapshotListener = new SnapshotListener();
+        }
+        return snapshotListener;
+    }
+
+    /**
+     * Invalidates the snapshot on changes which affect the string values
+     * in view coordinates.
+     */
+    private class SnapshotListener implements TableModelListener, RowSorterListener,
+            TableColumnModelListener, PropertyChangeListener {
+
+        @Override
+        public void tableChanged(TableModelEvent e) {
+            if ((e.getType() != TableModelEvent.UPDATE) || (e.getFirstRow() < 0)
+                    || (e.getLastRow() == Integer.MAX_VALUE)) {
+                invalidateSnapshot();
+                return;
+            }
+            // this listener may be notified before the table, the cached
+            // strings of the updated cells must not be read
+            StringValueCache cache = table.getStringValueCache();
+            if ((cache != null) && (cache.getModel() == e.getSource())) {
+                cache.tableChanged(e);
+            }
+            // a re-sort or re-filter is notified by the sorter 
+            for (int row = e.getFirstRow(); row <= e.getLastRow(); row++) {
+                int viewRow = table.convertRowIndexToView(row);
+                if (viewRow >= 0) {
+                    updateSnapshot(viewRow, viewRow);
+                }
+            }
+        }
+
+        @Override
+        public void sorterChanged(RowSorterEvent e) {
+            invalidateSnapshot();
+        }
+
+        @Override
+        public void columnAdded(TableColumnModelEvent e) {
+            invalidateSnapshot();
+        }
+
+        @Override
+        public void columnRemoved(TableColumnModelEvent e) {
+            invalidateSnapshot();
+        }
+
+        @Override
+        public void columnMoved(TableColumnModelEvent e) {
+            if (e.getFromIndex() != e.getToIndex()) {
+                invalidateSnapshot();
+            }
+        }
+
+        @Override
+        public void columnMarginChanged(ChangeEvent e) {
+        }
+
+        @Override
+        public void columnSelectionChanged(ListSelectionEvent e) {
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            String property = evt.getPropertyName();
+            if ("model".equals(property) || "rowSorter".equals(property)
+                    || "columnModel".equals(property) 
+                    || "stringValueCache".equals(property)
+                    || "stringValues".equals(property)) {
+                invalidateSnapshot();
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
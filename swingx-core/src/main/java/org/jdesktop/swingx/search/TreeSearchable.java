@@ -20,9 +20,17 @@
  */
 package org.jdesktop.swingx.search;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+
 import org.jdesktop.swingx.JXTree;
 import org.jdesktop.swingx.decorator.AbstractHighlighter;
 import org.jdesktop.swingx.decorator.Highlighter;
@@ -38,6 +46,9 @@ import org.jdesktop.swingx.decorator.Highlighter;
 
         protected JXTree tree;
 
+        private SnapshotListener snapshotListener;
+        private TreeModel snapshotModel;
+
 
         /**
          * @param tree
@@ -82,16 +93,120 @@ import org.jdesktop.swingx.decorator.Highlighter;
          * null if no matching
          */
         protected SearchResult findMatchAt(Pattern pattern, int row) {
-            String text = tree.getStringAt(row);
-            if ((text != null) && (text.length() > 0 )) {
-                Matcher matcher = pattern.matcher(text);
-                if (matcher.find()) {
-                    return createSearchResult(matcher, row, 0);
-                }
+            Matcher matcher = findMatcher(pattern, tree.getStringAt(row));
+            if (matcher != null) {
+                return createSearchResult(matcher, row, 0);
             }
             return null;
         }
 
+        /**
+         * {@inheritDoc}
+         * <p>
+         * 
+         * Implemented to take the string values of all visible rows.
+         */
+        @Override
+        protected String[][] createSnapshot() {
+            String[][] values = new String[tree.getRowCount()][];
+            for (int row = 0; row < values.length; row++) {
+                values[row] = createSnapshotRow(row);
+            }
+            return values;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected String[] createSnapshotRow(int row) {
+            return new String[] {tree.getStringAt(row)};
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * 
+         * Implemented to listen to changes of the tree's model and expansion.
+         */
+        @Override
+        protected void installSnapshotListeners() {
+            snapshotModel = tree.getModel();
+            if (snapshotModel != null) {
+                snapshotModel.addTreeModelListener(getSnapshotListener());
+            }
+            tree.addTreeExpansionListener(getSnapshotListener());
+            tree.addPropertyChangeListener(getSnapshotListener());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void uninstallSnapshotListeners() {
+            if (snapshotModel != null) {
+                snapshotModel.removeTreeModelListener(getSnapshotListener());
+            }
+            tree.removeTreeExpansionListener(getSnapshotListener());
+            tree.removePropertyChangeListener(getSnapshotListener());
+            snapshotModel = null;
+        }
+
+        private SnapshotListener getSnapshotListener() {
+            if (snapshotListener == null) {
+                snapshotListener = new SnapshotListener();
+            }
+            return snapshotListener;
+        }
+
+        /**
+         * Invalidates the snapshot on changes which affect the string values
+         * of the visible rows.
+         */
+        private class SnapshotListener implements TreeModelListener, TreeExpansionListener,
+                PropertyChangeListener {
+
+            @Override
+            public void treeNodesChanged(TreeModelEvent e) {
+                invalidateSnapshot();
+            }
+
+            @Override
+            public void treeNodesInserted(TreeModelEvent e) {
+                invalidateSnapshot();
+            }
+
+            @Override
+            public void treeNodesRemoved(TreeModelEvent e) {
+                invalidateSnapshot();
+            }
+
+            @Override
+            public void treeStructureChanged(TreeModelEvent e) {
+                invalidateSnapshot();
+            }
+
+            @Override
+            public void treeExpanded(TreeExpansionEvent event) {
+                invalidateSnapshot();
+            }
+
+            @Override
+            public void treeCollapsed(TreeExpansionEvent event) {
+                invalidateSnapshot();
+            }
+
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                String property = evt.getPropertyName();
+                if (JXTree.TREE_MODEL_PROPERTY.equals(property)
+                        || JXTree.ROOT_VISIBLE_PROPERTY.equals(property)
+                        || JXTree.CELL_RENDERER_PROPERTY.equals(property)) {
+                    invalidateSnapshot();
+                }
+            }
+        }
+
         @Override
         protected int getSize() {
             return tree.getRowCount();
@@ -0,0 +1,416 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.sort;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import javax.swing.SortOrder;
+
+/**
+ * A copy of everything needed to sort the rows of a model, taken on the EDT
+ * and sorted on any thread. The sort result is the same as that of
+ * DefaultRowSorter: nulls are less than not-null values, ties are broken by
+ * model index. <p>
+ *
+ * The sort is a merge sort on the model indices. Large snapshots are split into
+ * chunks which are sorted and merged in parallel, if an Executor is given.<p>
+ *
+ * Comparators are shared across threads, they must be thread-safe. The only
+ * exception are Collators which are cloned per chunk.<p>
+ * 
+ * The values of a key can be primitive: keys of numeric and Date columns 
+ * compared by their natural ordering are extracted into long or double 
+ * arrays and compared without unboxing or comparator dispatch. If the 
+ * only key is a long key with a value range of at most 2^32, key and model
+ * index are packed into a single long and sorted as primitives.
+ */
+final class SortSnapshot {
+
+    /** snapshots below this size are always sorted serially. */
+    static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /** sub-arrays below this size are sorted by insertion. */
+    private static final int INSERTION_THRESHOLD = 16;
+
+    /**
+     * Callback to abandon a sort which is no longer needed.
+     */
+    interface Cancellation {
+        /**
+         * @return true if the sort should be abandoned.
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * Thrown from sort if cancelled.
+     */
+    static class CancelledException extends Exception {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private final int modelRowCount;
+    private final int[] rows;
+    private final SortOrder[] sortOrders;
+    private final Object[][] keys;
+    private final long[][] longKeys;
+    private final double[][] doubleKeys;
+    private final boolean[][] nulls;
+    private final Comparator<Object>[] comparators;
+
+    /**
+     * Instantiates a snapshot.
+     *
+     * @param modelRowCount the row count of the model at the time of the snapshot
+     * @param rows the model indices of the rows to sort
+     * @param sortOrders the sort order per key
+     * @param keys the values per key, indexed by model row. Each is either
+     *   an Object[], compared by the key's comparator, or a long[] or double[]
+     *   compared by natural ordering.
+     * @param nulls flags per primitive key, indexed by model row, indicating 
+     *   that the value is null. May be null if there are no primitive keys, 
+     *   may contain null for keys without null values.
+     * @param comparators the comparator per key, used for Object[] keys 
+     */
+    SortSnapshot(int modelRowCount, int[] rows, SortOrder[] sortOrders,
+            Object[] keys, boolean[][] nulls, Comparator<Object>[] comparators) {
+        this.modelRowCount = modelRowCount;
+        this.rows = rows;
+        this.sortOrders = sortOrders;
+        this.comparators = comparators;
+        this.nulls = nulls != null ? nulls : new boolean[keys.length][];
+        this.keys = new Object[keys.length][];
+        this.longKeys = new long[keys.length][];
+        this.doubleKeys = new double[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] instanceof long[]) {
+                longKeys[i] = (long[]) keys[i];
+            } else if (keys[i] instanceof double[]) {
+                doubleKeys[i] = (double[]) keys[i];
+            } else {
+                this.keys[i] = (Object[]) keys[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the model row count at the time of the snapshot.
+     *
+     * @return the model row count
+     */
+    int getModelRowCount() {
+        return modelRowCount;
+    }
+
+    /**
+     * Sorts the rows and returns the resulting viewToModel mapping.
+     *
+     * @param executor the executor to run parallel chunks on, may be null for
+     *    a serial sort
+     * @param cancellation the callback to query for cancellation, must not be null
+     * @return the model indices of the rows in sorted order
+     * @throws CancelledException if cancelled
+     */
+    int[] sort(Executor executor, final Cancellation cancellation)
+            throws CancelledException {
+        if (isPackable()) {
+            int[] packed = sortPacked(cancellation);
+            if (packed != null) return packed;
+        }
+        final int[] result = rows.clone();
+        if (sortOrders.length == 0) return result;
+        final int[] buffer = new int[result.length];
+        int chunks = executor == null || result.length < PARALLEL_THRESHOLD ? 1
+                : Math.min(Runtime.getRuntime().availableProcessors(),
+                        result.length / (PARALLEL_THRESHOLD / 2));
+        if (chunks <= 1) {
+            mergeSort(result, buffer, 0, result.length, copyComparators(), cancellation);
+            return result;
+        }
+        final int[] bounds = new int[chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+            bounds[i] = (int) ((long) result.length * i / chunks);
+        }
+        List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>();
+        for (int i = 0; i < chunks; i++) {
+            final int from = bounds[i];
+            final int to = bounds[i + 1];
+            tasks.add(new FutureTask<Object>(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        mergeSort(result, buffer, from, to, copyComparators(), cancellation);
+                    } catch (CancelledException e) {
+                        // checked again after completion
+                    }
+                }
+            }, null));
+        }
+        runAll(executor, tasks, cancellation);
+        // merge adjacent runs, doubling the width per level
+        int[] src = result;
+        int[] dst = buffer;
+        for (int width = 1; width < chunks; width *= 2) {
+            tasks.clear();
+            for (int i = 0; i < chunks; i += 2 * width) {
+                final int from = bounds[i];
+                final int mid = bounds[Math.min(i + width, chunks)];
+                final int to = bounds[Math.min(i + 2 * width, chunks)];
+                final int[] s = src;
+                final int[] d = dst;
+                tasks.add(new FutureTask<Object>(new Runnable() {
+                    @Override
+                    public void run() {
+                        merge(s, d, from, mid, to, copyComparators());
+                    }
+                }, null));
+            }
+            runAll(executor, tasks, cancellation);
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        return src;
+    }
+
+    /**
+     * Returns a boolean indicating whether the rows might be sorted by
+     * packed keys: the first key is a long key, all others are unsorted,
+     * that is compare by model index as do ties.
+     */
+    private boolean isPackable() {
+        if ((sortOrders.length == 0) || (longKeys[0] == null)) return false;
+        for (int i = 1; i < sortOrders.length; i++) {
+            if (sortOrders[i] != SortOrder.UNSORTED) return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Sorts by the first key, packed with the model index into a long. 
+     * Returns null if the value range of the key is too large to pack.
+     */
+    private int[] sortPacked(Cancellation cancellation) throws CancelledException {
+        long[] values = longKeys[0];
+        boolean[] isNull = nulls[0];
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        int nullCount = 0;
+        for (int row : rows) {
+            if ((isNull != null) && isNull[row]) {
+                nullCount++;
+            } else {
+                min = Math.min(min, values[row]);
+                max = Math.max(max, values[row]);
+            }
+        }
+        // the difference is negative on overflow
+        if ((nullCount < rows.length) && ((max - min < 0) || (max - min > 0xFFFFFFFFL))) 
+            return null;
+        boolean descending = sortOrders[0] == SortOrder.DESCENDING;
+        long[] packed = new long[rows.length - nullCount];
+        int[] nullRows = new int[nullCount];
+        int count = 0;
+        nullCount = 0;
+        for (int row : rows) {
+            if ((isNull != null) && isNull[row]) {
+                nullRows[nullCount++] = row;
+                continue;
+            }
+            int key = (int) (values[row] - min + Integer.MIN_VALUE);
+            if (descending) {
+                // reverse the order of the key but not of the model index
+                key = ~key;
+            }
+            packed[count++] = ((long) key << 32) | row;
+        }
+        if (cancellation.isCancelled()) 
+            throw new CancelledException();
+        Arrays.sort(packed);
+        Arrays.sort(nullRows);
+        // nulls are less than not-null values
+        int[] result = new int[rows.length];
+        int offset = descending ? 0 : nullCount;
+        for (int i = 0; i < count; i++) {
+            result[offset + i] = (int) packed[i];
+        }
+        System.arraycopy(nullRows, 0, result, descending ? count : 0, nullCount);
+        return result;
+    }
+    
+    /**
+     * Runs the tasks on the executor and waits for their completion. The calling
+     * thread helps by running tasks not yet started itself, so it's safe to
+     * call from a thread of the executor.
+     */
+    private void runAll(Executor executor, List<FutureTask<Object>> tasks,
+            Cancellation cancellation) throws CancelledException {
+        for (int i = 1; i < tasks.size(); i++) {
+            executor.execute(tasks.get(i));
+        }
+        for (FutureTask<Object> task : tasks) {
+            // no-op if already run by the executor
+            task.run();
+        }
+        for (FutureTask<Object> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancelledException();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+        }
+        if (cancellation.isCancelled())
+            throw new CancelledException();
+    }
+
+    /**
+     * Sorts the range [from, to) of a, using b as scratch.
+     */
+    private void mergeSort(int[] a, int[] b, int from, int to,
+            Comparator<Object>[] comparators, Cancellation cancellation)
+            throws CancelledException {
+        int length = to - from;
+        if (length < INSERTION_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int row = a[i];
+                int j = i - 1;
+                while (j >= from && compare(a[j], row, comparators) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = row;
+            }
+            return;
+        }
+        if (length > PARALLEL_THRESHOLD && cancellation.isCancelled())
+            throw new CancelledException();
+        int mid = (from + to) >>> 1;
+        mergeSort(a, b, from, mid, comparators, cancellation);
+        mergeSort(a, b, mid, to, comparators, cancellation);
+        if (compare(a[mid - 1], a[mid], comparators) <= 0) return;
+        System.arraycopy(a, from, b, from, length);
+        merge(b, a, from, mid, to, comparators);
+    }
+
+    /**
+     * Merges the sorted ranges [from, mid) and [mid, to) of src into dst.
+     */
+    private void merge(int[] src, int[] dst, int from, int mid, int to,
+            Comparator<Object>[] comparators) {
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compare(src[i], src[j], comparators) <= 0)) {
+                dst[k] = src[i++];
+            } else {
+                dst[k] = src[j++];
+            }
+        }
+    }
+
+    /**
+     * Compares two model rows, replicating the DefaultRowSorter logic.
+     */
+    int compare(int model1, int model2, Comparator<Object>[] comparators) {
+        for (int i = 0; i < sortOrders.length; i++) {
+            int result;
+            if (sortOrders[i] == SortOrder.UNSORTED) {
+                result = model1 - model2;
+            } else if (keys[i] != null) {
+                result = compareValues(keys[i][model1], keys[i][model2], 
+                        comparators[i], sortOrders[i]);
+            } else {
+                boolean[] isNull = nulls[i];
+                if ((isNull != null) && (isNull[model1] || isNull[model2])) {
+                    // Treat nulls as < then non-null
+                    result = isNull[model1] ? (isNull[model2] ? 0 : -1) : 1;
+                } else if (longKeys[i] != null) {
+                    long v1 = longKeys[i][model1];
+                    long v2 = longKeys[i][model2];
+                    result = v1 < v2 ? -1 : (v1 == v2 ? 0 : 1);
+                } else {
+                    result = Double.compare(doubleKeys[i][model1], doubleKeys[i][model2]);
+                }
+                if (sortOrders[i] == SortOrder.DESCENDING) {
+                    result *= -1;
+                }
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        // If we get here, they're equal. Fallback to model order.
+        return model1 - model2;
+    }
+
+    /**
+     * Compares two values of a sort key, replicating the DefaultRowSorter logic:
+     * nulls are less than not-null values, the result is negated for 
+     * descending order.
+     * 
+     * @param v1 the first value
+     * @param v2 the second value
+     * @param comparator the comparator to use for not-null values
+     * @param sortOrder the sort order of the key, must not be UNSORTED
+     * @return the comparison result in terms of the sort order
+     */
+    static int compareValues(Object v1, Object v2, 
+            Comparator<Object> comparator, SortOrder sortOrder) {
+        int result;
+        // Treat nulls as < then non-null
+        if (v1 == null) {
+            result = v2 == null ? 0 : -1;
+        } else if (v2 == null) {
+            result = 1;
+        } else {
+            result = comparator.compare(v1, v2);
+        }
+        if (sortOrder == SortOrder.DESCENDING) {
+            result *= -1;
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the comparators to use by one thread.
+     */
+    @SuppressWarnings("unchecked")
+    private Comparator<Object>[] copyComparators() {
+        Comparator<Object>[] copy = comparators.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] instanceof Collator) {
+                copy[i] = (Comparator<Object>) ((Collator) copy[i]).clone();
+            }
+        }
+        return copy;
+    }
+}
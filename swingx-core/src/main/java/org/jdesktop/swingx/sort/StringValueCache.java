@@ -0,0 +1,310 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.sort;
+
+import java.util.Arrays;
+
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+
+/**
+ * A bounded cache of the string representation of table cells. The strings are
+ * looked up with the StringValue provided by a StringValueRegistry and keyed by
+ * model row and column. This is meant to be shared by all collaborators which
+ * convert cell values to strings (sorting, filtering, searching), to convert
+ * each cell only once as long as it's unchanged.<p>
+ *
+ * The cache is direct-mapped: each cell maps to exactly one of a fixed number
+ * of slots, a cell evicts the previous occupant of its slot. So the memory is
+ * bounded by the capacity, independent of the table size, and lookups don't
+ * allocate.<p>
+ *
+ * The cache must be notified about all changes of the model, before any other
+ * party accesses the model's strings. Typically, the owning table takes care
+ * of this by calling <code>tableChanged</code> before processing the
+ * event itself. Changes in the registry's mappings are detected automatically,
+ * they clear the complete cache.<p>
+ *
+ * Like all Swing classes, this must be used on the EDT only.
+ *
+ * @see org.jdesktop.swingx.JXTable#setStringValueCache(StringValueCache)
+ * @see TableSortController#setStringValueCache(StringValueCache)
+ */
+public class StringValueCache implements TableModelListener {
+
+    /** the default number of cached cells. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final int mask;
+    private final int[] rows;
+    private final int[] columns;
+    private final String[] strings;
+
+    private TableModel model;
+    private StringValueRegistry registry;
+    private ChangeListener registryListener;
+
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Instantiates a cache with default capacity.
+     */
+    public StringValueCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates a cache with the given capacity. The capacity is
+     * rounded up to the next power of two.
+     *
+     * @param capacity the maximal number of cells to cache.
+     * @throws IllegalArgumentException if capacity is < 1 or > 2^30
+     */
+    public StringValueCache(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30))
+            throw new IllegalArgumentException("capacity must be in range [1, 2^30] but was: " + capacity);
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        rows = new int[size];
+        columns = new int[size];
+        strings = new String[size];
+        Arrays.fill(rows, -1);
+    }
+
+    /**
+     * Installs this cache on the given model and registry. Releases
+     * a previously installed model/registry, if any.
+     *
+     * @param model the model to read cell values from
+     * @param registry the registry to look up StringValues
+     * @throws NullPointerException if any of the parameters is null
+     */
+    public void install(TableModel model, StringValueRegistry registry) {
+        if (model == null || registry == null)
+            throw new NullPointerException("model and registry must not be null");
+        release();
+        this.model = model;
+        this.registry = registry;
+        registry.addChangeListener(getRegistryListener());
+    }
+
+    /**
+     * Releases this cache from model and registry. Does nothing if not
+     * installed.
+     */
+    public void release() {
+        if (registry != null) {
+            registry.removeChangeListener(getRegistryListener());
+        }
+        registry = null;
+        model = null;
+        clear();
+    }
+
+    /**
+     * Returns the model this cache is installed on.
+     *
+     * @return the model this cache is installed on, may be null.
+     */
+    public TableModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the string representation of the cell at the given
+     * model coordinates, converting and caching it if not yet cached.
+     *
+     * @param row the row index in model coordinates
+     * @param column the column index in model coordinates
+     * @return the string representation of the cell value
+     * @throws IllegalStateException if not installed
+     */
+    public String getStringAt(int row, int column) {
+        if (model == null)
+            throw new IllegalStateException("cache must be installed");
+        int slot = slot(row, column);
+        if (rows[slot] == row && columns[slot] == column) {
+            hitCount++;
+            return strings[slot];
+        }
+        missCount++;
+        String string = registry.getStringValue(row, column)
+            .getString(model.getValueAt(row, column));
+        rows[slot] = row;
+        columns[slot] = column;
+        strings[slot] = string;
+        return string;
+    }
+
+    /**
+     * Removes all cached strings.
+     */
+    public void clear() {
+        Arrays.fill(rows, -1);
+        Arrays.fill(strings, null);
+    }
+
+    /**
+     * Removes the cached strings of the rows in the range of first- to lastRow,
+     * inclusive, in the given column. The coordinates are model indices.
+     *
+     * @param firstRow the first row in model coordinates
+     * @param lastRow the last row in model coordinates
+     * @param column the column in model coordinates,
+     *    TableModelEvent.ALL_COLUMNS for all columns
+     */
+    public void invalidate(int firstRow, int lastRow, int column) {
+        int columnCount = column == TableModelEvent.ALL_COLUMNS
+            ? (model != null ? model.getColumnCount() : 0) : 1;
+        long cells = ((long) lastRow - firstRow + 1) * columnCount;
+        if (cells < rows.length) {
+            // probe the slots of the cells directly
+            for (int row = firstRow; row <= lastRow; row++) {
+                if (column != TableModelEvent.ALL_COLUMNS) {
+                    invalidateCell(row, column);
+                } else {
+                    for (int c = 0; c < columnCount; c++) {
+                        invalidateCell(row, c);
+                    }
+                }
+            }
+        } else {
+            for (int slot = 0; slot < rows.length; slot++) {
+                if (rows[slot] >= firstRow && rows[slot] <= lastRow
+                        && (column == TableModelEvent.ALL_COLUMNS
+                                || columns[slot] == column)) {
+                    clearSlot(slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to invalidate exactly the cells affected by the change:
+     * updates remove the updated cells, inserts and deletes remove all cells
+     * at or below the first changed row (because their row index is shifted),
+     * structure and data changes remove all cells.
+     */
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        if (e.getFirstRow() == TableModelEvent.HEADER_ROW
+                || e.getLastRow() == Integer.MAX_VALUE) {
+            clear();
+        } else if (e.getType() == TableModelEvent.UPDATE) {
+            invalidate(e.getFirstRow(), e.getLastRow(), e.getColumn());
+        } else {
+            invalidate(e.getFirstRow(), Integer.MAX_VALUE - 1, TableModelEvent.ALL_COLUMNS);
+        }
+    }
+
+//------------------ statistics
+
+    /**
+     * Returns the number of lookups served from the cache since creation or
+     * the last reset.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which required a conversion since
+     * creation or the last reset.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Resets hit and miss count to zero.
+     */
+    public void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    /**
+     * Returns the maximal number of cached cells.
+     *
+     * @return the capacity of this cache
+     */
+    public int getCapacity() {
+        return rows.length;
+    }
+
+    /**
+     * Returns the number of currently cached cells. Note: this is
+     * an O(capacity) operation, intended for monitoring.
+     *
+     * @return the number of currently cached cells
+     */
+    public int getSize() {
+        int size = 0;
+        for (int row : rows) {
+            if (row >= 0) size++;
+        }
+        return size;
+    }
+
+//------------------ internals
+
+    private void invalidateCell(int row, int column) {
+        int slot = slot(row, column);
+        if (rows[slot] == row && columns[slot] == column) {
+            clearSlot(slot);
+        }
+    }
+
+    private void clearSlot(int slot) {
+        rows[slot] = -1;
+        strings[slot] = null;
+    }
+
+    private int slot(int row, int column) {
+        int h = row * 0x9E3779B9 + column * 0x85EBCA6B;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private ChangeListener getRegistryListener() {
+        if (registryListener == null) {
+            registryListener = new ChangeListener() {
+
+                @Override
+                public void stateChanged(ChangeEvent e) {
+                    clear();
+                }
+            };
+        }
+        return registryListener;
+    }
+}
@@ -25,6 +25,10 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.EventListenerList;
+
 import org.jdesktop.swingx.renderer.StringValue;
 import org.jdesktop.swingx.renderer.StringValues;
 
@@ -47,6 +51,8 @@ public final class StringValueRegistry implements StringValueProvider {
     private Map<Class<?>, StringValue> perClass;
     private HashMap<Integer, StringValue> perColumn;
     private HashMap<Integer, Class<?>> classPerColumn;
+    private EventListenerList listenerList;
+    private ChangeEvent changeEvent;
     
     /**
      * {@inheritDoc} <p>
@@ -75,6 +81,7 @@ public final class StringValueRegistry implements StringValueProvider {
     public void setStringValue(StringValue sv, int column) {
         // PENDING really remove mapping if sv null
         getPerColumnMap().put(column, sv);
+        fireStateChanged();
     }
 
     /**
@@ -83,6 +90,7 @@ public final class StringValueRegistry implements StringValueProvider {
      */
     public void clearColumnStringValues() {
         getPerColumnMap().clear();
+        fireStateChanged();
     }
     
     /**
@@ -95,6 +103,7 @@ public final class StringValueRegistry implements StringValueProvider {
     public void setStringValue(StringValue sv, Class<?> clazz) {
         // PENDING really remove mapping if sv null
         getPerClassMap().put(clazz, sv);
+        fireStateChanged();
     }
     
     /**
@@ -118,6 +127,7 @@ public final class StringValueRegistry implements StringValueProvider {
      */
     public void setColumnClass(Class<?> clazz, int column) {
         getColumnClassMap().put(column, clazz);
+        fireStateChanged();
     }
     
     /**
@@ -126,6 +136,59 @@ public final class StringValueRegistry implements StringValueProvider {
     public void setColumnClasses(Map<Integer, Class<?>> classPerColumn) {
         this.classPerColumn = classPerColumn != null ? 
                 new HashMap<Integer, Class<?>>(classPerColumn) : null;
+        fireStateChanged();
+    }
+
+//-------------------- change notification
+    
+    /**
+     * Adds a <code>ChangeListener</code>. ChangeListeners are
+     * notified after changes of any mapping. 
+     *
+     * @param l the ChangeListener to add
+     * @see #removeChangeListener
+     */
+    public void addChangeListener(ChangeListener l) {
+        getListenerList().add(ChangeListener.class, l);
+    }
+
+    /**
+     * Removes a <code>ChangeListener</code>. 
+     *
+     * @param l the <code>ChangeListener</code> to remove
+     * @see #addChangeListener
+     */
+    public void removeChangeListener(ChangeListener l) {
+        getListenerList().remove(ChangeListener.class, l);
+    }
+
+    /** 
+     * Notifies registered <code>ChangeListener</code>s about
+     * changes of any mapping.
+     */
+    private void fireStateChanged() {
+        if (listenerList == null) return;
+        Object[] listeners = listenerList.getListenerList();
+        for (int i = listeners.length - 2; i >= 0; i -= 2) {
+            if (listeners[i] == ChangeListener.class) {
+                if (changeEvent == null) {
+                    changeEvent = new ChangeEvent(this);
+                }
+                ((ChangeListener) listeners[i + 1]).stateChanged(changeEvent);
+            }
+        }
+    }
+    
+    /**
+     * Returns the list of registered listeners, lazily creates one if null.
+     * 
+     * @return the list of registered listeners
+     */
+    private EventListenerList getListenerList() {
+        if (listenerList == null) {
+            listenerList = new EventListenerList();
+        }
+        return listenerList;
     }
 
     /**
@@ -22,20 +22,98 @@
 package org.jdesktop.swingx.sort;
 
 import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import javax.swing.RowFilter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
 import javax.swing.table.TableModel;
 
+import org.jdesktop.swingx.sort.SortSnapshot.Cancellation;
+import org.jdesktop.swingx.sort.SortSnapshot.CancelledException;
+
 /**
  * A SortController to use for a JXTable.<p>
  * 
+ * Optionally, sorting can be done in the background: if a sort executor is set,
+ * this controller takes a snapshot of the sort keys on the EDT, sorts on the 
+ * executor's threads and publishes the result on the EDT. Until then, the 
+ * previous order is kept. A sort request supersedes all pending requests. 
+ * 
+ * <pre><code>
+ * TableSortController&lt;TableModel&gt; controller = 
+ *       (TableSortController&lt;TableModel&gt;) table.getRowSorter();
+ * controller.setSortExecutor(Executors.newFixedThreadPool(
+ *       Runtime.getRuntime().availableProcessors()));
+ * </code></pre>
+ * 
+ * Optionally, updates and inserts can be sorted incrementally: if 
+ * sortsIncrementally is true, changed rows are moved to their new position 
+ * by binary search instead of going through the complete mapping. This 
+ * is meant for models with frequent updates of few rows, f.i. ticking data.
+ * Updates of columns which are neither sorted nor filtered don't touch the 
+ * mapping at all.<p>
+ * 
  * @author Jeanette Winzenburg
  */
 public class TableSortController<M extends TableModel> extends DefaultSortController<M>  {
+
+    private static final Logger LOG = Logger.getLogger(TableSortController.class
+            .getName());
+    
+    /** cancellation for synchronous sorts. */
+    private static final Cancellation NOT_CANCELLED = new Cancellation() {
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+    
     /**
      * Underlying model.
      */
     private M tableModel;
+    /**
+     * Optional cache of string representations.
+     */
+    private StringValueCache stringValueCache;
+
+    /** the executor to sort on, null for sorting synchronously. */
+    private ExecutorService sortExecutor;
+    /** the mapping owned by this controller in background mode, null otherwise. */
+    private int[] viewToModel;
+    private int[] modelToView;
+    /** incremented on each sort request, outdated results are discarded. */
+    private volatile int sortGeneration;
+    /** flag indicating that a background sort is running. */
+    private boolean sortPending;
+    /** flag to suppress notification while releasing super's mapping. */
+    private boolean releasingMapping;
+    /** the entry passed to the filter, re-used for all rows. */
+    private FilterEntry filterEntry;
+    
+    /** flag indicating that updates and inserts are sorted incrementally. */
+    private boolean sortsIncrementally;
+    /** flag indicating that the own mapping is sorted and filtered by the current state. */
+    private boolean mappingSorted;
+    /** 
+     * copy of the own viewToModel, passed as previous mapping to listeners
+     * on incremental moves and kept in synch afterwards. Lazily created.
+     */
+    private int[] previousViewToModel;
+    /** the sort state of the current incremental change. */
+    private SortOrder[] incrementalOrders;
+    private int[] incrementalColumns;
+    private Comparator<Object>[] incrementalComparators;
+    private boolean[] incrementalToString;
     
     public TableSortController() {
         this(null);
@@ -64,6 +142,155 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
     }
 
     
+    /**
+     * Sets the cache to use for looking up the string representation of
+     * cells. If not null, the cache must be installed on the same model as
+     * this controller and be notified about model changes before this
+     * controller. A value of <code>null</code> (the default) converts 
+     * the values with the StringValueProvider on each access.
+     * 
+     * @param cache the cache to use for string lookup, may be null.
+     * @see #setStringValueProvider(StringValueProvider)
+     */
+    public void setStringValueCache(StringValueCache cache) {
+        this.stringValueCache = cache;
+    }
+    
+    /**
+     * Returns the cache used for looking up the string representation of
+     * cells.
+     * 
+     * @return the cache used for string lookup, may be null.
+     */
+    public StringValueCache getStringValueCache() {
+        return stringValueCache;
+    }
+    
+    /**
+     * Sets the executor to sort on. If not null, sorting and filtering 
+     * happens in the background: a snapshot of the sort keys and the filter 
+     * result are taken on the EDT, the rows are sorted on the executor, 
+     * large snapshots in parallel chunks, and the new mapping is published 
+     * on the EDT. Requests made before the result is published are cancelled.
+     * Until then the view keeps its previous order, inserted rows are 
+     * appended and deleted rows removed. <p>
+     * 
+     * A value of <code>null</code> (the default) sorts synchronously.<p>
+     * 
+     * Note: custom comparators must be thread-safe to be used in the 
+     * background. Collators are cloned per thread. The RowFilter is evaluated
+     * on the EDT.
+     * 
+     * @param executor the executor to sort on, may be null for synchronous
+     *   sorting.
+     * @see #isSorting()   
+     */
+    public void setSortExecutor(ExecutorService executor) {
+        if (this.sortExecutor == executor) return;
+        boolean wasOwner = ownsMapping();
+        boolean wasPending = sortPending;
+        this.sortExecutor = executor;
+        if (!isBackgroundSorting()) {
+            // cancel pending
+            sortGeneration++;
+            sortPending = false;
+        }
+        if (!updateMappingOwnership(wasOwner) && wasPending && !isBackgroundSorting()) {
+            sort();
+        }
+    }
+    
+    /**
+     * Returns the executor to sort on.
+     * 
+     * @return the executor to sort on, may be null.
+     */
+    public ExecutorService getSortExecutor() {
+        return sortExecutor;
+    }
+    
+    /**
+     * Returns a boolean indicating whether a background sort is in 
+     * progress, that is the view is not yet in synch with the sort keys. 
+     * 
+     * @return true if a background sort is in progress, false otherwise
+     * @see #setSortExecutor(ExecutorService)
+     */
+    public boolean isSorting() {
+        return sortPending;
+    }
+    
+    /**
+     * @return true if sorting in the background
+     */
+    private boolean isBackgroundSorting() {
+        return sortExecutor != null;
+    }
+    
+    /**
+     * Sets a flag indicating whether row updates and inserts should be 
+     * sorted incrementally. If true, each changed row is moved to its new 
+     * position by binary search, that is in O(log n) comparisons. Changes 
+     * of more than a tenth of the rows still re-sort completely, as do
+     * changes of sort keys and filter. Updates of a single column which is 
+     * not sorted don't change the order if there is no filter, 
+     * they are ignored. <p>
+     * 
+     * The default is false, that is changes are handled by DefaultRowSorter.
+     * <p>
+     * 
+     * Note: to avoid copying the complete mapping on each change, the 
+     * previous mapping passed to RowSorterListeners is valid during 
+     * notification only.
+     * 
+     * @param sortsIncrementally whether or not to sort changes incrementally
+     * @see #setSortsOnUpdates(boolean)
+     */
+    public void setSortsIncrementally(boolean sortsIncrementally) {
+        if (this.sortsIncrementally == sortsIncrementally) return;
+        boolean wasOwner = ownsMapping();
+        this.sortsIncrementally = sortsIncrementally;
+        updateMappingOwnership(wasOwner);
+    }
+    
+    /**
+     * Returns true if row updates and inserts are sorted incrementally.
+     * 
+     * @return true if changes are sorted incrementally
+     * @see #setSortsIncrementally(boolean)
+     */
+    public boolean getSortsIncrementally() {
+        return sortsIncrementally;
+    }
+    
+    /**
+     * @return true if the mapping is owned by this controller, that is if
+     *   sorting in the background or incrementally.
+     */
+    private boolean ownsMapping() {
+        return isBackgroundSorting() || getSortsIncrementally();
+    }
+    
+    /**
+     * Takes or releases the mapping if the ownership changed.
+     * 
+     * @param wasOwner flag indicating whether the mapping was owned before
+     * @return true if the ownership changed
+     */
+    private boolean updateMappingOwnership(boolean wasOwner) {
+        if (wasOwner == ownsMapping()) return false;
+        if (ownsMapping()) {
+            takeMapping();
+            sort();
+        } else {
+            viewToModel = null;
+            modelToView = null;
+            previousViewToModel = null;
+            super.allRowsChanged();
+        }
+        return true;
+    }
+    
     /**
      * Returns the <code>Comparator</code> for the specified 
      * column.  If a <code>Comparator</code> has not been specified using
@@ -124,6 +351,737 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
     }
 
 
+//------------------ background and incremental sorting
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to sort the own mapping if sorting in the background or
+     * incrementally.
+     */
+    @Override
+    public void sort() {
+        if (!ownsMapping()) {
+            super.sort();
+            return;
+        }
+        sortOwnMapping();
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to use the own mapping in background or incremental mode.
+     */
+    @Override
+    public int convertRowIndexToModel(int viewIndex) {
+        if (viewToModel == null) 
+            return super.convertRowIndexToModel(viewIndex);
+        if ((viewIndex < 0) || viewIndex >= viewToModel.length) 
+            throw new IndexOutOfBoundsException("valid viewIndex: 0 <= index < " 
+                    + viewToModel.length 
+                    + " but was: " + viewIndex);
+        return viewToModel[viewIndex];
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to use the own mapping in background or incremental mode.
+     */
+    @Override
+    public int convertRowIndexToView(int modelIndex) {
+        if (modelToView == null) 
+            return super.convertRowIndexToView(modelIndex);
+        if ((modelIndex < 0) || modelIndex >= modelToView.length) 
+            throw new IndexOutOfBoundsException("valid modelIndex: 0 <= index < " 
+                    + modelToView.length 
+                    + " but was: " + modelIndex);
+        return modelToView[modelIndex];
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to use the own mapping in background or incremental mode.
+     */
+    @Override
+    public int getViewRowCount() {
+        if (viewToModel == null)
+            return super.getViewRowCount();
+        return viewToModel.length;
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to sort the own mapping in background or incremental mode.
+     */
+    @Override
+    public void allRowsChanged() {
+        if (!ownsMapping()) {
+            super.allRowsChanged();
+            return;
+        }
+        sort();
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to insert the new rows in order in incremental mode. 
+     * Otherwise, in background mode, appends the new rows to the current 
+     * order and requests a background sort.
+     */
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        if (!ownsMapping()) {
+            super.rowsInserted(firstRow, endRow);
+            return;
+        }
+        checkRange(firstRow, endRow, getModelRowCount());
+        int modelRowCount = getModelWrapper().getRowCount();
+        if (endRow >= modelRowCount) 
+            throw new IndexOutOfBoundsException("Invalid range");
+        cachedModelRowCount = modelRowCount;
+        if (shouldSortIncrementally(firstRow, endRow)) {
+            insertInOrder(firstRow, endRow);
+            return;
+        }
+        if (!isBackgroundSorting()) {
+            sort();
+            return;
+        }
+        int delta = endRow - firstRow + 1;
+        int[] included = new int[delta];
+        int count = 0;
+        for (int row = firstRow; row <= endRow; row++) {
+            if (include(row)) {
+                included[count++] = row;
+            }
+        }
+        int[] last = viewToModel;
+        int[] mapping = Arrays.copyOf(last, last.length + count);
+        for (int i = 0; i < last.length; i++) {
+            if (mapping[i] >= firstRow) {
+                mapping[i] += delta;
+            }
+        }
+        System.arraycopy(included, 0, mapping, last.length, count);
+        publish(mapping, false);
+        sort();
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to remove the rows from the current order in background or
+     * incremental mode.
+     */
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        if (!ownsMapping()) {
+            super.rowsDeleted(firstRow, endRow);
+            return;
+        }
+        checkRange(firstRow, endRow, getModelRowCount());
+        if (endRow >= getModelRowCount()) 
+            throw new IndexOutOfBoundsException("Invalid range");
+        cachedModelRowCount = getModelWrapper().getRowCount();
+        int delta = endRow - firstRow + 1;
+        int[] last = viewToModel;
+        int[] mapping = new int[last.length];
+        int count = 0;
+        for (int i = 0; i < last.length; i++) {
+            int row = last[i];
+            if (row < firstRow) {
+                mapping[count++] = row;
+            } else if (row > endRow) {
+                mapping[count++] = row - delta;
+            }
+        }
+        publish(Arrays.copyOf(mapping, count), mappingSorted);
+        // the pending result doesn't match the model any longer
+        if (sortPending) {
+            sort();
+        }
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to move the updated rows in order in incremental mode or 
+     * to request a background sort in background mode if sortsOnUpdates.
+     */
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        if (!ownsMapping()) {
+            super.rowsUpdated(firstRow, endRow);
+            return;
+        }
+        checkRange(firstRow, endRow, getModelRowCount());
+        if (endRow >= getModelRowCount()) 
+            throw new IndexOutOfBoundsException("Invalid range");
+        if (!getSortsOnUpdates()) {
+            mappingSorted = false;
+        } else if (shouldSortIncrementally(firstRow, endRow)) {
+            updateInOrder(firstRow, endRow);
+        } else {
+            sort();
+        }
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to ignore updates of a column which is not sorted in 
+     * incremental mode if there is no filter.
+     */
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        if (getSortsIncrementally() && (getRowFilter() == null) 
+                && !isSorted(column)) {
+            if (column < 0 || column >= getModelWrapper().getColumnCount()) 
+                throw new IndexOutOfBoundsException("column beyond range of TableModel");
+            checkRange(firstRow, endRow, getModelRowCount());
+            if (endRow >= getModelRowCount()) 
+                throw new IndexOutOfBoundsException("Invalid range");
+            return;
+        }
+        super.rowsUpdated(firstRow, endRow, column);
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to suppress notification while releasing super's mapping.
+     */
+    @Override
+    protected void fireRowSorterChanged(int[] lastRowIndexToModel) {
+        if (releasingMapping) return;
+        super.fireRowSorterChanged(lastRowIndexToModel);
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to return no sort keys while releasing super's mapping.
+     */
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        if (releasingMapping) return Arrays.<SortKey>asList();
+        return super.getSortKeys();
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to return no filter while releasing super's mapping.
+     */
+    @Override
+    public RowFilter<? super M, ? super Integer> getRowFilter() {
+        if (releasingMapping) return null;
+        return super.getRowFilter();
+    }
+    
+    /**
+     * Takes over the current mapping. Releases super's mapping, so that 
+     * it will not re-sort on its own.
+     */
+    private void takeMapping() {
+        int[] mapping = new int[getViewRowCount()];
+        for (int i = 0; i < mapping.length; i++) {
+            mapping[i] = convertRowIndexToModel(i);
+        }
+        releasingMapping = true;
+        try {
+            super.sort();
+        } finally {
+            releasingMapping = false;
+        }
+        setMapping(mapping);
+    }
+    
+    /**
+     * Takes a snapshot of the current filter result and sort keys and
+     * sorts it, on the sort executor in background mode. If the model row 
+     * count changed, publishes the filtered but unsorted rows immediately.
+     */
+    private void sortOwnMapping() {
+        final int modelRowCount = getModelWrapper().getRowCount();
+        cachedModelRowCount = modelRowCount;
+        int[] rows = new int[modelRowCount];
+        int count = 0;
+        for (int row = 0; row < modelRowCount; row++) {
+            if (include(row)) {
+                rows[count++] = row;
+            }
+        }
+        if (count < modelRowCount) {
+            rows = Arrays.copyOf(rows, count);
+        }
+        final int generation = ++sortGeneration;
+        List<? extends SortKey> keys = getSortKeys();
+        if (keys.isEmpty() || keys.get(0).getSortOrder() == SortOrder.UNSORTED) {
+            sortPending = false;
+            publish(rows, true);
+            return;
+        }
+        final SortSnapshot snapshot = createSnapshot(modelRowCount, rows, keys);
+        if (!isBackgroundSorting()) {
+            sortPending = false;
+            try {
+                publish(snapshot.sort(null, NOT_CANCELLED), true);
+            } catch (CancelledException e) {
+                // can't happen
+            }
+            return;
+        }
+        if ((modelToView == null) || (modelToView.length != modelRowCount)) {
+            // the previous order can't be kept
+            publish(rows, false);
+        }
+        sortPending = true;
+        final ExecutorService executor = getSortExecutor();
+        final Cancellation cancellation = new Cancellation() {
+            @Override
+            public boolean isCancelled() {
+                return generation != sortGeneration;
+            }
+        };
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (cancellation.isCancelled()) return;
+                try {
+                    final int[] result = snapshot.sort(executor, cancellation);
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (cancellation.isCancelled() || !isBackgroundSorting()
+                                    || snapshot.getModelRowCount() != getModelRowCount()) 
+                                return;
+                            sortPending = false;
+                            publish(result, true);
+                        }
+                    });
+                } catch (CancelledException e) {
+                    // superseded by a newer request
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "background sort failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates and returns a snapshot of the sort keys. Must be called on the EDT.<p>
+     * 
+     * Keys of numeric or Date columns which are compared by their natural 
+     * ordering are extracted into primitive arrays.
+     * 
+     * @param modelRowCount the model row count
+     * @param rows the model indices of the rows to sort
+     * @param keys the sort keys
+     * @return a snapshot to sort in the background
+     */
+    @SuppressWarnings("unchecked")
+    private SortSnapshot createSnapshot(int modelRowCount, int[] rows,
+            List<? extends SortKey> keys) {
+        SortOrder[] sortOrders = new SortOrder[keys.size()];
+        Object[] values = new Object[keys.size()];
+        boolean[][] nulls = new boolean[keys.size()][];
+        Comparator<Object>[] comparators = new Comparator[keys.size()];
+        for (int i = 0; i < sortOrders.length; i++) {
+            int column = keys.get(i).getColumn();
+            sortOrders[i] = keys.get(i).getSortOrder();
+            if (sortOrders[i] == SortOrder.UNSORTED) continue;
+            Comparator<?> comparator = getComparator(column);
+            boolean useToString = useToString(column);
+            if ((comparator == COMPARABLE_COMPARATOR) && !useToString) {
+                nulls[i] = new boolean[modelRowCount];
+                values[i] = createPrimitiveKey(column, rows, modelRowCount, nulls[i]);
+                if (values[i] != null) continue;
+                nulls[i] = null;
+            }
+            comparators[i] = (Comparator<Object>) (comparator != null ? comparator : Collator.getInstance());
+            Object[] objects = new Object[modelRowCount];
+            for (int row : rows) {
+                objects[row] = getSortValue(row, column, useToString);
+            }
+            values[i] = objects;
+        }
+        return new SortSnapshot(modelRowCount, rows, sortOrders, values, nulls, comparators);
+    }
+    
+    /**
+     * Returns the values of the given column as primitive array: a long[] 
+     * for integral numbers and Dates, a double[] for floating point numbers. 
+     * Returns null if neither the column class nor the class of all values 
+     * are one of those.
+     * 
+     * @param column the column in model coordinates
+     * @param rows the model indices of the rows to sort
+     * @param modelRowCount the model row count
+     * @param nulls the array to flag null values in
+     * @return the primitive values indexed by model row, or null if the 
+     *   column's values are not primitive
+     */
+    private Object createPrimitiveKey(int column, int[] rows, int modelRowCount,
+            boolean[] nulls) {
+        Class<?> columnClass = getModel().getColumnClass(column);
+        boolean date = columnClass == Date.class;
+        boolean floating = (columnClass == Double.class) || (columnClass == Float.class);
+        boolean integral = (columnClass == Integer.class) || (columnClass == Long.class)
+            || (columnClass == Short.class) || (columnClass == Byte.class);
+        if (!date && !floating && !integral) return null;
+        long[] longs = floating ? null : new long[modelRowCount];
+        double[] doubles = floating ? new double[modelRowCount] : null;
+        for (int row : rows) {
+            Object value = getModelWrapper().getValueAt(row, column);
+            if (value == null) {
+                nulls[row] = true;
+            } else if (value.getClass() != columnClass) {
+                // subclasses, f.i. java.sql.Timestamp, may compare differently
+                return null;
+            } else if (date) {
+                longs[row] = ((Date) value).getTime();
+            } else if (integral) {
+                longs[row] = ((Number) value).longValue();
+            } else {
+                doubles[row] = ((Number) value).doubleValue();
+            }
+        }
+        return floating ? doubles : longs;
+    }
+    
+//------------------ incremental sorting
+    
+    /**
+     * Returns a boolean indicating whether the change of the given model 
+     * rows can be sorted incrementally. 
+     * 
+     * @param firstRow the first changed row in model coordinates
+     * @param endRow the last changed row in model coordinates
+     * @return true if the change can be sorted incrementally
+     */
+    private boolean shouldSortIncrementally(int firstRow, int endRow) {
+        return getSortsIncrementally() && mappingSorted && !sortPending 
+            && (endRow - firstRow) <= viewToModel.length / 10;
+    }
+    
+    /**
+     * Returns a boolean indicating whether the given column is sorted.
+     * 
+     * @param column the column in model coordinates
+     * @return true if the column is part of the sort keys with an order other 
+     *   than unsorted
+     */
+    private boolean isSorted(int column) {
+        for (SortKey key : getSortKeys()) {
+            if ((key.getColumn() == column) 
+                    && (key.getSortOrder() != SortOrder.UNSORTED)) 
+                return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Moves the updated rows to their new position. A single visible row is
+     * moved in place, touching only the mapping between its old and new 
+     * position. Otherwise the updated rows are removed and inserted in order.
+     * 
+     * @param firstRow the first updated row in model coordinates
+     * @param endRow the last updated row in model coordinates
+     */
+    private void updateInOrder(int firstRow, int endRow) {
+        prepareIncremental();
+        if ((firstRow == endRow) && (modelToView[firstRow] >= 0) 
+                && include(firstRow)) {
+            moveInOrder(firstRow);
+            return;
+        }
+        int[] last = viewToModel;
+        int[] remaining = new int[last.length];
+        int count = 0;
+        for (int row : last) {
+            if (row < firstRow || row > endRow) {
+                remaining[count++] = row;
+            }
+        }
+        int[] updated = includedRows(firstRow, endRow);
+        if ((updated.length == 0) && (count == last.length)) return;
+        publish(merge(remaining, count, updated), true);
+    }
+    
+    /**
+     * Inserts the new rows in order.
+     * 
+     * @param firstRow the first inserted row in model coordinates
+     * @param endRow the last inserted row in model coordinates
+     */
+    private void insertInOrder(int firstRow, int endRow) {
+        prepareIncremental();
+        int delta = endRow - firstRow + 1;
+        int[] last = viewToModel;
+        int[] remaining = new int[last.length];
+        for (int i = 0; i < last.length; i++) {
+            remaining[i] = last[i] >= firstRow ? last[i] + delta : last[i];
+        }
+        publish(merge(remaining, remaining.length, 
+                includedRows(firstRow, endRow)), true);
+    }
+    
+    /**
+     * Moves a single updated row in place to its new position.
+     * 
+     * @param row the updated row in model coordinates, must be visible
+     */
+    private void moveInOrder(int row) {
+        int oldIndex = modelToView[row];
+        int newIndex = findInsertionIndex(viewToModel, viewToModel.length, 
+                row, oldIndex);
+        if (oldIndex == newIndex) return;
+        if ((previousViewToModel == null) 
+                || (previousViewToModel.length != viewToModel.length)) {
+            previousViewToModel = viewToModel.clone();
+        }
+        int[] last = previousViewToModel;
+        int from = Math.min(oldIndex, newIndex);
+        int to = Math.max(oldIndex, newIndex);
+        if (newIndex < oldIndex) {
+            System.arraycopy(viewToModel, newIndex, viewToModel, newIndex + 1, 
+                    oldIndex - newIndex);
+        } else {
+            System.arraycopy(viewToModel, oldIndex + 1, viewToModel, oldIndex, 
+                    newIndex - oldIndex);
+        }
+        viewToModel[newIndex] = row;
+        for (int i = from; i <= to; i++) {
+            modelToView[viewToModel[i]] = i;
+        }
+        fireRowSorterChanged(last);
+        // synch the copy for the next change, unless replaced by a listener
+        if (last == previousViewToModel) {
+            System.arraycopy(viewToModel, from, last, from, to - from + 1);
+        }
+    }
+    
+    /**
+     * Returns the included rows of the given range, sorted by the
+     * current keys.
+     * 
+     * @param firstRow the first row in model coordinates
+     * @param endRow the last row in model coordinates
+     * @return the included rows in sort order
+     */
+    private int[] includedRows(int firstRow, int endRow) {
+        List<Integer> rows = new ArrayList<Integer>();
+        for (int row = firstRow; row <= endRow; row++) {
+            if (include(row)) {
+                rows.add(row);
+            }
+        }
+        Collections.sort(rows, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return compareRows(o1, o2);
+            }
+        });
+        int[] result = new int[rows.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = rows.get(i);
+        }
+        return result;
+    }
+    
+    /**
+     * Merges the sorted rows into the sorted mapping, by binary search 
+     * for each row.
+     * 
+     * @param mapping the sorted mapping
+     * @param length the number of valid entries in the mapping
+     * @param rows the sorted rows to insert
+     * @return a new mapping containing the rows of both
+     */
+    private int[] merge(int[] mapping, int length, int[] rows) {
+        int[] result = new int[length + rows.length];
+        int last = 0;
+        for (int i = 0; i < rows.length; i++) {
+            int index = findInsertionIndex(mapping, length, rows[i], -1);
+            System.arraycopy(mapping, last, result, last + i, index - last);
+            result[index + i] = rows[i];
+            last = index;
+        }
+        System.arraycopy(mapping, last, result, last + rows.length, length - last);
+        return result;
+    }
+    
+    /**
+     * Returns the index the row must be inserted at to keep the mapping 
+     * sorted.
+     * 
+     * @param mapping the sorted mapping
+     * @param length the number of valid entries in the mapping
+     * @param row the row to insert, in model coordinates
+     * @param skip the index of the row in the mapping, it's ignored in the
+     *    search; -1 if not contained
+     * @return the insertion index in the mapping without the skipped entry
+     */
+    private int findInsertionIndex(int[] mapping, int length, int row, int skip) {
+        int low = 0;
+        int high = skip < 0 ? length : length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int index = (skip >= 0 && mid >= skip) ? mid + 1 : mid;
+            if (compareRows(mapping[index], row) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Looks up the comparators of the current sort keys for use in 
+     * compareRows.
+     */
+    @SuppressWarnings("unchecked")
+    private void prepareIncremental() {
+        List<? extends SortKey> keys = getSortKeys();
+        incrementalOrders = new SortOrder[keys.size()];
+        incrementalColumns = new int[keys.size()];
+        incrementalComparators = new Comparator[keys.size()];
+        incrementalToString = new boolean[keys.size()];
+        for (int i = 0; i < incrementalOrders.length; i++) {
+            incrementalOrders[i] = keys.get(i).getSortOrder();
+            incrementalColumns[i] = keys.get(i).getColumn();
+            if (incrementalOrders[i] == SortOrder.UNSORTED) continue;
+            Comparator<?> comparator = getComparator(incrementalColumns[i]);
+            incrementalComparators[i] = (Comparator<Object>) (comparator != null 
+                    ? comparator : Collator.getInstance());
+            incrementalToString[i] = useToString(incrementalColumns[i]);
+        }
+    }
+    
+    /**
+     * Compares two model rows by the current values, replicating the 
+     * DefaultRowSorter logic.
+     */
+    private int compareRows(int model1, int model2) {
+        for (int i = 0; i < incrementalOrders.length; i++) {
+            int result;
+            if (incrementalOrders[i] == SortOrder.UNSORTED) {
+                result = model1 - model2;
+            } else {
+                int column = incrementalColumns[i];
+                result = SortSnapshot.compareValues(
+                        getSortValue(model1, column, incrementalToString[i]), 
+                        getSortValue(model2, column, incrementalToString[i]), 
+                        incrementalComparators[i], incrementalOrders[i]);
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        // If we get here, they're equal. Fallback to model order.
+        return model1 - model2;
+    }
+    
+    /**
+     * Returns the value to sort the cell by.
+     */
+    private Object getSortValue(int row, int column, boolean useToString) {
+        return useToString ? getModelWrapper().getStringValueAt(row, column)
+                : getModelWrapper().getValueAt(row, column);
+    }
+    
+    /**
+     * Sets the given mapping and notifies listeners.
+     * 
+     * @param mapping the new viewToModel mapping
+     * @param sorted flag indicating whether the mapping is sorted and filtered
+     *   by the current sort keys and filter
+     */
+    private void publish(int[] mapping, boolean sorted) {
+        int[] last = viewToModel;
+        setMapping(mapping);
+        mappingSorted = sorted;
+        fireRowSorterChanged(last);
+    }
+    
+    /**
+     * Sets the given viewToModel mapping and updates the inverse.
+     * 
+     * @param mapping the viewToModel mapping
+     */
+    private void setMapping(int[] mapping) {
+        int[] inverse = new int[getModelRowCount()];
+        Arrays.fill(inverse, -1);
+        for (int i = 0; i < mapping.length; i++) {
+            inverse[mapping[i]] = i;
+        }
+        viewToModel = mapping;
+        modelToView = inverse;
+        previousViewToModel = null;
+    }
+    
+    /**
+     * Returns true if the specified row should be included.
+     */
+    private boolean include(int row) {
+        RowFilter<? super M, ? super Integer> filter = getRowFilter();
+        if (filter != null) {
+            if (filterEntry == null) {
+                filterEntry = new FilterEntry();
+            }
+            filterEntry.modelIndex = row;
+            return filter.include(filterEntry);
+        }
+        return true;
+    }
+
+    private void checkRange(int firstRow, int endRow, int modelRowCount) {
+        if (firstRow > endRow || firstRow < 0 || endRow < 0 ||
+                firstRow > modelRowCount) {
+            throw new IndexOutOfBoundsException("Invalid range");
+        }
+    }
+
+    /**
+     * RowFilter.Entry for a model row.
+     */
+    private class FilterEntry extends RowFilter.Entry<M, Integer> {
+        /** the index into the model, set in include. */
+        int modelIndex;
+
+        @Override
+        public M getModel() {
+            return getModelWrapper().getModel();
+        }
+
+        @Override
+        public int getValueCount() {
+            return getModelWrapper().getColumnCount();
+        }
+
+        @Override
+        public Object getValue(int index) {
+            return getModelWrapper().getValueAt(modelIndex, index);
+        }
+
+        @Override
+        public String getStringValue(int index) {
+            return getModelWrapper().getStringValueAt(modelIndex, index);
+        }
+
+        @Override
+        public Integer getIdentifier() {
+            return getModelWrapper().getIdentifier(modelIndex);
+        }
+    }
+    
     /**
      * Implementation of DefaultRowSorter.ModelWrapper that delegates to a
      * TableModel.
@@ -151,6 +1109,10 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
 
         @Override
         public String getStringValueAt(int row, int column) {
+            if (stringValueCache != null 
+                    && stringValueCache.getModel() == tableModel) {
+                return stringValueCache.getStringAt(row, column);
+            }
             return getStringValueProvider().getStringValue(row, column)
                 .getString(getValueAt(row, column));
         }
@@ -21,6 +21,10 @@
 package org.jdesktop.swingx.table;
 
 import java.awt.Component;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.BitSet;
+import java.util.Random;
 
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellRenderer;
@@ -87,6 +91,8 @@ public class ColumnFactory {
     private static ColumnFactory columnFactory;
     /** the default margin to use in pack. */
     private int packMargin = 4;
+    /** the maximal number of rows to measure in pack, -1 for all. */
+    private int packSampleSize = -1;
     
     /**
      * Returns the shared default factory. 
@@ -352,7 +358,9 @@ public class ColumnFactory {
      * 
      * This implementation loops through all rows of the given column and
      * measures the renderers pref width (it's a potential performance sink).
-     * Subclasses can override to implement a different strategy.
+     * If a packSampleSize is set and the table has more rows, only a sample 
+     * of rows is measured. Subclasses can override to implement a different 
+     * strategy.
      * <p>
      * 
      * Note: though 2 * margin is added as spacing, this does <b>not</b> imply
@@ -372,6 +380,7 @@ public class ColumnFactory {
      * @throws IllegalStateException if column is not visible
      * 
      * @see #setDefaultPackMargin(int)
+     * @see #setPackSampleSize(int)
      * @see org.jdesktop.swingx.JXTable#packTable(int)
      * @see org.jdesktop.swingx.JXTable#packColumn(int, int)
      * 
@@ -393,12 +402,16 @@ public class ColumnFactory {
         // returns a (guessed) renderer for invisible columns which must not
         // be used in the loop. For now that's okay, as we back out early anyway
         TableCellRenderer renderer = getCellRenderer(table, columnExt);
-        for (int r = 0; r < getRowCount(table); r++) {
-            // JW: fix for #1215-swing as suggested by the reporter adrienclerc
-            Component comp = table.prepareRenderer(renderer, r, column);
-//            Component comp = renderer.getTableCellRendererComponent(table, table
-//                    .getValueAt(r, column), false, false, r, column);
-            width = Math.max(width, comp.getPreferredSize().width);
+        int rowCount = getRowCount(table);
+        if ((getPackSampleSize() < 0) || (rowCount <= getPackSampleSize())) {
+            for (int r = 0; r < rowCount; r++) {
+                width = Math.max(width, calcCellWidth(table, renderer, r, column));
+            }
+        } else {
+            BitSet rows = getPackSampleRows(table, getPackSampleSize());
+            for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+                width = Math.max(width, calcCellWidth(table, renderer, r, column));
+            }
         }
         if (margin < 0) {
             margin = getDefaultPackMargin();
@@ -432,6 +445,80 @@ public class ColumnFactory {
     protected int getRowCount(JXTable table) {
         return table.getRowCount();
     }
+
+    /**
+     * Measures and returns the preferred width of the rendering component
+     * for the cell at the given view coordinates. The component is 
+     * configured by the table, that is including all sizing effective 
+     * highlighters.
+     * 
+     * @param table the table to measure
+     * @param renderer the renderer to use for measuring
+     * @param row the row index in view coordinates
+     * @param column the column index in view coordinates
+     * @return the preferred width of the rendering component
+     */
+    protected int calcCellWidth(JXTable table, TableCellRenderer renderer, 
+            int row, int column) {
+        // JW: fix for #1215-swing as suggested by the reporter adrienclerc
+        Component comp = table.prepareRenderer(renderer, row, column);
+        return comp.getPreferredSize().width;
+    }
+
+    /**
+     * Returns the view rows to measure in packColumn if the number of rows
+     * exceeds the packSampleSize. <p>
+     * 
+     * This implementation distributes the sampleSize as follows: all rows 
+     * currently visible in the table's viewport, a quarter of the sampleSize 
+     * from the start and a quarter from the end, but not more than half of 
+     * the rows left by the visible rows each, the remaining rows are 
+     * picked randomly. The random choice is seeded by the row count, so 
+     * repeated packs of the same table measure the same rows.<p>
+     * 
+     * Subclasses can override to implement a sampling strategy which 
+     * better fits the data, f.i. based on knowledge about the longest values.
+     * 
+     * @param table the table to sample
+     * @param sampleSize the maximal number of rows to pick, must be less
+     *   than the row count.
+     * @return a set of view row indices, guaranteed to be valid rows.
+     * 
+     * @see #setPackSampleSize(int)
+     */
+    protected BitSet getPackSampleRows(JXTable table, int sampleSize) {
+        int rowCount = getRowCount(table);
+        BitSet rows = new BitSet(rowCount);
+        Rectangle visible = table.getVisibleRect();
+        if (!visible.isEmpty()) {
+            int first = table.rowAtPoint(visible.getLocation());
+            int last = table.rowAtPoint(new Point(visible.x, 
+                    visible.y + visible.height - 1));
+            if (first >= 0) {
+                if ((last < 0) || (last >= rowCount)) {
+                    last = rowCount - 1;
+                }
+                rows.set(first, Math.min(last + 1, first + sampleSize));
+            }
+        }
+        // the edges share the budget left by the visible rows
+        int edge = Math.max(0, Math.min(sampleSize / 4, (sampleSize - rows.cardinality()) / 2));
+        rows.set(0, edge);
+        rows.set(rowCount - edge, rowCount);
+        Random random = new Random(rowCount);
+        // guard against endless loop: we can't pick more than available
+        int picks = Math.min(sampleSize, rowCount);
+        int picked = rows.cardinality();
+        while (picked < picks) {
+            int row = random.nextInt(rowCount);
+            if (!rows.get(row)) {
+                rows.set(row);
+                picked++;
+            }
+        }
+        return rows;
+    }
+    
     
 // ------------------------ default state
     
@@ -462,5 +549,41 @@ public class ColumnFactory {
         this.packMargin = margin;
     }
 
+    /**
+     * Returns the maximal number of rows measured in packColumn.
+     * 
+     * @return the maximal number of rows to measure in packColumn, -1 
+     *   denotes all rows.
+     *   
+     * @see #setPackSampleSize(int)  
+     */
+    public int getPackSampleSize() {
+        return packSampleSize;
+    }
+    
+    /**
+     * Sets the maximal number of rows to measure in packColumn. If the
+     * table has more rows, only a sample of them is measured, which might
+     * result in a width less than the width of the widest cell. The default 
+     * is -1, that is all rows are measured.<p>
+     * 
+     * Note: use a sample size if packing huge tables blocks the EDT 
+     * noticeably. Alternatively, a <code>ColumnPackController</code> 
+     * can pack all rows incrementally. 
+     * 
+     * @param sampleSize the maximal number of rows to measure, -1 for
+     *   all rows.
+     * @throws IllegalArgumentException if sampleSize < -1   
+     * 
+     * @see #getPackSampleSize()
+     * @see #getPackSampleRows(JXTable, int)
+     * @see ColumnPackController
+     */
+    public void setPackSampleSize(int sampleSize) {
+        if (sampleSize < -1) 
+            throw new IllegalArgumentException("sample size must be >= -1 but was: " + sampleSize);
+        this.packSampleSize = sampleSize;
+    }
+
     
 }
@@ -0,0 +1,446 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.table;
+
+import static org.jdesktop.swingx.table.TableUtilities.isDataChanged;
+import static org.jdesktop.swingx.table.TableUtilities.isInsert;
+import static org.jdesktop.swingx.table.TableUtilities.isStructureChanged;
+import static org.jdesktop.swingx.table.TableUtilities.isUpdate;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableModel;
+
+import org.jdesktop.swingx.JXTable;
+
+/**
+ * A controller to pack the columns of a JXTable incrementally. <p>
+ *
+ * Packing a column with <code>ColumnFactory.packColumn</code> measures all
+ * rows in one go, which blocks the EDT for huge tables. This controller
+ * measures a chunk of rows at a time, each in its own slice on the EDT, and
+ * grows the columns' preferred widths as it goes. Once packed, the columns
+ * are kept packed by measuring only the rows touched by subsequent
+ * updates/inserts of the table's model. Note that columns are never shrunk
+ * by this controller, deletes are ignored.<p>
+ *
+ * The measuring itself is delegated to the table's <code>ColumnFactory</code>.
+ *
+ * <pre><code>
+ * ColumnPackController controller = new ColumnPackController(table);
+ * controller.packAll();
+ * </code></pre>
+ *
+ * @see ColumnFactory#packColumn(JXTable, TableColumnExt, int, int)
+ * @see ColumnFactory#setPackSampleSize(int)
+ */
+public class ColumnPackController {
+
+    private JXTable table;
+    private TableModelListener tableModelListener;
+    private PropertyChangeListener tablePropertyListener;
+
+    /** the measured content widths of the packed columns. */
+    private Map<TableColumnExt, Integer> contentWidths;
+    private int margin = -1;
+    private int max = -1;
+    private int chunkSize = 1000;
+
+    private Timer timer;
+    /** the next view row to measure in the incremental pass. */
+    private int nextRow;
+
+    /**
+     * Instantiates an unbound ColumnPackController.
+     */
+    public ColumnPackController() {
+        this(null);
+    }
+
+    /**
+     * Instantiates a ColumnPackController and installs itself to the given table.
+     *
+     * @param table the table to control.
+     */
+    public ColumnPackController(JXTable table) {
+        contentWidths = new LinkedHashMap<TableColumnExt, Integer>();
+        install(table);
+    }
+
+    /**
+     * Installs this controller on the given table. Releases control from previously
+     * installed table, if any.
+     *
+     * @param table the table to install upon.
+     */
+    public void install(JXTable table) {
+        release();
+        if (table != null) {
+            this.table = table;
+            installListeners();
+        }
+    }
+
+    /**
+     * Release this controller from its table. Stops a pack in progress.
+     * Does nothing if no table installed.
+     */
+    public void release() {
+        if (table == null)
+            return;
+        stop();
+        uninstallListeners();
+        contentWidths.clear();
+        table = null;
+    }
+
+    /**
+     * Starts packing all visible columns of the table.
+     *
+     * @throws IllegalStateException if not installed on a table
+     */
+    public void packAll() {
+        checkInstalled();
+        List<TableColumnExt> columns = new ArrayList<TableColumnExt>();
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            columns.add(table.getColumnExt(i));
+        }
+        pack(columns);
+    }
+
+    /**
+     * Starts packing the given column. Columns being packed or already
+     * packed by this controller are packed again.
+     *
+     * @param columnExt the column to pack
+     * @throws IllegalStateException if not installed on a table or if the
+     *   column is not visible
+     */
+    public void packColumn(TableColumnExt columnExt) {
+        checkInstalled();
+        if (!columnExt.isVisible())
+            throw new IllegalStateException("column must be visible to pack");
+        List<TableColumnExt> columns = new ArrayList<TableColumnExt>(contentWidths.keySet());
+        columns.add(columnExt);
+        pack(columns);
+    }
+
+    /**
+     * Stops the pack in progress, if any. Columns already packed are kept
+     * packed on model changes.
+     */
+    public void stop() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+    }
+
+    /**
+     * Returns a boolean indicating whether an incremental pack is in progress.
+     *
+     * @return true if a pack is in progress, false otherwise.
+     */
+    public boolean isPacking() {
+        return timer != null;
+    }
+
+    /**
+     * Sets the number of rows to measure per slice on the EDT. The default
+     * is 1000.
+     *
+     * @param chunkSize the number of rows to measure per slice.
+     * @throws IllegalArgumentException if chunkSize < 1
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("chunk size must be > 0 but was: " + chunkSize);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the number of rows to measure per slice on the EDT.
+     *
+     * @return the number of rows to measure per slice.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the margin to use, -1 denotes the default pack margin of the
+     * table's ColumnFactory. The default is -1.
+     *
+     * @param margin the extra spacing to add twice.
+     * @see ColumnFactory#packColumn(JXTable, TableColumnExt, int, int)
+     */
+    public void setMargin(int margin) {
+        this.margin = margin;
+    }
+
+    /**
+     * Returns the margin to use.
+     *
+     * @return the margin
+     */
+    public int getMargin() {
+        return margin;
+    }
+
+    /**
+     * Sets the upper limit of the preferredWidth, -1 denotes no limit. The
+     * default is -1.
+     *
+     * @param max the upper limit of the preferredWidth
+     * @see ColumnFactory#packColumn(JXTable, TableColumnExt, int, int)
+     */
+    public void setMaxWidth(int max) {
+        this.max = max;
+    }
+
+    /**
+     * Returns the upper limit of the preferredWidth.
+     *
+     * @return the upper limit of the preferredWidth, -1 for no limit.
+     */
+    public int getMaxWidth() {
+        return max;
+    }
+
+    /**
+     * Starts the incremental pass over the given columns.
+     *
+     * @param columns the columns to pack.
+     */
+    protected void pack(List<TableColumnExt> columns) {
+        stop();
+        contentWidths.clear();
+        for (TableColumnExt columnExt : columns) {
+            contentWidths.put(columnExt, calcHeaderWidth(columnExt));
+        }
+        nextRow = 0;
+        if (contentWidths.isEmpty()) return;
+        timer = new Timer(0, new ActionListener() {
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                packChunk();
+            }
+        });
+        timer.setRepeats(true);
+        timer.start();
+    }
+
+    /**
+     * Measures the next chunk of rows and updates the preferred widths.
+     * Stops the timer when all rows are measured.
+     */
+    protected void packChunk() {
+        if (table == null) return;
+        int rowCount = table.getColumnFactory().getRowCount(table);
+        int last = Math.min(rowCount, nextRow + getChunkSize()) - 1;
+        updateContentWidths(nextRow, last);
+        nextRow = last + 1;
+        if (nextRow >= rowCount) {
+            stop();
+        }
+    }
+
+    /**
+     * Measures the rows in the range of first- to lastRow, inclusive, and
+     * grows the preferred widths of the packed columns if needed. The
+     * coordinates are view indices.
+     *
+     * @param firstRow the first row in view coordinates
+     * @param lastRow the last row in view coordinates
+     */
+    protected void updateContentWidths(int firstRow, int lastRow) {
+        ColumnFactory factory = table.getColumnFactory();
+        for (Map.Entry<TableColumnExt, Integer> entry : contentWidths.entrySet()) {
+            TableColumnExt columnExt = entry.getKey();
+            int column = table.convertColumnIndexToView(columnExt.getModelIndex());
+            if (column < 0) continue;
+            TableCellRenderer renderer = factory.getCellRenderer(table, columnExt);
+            int width = entry.getValue();
+            for (int row = firstRow; row <= lastRow; row++) {
+                width = Math.max(width, factory.calcCellWidth(table, renderer, row, column));
+            }
+            if (width > entry.getValue()) {
+                entry.setValue(width);
+            }
+            updatePreferredWidth(columnExt, width);
+        }
+    }
+
+    /**
+     * Measures the rows in the range of first- to lastRow, inclusive. The
+     * coordinates are model indices.
+     *
+     * @param firstRow the first row in model coordinates
+     * @param lastRow the last row in model coordinates
+     */
+    protected void updateContentWidthsInModel(int firstRow, int lastRow) {
+        int rowCount = table.getColumnFactory().getRowCount(table);
+        for (int row = firstRow; row <= lastRow; row++) {
+            int viewRow = table.convertRowIndexToView(row);
+            // rows not yet reached by the incremental pass will be measured anyway
+            if (viewRow >= 0 && viewRow < rowCount && (!isPacking() || viewRow < nextRow)) {
+                updateContentWidths(viewRow, viewRow);
+            }
+        }
+    }
+
+    /**
+     * Sets the column's preferredWidth to the given content width, including
+     * margin and max.
+     *
+     * @param columnExt the column to update
+     * @param contentWidth the width of the widest cell measured so far
+     */
+    protected void updatePreferredWidth(TableColumnExt columnExt, int contentWidth) {
+        int width = contentWidth + 2 *
+            (margin < 0 ? table.getColumnFactory().getDefaultPackMargin() : margin);
+        if (max != -1 && width > max)
+            width = max;
+        if (width != columnExt.getPreferredWidth()) {
+            columnExt.setPreferredWidth(width);
+        }
+    }
+
+    /**
+     * Measures and returns the width of the column's header, 0 if it has none.
+     *
+     * @param columnExt the column to measure
+     * @return the preferred width of the header
+     */
+    protected int calcHeaderWidth(TableColumnExt columnExt) {
+        ColumnFactory factory = table.getColumnFactory();
+        TableCellRenderer headerRenderer = factory.getHeaderRenderer(table, columnExt);
+        if (headerRenderer == null) return 0;
+        int column = table.convertColumnIndexToView(columnExt.getModelIndex());
+        Component comp = headerRenderer.getTableCellRendererComponent(table,
+                columnExt.getHeaderValue(), false, false, 0, column);
+        return comp.getPreferredSize().width;
+    }
+
+    /**
+     * Updates internal state after the table's model had been replaced.
+     *
+     * @param oldValue the old model
+     */
+    protected void updateModel(TableModel oldValue) {
+        if (oldValue != null) {
+            oldValue.removeTableModelListener(getTableModelListener());
+        }
+        table.getModel().addTableModelListener(getTableModelListener());
+        stop();
+        contentWidths.clear();
+    }
+
+    /**
+     * Updates the packed columns after a change of the table's model.
+     *
+     * @param e the event received from the model
+     */
+    protected void updateFromModelEvent(TableModelEvent e) {
+        if (contentWidths.isEmpty()) return;
+        if (isStructureChanged(e)) {
+            // the columns are re-created
+            stop();
+            contentWidths.clear();
+        } else if (isDataChanged(e)) {
+            pack(new ArrayList<TableColumnExt>(contentWidths.keySet()));
+        } else if (isUpdate(e) || isInsert(e)) {
+            updateContentWidthsInModel(e.getFirstRow(), e.getLastRow());
+        }
+        // do nothing on delete
+    }
+
+    private void checkInstalled() {
+        if (table == null)
+            throw new IllegalStateException("controller must be installed on a table");
+    }
+
+    protected PropertyChangeListener createTablePropertyListener() {
+        PropertyChangeListener l = new PropertyChangeListener() {
+
+            @Override
+            public void propertyChange(final PropertyChangeEvent evt) {
+                if ("model".equals(evt.getPropertyName())) {
+                    updateModel((TableModel) evt.getOldValue());
+                }
+            }
+        };
+        return l;
+    }
+
+    protected TableModelListener createTableModelListener() {
+        TableModelListener l = new TableModelListener() {
+            @Override
+            public void tableChanged(final TableModelEvent e) {
+                // the table might not yet be updated
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (table == null) return;
+                        updateFromModelEvent(e);
+                    }
+                });
+            }
+        };
+        return l;
+    }
+
+    private void uninstallListeners() {
+        table.removePropertyChangeListener(getPropertyChangeListener());
+        table.getModel().removeTableModelListener(getTableModelListener());
+    }
+
+    private void installListeners() {
+        table.addPropertyChangeListener(getPropertyChangeListener());
+        table.getModel().addTableModelListener(getTableModelListener());
+    }
+
+    protected TableModelListener getTableModelListener() {
+        if (tableModelListener == null) {
+            tableModelListener = createTableModelListener();
+        }
+        return tableModelListener;
+    }
+
+    protected PropertyChangeListener getPropertyChangeListener() {
+        if (tablePropertyListener == null) {
+            tablePropertyListener = createTablePropertyListener();
+        }
+        return tablePropertyListener;
+    }
+}
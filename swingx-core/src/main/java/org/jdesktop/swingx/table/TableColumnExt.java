@@ -35,6 +35,8 @@ import javax.swing.table.TableCellEditor;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 
+import org.jdesktop.swingx.decorator.CompiledHighlighter;
+import org.jdesktop.swingx.decorator.ComponentAdapter;
 import org.jdesktop.swingx.decorator.CompoundHighlighter;
 import org.jdesktop.swingx.decorator.Highlighter;
 import org.jdesktop.swingx.plaf.UIDependent;
@@ -133,6 +135,9 @@ public class TableColumnExt extends TableColumn implements UIDependent {
      */
     protected CompoundHighlighter compoundHighlighter;
     
+    /** the compiled form of the compoundHighlighter. */
+    private CompiledHighlighter compiledHighlighter;
+    
     private ChangeListener highlighterChangeListener;
 
     private boolean ignoreHighlighterStateChange;
@@ -264,6 +269,32 @@ public class TableColumnExt extends TableColumn implements UIDependent {
         ignoreHighlighterStateChange = false;
     }
     
+    /**
+     * Applies the Highlighters of this column to the given rendering 
+     * component. Does nothing if there are none. The Highlighters are 
+     * applied in compiled form, that is with the same result as applying 
+     * each but faster. <p>
+     * 
+     * This is meant to be called by the table after applying its own
+     * Highlighters. 
+     * 
+     * @param component the rendering component to highlight
+     * @param adapter the ComponentAdapter of the cell
+     * @return the highlighted component
+     * @see org.jdesktop.swingx.decorator.CompiledHighlighter
+     */
+    public Component highlight(Component component, ComponentAdapter adapter) {
+        if (compoundHighlighter == null) return component;
+        if ((compiledHighlighter == null) 
+                || (compiledHighlighter.getSource() != compoundHighlighter)) {
+            if (compiledHighlighter != null) {
+                compiledHighlighter.release();
+            }
+            compiledHighlighter = new CompiledHighlighter(compoundHighlighter);
+        }
+        return compiledHighlighter.highlight(component, adapter);
+    }
+    
     /**
      * Returns the CompoundHighlighter assigned to the table, null if none.
      * PENDING: open up for subclasses again?.
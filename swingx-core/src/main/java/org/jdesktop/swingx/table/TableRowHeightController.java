@@ -27,18 +27,34 @@ import static org.jdesktop.swingx.table.TableUtilities.isStructureChanged;
 import static org.jdesktop.swingx.table.TableUtilities.isUpdate;
 import static org.jdesktop.swingx.table.TableUtilities.setPreferredRowHeight;
 
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.BitSet;
 import java.util.logging.Logger;
 
 import javax.swing.JTable;
+import javax.swing.JViewport;
+import javax.swing.RowSorter;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.event.RowSorterListener;
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.TableModel;
 
 /**
  * A controller to adjust JTable rowHeight based on sizing requirements of its renderers.
+ * <p>
+ * 
+ * By default, the row heights of all rows are adjusted on model changes. In lazy mode,
+ * only rows which are visible in the enclosing viewport are adjusted, the others keep
+ * the table's default row height as estimate until they are scrolled into view or moved
+ * into view by sorting or filtering. Then model changes cost O(visible rows) instead of
+ * O(rows).
  * 
  * @author Jeanette Winzenburg, Berlin
  */
@@ -47,6 +63,13 @@ public class TableRowHeightController {
     private JTable table;
     private TableModelListener tableModelListener;
     private PropertyChangeListener tablePropertyListener;
+    private ChangeListener viewportListener;
+    private JViewport viewport;
+    private RowSorterListener rowSorterListener;
+    private RowSorter<?> rowSorter;
+    private boolean lazy;
+    /** the model rows adjusted in lazy mode. */
+    private final BitSet adjustedRows = new BitSet();
 
     /**
      * Instantiates an unbound TableRowHeightController.
@@ -90,6 +113,31 @@ public class TableRowHeightController {
         table = null;
     }
 
+    /**
+     * Sets the lazy property. If true, only the rows visible in the enclosing
+     * viewport are adjusted, other rows when scrolled into view. If false, all
+     * rows are adjusted. The default is false.
+     * 
+     * @param lazy the lazy property
+     */
+    public void setLazy(boolean lazy) {
+        if (this.lazy == lazy) return;
+        this.lazy = lazy;
+        adjustedRows.clear();
+        if (table != null) {
+            updatePreferredRowHeights();
+        }
+    }
+
+    /**
+     * Returns the lazy property.
+     * 
+     * @return true if only visible rows are adjusted, false if all rows are adjusted
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
     /**
      * Sets the row heights of the rows in the range of first- to lastRow, inclusive.
      * The coordinates are model indices.
@@ -98,6 +146,11 @@ public class TableRowHeightController {
      * @param lastRow the last row in model coordinates
      */
     protected void updatePreferredRowHeights(int firstRow, int lastRow) {
+        if (isLazy()) {
+            adjustedRows.clear(firstRow, lastRow + 1);
+            updateVisibleRowHeights();
+            return;
+        }
         for (int row = firstRow; row <= lastRow; row++) {
             int viewRow = table.convertRowIndexToView(row);
             if (viewRow >= 0) {
@@ -112,9 +165,40 @@ public class TableRowHeightController {
      * Sets the row heights of all rows.
      */
     protected void updatePreferredRowHeights() {
+        adjustedRows.clear();
         if (table.getRowCount() == 0) return;
         updatePreferredRowHeights(0, table.getModel().getRowCount() - 1);
     }
+
+    /**
+     * Sets the row heights of the rows in the visible rectangle of the table which are
+     * not yet adjusted. Rows above the visible rectangle are unchanged, so the first
+     * visible row keeps its location. Does nothing if not lazy.
+     */
+    protected void updateVisibleRowHeights() {
+        if (!isLazy() || table.getRowCount() == 0) return;
+        Rectangle visible = table.getVisibleRect();
+        if (visible.isEmpty()) return;
+        boolean adjusted = true;
+        // adjusting may shrink rows and move more rows into the visible rectangle
+        while (adjusted) {
+            adjusted = false;
+            int first = table.rowAtPoint(visible.getLocation());
+            if (first < 0) return;
+            int last = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+            if (last < 0) {
+                last = table.getRowCount() - 1;
+            }
+            for (int viewRow = first; viewRow <= last; viewRow++) {
+                int row = table.convertRowIndexToModel(viewRow);
+                if (!adjustedRows.get(row)) {
+                    adjustedRows.set(row);
+                    setPreferredRowHeight(table, viewRow);
+                    adjusted = true;
+                }
+            }
+        }
+    }
     
     /**
      * @param oldValue
@@ -146,8 +230,13 @@ public class TableRowHeightController {
                 SwingUtilities.invokeLater(new Runnable() {
                     @Override
                     public void run() {
+                        if (table == null) return;
                         if ("model".equals(evt.getPropertyName())) {
                             updateModel((TableModel) evt.getOldValue());
+                        } else if ("ancestor".equals(evt.getPropertyName())) {
+                            updateViewport();
+                        } else if ("rowSorter".equals(evt.getPropertyName())) {
+                            updateRowSorter();
                         }
                         
                     }
@@ -173,9 +262,16 @@ public class TableRowHeightController {
                 if (isStructureChanged(e) || isDataChanged(e)) {
                     updatePreferredRowHeights();
                 } else  if (isUpdate(e) || isInsert(e)) {
+                    if (isLazy() && isInsert(e)) {
+                        // inserted rows shift the model indices
+                        adjustedRows.clear();
+                    }
                     updatePreferredRowHeights(e.getFirstRow(), e.getLastRow());
-                } 
-                // do nothing on delete
+                } else if (isLazy()) {
+                    // deleted rows shift the model indices
+                    adjustedRows.clear();
+                    updateVisibleRowHeights();
+                }
             }
         };
         return l;
@@ -186,15 +282,99 @@ public class TableRowHeightController {
     private void uninstallListeners() {
         table.removePropertyChangeListener(getPropertyChangeListener());
         table.getModel().removeTableModelListener(getTableModelListener());
+        if (viewport != null) {
+            viewport.removeChangeListener(getViewportListener());
+            viewport = null;
+        }
+        if (rowSorter != null) {
+            rowSorter.removeRowSorterListener(getRowSorterListener());
+            rowSorter = null;
+        }
         // whatever else turns out to be needed
     }
 
     private void installListeners() {
         table.addPropertyChangeListener(getPropertyChangeListener());
         table.getModel().addTableModelListener(getTableModelListener());
+        updateViewport();
+        updateRowSorter();
         // whatever else turns out to be needed
     }
 
+    /**
+     * Listens to the table's current RowSorter, if any.
+     */
+    private void updateRowSorter() {
+        RowSorter<?> current = table.getRowSorter();
+        if (current == rowSorter) return;
+        if (rowSorter != null) {
+            rowSorter.removeRowSorterListener(getRowSorterListener());
+        }
+        rowSorter = current;
+        if (rowSorter != null) {
+            rowSorter.addRowSorterListener(getRowSorterListener());
+        }
+        updateVisibleRowHeights();
+    }
+
+    /**
+     * Listens to the viewport the table is currently contained in, if any.
+     */
+    private void updateViewport() {
+        JViewport current = table.getParent() instanceof JViewport
+            ? (JViewport) table.getParent() : null;
+        if (current == viewport) return;
+        if (viewport != null) {
+            viewport.removeChangeListener(getViewportListener());
+        }
+        viewport = current;
+        if (viewport != null) {
+            viewport.addChangeListener(getViewportListener());
+        }
+        updateVisibleRowHeights();
+    }
+
+    /**
+     * @return the listener to viewport changes, adjusting rows scrolled into view
+     */
+    protected ChangeListener getViewportListener() {
+        if (viewportListener == null) {
+            viewportListener = new ChangeListener() {
+                @Override
+                public void stateChanged(ChangeEvent e) {
+                    if (table != null) {
+                        updateVisibleRowHeights();
+                    }
+                }
+            };
+        }
+        return viewportListener;
+    }
+
+    /**
+     * @return the listener to sorter changes, adjusting rows sorted or filtered into view
+     */
+    protected RowSorterListener getRowSorterListener() {
+        if (rowSorterListener == null) {
+            rowSorterListener = new RowSorterListener() {
+                @Override
+                public void sorterChanged(RowSorterEvent e) {
+                    if (e.getType() != RowSorterEvent.Type.SORTED) return;
+                    // the table updates its rows on the same notification
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (table != null) {
+                                updateVisibleRowHeights();
+                            }
+                        }
+                    });
+                }
+            };
+        }
+        return rowSorterListener;
+    }
+
     /**
      * @return
      */
@@ -218,4 +398,4 @@ public class TableRowHeightController {
     @SuppressWarnings("unused")
     private static final Logger LOG = Logger
         .getLogger(TableRowHeightController.class.getName());
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -21,9 +21,12 @@
 package org.jdesktop.swingx.treetable;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.tree.TreeNode;
 
@@ -68,6 +71,9 @@ public abstract class AbstractMutableTreeTableNode implements
      * Creates the list used to manage the children of this node.
      * <p>
      * This method is called by the constructor.
+     * <p>
+     * Nodes with many children may return an {@link IndexedChildList} to look
+     * up the index of a child in constant time.
      * 
      * @return a list; this list is guaranteed to be non-{@code null}
      */
@@ -100,6 +106,76 @@ public abstract class AbstractMutableTreeTableNode implements
         }
     }
 
+    /**
+     * Adds the given nodes as the last children of this node. 
+     * 
+     * @param nodes the nodes to add
+     * @see #addAll(int, Collection)
+     */
+    public void addAll(Collection<? extends MutableTreeTableNode> nodes) {
+        addAll(getChildCount(), nodes);
+    }
+
+    /**
+     * Inserts the given nodes as children of this node at the given index, in
+     * the order of the collection. Nodes which are children of this node
+     * already are moved, the others are removed from their parent. 
+     * 
+     * @param index the index of the first inserted node
+     * @param nodes the distinct nodes to insert
+     * @throws IllegalStateException if this node does not allow children
+     */
+    public void addAll(int index, Collection<? extends MutableTreeTableNode> nodes) {
+        if (!allowsChildren) {
+            throw new IllegalStateException("this node cannot accept children");
+        }
+        List<MutableTreeTableNode> added = new ArrayList<MutableTreeTableNode>(nodes);
+        Set<MutableTreeTableNode> moved = createIdentitySet();
+        for (MutableTreeTableNode node : added) {
+            if (node.getParent() == this) {
+                moved.add(node);
+            }
+        }
+        if (!moved.isEmpty()) {
+            for (int i = 0; i < index; i++) {
+                if (moved.contains(children.get(i))) {
+                    index--;
+                }
+            }
+            children.removeAll(moved);
+        }
+        children.addAll(index, added);
+        for (MutableTreeTableNode node : added) {
+            if (node.getParent() != this) {
+                node.setParent(this);
+            }
+        }
+    }
+
+    /**
+     * Removes the given nodes from the children of this node. Nodes which are
+     * not children of this node are ignored.
+     * 
+     * @param nodes the nodes to remove
+     */
+    public void removeAll(Collection<? extends MutableTreeTableNode> nodes) {
+        Set<MutableTreeTableNode> removed = createIdentitySet();
+        for (MutableTreeTableNode node : nodes) {
+            if (node.getParent() == this) {
+                removed.add(node);
+            }
+        }
+        if (removed.isEmpty()) return;
+        children.removeAll(removed);
+        for (MutableTreeTableNode node : removed) {
+            node.setParent(null);
+        }
+    }
+
+    private Set<MutableTreeTableNode> createIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<MutableTreeTableNode, Boolean>());
+    }
+
     /**
      * {@inheritDoc}
      */
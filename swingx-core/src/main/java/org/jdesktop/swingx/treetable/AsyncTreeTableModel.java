@@ -0,0 +1,559 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.treetable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+import javax.swing.tree.TreePath;
+
+import org.jdesktop.swingx.plaf.UIManagerExt;
+
+/**
+ * A tree table model which loads the children of a node lazily, in the
+ * background if a loading executor is set. Intended for slow back-ends which
+ * can't answer {@code getChild}/{@code getChildCount} on the EDT. <p>
+ *
+ * The children of a node are loaded on first access to them, by calling
+ * {@link #loadChildren(Object)} on the loading executor. While loading, the
+ * node has a single placeholder child which shows a "loading" text in the
+ * hierarchical column, looked up in the {@code UIManager} by
+ * {@link #LOADING_TEXT_KEY}. When done, the placeholder is removed and the children
+ * are installed on the EDT, listeners are notified about the added children
+ * by a single {@code treeNodesInserted}. Without a loading executor, the
+ * children are loaded on the calling thread. <p>
+ *
+ * Optionally, the children of the next siblings of a node are prefetched when
+ * its children are loaded, on the assumption that the user is likely to expand
+ * them next, see {@link #setPrefetchCount(int)}. <p>
+ *
+ * Nodes are looked up by equals, so a node must not be equal to another node
+ * of the tree. Apart from {@code loadChildren}, all methods must be called on
+ * the EDT. <p>
+ *
+ * Subclasses need to implement {@link #loadChildren(Object)},
+ * {@link #getNodeValueAt(Object, int)} and {@code getColumnCount()}, and may
+ * override {@link #mayHaveChildren(Object)} to tell leaves without loading.
+ */
+public abstract class AsyncTreeTableModel extends AbstractTreeTableModel {
+
+    private static final Logger LOG = Logger.getLogger(AsyncTreeTableModel.class
+            .getName());
+
+    /** the key of the text shown by the placeholder. */
+    public static final String LOADING_TEXT_KEY = "JXTreeTable.loading";
+
+    /** the state of the nodes with a known path. */
+    private final Map<Object, Entry> entries = new HashMap<Object, Entry>();
+
+    private Executor loadingExecutor;
+
+    private int prefetchCount;
+
+    /**
+     * Constructs an {@code AsyncTreeTableModel} with a {@code null} root
+     * node.
+     */
+    public AsyncTreeTableModel() {
+        this(null);
+    }
+
+    /**
+     * Constructs an {@code AsyncTreeTableModel} with the specified root
+     * node.
+     *
+     * @param root
+     *            root node
+     */
+    public AsyncTreeTableModel(Object root) {
+        super(root);
+    }
+
+    /**
+     * Sets the root and drops all loaded children. Loads still running are
+     * ignored when done.
+     *
+     * @param root
+     *            the new root node to set
+     */
+    public void setRoot(Object root) {
+        this.root = root;
+        entries.clear();
+
+        modelSupport.fireNewRoot();
+    }
+
+    /**
+     * Sets the executor to load children in the background. If {@code null},
+     * children are loaded on the calling thread when first accessed. Children
+     * already loaded are unaffected.
+     *
+     * @param executor
+     *            the executor to load children on, may be {@code null}
+     */
+    public void setLoadingExecutor(Executor executor) {
+        this.loadingExecutor = executor;
+    }
+
+    /**
+     * Returns the executor to load children in the background.
+     *
+     * @return the executor to load children on or {@code null} if children
+     *         are loaded on the calling thread
+     */
+    public Executor getLoadingExecutor() {
+        return loadingExecutor;
+    }
+
+    /**
+     * Sets the number of next siblings of a node to prefetch the children
+     * of, when the children of the node are loaded in the background.
+     * Siblings which can't have children are skipped. The default is 0, that
+     * is nothing is prefetched.
+     *
+     * @param prefetchCount
+     *            the number of siblings to prefetch, must not be negative
+     * @throws IllegalArgumentException if prefetchCount is negative
+     */
+    public void setPrefetchCount(int prefetchCount) {
+        if (prefetchCount < 0) {
+            throw new IllegalArgumentException("prefetch count must not be negative: "
+                    + prefetchCount);
+        }
+        this.prefetchCount = prefetchCount;
+    }
+
+    /**
+     * Returns the number of next siblings of a node to prefetch the children
+     * of.
+     *
+     * @return the number of siblings to prefetch
+     */
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    /**
+     * Returns a boolean indicating whether the given node is the placeholder
+     * shown while loading the children of its parent.
+     *
+     * @param node
+     *            the node to check
+     * @return true if the node is a placeholder, false otherwise
+     */
+    public boolean isPlaceholder(Object node) {
+        return node instanceof Placeholder;
+    }
+
+    /**
+     * Returns a boolean indicating whether the children of the given node
+     * are being loaded in the background.
+     *
+     * @param node
+     *            the node to check
+     * @return true if the children of the node are loading, false otherwise
+     */
+    public boolean isLoading(Object node) {
+        Entry entry = entries.get(node);
+        return (entry != null) && (entry.placeholder != null);
+    }
+
+    /**
+     * Returns a boolean indicating whether the children of the given node
+     * are loaded.
+     *
+     * @param node
+     *            the node to check
+     * @return true if the children of the node are loaded, false otherwise
+     */
+    public boolean isLoaded(Object node) {
+        Entry entry = entries.get(node);
+        return (entry != null) && (entry.children != null);
+    }
+
+    /**
+     * Drops the loaded children of the given node and their descendants and
+     * loads them again. Listeners are notified about the removed children and
+     * the placeholder, or the reloaded children if loaded on the calling
+     * thread. Does nothing if the children are not loaded.
+     *
+     * @param node
+     *            the node to reload the children of
+     */
+    public void reload(Object node) {
+        Entry entry = entries.get(node);
+        if ((entry == null) || (entry.children == null)) return;
+
+        List<?> old = entry.children;
+        for (Object child : old) {
+            removeTree(child);
+        }
+        entry.children = null;
+        if (!old.isEmpty()) {
+            modelSupport.fireChildrenRemoved(entry.path, indices(old.size()), old.toArray());
+        }
+        load(entry, false);
+        int count = getChildCount(entry);
+        if (count > 0) {
+            Object[] children = new Object[count];
+            for (int i = 0; i < count; i++) {
+                children[i] = getChild(entry, i);
+            }
+            modelSupport.fireChildrenAdded(entry.path, indices(count), children);
+        }
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to start loading the children if not yet loaded. Returns the
+     * placeholder while loading.
+     */
+    @Override
+    public Object getChild(Object parent, int index) {
+        Entry entry = getEntry(parent);
+        if (entry == null) return null;
+
+        load(entry, true);
+        return getChild(entry, index);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to start loading the children if not yet loaded. Returns 1
+     * for the placeholder while loading.
+     */
+    @Override
+    public int getChildCount(Object parent) {
+        Entry entry = getEntry(parent);
+        if (entry == null) return 0;
+
+        load(entry, true);
+        return getChildCount(entry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if ((parent == null) || (child == null)) return -1;
+
+        if (isPlaceholder(child)) {
+            Entry entry = entries.get(parent);
+            return (entry != null) && (entry.placeholder == child) ? 0 : -1;
+        }
+        Entry entry = entries.get(child);
+        if ((entry == null) || (entry.index < 0)) return -1;
+
+        return parent.equals(entry.path.getParentPath().getLastPathComponent())
+                ? entry.index : -1;
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to not load the children: a node is a leaf if it is a
+     * placeholder, has no children after loading or can't have children
+     * as answered by {@code mayHaveChildren}.
+     */
+    @Override
+    public boolean isLeaf(Object node) {
+        if (isPlaceholder(node)) return true;
+
+        Entry entry = entries.get(node);
+        if ((entry != null) && (entry.children != null)) {
+            return entry.children.isEmpty();
+        }
+        return !mayHaveChildren(node);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to return the placeholder in the hierarchical column and
+     * null in the others for a placeholder, and the value returned by
+     * {@code getNodeValueAt} for all other nodes.
+     */
+    @Override
+    public Object getValueAt(Object node, int column) {
+        if (isPlaceholder(node)) {
+            return column == getHierarchicalColumn() ? node : null;
+        }
+        return getNodeValueAt(node, column);
+    }
+
+    /**
+     * Returns the value for the {@code node} at {@code column}. Never called
+     * for a placeholder.
+     *
+     * @param node
+     *            the node whose value is to be queried
+     * @param column
+     *            the column whose value is to be queried
+     * @return the value Object at the specified cell
+     * @see #getValueAt(Object, int)
+     */
+    protected abstract Object getNodeValueAt(Object node, int column);
+
+    /**
+     * Loads the children of the given node. Called on the loading executor if
+     * set, on the EDT otherwise. Must not access the state of this model.
+     *
+     * @param parent
+     *            the node to load the children of
+     * @return the children of the node, may be empty but not {@code null}
+     * @throws Exception
+     *             if loading fails
+     */
+    protected abstract List<?> loadChildren(Object parent) throws Exception;
+
+    /**
+     * Returns a boolean indicating whether the given node may have children,
+     * before they are loaded. Called on the EDT, so it must answer fast.
+     * <p>
+     *
+     * This implementation returns true, subclasses which can tell leaves
+     * without loading should override.
+     *
+     * @param node
+     *            the node to check
+     * @return false if the node is known to have no children, true otherwise
+     */
+    protected boolean mayHaveChildren(Object node) {
+        return true;
+    }
+
+    /**
+     * Called on the EDT if loading the children of the given node failed,
+     * the node has no children then. Children can be loaded again with
+     * {@link #reload(Object)}. <p>
+     *
+     * This implementation logs the exception.
+     *
+     * @param parent
+     *            the node whose children failed to load
+     * @param e
+     *            the exception thrown by {@code loadChildren}
+     */
+    protected void loadFailed(Object parent, Exception e) {
+        LOG.log(Level.WARNING, "failed to load the children of " + parent, e);
+    }
+
+    /**
+     * Returns the entry of the node, creates the entry of the root if
+     * necessary. Returns null for nodes with unknown path.
+     */
+    private Entry getEntry(Object node) {
+        if (node == null) return null;
+
+        Entry entry = entries.get(node);
+        if ((entry == null) && node.equals(root)) {
+            entry = new Entry(new TreePath(root), -1);
+            entries.put(root, entry);
+        }
+        return entry;
+    }
+
+    private Object getChild(Entry entry, int index) {
+        if (entry.children != null) {
+            return entry.children.get(index);
+        }
+        return index == 0 ? entry.placeholder : null;
+    }
+
+    private int getChildCount(Entry entry) {
+        if (entry.children != null) {
+            return entry.children.size();
+        }
+        return entry.placeholder != null ? 1 : 0;
+    }
+
+    /**
+     * Loads the children of the entry if neither loaded nor loading, on the
+     * calling thread if there is no loading executor. Prefetches the
+     * children of the next siblings if requested.
+     */
+    private void load(Entry entry, boolean prefetch) {
+        if ((entry.children != null) || (entry.placeholder != null)) return;
+
+        Object parent = entry.path.getLastPathComponent();
+        if (loadingExecutor == null) {
+            install(entry, loadSafely(parent), false);
+            return;
+        }
+        loadInBackground(entry);
+        if (prefetch) {
+            prefetchSiblings(entry);
+        }
+    }
+
+    /**
+     * Starts loading the children of the next siblings of the entry, skipping
+     * those which can't have children.
+     */
+    private void prefetchSiblings(Entry entry) {
+        if ((prefetchCount == 0) || (entry.index < 0)) return;
+
+        Entry parent = entries.get(entry.path.getParentPath().getLastPathComponent());
+        if ((parent == null) || (parent.children == null)) return;
+
+        int fetched = 0;
+        for (int i = entry.index + 1; (i < parent.children.size())
+                && (fetched < prefetchCount); i++) {
+            Object sibling = parent.children.get(i);
+            if (!mayHaveChildren(sibling)) continue;
+
+            Entry siblingEntry = entries.get(sibling);
+            if ((siblingEntry != null) && (siblingEntry.children == null)
+                    && (siblingEntry.placeholder == null)) {
+                loadInBackground(siblingEntry);
+            }
+            fetched++;
+        }
+    }
+
+    /**
+     * Shows the placeholder, loads the children on the loading executor and
+     * installs them on the EDT.
+     */
+    private void loadInBackground(final Entry entry) {
+        final Object parent = entry.path.getLastPathComponent();
+        entry.placeholder = new Placeholder();
+        loadingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Result result = loadSafely(parent);
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        install(entry, result, true);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Loads the children, catching the exception if it fails.
+     */
+    private Result loadSafely(Object parent) {
+        try {
+            return new Result(new ArrayList<Object>(loadChildren(parent)), null);
+        } catch (Exception e) {
+            return new Result(Collections.emptyList(), e);
+        }
+    }
+
+    /**
+     * Installs the loaded children and notifies listeners if requested,
+     * unless the entry was dropped meanwhile.
+     */
+    private void install(Entry entry, Result result, boolean notify) {
+        Object parent = entry.path.getLastPathComponent();
+        if (entries.get(parent) != entry) return;
+
+        Object placeholder = entry.placeholder;
+        entry.placeholder = null;
+        entry.children = result.children;
+        for (int i = 0; i < result.children.size(); i++) {
+            Object child = result.children.get(i);
+            entries.put(child, new Entry(entry.path.pathByAddingChild(child), i));
+        }
+        if (notify) {
+            modelSupport.fireChildrenRemoved(entry.path, new int[] {0},
+                    new Object[] {placeholder});
+            if (!result.children.isEmpty()) {
+                modelSupport.fireChildrenAdded(entry.path, indices(result.children.size()),
+                        result.children.toArray());
+            }
+        }
+        if (result.exception != null) {
+            loadFailed(parent, result.exception);
+        }
+    }
+
+    /**
+     * Drops the entries of the node and its loaded descendants.
+     */
+    private void removeTree(Object node) {
+        Entry entry = entries.remove(node);
+        if ((entry == null) || (entry.children == null)) return;
+
+        for (Object child : entry.children) {
+            removeTree(child);
+        }
+    }
+
+    private static int[] indices(int count) {
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    /**
+     * The state of a node: not loaded if both children and placeholder are
+     * null, loading if the placeholder is set, loaded if the children are set.
+     */
+    private static class Entry {
+        private final TreePath path;
+        /** the index in the parent, -1 for the root. */
+        private final int index;
+        private List<?> children;
+        private Placeholder placeholder;
+
+        Entry(TreePath path, int index) {
+            this.path = path;
+            this.index = index;
+        }
+    }
+
+    /**
+     * The children loaded in the background or the exception if failed.
+     */
+    private static class Result {
+        private final List<?> children;
+        private final Exception exception;
+
+        Result(List<?> children, Exception exception) {
+            this.children = children;
+            this.exception = exception;
+        }
+    }
+
+    /**
+     * The child shown while loading.
+     */
+    private static class Placeholder {
+        @Override
+        public String toString() {
+            String text = UIManagerExt.getString(LOADING_TEXT_KEY);
+            return text != null ? text : "Loading...";
+        }
+    }
+}
@@ -21,7 +21,14 @@
 package org.jdesktop.swingx.treetable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.tree.TreePath;
 
@@ -398,6 +405,104 @@ public class DefaultTreeTableModel extends AbstractTreeTableModel {
                 index, node);
     }
 
+    /**
+     * Inserts the given nodes at location index in the children of parent. 
+     * Listeners are notified by a single event for all nodes. This is the
+     * preferred way to add many children at once.
+     * <p>
+     * The nodes must not be children of parent.
+     * 
+     * @param newChildren the nodes to insert
+     * @param parent the node to insert the nodes into
+     * @param index the index of the first inserted node
+     */
+    public void insertNodesInto(List<? extends MutableTreeTableNode> newChildren,
+            MutableTreeTableNode parent, int index) {
+        if (newChildren.isEmpty()) return;
+        if (parent instanceof AbstractMutableTreeTableNode) {
+            ((AbstractMutableTreeTableNode) parent).addAll(index, newChildren);
+        } else {
+            for (int i = 0; i < newChildren.size(); i++) {
+                parent.insert(newChildren.get(i), index + i);
+            }
+        }
+        int[] indices = new int[newChildren.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = index + i;
+        }
+        modelSupport.fireChildrenAdded(new TreePath(getPathToRoot(parent)), 
+                indices, newChildren.toArray());
+    }
+
+    /**
+     * Removes the given nodes from their parents. Listeners are notified by a
+     * single event for all nodes of the same parent. This is the preferred way
+     * to remove many nodes at once.
+     * 
+     * @param nodes the nodes to remove
+     * @throws IllegalArgumentException if one of the nodes does not have a parent,
+     *   no node is removed then
+     */
+    public void removeNodesFromParent(Collection<? extends MutableTreeTableNode> nodes) {
+        // the nodes by parent, in the order of the parents' first appearance
+        Map<MutableTreeTableNode, Set<MutableTreeTableNode>> nodesByParent = 
+            new IdentityHashMap<MutableTreeTableNode, Set<MutableTreeTableNode>>();
+        List<MutableTreeTableNode> parents = new ArrayList<MutableTreeTableNode>();
+        for (MutableTreeTableNode node : nodes) {
+            MutableTreeTableNode parent = (MutableTreeTableNode) node.getParent();
+            if (parent == null) {
+                throw new IllegalArgumentException("node does not have a parent.");
+            }
+            Set<MutableTreeTableNode> children = nodesByParent.get(parent);
+            if (children == null) {
+                children = Collections.newSetFromMap(new IdentityHashMap<MutableTreeTableNode, Boolean>());
+                nodesByParent.put(parent, children);
+                parents.add(parent);
+            }
+            children.add(node);
+        }
+        for (MutableTreeTableNode parent : parents) {
+            removeChildren(parent, nodesByParent.get(parent));
+        }
+    }
+
+    /**
+     * Removes the children from the parent and notifies with a 
+     * single event.
+     */
+    private void removeChildren(MutableTreeTableNode parent, 
+            Set<MutableTreeTableNode> children) {
+        TreePath parentPath = new TreePath(getPathToRoot(parent));
+        MutableTreeTableNode[] removed = children.toArray(new MutableTreeTableNode[children.size()]);
+        final int[] childIndices = new int[removed.length];
+        Integer[] order = new Integer[removed.length];
+        for (int i = 0; i < removed.length; i++) {
+            childIndices[i] = parent.getIndex(removed[i]);
+            order[i] = i;
+        }
+        // the event requires ascending indices
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return childIndices[o1] - childIndices[o2];
+            }
+        });
+        int[] indices = new int[removed.length];
+        Object[] removedChildren = new Object[removed.length];
+        for (int i = 0; i < order.length; i++) {
+            indices[i] = childIndices[order[i]];
+            removedChildren[i] = removed[order[i]];
+        }
+        if (parent instanceof AbstractMutableTreeTableNode) {
+            ((AbstractMutableTreeTableNode) parent).removeAll(children);
+        } else {
+            for (MutableTreeTableNode node : removed) {
+                node.removeFromParent();
+            }
+        }
+        modelSupport.fireChildrenRemoved(parentPath, indices, removedChildren);
+    }
+
     /**
      * Called when value for the item identified by path has been changed. If
      * newValue signifies a truly new value the model should post a {@code
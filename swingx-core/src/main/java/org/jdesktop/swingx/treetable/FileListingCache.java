@@ -0,0 +1,207 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.treetable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of directory listings for the file system models. Each file is
+ * listed once, until it is refreshed. A file which can't be listed is a leaf. <p>
+ *
+ * Not thread-safe, except for the static {@code list} which may be called
+ * from any thread.
+ */
+class FileListingCache {
+
+    /** the listing of a file which is not a directory. */
+    private static final Listing LEAF = new Listing(null, 0);
+
+    private final Map<File, Listing> listings = new HashMap<File, Listing>();
+
+    /**
+     * Returns the cached listing of the file, or null if not yet cached.
+     *
+     * @param file the file to get the listing for
+     * @return the cached listing or null if not cached
+     */
+    public Listing getCached(File file) {
+        return listings.get(file);
+    }
+
+    /**
+     * Returns the listing of the file, lists and caches it if necessary.
+     *
+     * @param file the file to get the listing for
+     * @return the listing of the file
+     */
+    public Listing get(File file) {
+        Listing listing = listings.get(file);
+        if (listing == null) {
+            listing = list(file);
+            listings.put(file, listing);
+        }
+        return listing;
+    }
+
+    /**
+     * Caches the given listing for the file.
+     *
+     * @param file the file
+     * @param listing the listing of the file
+     */
+    public void put(File file, Listing listing) {
+        listings.put(file, listing);
+    }
+
+    /**
+     * Re-lists the file if it is cached and its modification time changed.
+     * Drops the cached listings of all former children which are gone.
+     *
+     * @param file the file to refresh
+     * @return the former listing if changed, null if not cached or unchanged
+     */
+    public Listing refresh(File file) {
+        Listing old = listings.get(file);
+        if ((old == null) || (old == LEAF) || (file.lastModified() == old.lastModified))
+            return null;
+        Listing listing = list(file);
+        listings.put(file, listing);
+        for (File child : old.children) {
+            if (listing.indexOf(child) < 0) {
+                removeTree(child);
+            }
+        }
+        return old;
+    }
+
+    /**
+     * Returns the cached directories, that is all files with a cached
+     * listing which is not a leaf. Parents come before their children.
+     *
+     * @return the cached directories
+     */
+    public List<File> getDirectories() {
+        List<File> directories = new ArrayList<File>();
+        for (Map.Entry<File, Listing> entry : listings.entrySet()) {
+            if (entry.getValue() != LEAF) {
+                directories.add(entry.getKey());
+            }
+        }
+        Collections.sort(directories, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return o1.getPath().length() - o2.getPath().length();
+            }
+        });
+        return directories;
+    }
+
+    /**
+     * Drops all cached listings.
+     */
+    public void clear() {
+        listings.clear();
+    }
+
+    /**
+     * Drops the listings of the given file and all its descendants.
+     */
+    private void removeTree(File file) {
+        if (listings.remove(file) == null) return;
+        String prefix = file.getPath() + File.separator;
+        for (Iterator<File> iterator = listings.keySet().iterator(); iterator.hasNext();) {
+            if (iterator.next().getPath().startsWith(prefix)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Lists the file, the children are in the order of
+     * {@code File.listFiles()}. Safe to call from any thread.
+     *
+     * @param file the file to list
+     * @return the listing of the file
+     */
+    public static Listing list(File file) {
+        long lastModified = file.lastModified();
+        File[] children = file.listFiles();
+        if (children == null) return LEAF;
+        return new Listing(children, lastModified);
+    }
+
+    /**
+     * The children of a directory at the time of listing.
+     */
+    public static class Listing {
+        private final File[] children;
+        private final long lastModified;
+        /** lazily created map of child to index. */
+        private Map<File, Integer> indices;
+
+        Listing(File[] children, long lastModified) {
+            this.children = children;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return true if the file is not a directory or can't be listed
+         */
+        public boolean isLeaf() {
+            return children == null;
+        }
+
+        /**
+         * @return the number of children
+         */
+        public int getChildCount() {
+            return children != null ? children.length : 0;
+        }
+
+        /**
+         * @param index the index of the child
+         * @return the child at the index
+         */
+        public File getChild(int index) {
+            return children[index];
+        }
+
+        /**
+         * @param child the child to look up
+         * @return the index of the child, -1 if not contained
+         */
+        public int indexOf(File child) {
+            if (children == null) return -1;
+            if (indices == null) {
+                indices = new HashMap<File, Integer>(children.length * 2);
+                for (int i = 0; i < children.length; i++) {
+                    indices.put(children[i], i);
+                }
+            }
+            Integer index = indices.get(child);
+            return index != null ? index : -1;
+        }
+    }
+}
@@ -22,8 +22,17 @@
 package org.jdesktop.swingx.treetable;
 
 import java.io.File;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import javax.swing.SwingUtilities;
+import javax.swing.tree.TreePath;
+
+import org.jdesktop.swingx.treetable.FileListingCache.Listing;
 
 /**
  * A tree table model to simulate a file system.
@@ -41,6 +50,13 @@ import java.util.Date;
  * deletion of files, and the movement of files. This simple implementation does
  * not intend to tackle such problems, but this implementation may be extended
  * to handle such details.
+ * <p>
+ * Directory listings are cached, each directory is listed once. Changes of
+ * the file system are picked up by {@link #refresh()}, which re-lists the
+ * cached directories that have been modified and notifies listeners about the
+ * changed children only. If a loading executor is set, directories are listed
+ * in the background: a directory has no children until its listing is loaded,
+ * then listeners are notified about the added children.
  * 
  * @author Ramesh Gupta
  * @author Karl Schaefer
@@ -49,6 +65,12 @@ public class FileSystemModel extends AbstractTreeTableModel {
     // The the returned file length for directories.
     private static final Long DIRECTORY = 0L;
 
+    private final FileListingCache listings = new FileListingCache();
+    private final Set<File> loading = new HashSet<File>();
+    private Executor loadingExecutor;
+    // incremented on changing the root, to ignore outdated background listings
+    private int generation;
+
     /**
      * Creates a file system model using the root directory as the model root.
      */
@@ -92,11 +114,10 @@ public class FileSystemModel extends AbstractTreeTableModel {
             throw new IllegalArgumentException("parent is not a file governed by this model");
         }
         
-        File parentFile = (File) parent;
-        String[] children = parentFile.list();
+        Listing listing = getListing((File) parent);
         
-        if (children != null) {
-            return new File(parentFile, children[index]);
+        if (listing != null && !listing.isLeaf()) {
+            return listing.getChild(index);
         }
         
         return null;
@@ -108,10 +129,10 @@ public class FileSystemModel extends AbstractTreeTableModel {
     @Override
     public int getChildCount(Object parent) {
         if (parent instanceof File) {
-            String[] children = ((File) parent).list();
+            Listing listing = getListing((File) parent);
             
-            if (children != null) {
-                return children.length;
+            if (listing != null) {
+                return listing.getChildCount();
             }
         }
 
@@ -183,15 +204,10 @@ public class FileSystemModel extends AbstractTreeTableModel {
     @Override
     public int getIndexOfChild(Object parent, Object child) {
         if (parent instanceof File && child instanceof File) {
-            File parentFile = (File) parent;
-            File[] files = parentFile.listFiles();
-            
-            Arrays.sort(files);
+            Listing listing = getListing((File) parent);
             
-            for (int i = 0, len = files.length; i < len; i++) {
-                if (files[i].equals(child)) {
-                    return i;
-                }
+            if (listing != null) {
+                return listing.indexOf((File) child);
             }
         }
         
@@ -215,18 +231,202 @@ public class FileSystemModel extends AbstractTreeTableModel {
      */
     public void setRoot(File root) {
         this.root = root;
+        listings.clear();
+        loading.clear();
+        generation++;
         
         modelSupport.fireNewRoot();
     }
 
+    /**
+     * Sets the executor to list directories in the background. If
+     * {@code null}, directories are listed on the calling thread when first
+     * accessed. Listings already cached are unaffected.
+     * 
+     * @param executor
+     *            the executor to list directories on, may be {@code null}
+     */
+    public void setLoadingExecutor(Executor executor) {
+        this.loadingExecutor = executor;
+    }
+
+    /**
+     * Returns the executor to list directories in the background.
+     * 
+     * @return the executor to list directories on or {@code null} if
+     *         directories are listed on the calling thread
+     */
+    public Executor getLoadingExecutor() {
+        return loadingExecutor;
+    }
+
+    /**
+     * Re-lists all cached directories which have been modified since they
+     * were listed. Notifies listeners about removed and added children of
+     * each changed directory, unchanged directories don't fire any event.
+     * If the retained children of a directory are listed in a different 
+     * order, a structure change of the directory is fired instead.
+     * <p>
+     * Must be called on the EDT, as it notifies listeners.
+     */
+    public void refresh() {
+        for (File directory : listings.getDirectories()) {
+            if (!isValidFileNode(directory)) continue;
+            
+            Listing old = listings.refresh(directory);
+            if (old == null) continue;
+            
+            Listing listing = listings.getCached(directory);
+            TreePath path = getPathTo(directory);
+            if (isReordered(old, listing)) {
+                modelSupport.fireTreeStructureChanged(path);
+                continue;
+            }
+            List<File> removed = new ArrayList<File>();
+            for (int i = 0; i < old.getChildCount(); i++) {
+                if (listing.indexOf(old.getChild(i)) < 0) {
+                    removed.add(old.getChild(i));
+                }
+            }
+            List<File> added = new ArrayList<File>();
+            for (int i = 0; i < listing.getChildCount(); i++) {
+                if (old.indexOf(listing.getChild(i)) < 0) {
+                    added.add(listing.getChild(i));
+                }
+            }
+            if (!removed.isEmpty()) {
+                modelSupport.fireChildrenRemoved(path, indicesOf(old, removed),
+                        removed.toArray());
+            }
+            if (!added.isEmpty()) {
+                modelSupport.fireChildrenAdded(path, indicesOf(listing, added),
+                        added.toArray());
+            }
+        }
+    }
+
+    /**
+     * Returns a boolean indicating whether the children contained in both
+     * listings are in a different relative order.
+     */
+    static boolean isReordered(Listing old, Listing listing) {
+        int last = -1;
+        for (int i = 0; i < old.getChildCount(); i++) {
+            int index = listing.indexOf(old.getChild(i));
+            if (index < 0) continue;
+            if (index < last) return true;
+            last = index;
+        }
+        return false;
+    }
+
+    private static int[] indicesOf(Listing listing, List<File> files) {
+        int[] indices = new int[files.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = listing.indexOf(files.get(i));
+        }
+        return indices;
+    }
+
+    /**
+     * Returns the path from the root to the given file, which must be
+     * governed by this model.
+     */
+    private TreePath getPathTo(File file) {
+        List<File> files = new ArrayList<File>();
+        for (File f = file; !f.equals(root); f = f.getParentFile()) {
+            files.add(0, f);
+        }
+        files.add(0, getRoot());
+        return new TreePath(files.toArray());
+    }
+
+    /**
+     * Returns the listing of the file. Lists the file if not yet cached,
+     * in the background if a loading executor is set.
+     * 
+     * @return the listing of the file or {@code null} if loading in the
+     *         background
+     */
+    private Listing getListing(File file) {
+        Listing listing = listings.getCached(file);
+        
+        if (listing == null) {
+            if (loadingExecutor == null) {
+                listing = listings.get(file);
+            } else {
+                load(file);
+            }
+        }
+        
+        return listing;
+    }
+
+    /**
+     * Lists the directory on the loading executor and installs the listing
+     * on the EDT. Does nothing if already loading.
+     */
+    private void load(final File directory) {
+        if (!loading.add(directory)) return;
+        
+        final int loadGeneration = generation;
+        loadingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Listing listing = FileListingCache.list(directory);
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        install(directory, listing, loadGeneration);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Caches the listing loaded in the background and notifies listeners
+     * about the children, unless the root changed meanwhile.
+     */
+    private void install(File directory, Listing listing, int loadGeneration) {
+        if (loadGeneration != generation) return;
+        
+        loading.remove(directory);
+        if (listings.getCached(directory) != null) return;
+        
+        listings.put(directory, listing);
+        int count = listing.getChildCount();
+        if (count > 0 && isValidFileNode(directory)) {
+            int[] indices = new int[count];
+            Object[] children = new Object[count];
+            for (int i = 0; i < count; i++) {
+                indices[i] = i;
+                children[i] = listing.getChild(i);
+            }
+            modelSupport.fireChildrenAdded(getPathTo(directory), indices, children);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public boolean isLeaf(Object node) {
         if (node instanceof File) {
-            //do not use isFile(); some system files return false
-            return ((File) node).list() == null;
+            File file = (File) node;
+            Listing listing = listings.getCached(file);
+            
+            if (listing == null) {
+                if (loadingExecutor != null) {
+                    // don't list in the calling thread
+                    return !file.isDirectory();
+                }
+                
+                //do not use isFile(); some system files return false
+                listing = listings.get(file);
+            }
+            
+            return listing.isLeaf();
         }
         
         return true;
@@ -0,0 +1,299 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.treetable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * A list for the children of a node which looks up the position of an element
+ * in constant time. The positions are kept in an identity map, so elements are
+ * found by identity, not by equals. This is the same for nodes which don't
+ * override equals. <p>
+ *
+ * The map is kept valid up to the first position changed by a modification
+ * and brought up to date lazily on the next lookup. Appending elements keeps it
+ * valid. <p>
+ *
+ * To use it for the children of an {@code AbstractMutableTreeTableNode},
+ * override {@link AbstractMutableTreeTableNode#createChildrenList()}:
+ *
+ * <pre><code>
+ * protected List&lt;MutableTreeTableNode&gt; createChildrenList() {
+ *     return new IndexedChildList&lt;MutableTreeTableNode&gt;();
+ * }
+ * </code></pre>
+ *
+ * @param <E> the type of elements
+ */
+public class IndexedChildList<E> extends AbstractList<E> implements RandomAccess {
+
+    private final ArrayList<E> elements;
+
+    /**
+     * The first position of the elements. Reliable for values below
+     * validCount, the others are brought up to date on the next lookup.
+     */
+    private final IdentityHashMap<Object, Integer> positions;
+
+    private int validCount;
+
+    /**
+     * Instantiates an empty list.
+     */
+    public IndexedChildList() {
+        elements = new ArrayList<E>();
+        positions = new IdentityHashMap<Object, Integer>();
+    }
+
+    /**
+     * Instantiates a list with the elements of the given collection.
+     *
+     * @param c the collection whose elements are placed into this list
+     */
+    public IndexedChildList(Collection<? extends E> c) {
+        this();
+        addAll(c);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to look up the position, elements are compared by identity.
+     */
+    @Override
+    public int indexOf(Object o) {
+        Integer position = positions.get(o);
+        if ((position != null) && (position < validCount)) return position;
+        if (validCount == size()) return -1;
+        updatePositions();
+        position = positions.get(o);
+        return position != null ? position : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) return false;
+        remove(index);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E set(int index, E element) {
+        E old = elements.set(index, element);
+        removePosition(old, index);
+        invalidate(index);
+        return old;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(int index, E element) {
+        boolean append = (index == size()) && (validCount == index);
+        elements.add(index, element);
+        modCount++;
+        if (append) {
+            Integer position = positions.get(element);
+            if ((position == null) || (position >= validCount)) {
+                positions.put(element, index);
+            }
+            validCount++;
+        } else {
+            invalidate(index);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E remove(int index) {
+        E old = elements.remove(index);
+        modCount++;
+        removePosition(old, index);
+        invalidate(index);
+        return old;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        return addAll(size(), c);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        invalidate(index);
+        modCount++;
+        return elements.addAll(index, c);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to remove the elements in one pass.
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return retain(toSet(c), false);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to remove the elements in one pass.
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return retain(toSet(c), true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        elements.clear();
+        positions.clear();
+        validCount = 0;
+        modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        List<E> range = elements.subList(fromIndex, toIndex);
+        for (int i = 0; i < range.size(); i++) {
+            removePosition(range.get(i), fromIndex + i);
+        }
+        range.clear();
+        modCount++;
+        invalidate(fromIndex);
+    }
+
+    /**
+     * Returns c if it is a Set, otherwise a set of its elements compared by
+     * identity, same as the lookups of this list.
+     */
+    private static Collection<?> toSet(Collection<?> c) {
+        if (c instanceof Set<?>) {
+            return c;
+        }
+        Set<Object> set = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        set.addAll(c);
+        return set;
+    }
+
+    /**
+     * Keeps the elements contained or not contained in c, depending on retain.
+     */
+    private boolean retain(Collection<?> c, boolean retain) {
+        int kept = 0;
+        for (int i = 0; i < elements.size(); i++) {
+            E element = elements.get(i);
+            if (c.contains(element) == retain) {
+                elements.set(kept++, element);
+            }
+        }
+        if (kept == elements.size()) return false;
+        elements.subList(kept, elements.size()).clear();
+        positions.clear();
+        validCount = 0;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes the position of the element removed at index, unless it is
+     * the reliable position of an earlier occurrence.
+     */
+    private void removePosition(E element, int index) {
+        Integer position = positions.get(element);
+        if ((position != null) && (position >= Math.min(index, validCount))) {
+            positions.remove(element);
+        }
+    }
+
+    /**
+     * Marks the positions from index on as unreliable.
+     */
+    private void invalidate(int index) {
+        validCount = Math.min(validCount, index);
+    }
+
+    /**
+     * Brings the positions of all elements up to date. Runs backwards so
+     * that the first occurrence of an element wins.
+     */
+    private void updatePositions() {
+        for (int i = elements.size() - 1; i >= validCount; i--) {
+            E element = elements.get(i);
+            Integer position = positions.get(element);
+            if ((position == null) || (position >= validCount)) {
+                positions.put(element, i);
+            }
+        }
+        validCount = elements.size();
+    }
+}
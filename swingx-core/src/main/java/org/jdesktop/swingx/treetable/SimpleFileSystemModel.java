@@ -25,9 +25,12 @@ import java.io.File;
 import java.util.Date;
 
 import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
 import javax.swing.tree.TreePath;
 
+import org.jdesktop.swingx.treetable.FileListingCache.Listing;
+
 /**
  * A tree table model to simulate a file system.
  * <p>
@@ -44,6 +47,9 @@ import javax.swing.tree.TreePath;
  * deletion of files, and the movement of files. This simple implementation does
  * not intend to tackle such problems, but this implementation may be extended
  * to handle such details.
+ * <p>
+ * Directory listings are cached, each directory is listed once. Changes of
+ * the file system are picked up by {@link #refresh()}.
  * 
  * @author Ramesh Gupta
  * @author Karl Schaefer
@@ -56,6 +62,8 @@ public class SimpleFileSystemModel implements TreeTableModel {
 
     private File root;
 
+    private final FileListingCache listings = new FileListingCache();
+
     /**
      * Creates a file system model, using the root directory as the model root.
      */
@@ -78,11 +86,10 @@ public class SimpleFileSystemModel implements TreeTableModel {
     @Override
     public File getChild(Object parent, int index) {
         if (parent instanceof File) {
-            File parentFile = (File) parent;
-            File[] files = parentFile.listFiles();
+            Listing listing = listings.get((File) parent);
 
-            if (files != null) {
-                return files[index];
+            if (!listing.isLeaf()) {
+                return listing.getChild(index);
             }
         }
 
@@ -95,11 +102,7 @@ public class SimpleFileSystemModel implements TreeTableModel {
     @Override
     public int getChildCount(Object parent) {
         if (parent instanceof File) {
-            String[] children = ((File) parent).list();
-            
-            if (children != null) {
-                return children.length;
-            }
+            return listings.get((File) parent).getChildCount();
         }
 
         return 0;
@@ -211,14 +214,7 @@ public class SimpleFileSystemModel implements TreeTableModel {
     @Override
     public int getIndexOfChild(Object parent, Object child) {
         if (parent instanceof File && child instanceof File) {
-            File parentFile = (File) parent;
-            File[] files = parentFile.listFiles();
-            
-            for (int i = 0, len = files.length; i < len; i++) {
-                if (files[i].equals(child)) {
-                    return i;
-                }
-            }
+            return listings.get((File) parent).indexOf((File) child);
         }
         
         return -1;
@@ -239,7 +235,7 @@ public class SimpleFileSystemModel implements TreeTableModel {
     public boolean isLeaf(Object node) {
         if (node instanceof File) {
             //do not use isFile(); some system files return false
-            return ((File) node).list() == null;
+            return listings.get((File) node).isLeaf();
         }
         
         return true;
@@ -261,6 +257,43 @@ public class SimpleFileSystemModel implements TreeTableModel {
         //does nothing
     }
     
+    /**
+     * Re-lists all cached directories which have been modified since they
+     * were listed. Notifies listeners about a structure change of each changed
+     * directory, unchanged directories don't fire any event.
+     */
+    public void refresh() {
+        for (File directory : listings.getDirectories()) {
+            TreePath path = getPathTo(directory);
+            if (path != null && listings.refresh(directory) != null) {
+                fireTreeStructureChanged(path);
+            }
+        }
+    }
+
+    /**
+     * Returns the path from the root to the given file or {@code null} if
+     * the file is not below the root.
+     */
+    private TreePath getPathTo(File file) {
+        if (file == null) return null;
+        if (file.equals(root)) return new TreePath(root);
+        TreePath parentPath = getPathTo(file.getParentFile());
+        return parentPath != null ? parentPath.pathByAddingChild(file) : null;
+    }
+
+    /**
+     * Notifies all listeners that the structure below the given path changed.
+     * 
+     * @param path the path to the node whose structure changed
+     */
+    protected void fireTreeStructureChanged(TreePath path) {
+        TreeModelEvent event = new TreeModelEvent(this, path);
+        for (TreeModelListener l : getTreeModelListeners()) {
+            l.treeStructureChanged(event);
+        }
+    }
+
     /**
      * Gets a an array of all the listeners attached to this model.
      * 
@@ -0,0 +1,113 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+
+/**
+ * Benchmarks of JXTree expandAll/collapseAll, not a unit test, run the main
+ * method. <p>
+ *
+ * Compares the bulk expandAll/collapseAll with expanding/collapsing row by row,
+ * at 10k/100k/1M nodes, with variable row heights and with a fixed row height
+ * in large model mode. Expanding row by row is skipped at 1M nodes, it takes
+ * minutes.
+ */
+public class JXTreeExpansionBenchmark {
+
+    private static final int[] NODE_COUNTS = {10000, 100000, 1000000};
+
+    private static final int CHILD_COUNT = 10;
+
+    public static void main(String[] args) throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                for (int nodeCount : NODE_COUNTS) {
+                    benchmark(nodeCount, false);
+                    benchmark(nodeCount, true);
+                }
+            }
+        });
+    }
+
+    private static void benchmark(int nodeCount, boolean largeModel) {
+        DefaultTreeModel model = new DefaultTreeModel(createRoot(nodeCount));
+        System.out.println(nodeCount + " nodes, " + (largeModel ? "large model" : "variable row height")
+                + ", ms expand / collapse:");
+        if (nodeCount < 1000000) {
+            JXTree tree = createTree(model, largeModel);
+            long start = System.nanoTime();
+            for (int i = 0; i < tree.getRowCount(); i++) {
+                tree.expandRow(i);
+            }
+            double expand = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            for (int i = tree.getRowCount() - 1; i >= 0; i--) {
+                tree.collapseRow(i);
+            }
+            double collapse = (System.nanoTime() - start) / 1e6;
+            System.out.println("    row by row:  " + format(expand) + " / " + format(collapse));
+        }
+        JXTree tree = createTree(model, largeModel);
+        long start = System.nanoTime();
+        tree.expandAll();
+        double expand = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        tree.collapseAll();
+        double collapse = (System.nanoTime() - start) / 1e6;
+        System.out.println("    bulk:        " + format(expand) + " / " + format(collapse));
+    }
+
+    private static JXTree createTree(DefaultTreeModel model, boolean largeModel) {
+        JXTree tree = new JXTree(model);
+        if (largeModel) {
+            tree.setRowHeight(16);
+            tree.setLargeModel(true);
+        }
+        return tree;
+    }
+
+    /**
+     * Creates and returns a tree of nodeCount nodes, filled level by level
+     * with CHILD_COUNT children per node.
+     */
+    private static DefaultMutableTreeNode createRoot(int nodeCount) {
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode("root");
+        List<DefaultMutableTreeNode> nodes = new ArrayList<DefaultMutableTreeNode>(nodeCount);
+        nodes.add(root);
+        for (int parent = 0; nodes.size() < nodeCount; parent++) {
+            for (int i = 0; (i < CHILD_COUNT) && (nodes.size() < nodeCount); i++) {
+                DefaultMutableTreeNode child = new DefaultMutableTreeNode("node " + nodes.size());
+                nodes.get(parent).add(child);
+                nodes.add(child);
+            }
+        }
+        return root;
+    }
+
+    private static String format(double millis) {
+        return String.format("%.1f", millis);
+    }
+}
@@ -723,6 +723,270 @@ public class JXTreeTableUnitTest extends InteractiveTestCase {
         treeTable.setTreeTableModel(createCustomTreeTableModelFromDefault());
     }
     
+    /**
+     * TreeTableModelAdapter: a burst of adjacent inserts is fired as one event.
+     */
+    @Test
+    public void testTableEventCoalescedInserts() throws Exception {
+        final DefaultTreeTableModel model = createCoalescingModel();
+        final JXTreeTable table = new JXTreeTable(model);
+        table.setRootVisible(true);
+        table.expandAll();
+        final MutableTreeTableNode parent = (MutableTreeTableNode) ((TreeTableNode) model.getRoot()).getChildAt(0);
+        final TableModelReport report = new TableModelReport(table.getModel());
+        final JXTreeTable.TreeTableModelAdapter adapter = (JXTreeTable.TreeTableModelAdapter) table.getModel();
+        final int received = adapter.getReceivedEventCount();
+        // the burst is fired on the EDT 
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 500; i++) {
+                    model.insertNodeInto(new DefaultMutableTreeTableNode("added " + i), parent, parent.getChildCount());
+                }
+            }
+        });
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(500, adapter.getReceivedEventCount() - received);
+                assertEquals("tableModel must have fired one event", 1, report.getEventCount());
+                TableModelEvent event = report.getLastInsertEvent();
+                assertEquals(3, event.getFirstRow());
+                assertEquals(502, event.getLastRow());
+                assertEquals(table.getRowCount() - 1, event.getLastRow());
+            }
+        });
+    }
+
+    /**
+     * TreeTableModelAdapter: a burst of adjacent removes is fired as one event.
+     */
+    @Test
+    public void testTableEventCoalescedRemoves() throws Exception {
+        final DefaultTreeTableModel model = createCoalescingModel();
+        final MutableTreeTableNode parent = (MutableTreeTableNode) ((TreeTableNode) model.getRoot()).getChildAt(0);
+        for (int i = 0; i < 200; i++) {
+            model.insertNodeInto(new DefaultMutableTreeTableNode("added " + i), parent, parent.getChildCount());
+        }
+        final JXTreeTable table = new JXTreeTable(model);
+        table.setRootVisible(true);
+        table.expandAll();
+        final TableModelReport report = new TableModelReport(table.getModel());
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 100; i++) {
+                    model.removeNodeFromParent((MutableTreeTableNode) parent.getChildAt(5));
+                }
+            }
+        });
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals("tableModel must have fired one event", 1, report.getEventCount());
+                TableModelEvent event = report.getLastDeleteEvent();
+                assertEquals(2 + 5, event.getFirstRow());
+                assertEquals(2 + 5 + 99, event.getLastRow());
+            }
+        });
+    }
+
+    /**
+     * TreeTableModelAdapter: updates are fired as one event covering all updated rows, 
+     * a structure change supersedes all pending changes.
+     */
+    @Test
+    public void testTableEventCoalescedUpdates() throws Exception {
+        final DefaultTreeTableModel model = createCoalescingModel();
+        final MutableTreeTableNode parent = (MutableTreeTableNode) ((TreeTableNode) model.getRoot()).getChildAt(0);
+        for (int i = 0; i < 50; i++) {
+            model.insertNodeInto(new DefaultMutableTreeTableNode("added " + i), parent, parent.getChildCount());
+        }
+        final JXTreeTable table = new JXTreeTable(model);
+        table.setRootVisible(true);
+        table.expandAll();
+        final TableModelReport report = new TableModelReport(table.getModel());
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                model.setValueAt("changed", parent.getChildAt(30), 0);
+                model.setValueAt("changed", parent.getChildAt(10), 0);
+                model.setValueAt("changed", parent.getChildAt(20), 0);
+            }
+        });
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals("tableModel must have fired one event", 1, report.getEventCount());
+                TableModelEvent event = report.getLastUpdateEvent();
+                assertEquals(2 + 10, event.getFirstRow());
+                assertEquals(2 + 30, event.getLastRow());
+                report.clear();
+            }
+        });
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                model.setValueAt("changed again", parent.getChildAt(10), 0);
+                model.removeNodeFromParent((MutableTreeTableNode) parent.getChildAt(0));
+                model.setRoot(new DefaultMutableTreeTableNode("new root"));
+            }
+        });
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals("tableModel must have fired one event", 1, report.getEventCount());
+                assertTrue(report.isStructureChanged(report.getLastEvent()));
+            }
+        });
+    }
+
+    /**
+     * TreeTableModelAdapter: the cached node for row must be the same as the
+     * tree's after expansion and model changes.
+     */
+    @Test
+    public void testNodeForRowCache() {
+        DefaultMutableTreeTableNode root = new DefaultMutableTreeTableNode("root");
+        for (int i = 0; i < 5; i++) {
+            DefaultMutableTreeTableNode child = new DefaultMutableTreeTableNode("child " + i);
+            root.add(child);
+            for (int j = 0; j < 4; j++) {
+                DefaultMutableTreeTableNode grandChild = new DefaultMutableTreeTableNode("grandchild " + i + j);
+                child.add(grandChild);
+                grandChild.add(new DefaultMutableTreeTableNode("leaf " + i + j));
+            }
+        }
+        DefaultTreeTableModel model = new DefaultTreeTableModel(root);
+        JXTreeTable table = new JXTreeTable(model);
+        table.setRootVisible(true);
+        assertNodeForRow(table);
+        table.expandRow(0);
+        assertNodeForRow(table);
+        table.expandRow(3);
+        assertNodeForRow(table);
+        table.expandRow(5);
+        assertNodeForRow(table);
+        table.collapseRow(3);
+        assertNodeForRow(table);
+        table.expandAll();
+        assertNodeForRow(table);
+        model.insertNodeInto(new DefaultMutableTreeTableNode("added"), 
+                (MutableTreeTableNode) root.getChildAt(1), 2);
+        assertNodeForRow(table);
+        model.removeNodeFromParent((MutableTreeTableNode) root.getChildAt(0));
+        assertNodeForRow(table);
+        table.setRootVisible(false);
+        assertNodeForRow(table);
+        table.collapseAll();
+        assertNodeForRow(table);
+    }
+
+    /**
+     * expandAll/collapseAll in bulk: a single expansion or collapse event, 
+     * the visible nodes are in sync.
+     */
+    @Test
+    public void testExpandAllBulk() {
+        DefaultMutableTreeTableNode root = new DefaultMutableTreeTableNode("root");
+        for (int i = 0; i < 5; i++) {
+            DefaultMutableTreeTableNode child = new DefaultMutableTreeTableNode("child " + i);
+            root.add(child);
+            for (int j = 0; j < 4; j++) {
+                DefaultMutableTreeTableNode grandChild = new DefaultMutableTreeTableNode("grandchild " + i + j);
+                child.add(grandChild);
+                grandChild.add(new DefaultMutableTreeTableNode("leaf " + i + j));
+            }
+        }
+        JXTreeTable table = new JXTreeTable(new DefaultTreeTableModel(root));
+        table.setRootVisible(true);
+        table.expandRow(0);
+        assertNodeForRow(table);
+        TreeExpansionReport report = new TreeExpansionReport(table);
+        table.expandAll(2);
+        assertEquals(1 + 5 + 20, table.getRowCount());
+        assertNodeForRow(table);
+        table.expandAll();
+        assertEquals(1 + 5 + 20 + 20, table.getRowCount());
+        assertNodeForRow(table);
+        assertEquals("one expansion event per expandAll", 2, report.getEventCount());
+        table.collapseAll();
+        assertEquals(1, table.getRowCount());
+        assertEquals("single collapse event", 3, report.getEventCount());
+        assertNodeForRow(table);
+        table.expandRow(0);
+        assertEquals("descendants still expanded", 1 + 5 + 20 + 20, table.getRowCount());
+        assertNodeForRow(table);
+    }
+
+    /**
+     * TreeTableModelAdapter: inserts, removes and updates must not rebuild
+     * the cached nodes for row.
+     */
+    @Test
+    public void testNodeForRowCacheSpliced() {
+        DefaultMutableTreeTableNode root = new DefaultMutableTreeTableNode("root");
+        for (int i = 0; i < 5; i++) {
+            DefaultMutableTreeTableNode child = new DefaultMutableTreeTableNode("child " + i);
+            root.add(child);
+            for (int j = 0; j < 3; j++) {
+                child.add(new DefaultMutableTreeTableNode("grandchild " + i + j));
+            }
+        }
+        DefaultTreeTableModel model = new DefaultTreeTableModel(root);
+        JXTreeTable table = new JXTreeTable(model);
+        table.setRootVisible(false);
+        table.expandAll();
+        table.collapseRow(table.getRowForPath(new TreePath(
+                model.getPathToRoot((TreeTableNode) root.getChildAt(2)))));
+        assertNodeForRow(table);
+        JXTreeTable.TreeTableModelAdapter adapter = (JXTreeTable.TreeTableModelAdapter) table.getModel();
+        int rebuilds = adapter.getRowNodesRebuildCount();
+        // first, middle and last child of an expanded parent
+        MutableTreeTableNode parent = (MutableTreeTableNode) root.getChildAt(1);
+        model.insertNodeInto(new DefaultMutableTreeTableNode("first"), parent, 0);
+        assertNodeForRow(table);
+        model.insertNodeInto(new DefaultMutableTreeTableNode("middle"), parent, 2);
+        assertNodeForRow(table);
+        model.insertNodeInto(new DefaultMutableTreeTableNode("last"), parent, parent.getChildCount());
+        assertNodeForRow(table);
+        // below the hidden root and below a collapsed parent
+        model.insertNodeInto(new DefaultMutableTreeTableNode("top"), root, 5);
+        assertNodeForRow(table);
+        model.insertNodeInto(new DefaultMutableTreeTableNode("hidden"), 
+                (MutableTreeTableNode) root.getChildAt(2), 1);
+        assertNodeForRow(table);
+        model.removeNodeFromParent((MutableTreeTableNode) parent.getChildAt(2));
+        assertNodeForRow(table);
+        // an expanded node with its subtree
+        model.removeNodeFromParent(parent);
+        assertNodeForRow(table);
+        model.setValueAt("changed", root.getChildAt(0), 0);
+        assertNodeForRow(table);
+        assertEquals(rebuilds, adapter.getRowNodesRebuildCount());
+    }
+
+    private void assertNodeForRow(JXTreeTable table) {
+        JXTreeTable.TreeTableModelAdapter adapter = (JXTreeTable.TreeTableModelAdapter) table.getModel();
+        assertEquals(table.getRowCount(), adapter.getRowCount());
+        for (int row = 0; row < table.getRowCount(); row++) {
+            assertSame("node at row " + row, 
+                    table.getPathForRow(row).getLastPathComponent(), adapter.nodeForRow(row));
+        }
+        assertNull(adapter.nodeForRow(table.getRowCount()));
+    }
+
+    /**
+     * @return a model with root - parent - one child. 
+     */
+    private DefaultTreeTableModel createCoalescingModel() {
+        DefaultMutableTreeTableNode root = new DefaultMutableTreeTableNode("root");
+        DefaultMutableTreeTableNode parent = new DefaultMutableTreeTableNode("parent");
+        root.add(parent);
+        parent.add(new DefaultMutableTreeTableNode("child"));
+        return new DefaultTreeTableModel(root);
+    }
+
     /**
      * Issue #493-swingx: JXTreeTable.TreeTableModelAdapter: Inconsistency
      * firing update.
@@ -8,18 +8,24 @@ package org.jdesktop.swingx;
 
 import java.awt.Color;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Vector;
 
 import javax.swing.JTree;
 import javax.swing.UIManager;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
 import javax.swing.text.Position.Bias;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellEditor;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.ExpandVetoException;
 import javax.swing.tree.TreeCellEditor;
 import javax.swing.tree.TreeCellRenderer;
+import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 
 import org.jdesktop.swingx.JXTree.DelegatingRenderer;
@@ -39,6 +45,7 @@ import org.jdesktop.swingx.treetable.TreeTableModel;
 import org.jdesktop.test.AncientSwingTeam;
 import org.jdesktop.test.PropertyChangeReport;
 import org.jdesktop.test.TestUtils;
+import org.jdesktop.test.TreeExpansionReport;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -725,6 +732,136 @@ public class JXTreeUnitTest extends InteractiveTestCase {
         
     }
 
+    /**
+     * expandAll: expands in bulk, the rows are the same as expanded one-by-one, 
+     * listeners are notified once.
+     */
+    @Test
+    public void testExpandAllBulk() {
+        JXTree tree = new JXTree(createBulkModel(4, 3));
+        tree.collapseRow(0);
+        TreeExpansionReport report = new TreeExpansionReport(tree);
+        tree.expandAll();
+        assertEquals(1 + 4 + 16 + 64, tree.getRowCount());
+        assertRows(tree);
+        assertEquals("single expansion event", 1, report.getEventCount());
+        assertEquals(tree.getPathForRow(0), report.getLastExpandedEvent().getPath());
+    }
+
+    /**
+     * expandAll with depth limit: nodes deeper than the limit are collapsed.
+     */
+    @Test
+    public void testExpandAllMaxDepth() {
+        JXTree tree = new JXTree(createBulkModel(4, 3));
+        tree.expandAll(2);
+        assertEquals(1 + 4 + 16, tree.getRowCount());
+        assertRows(tree);
+        assertFalse(tree.isExpanded(tree.getRowCount() - 1));
+        tree.expandAll(0);
+        assertEquals("expanded paths unchanged", 1 + 4 + 16, tree.getRowCount());
+    }
+
+    /**
+     * expandAll: cancelled by a TreeWillExpandListener, the paths 
+     * expanded until then are visible.
+     */
+    @Test
+    public void testExpandAllCancel() {
+        final JXTree tree = new JXTree(createBulkModel(4, 3));
+        tree.addTreeWillExpandListener(new TreeWillExpandListener() {
+            int count;
+            
+            @Override
+            public void treeWillExpand(TreeExpansionEvent event)
+                    throws ExpandVetoException {
+                if (++count == 3) {
+                    tree.cancelExpandAll();
+                }
+            }
+            
+            @Override
+            public void treeWillCollapse(TreeExpansionEvent event)
+                    throws ExpandVetoException {
+            }
+        });
+        tree.expandAll();
+        // root expanded initially, first child with two of its children
+        assertEquals(1 + 4 + 4 + 4 + 4, tree.getRowCount());
+        assertRows(tree);
+    }
+
+    /**
+     * collapseAll: listeners are notified once per top-most path, the
+     * layout cache is in sync with the collapsed state, the descendants keep
+     * their expansion state.
+     */
+    @Test
+    public void testCollapseAllBulk() {
+        JXTree tree = new JXTree(createBulkModel(4, 3));
+        tree.expandAll();
+        TreeExpansionReport report = new TreeExpansionReport(tree);
+        tree.collapseAll();
+        assertEquals(1, tree.getRowCount());
+        assertEquals("single collapse event", 1, report.getEventCount());
+        tree.expandRow(0);
+        assertEquals("descendants still expanded", 1 + 4 + 16 + 64, tree.getRowCount());
+        assertRows(tree);
+        tree.setRootVisible(false);
+        report.clear();
+        tree.collapseAll();
+        assertEquals(4, tree.getRowCount());
+        assertEquals("one collapse event per child of hidden root", 4, report.getEventCount());
+        tree.expandRow(0);
+        assertEquals(4 + 4 + 16, tree.getRowCount());
+        assertRows(tree);
+    }
+
+    /**
+     * Asserts that the rows of the tree are the paths made visible by its 
+     * expansion state.
+     */
+    private void assertRows(JXTree tree) {
+        List<TreePath> expected = new ArrayList<TreePath>();
+        addVisiblePaths(tree, new TreePath(tree.getModel().getRoot()), expected);
+        if (!tree.isRootVisible()) {
+            expected.remove(0);
+        }
+        assertEquals(expected.size(), tree.getRowCount());
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals("path at row " + row, expected.get(row), tree.getPathForRow(row));
+        }
+    }
+
+    private void addVisiblePaths(JXTree tree, TreePath path, List<TreePath> paths) {
+        paths.add(path);
+        if (!tree.isExpanded(path)) return;
+        TreeModel model = tree.getModel();
+        Object node = path.getLastPathComponent();
+        for (int i = 0; i < model.getChildCount(node); i++) {
+            addVisiblePaths(tree, path.pathByAddingChild(model.getChild(node, i)), paths);
+        }
+    }
+
+    /**
+     * Creates and returns a model with the given number of children per node
+     * and the given number of levels below the root.
+     */
+    private DefaultTreeModel createBulkModel(int childCount, int depth) {
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode("root");
+        addChildren(root, childCount, depth);
+        return new DefaultTreeModel(root);
+    }
+
+    private void addChildren(DefaultMutableTreeNode parent, int childCount, int depth) {
+        if (depth == 0) return;
+        for (int i = 0; i < childCount; i++) {
+            DefaultMutableTreeNode child = new DefaultMutableTreeNode(parent.getUserObject() + "/" + i);
+            parent.add(child);
+            addChildren(child, childCount, depth - 1);
+        }
+    }
+
     /**
      * test enhanced getSelectedRows contract: returned 
      * array != null
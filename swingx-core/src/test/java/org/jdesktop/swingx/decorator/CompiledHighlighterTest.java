@@ -0,0 +1,303 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.decorator;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JLabel;
+import javax.swing.table.DefaultTableModel;
+
+import org.jdesktop.swingx.InteractiveTestCase;
+import org.jdesktop.swingx.decorator.ComponentAdapterTest.JXTableT;
+import org.jdesktop.swingx.decorator.HighlightPredicate.AndHighlightPredicate;
+import org.jdesktop.swingx.decorator.HighlightPredicate.NotHighlightPredicate;
+import org.jdesktop.swingx.decorator.HighlightPredicate.OrHighlightPredicate;
+import org.jdesktop.test.ChangeReport;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test CompiledHighlighter and the value caching of ComponentAdapter.
+ */
+@RunWith(JUnit4.class)
+public class CompiledHighlighterTest extends InteractiveTestCase {
+
+    private CountingModel model;
+    private JXTableT table;
+    private List<String> applied;
+
+    /**
+     * Nested compounds are flattened, a compound with predicate guards its
+     * contained.
+     */
+    @Test
+    public void testFlatten() {
+        CompoundHighlighter inner = new CompoundHighlighter(
+                new RecordingHighlighter("a"), new RecordingHighlighter("b"));
+        CompoundHighlighter outer = new CompoundHighlighter(
+                new RecordingHighlighter("c"), inner);
+        CompiledHighlighter compiled = new CompiledHighlighter(outer);
+        assertEquals(3, compiled.getStepCount());
+        inner.setHighlightPredicate(HighlightPredicate.EVEN);
+        assertEquals("guard step for the inner compound", 4, compiled.getStepCount());
+    }
+
+    /**
+     * A compound predicate which is false skips all contained, the
+     * following are applied.
+     */
+    @Test
+    public void testSkipContained() {
+        CompoundHighlighter inner = new CompoundHighlighter(
+                new RecordingHighlighter("a"), new RecordingHighlighter("b"));
+        inner.setHighlightPredicate(HighlightPredicate.EVEN);
+        CompoundHighlighter outer = new CompoundHighlighter(
+                inner, new RecordingHighlighter("c"));
+        CompiledHighlighter compiled = new CompiledHighlighter(outer);
+        compiled.highlight(new JLabel(), table.getComponentAdapter(0, 0));
+        assertEquals("[a, b, c]", applied.toString());
+        applied.clear();
+        compiled.highlight(new JLabel(), table.getComponentAdapter(1, 0));
+        assertEquals("[c]", applied.toString());
+    }
+
+    /**
+     * Highlighters with a predicate folded to NEVER are dropped.
+     */
+    @Test
+    public void testDropNever() {
+        RecordingHighlighter never = new RecordingHighlighter("never");
+        never.setHighlightPredicate(new AndHighlightPredicate(
+                HighlightPredicate.EVEN, HighlightPredicate.NEVER));
+        RecordingHighlighter notAlways = new RecordingHighlighter("notAlways");
+        notAlways.setHighlightPredicate(new NotHighlightPredicate(HighlightPredicate.ALWAYS));
+        CompiledHighlighter compiled = new CompiledHighlighter(new CompoundHighlighter(
+                never, notAlways, new RecordingHighlighter("always")));
+        assertEquals(1, compiled.getStepCount());
+        compiled.highlight(new JLabel(), table.getComponentAdapter(0, 0));
+        assertEquals("[always]", applied.toString());
+    }
+
+    /**
+     * Folding of logical predicates with constants.
+     */
+    @Test
+    public void testSimplify() {
+        HighlightPredicate even = HighlightPredicate.EVEN;
+        assertSame(HighlightPredicate.ALWAYS, CompiledHighlighter.simplify(null));
+        assertSame(even, CompiledHighlighter.simplify(even));
+        assertSame(even, CompiledHighlighter.simplify(
+                new AndHighlightPredicate(even, HighlightPredicate.ALWAYS)));
+        assertSame(even, CompiledHighlighter.simplify(
+                new OrHighlightPredicate(HighlightPredicate.NEVER, even)));
+        assertSame(HighlightPredicate.ALWAYS, CompiledHighlighter.simplify(
+                new OrHighlightPredicate(even, new NotHighlightPredicate(HighlightPredicate.NEVER))));
+        assertSame(HighlightPredicate.NEVER, CompiledHighlighter.simplify(
+                new AndHighlightPredicate()));
+        assertSame(HighlightPredicate.NEVER, CompiledHighlighter.simplify(
+                new OrHighlightPredicate()));
+        HighlightPredicate unchanged = new AndHighlightPredicate(even, HighlightPredicate.ROLLOVER_ROW);
+        assertSame(unchanged, CompiledHighlighter.simplify(unchanged));
+        HighlightPredicate not = CompiledHighlighter.simplify(new NotHighlightPredicate(
+                new AndHighlightPredicate(even, HighlightPredicate.ALWAYS)));
+        assertEquals(NotHighlightPredicate.class, not.getClass());
+        assertSame(even, ((NotHighlightPredicate) not).getHighlightPredicate());
+    }
+
+    /**
+     * Same result as the source, for all cells.
+     */
+    @Test
+    public void testSameAsSource() {
+        ColorHighlighter evenHighlighter = new ColorHighlighter(HighlightPredicate.EVEN, Color.RED, null);
+        ColorHighlighter valueHighlighter = new ColorHighlighter(new HighlightPredicate() {
+            @Override
+            public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
+                return ((Integer) adapter.getValue()) % 3 == 0;
+            }
+        }, null, Color.BLUE);
+        CompoundHighlighter inner = new CompoundHighlighter(
+                new HighlightPredicate.ColumnHighlightPredicate(1), valueHighlighter);
+        CompoundHighlighter source = new CompoundHighlighter(evenHighlighter, inner);
+        CompiledHighlighter compiled = new CompiledHighlighter(source);
+        for (int row = 0; row < model.getRowCount(); row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                JLabel expected = createHighlighted(source, row, column);
+                JLabel actual = createHighlighted(compiled, row, column);
+                assertEquals(expected.getBackground(), actual.getBackground());
+                assertEquals(expected.getForeground(), actual.getForeground());
+            }
+        }
+    }
+
+    /**
+     * Highlighters which override highlight are applied as-is.
+     */
+    @Test
+    public void testOpaque() {
+        AbstractHighlighter opaque = new RecordingHighlighter("opaque") {
+            @Override
+            public Component highlight(Component component, ComponentAdapter adapter) {
+                applied.add("custom");
+                return component;
+            }
+        };
+        opaque.setHighlightPredicate(HighlightPredicate.NEVER);
+        CompiledHighlighter compiled = new CompiledHighlighter(new CompoundHighlighter(opaque));
+        assertEquals(1, compiled.getStepCount());
+        compiled.highlight(new JLabel(), table.getComponentAdapter(0, 0));
+        assertEquals("[custom]", applied.toString());
+    }
+
+    /**
+     * Changes of the source are passed on and re-compile.
+     */
+    @Test
+    public void testSourceChange() {
+        CompoundHighlighter source = new CompoundHighlighter(new RecordingHighlighter("a"));
+        CompiledHighlighter compiled = new CompiledHighlighter(source);
+        ChangeReport report = new ChangeReport();
+        compiled.addChangeListener(report);
+        assertEquals(1, compiled.getStepCount());
+        source.addHighlighter(new RecordingHighlighter("b"));
+        assertEquals(1, report.getEventCount());
+        assertEquals(2, compiled.getStepCount());
+        compiled.highlight(new JLabel(), table.getComponentAdapter(0, 0));
+        assertEquals("[a, b]", applied.toString());
+    }
+
+    /**
+     * Release stops listening to the source.
+     */
+    @Test
+    public void testRelease() {
+        CompoundHighlighter source = new CompoundHighlighter(new RecordingHighlighter("a"));
+        int listenerCount = source.getChangeListeners().length;
+        CompiledHighlighter compiled = new CompiledHighlighter(source);
+        assertEquals(listenerCount + 1, source.getChangeListeners().length);
+        compiled.release();
+        assertEquals(listenerCount, source.getChangeListeners().length);
+    }
+
+    /**
+     * The value is fetched once per cell, however many predicates ask.
+     */
+    @Test
+    public void testValueFetchedOnce() {
+        HighlightPredicate valuePredicate = new HighlightPredicate() {
+            @Override
+            public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
+                return adapter.getValue() != null;
+            }
+        };
+        CompoundHighlighter source = new CompoundHighlighter();
+        for (int i = 0; i < 5; i++) {
+            source.addHighlighter(new ColorHighlighter(valuePredicate, Color.RED, null));
+        }
+        CompiledHighlighter compiled = new CompiledHighlighter(source);
+        model.count = 0;
+        compiled.highlight(new JLabel(), table.getComponentAdapter(0, 0));
+        assertEquals(1, model.count);
+        compiled.highlight(new JLabel(), table.getComponentAdapter(1, 0));
+        assertEquals(2, model.count);
+        assertFalse("caching must be reset", table.getComponentAdapter(0, 0).isValueCaching());
+        model.count = 0;
+        source.highlight(new JLabel(), table.getComponentAdapter(0, 0));
+        assertEquals("sanity: uncompiled fetches per predicate", 5, model.count);
+    }
+
+    /**
+     * ComponentAdapter caching: re-fetches on cell change.
+     */
+    @Test
+    public void testAdapterCaching() {
+        ComponentAdapter adapter = table.getComponentAdapter(0, 0);
+        adapter.setValueCaching(true);
+        assertTrue(adapter.isValueCaching());
+        model.count = 0;
+        assertEquals(model.getValueAt(0, 0), adapter.getValue());
+        adapter.getValue();
+        assertEquals(2, model.count);
+        table.getComponentAdapter(1, 0);
+        assertEquals(model.getValueAt(1, 0), adapter.getValue());
+        assertEquals(model.getValueAt(1, 0).toString(), adapter.getString());
+        adapter.setValueCaching(false);
+        model.count = 0;
+        adapter.getValue();
+        adapter.getValue();
+        assertEquals(2, model.count);
+    }
+
+    private JLabel createHighlighted(Highlighter highlighter, int row, int column) {
+        return (JLabel) highlighter.highlight(new JLabel(), table.getComponentAdapter(row, column));
+    }
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        model = new CountingModel();
+        table = new JXTableT(model);
+        applied = new ArrayList<String>();
+    }
+
+    /**
+     * Highlighter which records its application.
+     */
+    private class RecordingHighlighter extends AbstractHighlighter {
+        private final String name;
+
+        RecordingHighlighter(String name) {
+            this.name = name;
+        }
+
+        @Override
+        protected Component doHighlight(Component component, ComponentAdapter adapter) {
+            applied.add(name);
+            return component;
+        }
+    }
+
+    /**
+     * Model which counts the calls to getValueAt.
+     */
+    private static class CountingModel extends DefaultTableModel {
+        int count;
+
+        CountingModel() {
+            super(10, 2);
+            for (int row = 0; row < getRowCount(); row++) {
+                for (int column = 0; column < getColumnCount(); column++) {
+                    setValueAt(row * getColumnCount() + column, row, column);
+                }
+            }
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            count++;
+            return super.getValueAt(row, column);
+        }
+    }
+}
@@ -8,9 +8,12 @@
 package org.jdesktop.swingx.decorator;
 
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.Insets;
 import java.awt.Point;
+import java.awt.image.BufferedImage;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -33,6 +36,7 @@ import org.jdesktop.swingx.decorator.HighlightPredicate.NotHighlightPredicate;
 import org.jdesktop.swingx.decorator.HighlightPredicate.OrHighlightPredicate;
 import org.jdesktop.swingx.decorator.HighlightPredicate.RowGroupHighlightPredicate;
 import org.jdesktop.swingx.decorator.HighlightPredicate.TypeHighlightPredicate;
+import org.jdesktop.swingx.decorator.ScopedHighlightPredicate.Scope;
 import org.jdesktop.swingx.rollover.RolloverProducer;
 import org.jdesktop.test.AncientSwingTeam;
 import org.junit.After;
@@ -1122,6 +1126,122 @@ public class HighlightPredicateTest extends InteractiveTestCase {
     }
     
     
+    // --------------------- scope
+    
+    /**
+     * Scopes of predefined and logical predicates.
+     */
+    @Test
+    public void testScope() {
+        assertEquals(Scope.ROW, Scope.of(HighlightPredicate.ROLLOVER_ROW));
+        assertEquals(Scope.ROW, Scope.of(HighlightPredicate.EVEN));
+        assertEquals(Scope.ROW, Scope.of(new RowGroupHighlightPredicate(3)));
+        assertEquals(Scope.COLUMN, Scope.of(HighlightPredicate.ROLLOVER_COLUMN));
+        assertEquals(Scope.COLUMN, Scope.of(new ColumnHighlightPredicate(1)));
+        assertEquals(Scope.CELL, Scope.of(HighlightPredicate.ROLLOVER_CELL));
+        assertEquals(Scope.CELL, Scope.of(new EqualsHighlightPredicate()));
+        assertEquals(Scope.ROW, Scope.of(new NotHighlightPredicate(HighlightPredicate.ODD)));
+        assertEquals(Scope.ROW, Scope.of(new AndHighlightPredicate(
+                HighlightPredicate.ODD, HighlightPredicate.ALWAYS, HighlightPredicate.ROLLOVER_ROW)));
+        assertEquals("mixed scopes", Scope.CELL, Scope.of(new OrHighlightPredicate(
+                HighlightPredicate.ODD, HighlightPredicate.ROLLOVER_COLUMN)));
+        assertEquals(Scope.CELL, Scope.of(new OrHighlightPredicate()));
+    }
+    
+    /**
+     * A row-scoped predicate is evaluated once per row if caching.
+     */
+    @Test
+    public void testPredicateCachingRow() {
+        CountingPredicate predicate = new CountingPredicate(Scope.ROW);
+        ComponentAdapter adapter = createComponentAdapter(allColored, false);
+        adapter.setPredicateCaching(true);
+        assertTrue(adapter.isPredicateCaching());
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 5; column++) {
+                adapter.row = row;
+                adapter.column = column;
+                assertEquals(row % 2 == 0, adapter.isHighlighted(predicate, allColored));
+            }
+        }
+        assertEquals(3, predicate.count);
+        adapter.setPredicateCaching(false);
+        adapter.isHighlighted(predicate, allColored);
+        adapter.isHighlighted(predicate, allColored);
+        assertEquals("not cached after disable", 5, predicate.count);
+    }
+    
+    /**
+     * A column-scoped predicate is evaluated once per column if caching.
+     */
+    @Test
+    public void testPredicateCachingColumn() {
+        CountingPredicate predicate = new CountingPredicate(Scope.COLUMN);
+        ComponentAdapter adapter = createComponentAdapter(allColored, false);
+        adapter.setPredicateCaching(true);
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 5; column++) {
+                adapter.row = row;
+                adapter.column = column;
+                assertEquals(column % 2 == 0, adapter.isHighlighted(predicate, allColored));
+            }
+        }
+        assertEquals(5, predicate.count);
+        // a new pass
+        adapter.setPredicateCaching(true);
+        adapter.isHighlighted(predicate, allColored);
+        assertEquals(6, predicate.count);
+    }
+
+    /**
+     * A highlighter with row-scoped predicate in a table: same result
+     * with caching, predicate evaluated once per row while painting.
+     */
+    @Test
+    public void testPredicateCachingTable() {
+        JXTable table = new JXTable(new AncientSwingTeam());
+        CountingPredicate predicate = new CountingPredicate(Scope.ROW);
+        table.addHighlighter(new ColorHighlighter(predicate, Color.RED, null));
+        table.setSize(table.getPreferredSize());
+        BufferedImage image = new BufferedImage(table.getWidth(), table.getHeight(), 
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            table.paint(g);
+        } finally {
+            g.dispose();
+        }
+        assertEquals(table.getRowCount(), predicate.count);
+        predicate.count = 0;
+        Component comp = table.prepareRenderer(table.getCellRenderer(0, 1), 0, 1);
+        assertEquals("not cached outside of paint", 1, predicate.count);
+        assertEquals(Color.RED, comp.getBackground());
+    }
+    
+    /**
+     * Scoped predicate which counts its evaluations, true for even
+     * rows or columns.
+     */
+    private static class CountingPredicate implements ScopedHighlightPredicate {
+        private final Scope scope;
+        int count;
+
+        CountingPredicate(Scope scope) {
+            this.scope = scope;
+        }
+
+        @Override
+        public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
+            count++;
+            return (scope == Scope.ROW ? adapter.row : adapter.column) % 2 == 0;
+        }
+
+        @Override
+        public Scope getScope() {
+            return scope;
+        }
+    }
+    
     // --------------------- factory methods
     /**
      * Creates and returns a ComponentAdapter on the given 
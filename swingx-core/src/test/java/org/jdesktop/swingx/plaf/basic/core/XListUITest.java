@@ -21,11 +21,20 @@
  */
 package org.jdesktop.swingx.plaf.basic.core;
 
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.util.Arrays;
+import java.util.Random;
 import java.util.logging.Logger;
 
 import javax.swing.DefaultListModel;
+import javax.swing.JLabel;
 import javax.swing.JList;
+import javax.swing.ListCellRenderer;
 import javax.swing.LookAndFeel;
 import javax.swing.UIManager;
 
@@ -159,5 +168,128 @@ public class XListUITest extends InteractiveTestCase {
         assertSame(list.getActionMap().getParent(), new JXList().getActionMap().getParent());
     }
 
-    
+    /**
+     * Prefix sums over row heights: same as summing up linearly.
+     */
+    @Test
+    public void testRowHeights() {
+        Random random = new Random(42);
+        int[] heights = new int[37];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = random.nextInt(3) * 7;
+        }
+        RowHeights rowHeights = new RowHeights(heights);
+        assertRowHeights(heights, rowHeights);
+        rowHeights.setHeight(5, 20);
+        rowHeights.setHeight(36, 3);
+        assertEquals(20, heights[5]);
+        assertRowHeights(heights, rowHeights);
+    }
+
+    private void assertRowHeights(int[] heights, RowHeights rowHeights) {
+        int y = 0;
+        for (int row = 0; row < heights.length; row++) {
+            assertEquals(y, rowHeights.getY(row));
+            for (int offset = 0; offset < heights[row]; offset++) {
+                assertEquals(row, rowHeights.getRow(y + offset));
+            }
+            y += heights[row];
+        }
+        assertEquals(y, rowHeights.getTotal());
+        assertEquals(heights.length, rowHeights.getRow(y));
+    }
+
+    /**
+     * Variable cell heights: model changes measure the changed cells only
+     * and result in the same geometry as a complete update.
+     */
+    @Test
+    public void testIncrementalLayoutState() {
+        DefaultListModel model = new DefaultListModel();
+        for (int i = 0; i < 20; i++) {
+            model.addElement(i % 5 + 1);
+        }
+        CountingRenderer renderer = new CountingRenderer();
+        JXList list = new JXList(model);
+        list.setCellRenderer(renderer);
+        list.getPreferredSize();
+        renderer.count = 0;
+        model.add(3, 9);
+        model.remove(10);
+        model.set(0, 12);
+        model.removeRange(15, 17);
+        model.addElement(30);
+        assertEquals("changed cells only must be measured", 3, renderer.count);
+        
+        JXList expected = new JXList(model);
+        expected.setCellRenderer(new CountingRenderer());
+        assertEquals(expected.getPreferredSize(), list.getPreferredSize());
+        for (int i = 0; i < model.getSize(); i++) {
+            assertEquals(expected.getCellBounds(i, i), list.getCellBounds(i, i));
+        }
+        int height = list.getPreferredSize().height;
+        for (int y = -1; y <= height; y++) {
+            Point location = new Point(0, y);
+            assertEquals("index at " + y, expected.locationToIndex(location), 
+                    list.locationToIndex(location));
+        }
+    }
+
+    /**
+     * Estimated cell heights: measures initially visible cells only, others
+     * when painted.
+     */
+    @Test
+    public void testEstimatedCellHeights() {
+        DefaultListModel model = new DefaultListModel();
+        for (int i = 0; i < 1000; i++) {
+            model.addElement(20);
+        }
+        CountingRenderer renderer = new CountingRenderer();
+        JXList list = new JXList(model);
+        list.setCellRenderer(renderer);
+        list.setEstimatedCellHeight(10);
+        list.setVisibleRowCount(5);
+        Dimension size = list.getPreferredSize();
+        assertEquals("visible cells only must be measured", 5, renderer.count);
+        assertEquals(5 * 20 + 995 * 10, size.height);
+        assertEquals(new Rectangle(0, 100, 0, 10), list.getCellBounds(5, 5));
+        
+        renderer.count = 0;
+        model.add(0, 40);
+        model.set(1, 30);
+        assertEquals("changed cells must not be measured", 0, renderer.count);
+        
+        // paint cells around y = 200 
+        list.setSize(size);
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.translate(0, -200);
+        g.setClip(0, 200, 10, 25);
+        list.getUI().paint(g, list);
+        g.dispose();
+        assertTrue("painted cells must be measured", renderer.count > 0);
+        int row = list.locationToIndex(new Point(0, 200));
+        assertEquals(20, list.getCellBounds(row, row).height);
+        
+        list.setEstimatedCellHeight(-1);
+        assertEquals(40 + 30 + 999 * 20, list.getPreferredSize().height);
+    }
+
+    /**
+     * Renderer with cell size depending on the value, counts the calls.
+     */
+    private static class CountingRenderer implements ListCellRenderer {
+        private final JLabel label = new JLabel();
+        int count;
+
+        @Override
+        public Component getListCellRendererComponent(JList list, Object value,
+                int index, boolean isSelected, boolean cellHasFocus) {
+            count++;
+            int size = (Integer) value;
+            label.setPreferredSize(new Dimension(size * 3, size));
+            return label;
+        }
+    }
 }
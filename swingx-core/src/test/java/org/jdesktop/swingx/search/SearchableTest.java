@@ -23,7 +23,19 @@ package org.jdesktop.swingx.search;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.swing.DefaultListModel;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
 
 import junit.framework.TestCase;
 
@@ -33,8 +45,11 @@ import org.jdesktop.swingx.JXTree;
 import org.jdesktop.swingx.decorator.AbstractHighlighter;
 import org.jdesktop.swingx.decorator.BorderHighlighter;
 import org.jdesktop.swingx.decorator.SearchPredicate;
+import org.jdesktop.swingx.renderer.DefaultTableRenderer;
+import org.jdesktop.swingx.renderer.StringValue;
 import org.jdesktop.swingx.search.FindTest.TestListModel;
 import org.jdesktop.swingx.search.FindTest.TestTableModel;
+import org.jdesktop.swingx.sort.StringValueCache;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -195,4 +210,394 @@ public class SearchableTest extends TestCase {
     }
     
 
+    /**
+     * Background search in many chunks finds the same matches in the same order
+     * as the synchronous search, forward and backwards.
+     */
+    @Test
+    public void testTableBackgroundSearch() throws Exception {
+        DefaultTableModel model = new DefaultTableModel(3000, 3);
+        for (int row = 0; row < model.getRowCount(); row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                model.setValueAt("" + row + "-" + column, row, column);
+            }
+        }
+        AbstractSearchable searchable = (AbstractSearchable) new JXTable(model).getSearchable();
+        AbstractSearchable background = (AbstractSearchable) new JXTable(model).getSearchable();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            background.setSearchExecutor(executor);
+            assertSameMatches(searchable, background, Pattern.compile("99-"), false);
+            assertSameMatches(searchable, background, Pattern.compile("99-"), true);
+            assertSameMatches(searchable, background, Pattern.compile("2999-2"), false);
+            assertSameMatches(searchable, background, Pattern.compile("nomatch"), false);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Background search: a superseded search must not update the state 
+     * nor notify its callback.
+     */
+    @Test
+    public void testBackgroundSearchSuperseded() throws Exception {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        final AbstractSearchable searchable = (AbstractSearchable) new JXList(new TestListModel()).getSearchable();
+        searchable.setSearchExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        final int[] found = {-2, -2};
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                searchable.searchInBackground(Pattern.compile("Two"), -1, false, 
+                        new AbstractSearchable.SearchCallback() {
+                    @Override
+                    public void searchFinished(int foundIndex) {
+                        found[0] = foundIndex;
+                    }
+                });
+                searchable.searchInBackground(Pattern.compile("Three"), -1, false, 
+                        new AbstractSearchable.SearchCallback() {
+                    @Override
+                    public void searchFinished(int foundIndex) {
+                        found[1] = foundIndex;
+                    }
+                });
+            }
+        });
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        flushEDT();
+        assertEquals("superseded search must not notify", -2, found[0]);
+        assertEquals(2, found[1]);
+        assertEquals(2, searchable.lastSearchResult.foundRow);
+    }
+
+    /**
+     * Background search: the snapshot must be invalidated on model changes.
+     */
+    @Test
+    public void testBackgroundSearchModelChanged() throws Exception {
+        DefaultListModel model = new DefaultListModel();
+        model.addElement("one");
+        AbstractSearchable searchable = (AbstractSearchable) new JXList(model).getSearchable();
+        searchable.setSearchExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        assertEquals(-1, searchInBackground(searchable, Pattern.compile("two"), -1, false));
+        model.addElement("two");
+        assertEquals(1, searchInBackground(searchable, Pattern.compile("two"), -1, false));
+    }
+
+    /**
+     * Background search without executor falls back to the synchronous search.
+     */
+    @Test
+    public void testBackgroundSearchWithoutExecutor() throws Exception {
+        final AbstractSearchable searchable = (AbstractSearchable) new JXList(new TestListModel()).getSearchable();
+        final int[] found = {-2};
+        searchable.searchInBackground(Pattern.compile("Four"), -1, false, 
+                new AbstractSearchable.SearchCallback() {
+            @Override
+            public void searchFinished(int foundIndex) {
+                found[0] = foundIndex;
+            }
+        });
+        assertEquals("must be notified immediately", 3, found[0]);
+    }
+
+    /**
+     * findAll: the index contains all matching cells in row-major order.
+     */
+    @Test
+    public void testFindAll() {
+        JXTable table = new JXTable(new TestTableModel());
+        AbstractSearchable searchable = (AbstractSearchable) table.getSearchable();
+        MatchIndex index = searchable.findAll(Pattern.compile("1[0-9]$|Four"));
+        // 5 columns of rows 10 - 19, all rows of column "Four", Four10 - Four19 in both
+        assertEquals(5 * 10 + 100 - 10, index.getMatchCount());
+        assertEquals(0, index.getRow(0));
+        assertEquals(3, index.getColumn(0));
+        for (int i = 1; i < index.getMatchCount(); i++) {
+            assertTrue(index.getRow(i - 1) < index.getRow(i) 
+                    || index.getColumn(i - 1) < index.getColumn(i));
+        }
+        assertSame("index must be reused for equal pattern", 
+                index, searchable.findAll(Pattern.compile("1[0-9]$|Four")));
+        assertNull(searchable.findAll(null));
+    }
+
+    /**
+     * findAll: navigation by index finds the same matches as without index.
+     */
+    @Test
+    public void testFindAllNavigation() {
+        AbstractSearchable searchable = (AbstractSearchable) new JXTable(new TestTableModel()).getSearchable();
+        AbstractSearchable indexed = (AbstractSearchable) new JXTable(new TestTableModel()).getSearchable();
+        Pattern pattern = Pattern.compile("1[0-9]$|Four");
+        MatchIndex index = indexed.findAll(pattern);
+        for (boolean backwards : new boolean[] {false, true}) {
+            int foundIndex = -1;
+            int indexedIndex = -1;
+            for (int i = 0; i < 30; i++) {
+                foundIndex = searchable.search(pattern, foundIndex, backwards);
+                indexedIndex = indexed.search(pattern, indexedIndex, backwards);
+                assertEquals(foundIndex, indexedIndex);
+                assertEquals(searchable.lastSearchResult.foundColumn, indexed.lastSearchResult.foundColumn);
+                assertEquals(indexed.lastSearchResult.foundColumn, 
+                        index.getColumn(indexed.getMatchPosition()));
+            }
+        }
+    }
+
+    /**
+     * findAll: cell updates are applied to the index, structural changes
+     * invalidate it.
+     */
+    @Test
+    public void testFindAllModelChanged() {
+        DefaultTableModel model = new DefaultTableModel(100, 2);
+        JXTable table = new JXTable(model);
+        AbstractSearchable searchable = (AbstractSearchable) table.getSearchable();
+        Pattern pattern = Pattern.compile("x");
+        MatchIndex index = searchable.findAll(pattern);
+        assertEquals(0, index.getMatchCount());
+        model.setValueAt("x", 50, 1);
+        model.setValueAt("x", 10, 0);
+        assertSame(index, searchable.findAll(pattern));
+        assertEquals(2, index.getMatchCount());
+        assertEquals(10, index.getRow(0));
+        assertEquals(10, searchable.search(pattern, -1));
+        assertEquals(50, searchable.search(pattern, 10));
+        model.setValueAt("y", 10, 0);
+        assertEquals(1, index.getMatchCount());
+        model.addRow(new Object[] {"x", "x"});
+        MatchIndex rebuilt = searchable.findAll(pattern);
+        assertNotSame(index, rebuilt);
+        assertEquals(3, rebuilt.getMatchCount());
+    }
+
+    /**
+     * findAll with a StringValueCache: cell updates are applied to the index
+     * with the new strings, not the cached ones.
+     */
+    @Test
+    public void testFindAllModelChangedCached() {
+        DefaultTableModel model = new DefaultTableModel(100, 2);
+        model.setValueAt("x", 10, 0);
+        JXTable table = new JXTable(model);
+        table.setStringValueCache(new StringValueCache());
+        AbstractSearchable searchable = (AbstractSearchable) table.getSearchable();
+        Pattern pattern = Pattern.compile("x");
+        MatchIndex index = searchable.findAll(pattern);
+        assertEquals(1, index.getMatchCount());
+        model.setValueAt("y", 10, 0);
+        assertSame(index, searchable.findAll(pattern));
+        assertEquals(0, index.getMatchCount());
+        model.setValueAt("x", 50, 1);
+        assertEquals(1, index.getMatchCount());
+        assertEquals(50, searchable.search(pattern, -1));
+    }
+
+    /**
+     * findAll: changes of the string representation invalidate the index.
+     */
+    @Test
+    public void testFindAllRendererChanged() {
+        DefaultTableModel model = new DefaultTableModel(10, 2);
+        model.setValueAt("x", 5, 0);
+        JXTable table = new JXTable(model);
+        AbstractSearchable searchable = (AbstractSearchable) table.getSearchable();
+        Pattern pattern = Pattern.compile("x");
+        assertEquals(1, searchable.findAll(pattern).getMatchCount());
+        StringValue upper = new StringValue() {
+            @Override
+            public String getString(Object value) {
+                return value != null ? value.toString().toUpperCase() : "x";
+            }
+        };
+        table.getColumn(1).setCellRenderer(new DefaultTableRenderer(upper));
+        assertEquals("column renderer", 11, searchable.findAll(pattern).getMatchCount());
+        table.getColumn(1).setCellRenderer(null);
+        assertEquals(1, searchable.findAll(pattern).getMatchCount());
+        table.setDefaultRenderer(Object.class, new DefaultTableRenderer(upper));
+        assertEquals("default renderer", 19, searchable.findAll(pattern).getMatchCount());
+    }
+
+    /**
+     * findAll in background: the index is built on the executor, it is built 
+     * again if the snapshot changed meanwhile.
+     */
+    @Test
+    public void testFindAllInBackground() throws Exception {
+        final DefaultTableModel model = new DefaultTableModel(100, 2);
+        model.setValueAt("x", 20, 1);
+        final AbstractSearchable searchable = (AbstractSearchable) new JXTable(model).getSearchable();
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        searchable.setSearchExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        final List<MatchIndex> found = new ArrayList<MatchIndex>();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                searchable.findAllInBackground(Pattern.compile("x"), 
+                        new AbstractSearchable.FindAllCallback() {
+                    @Override
+                    public void findAllFinished(MatchIndex index) {
+                        found.add(index);
+                    }
+                });
+                model.setValueAt("x", 10, 0);
+            }
+        });
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        flushEDT();
+        assertTrue("must not notify with a stale index", found.isEmpty());
+        assertEquals("must build again", 1, tasks.size());
+        tasks.remove(0).run();
+        flushEDT();
+        assertEquals(1, found.size());
+        assertEquals(2, found.get(0).getMatchCount());
+        assertSame(found.get(0), searchable.findAll(Pattern.compile("x")));
+    }
+
+    /**
+     * LiteralMatcher: finds the same as the regex for the patterns
+     * created by PatternModel.
+     */
+    @Test
+    public void testLiteralMatcher() {
+        String[] texts = {"abc", "xABcd", "ab", "", null, "a.c", "\u00C4bc", "\u00E4BC", "cab"};
+        String[] rules = {PatternModel.MATCH_RULE_CONTAINS, PatternModel.MATCH_RULE_STARTSWITH,
+                PatternModel.MATCH_RULE_ENDSWITH, PatternModel.MATCH_RULE_EQUALS};
+        String[] searches = {"ab", "abc", "a.c", "\u00E4b", "c"};
+        PatternModel model = new PatternModel();
+        for (String rule : rules) {
+            model.setMatchRule(rule);
+            for (boolean caseSensitive : new boolean[] {true, false}) {
+                model.setCaseSensitive(caseSensitive);
+                for (String search : searches) {
+                    model.setRawText(search);
+                    Pattern pattern = model.getPattern();
+                    LiteralMatcher matcher = new LiteralMatcher(pattern);
+                    for (String text : texts) {
+                        boolean expected = (text != null) && (text.length() > 0) 
+                            && pattern.matcher(text).find();
+                        assertEquals(pattern + " on " + text, expected, matcher.find(text));
+                    }
+                }
+            }
+        }
+        assertTrue(new LiteralMatcher(Pattern.compile("\\Qab\\E")).isLiteral());
+        assertTrue(new LiteralMatcher(Pattern.compile("^ab")).isLiteral());
+        assertFalse(new LiteralMatcher(Pattern.compile("a.c")).isLiteral());
+        assertFalse(new LiteralMatcher(Pattern.compile("\\Qab\\E$")).isLiteral());
+    }
+
+    /**
+     * LiteralMatcher: refinement of typed-ahead contains and starts-with patterns.
+     */
+    @Test
+    public void testLiteralRefinement() {
+        assertTrue(LiteralMatcher.isRefinement(Pattern.compile("\\Qabc\\E"), Pattern.compile("\\Qab\\E")));
+        assertTrue(LiteralMatcher.isRefinement(Pattern.compile("\\Qabc\\E"), Pattern.compile("\\Qbc\\E")));
+        assertTrue(LiteralMatcher.isRefinement(Pattern.compile("^\\Qabc\\E"), Pattern.compile("^\\Qab\\E")));
+        assertTrue(LiteralMatcher.isRefinement(Pattern.compile("^\\Qabc\\E"), Pattern.compile("\\Qb\\E")));
+        assertFalse(LiteralMatcher.isRefinement(Pattern.compile("^\\Qabc\\E"), Pattern.compile("^\\Qb\\E")));
+        assertFalse(LiteralMatcher.isRefinement(Pattern.compile("\\Qabc\\E"), Pattern.compile("^\\Qab\\E")));
+        assertFalse(LiteralMatcher.isRefinement(Pattern.compile("\\Qab\\E"), Pattern.compile("\\Qabc\\E")));
+        assertFalse("equals is not refined", 
+                LiteralMatcher.isRefinement(Pattern.compile("^\\Qabc\\E$"), Pattern.compile("^\\Qab\\E$")));
+        assertFalse("flags must be the same", LiteralMatcher.isRefinement(
+                Pattern.compile("\\Qabc\\E", Pattern.CASE_INSENSITIVE), Pattern.compile("\\Qab\\E")));
+    }
+
+    /**
+     * findAll: a typed-ahead pattern is indexed from the previous matches, 
+     * with the same result as a full index.
+     */
+    @Test
+    public void testFindAllRefined() {
+        AbstractSearchable searchable = (AbstractSearchable) new JXTable(new TestTableModel()).getSearchable();
+        AbstractSearchable full = (AbstractSearchable) new JXTable(new TestTableModel()).getSearchable();
+        PatternModel model = new PatternModel();
+        model.setRawText("o");
+        searchable.findAll(model.getPattern());
+        for (String text : new String[] {"o1", "o12", "Two12"}) {
+            model.setRawText(text);
+            MatchIndex refined = searchable.findAll(model.getPattern());
+            MatchIndex index = full.findAll(model.getPattern());
+            assertEquals(index.getMatchCount(), refined.getMatchCount());
+            for (int i = 0; i < index.getMatchCount(); i++) {
+                assertEquals(index.getRow(i), refined.getRow(i));
+                assertEquals(index.getColumn(i), refined.getColumn(i));
+            }
+        }
+        assertEquals(1, searchable.findAll(model.getPattern()).getMatchCount());
+        assertEquals(12, searchable.search(model.getPattern()));
+    }
+
+    /**
+     * Searches next repeatedly, synchronously and in the background, and asserts
+     * the same matches.
+     */
+    private void assertSameMatches(AbstractSearchable searchable, AbstractSearchable background, 
+            Pattern pattern, boolean backwards) throws Exception {
+        int foundIndex = -1;
+        int backgroundIndex = -1;
+        for (int i = 0; i < 20; i++) {
+            foundIndex = searchable.search(pattern, foundIndex, backwards);
+            backgroundIndex = searchInBackground(background, pattern, backgroundIndex, backwards);
+            assertEquals(foundIndex, backgroundIndex);
+            assertEquals(searchable.lastSearchResult.foundColumn, background.lastSearchResult.foundColumn);
+            if (foundIndex < 0) break;
+        }
+    }
+
+    /**
+     * Starts a background search on the EDT and waits for the callback.
+     */
+    private int searchInBackground(final AbstractSearchable searchable, final Pattern pattern, 
+            final int startIndex, final boolean backwards) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final int[] found = new int[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                searchable.searchInBackground(pattern, startIndex, backwards, 
+                        new AbstractSearchable.SearchCallback() {
+                    @Override
+                    public void searchFinished(int foundIndex) {
+                        found[0] = foundIndex;
+                        latch.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue("search must finish", latch.await(10, TimeUnit.SECONDS));
+        return found[0];
+    }
+
+    private void flushEDT() throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
 }
@@ -0,0 +1,240 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.sort;
+
+import javax.swing.RowFilter;
+import javax.swing.SortOrder;
+import javax.swing.table.DefaultTableModel;
+
+import org.jdesktop.swingx.InteractiveTestCase;
+import org.jdesktop.swingx.JXTable;
+import org.jdesktop.swingx.renderer.DefaultTableRenderer;
+import org.jdesktop.swingx.renderer.StringValue;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for StringValueCache.
+ */
+@RunWith(JUnit4.class)
+public class StringValueCacheTest extends InteractiveTestCase {
+
+    private DefaultTableModel model;
+    private StringValueRegistry registry;
+    private StringValueCache cache;
+    private CountingStringValue sv;
+
+    @Test
+    public void testHitAndMiss() {
+        assertEquals("0/0", cache.getStringAt(0, 0));
+        assertEquals("0/0", cache.getStringAt(0, 0));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, sv.count);
+        cache.resetStatistics();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    /**
+     * Update invalidates exactly the updated cell.
+     */
+    @Test
+    public void testUpdateInvalidatesCell() {
+        fillCache();
+        model.setValueAt("changed", 5, 1);
+        assertEquals("changed", cache.getStringAt(5, 1));
+        assertEquals(1, sv.count);
+        cache.getStringAt(5, 0);
+        cache.getStringAt(4, 1);
+        assertEquals("other cells must be unchanged", 1, sv.count);
+    }
+
+    /**
+     * Update of all columns of a row range invalidates the rows.
+     */
+    @Test
+    public void testUpdateRowsInvalidatesRows() {
+        fillCache();
+        model.fireTableRowsUpdated(2, 3);
+        for (int column = 0; column < model.getColumnCount(); column++) {
+            cache.getStringAt(2, column);
+            cache.getStringAt(3, column);
+            cache.getStringAt(4, column);
+        }
+        assertEquals(2 * model.getColumnCount(), sv.count);
+    }
+
+    /**
+     * Insert invalidates all rows at or below the insertion point.
+     */
+    @Test
+    public void testInsertInvalidatesShiftedRows() {
+        fillCache();
+        model.insertRow(10, new Object[] {"a", "b", "c"});
+        assertEquals("9/0", cache.getStringAt(9, 0));
+        assertEquals(0, sv.count);
+        assertEquals("a", cache.getStringAt(10, 0));
+        assertEquals("10/0", cache.getStringAt(11, 0));
+    }
+
+    /**
+     * Delete invalidates all rows at or below the removed rows.
+     */
+    @Test
+    public void testDeleteInvalidatesShiftedRows() {
+        fillCache();
+        model.removeRow(10);
+        assertEquals("9/0", cache.getStringAt(9, 0));
+        assertEquals(0, sv.count);
+        assertEquals("11/0", cache.getStringAt(10, 0));
+    }
+
+    /**
+     * Data and structure changes invalidate all.
+     */
+    @Test
+    public void testDataChangedInvalidatesAll() {
+        fillCache();
+        model.fireTableDataChanged();
+        assertEquals(0, cache.getSize());
+        fillCache();
+        model.fireTableStructureChanged();
+        assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * Changes in the registry invalidate all.
+     */
+    @Test
+    public void testRegistryChangeInvalidatesAll() {
+        fillCache();
+        registry.setStringValue(new CountingStringValue(), 1);
+        assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * Memory is bounded by the capacity.
+     */
+    @Test
+    public void testCapacity() {
+        cache = new StringValueCache(30);
+        assertEquals("capacity rounded to power of two", 32, cache.getCapacity());
+        cache.install(model, registry);
+        fillCache();
+        assertTrue(cache.getSize() <= cache.getCapacity());
+        for (int row = 0; row < model.getRowCount(); row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                assertEquals(row + "/" + column, cache.getStringAt(row, column));
+            }
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testCapacityIllegal() {
+        new StringValueCache(0);
+    }
+
+    @Test (expected = IllegalStateException.class)
+    public void testNotInstalled() {
+        new StringValueCache().getStringAt(0, 0);
+    }
+
+    /**
+     * JXTable: getStringAt, sort and filter share the cache.
+     */
+    @Test
+    public void testTableSharesCache() {
+        JXTable table = new JXTable(model);
+        table.setDefaultRenderer(Object.class, new DefaultTableRenderer(sv));
+        table.setStringValueCache(cache);
+        assertSame(cache, ((TableSortController<?>) table.getRowSorter()).getStringValueCache());
+        table.setRowFilter(RowFilter.regexFilter("^1", 0));
+        assertTrue("sanity: filter applied", table.getRowCount() < model.getRowCount());
+        sv.count = 0;
+        cache.resetStatistics();
+        for (int row = 0; row < table.getRowCount(); row++) {
+            table.getStringAt(row, 0);
+        }
+        assertEquals("strings converted by filter are re-used", 0, sv.count);
+        assertEquals(table.getRowCount(), cache.getHitCount());
+        table.setRowFilter(null);
+        table.setSortOrder(0, SortOrder.DESCENDING);
+        model.setValueAt("99", 0, 0);
+        assertEquals("sort must see the updated value", "99", table.getStringAt(0, 0));
+    }
+
+    /**
+     * JXTable: replacing the model re-installs the cache.
+     */
+    @Test
+    public void testTableSetModel() {
+        JXTable table = new JXTable(model);
+        table.setStringValueCache(cache);
+        DefaultTableModel other = new DefaultTableModel(new Object[][] {{"other"}}, new Object[] {"A"});
+        table.setModel(other);
+        assertSame(other, cache.getModel());
+        assertEquals("other", table.getStringAt(0, 0));
+        table.setStringValueCache(null);
+        assertNull(cache.getModel());
+    }
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        model = new DefaultTableModel(20, 3);
+        for (int row = 0; row < model.getRowCount(); row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                model.setValueAt(row + "/" + column, row, column);
+            }
+        }
+        registry = new StringValueRegistry();
+        sv = new CountingStringValue();
+        registry.setStringValue(sv, Object.class);
+        cache = new StringValueCache();
+        cache.install(model, registry);
+        // JXTable notifies the cache itself, here we have no table
+        model.addTableModelListener(cache);
+    }
+
+    private void fillCache() {
+        for (int row = 0; row < model.getRowCount(); row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                cache.getStringAt(row, column);
+            }
+        }
+        sv.count = 0;
+    }
+
+    /**
+     * A StringValue which counts its conversions.
+     */
+    public static class CountingStringValue implements StringValue {
+        int count;
+
+        @Override
+        public String getString(Object value) {
+            count++;
+            return String.valueOf(value);
+        }
+    }
+}
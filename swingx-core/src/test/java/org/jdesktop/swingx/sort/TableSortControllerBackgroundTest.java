@@ -0,0 +1,304 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter.SortKey;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+
+import org.jdesktop.swingx.InteractiveTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests of background sorting in TableSortController.
+ */
+@RunWith(JUnit4.class)
+public class TableSortControllerBackgroundTest extends InteractiveTestCase {
+
+    private DefaultTableModel model;
+    private TableSortController<TableModel> controller;
+    private ManualExecutor executor;
+
+    /**
+     * Background sort gives the same result as synchronous sort, here
+     * for a large model which is sorted in parallel chunks.
+     * @throws Exception
+     */
+    @Test
+    public void testParallelSortEqualsSynchronous() throws Exception {
+        DefaultTableModel large = createModel(SortSnapshot.PARALLEL_THRESHOLD * 4);
+        TableSortController<TableModel> reference = new TableSortController<TableModel>(large);
+        List<SortKey> keys = new ArrayList<SortKey>();
+        keys.add(new SortKey(1, SortOrder.DESCENDING));
+        keys.add(new SortKey(0, SortOrder.ASCENDING));
+        reference.setSortKeys(keys);
+        TableSortController<TableModel> background = new TableSortController<TableModel>(large);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            background.setSortExecutor(pool);
+            background.setSortKeys(keys);
+            waitForSort(background);
+            assertMapping(reference, background);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Background sort with a filter gives the same result as synchronous sort.
+     * @throws Exception
+     */
+    @Test
+    public void testFilteredSortEqualsSynchronous() throws Exception {
+        TableSortController<TableModel> reference = new TableSortController<TableModel>(model);
+        reference.setRowFilter(RowFilter.regexFilter("1", 0));
+        reference.toggleSortOrder(1);
+        controller.setRowFilter(RowFilter.regexFilter("1", 0));
+        controller.toggleSortOrder(1);
+        executor.runAll();
+        flushEDT();
+        assertMapping(reference, controller);
+    }
+
+    /**
+     * The previous order is kept until the result is published.
+     * @throws Exception
+     */
+    @Test
+    public void testKeepOrderUntilPublished() throws Exception {
+        controller.toggleSortOrder(0);
+        assertTrue(controller.isSorting());
+        for (int i = 0; i < controller.getViewRowCount(); i++) {
+            assertEquals("unsorted until published", i, controller.convertRowIndexToModel(i));
+        }
+        executor.runAll();
+        flushEDT();
+        assertFalse(controller.isSorting());
+        assertSorted(controller, 0, true);
+    }
+
+    /**
+     * A newer request supersedes a pending request.
+     * @throws Exception
+     */
+    @Test
+    public void testSupersede() throws Exception {
+        controller.toggleSortOrder(0);
+        controller.toggleSortOrder(0);
+        assertEquals(2, executor.tasks.size());
+        executor.runAll();
+        flushEDT();
+        assertSorted(controller, 0, false);
+    }
+
+    /**
+     * Inserts while sorting: appended until sorted.
+     * @throws Exception
+     */
+    @Test
+    public void testInsert() throws Exception {
+        controller.toggleSortOrder(0);
+        executor.runAll();
+        flushEDT();
+        model.addRow(new Object[] {-1, "new"});
+        assertEquals(model.getRowCount(), controller.getViewRowCount());
+        assertEquals("appended until sorted", model.getRowCount() - 1,
+                controller.convertRowIndexToModel(controller.getViewRowCount() - 1));
+        assertTrue(controller.isSorting());
+        executor.runAll();
+        flushEDT();
+        assertEquals(model.getRowCount() - 1, controller.convertRowIndexToModel(0));
+        assertSorted(controller, 0, true);
+    }
+
+    /**
+     * Deletes remove the rows immediately.
+     * @throws Exception
+     */
+    @Test
+    public void testDelete() throws Exception {
+        controller.toggleSortOrder(0);
+        executor.runAll();
+        flushEDT();
+        model.removeRow(5);
+        assertEquals(model.getRowCount(), controller.getViewRowCount());
+        for (int i = 0; i < controller.getViewRowCount(); i++) {
+            assertEquals(i, controller.convertRowIndexToView(controller.convertRowIndexToModel(i)));
+        }
+        assertSorted(controller, 0, true);
+    }
+
+    /**
+     * Back to synchronous mode: super's mapping is in synch.
+     * @throws Exception
+     */
+    @Test
+    public void testBackToSynchronous() throws Exception {
+        controller.toggleSortOrder(0);
+        executor.runAll();
+        flushEDT();
+        controller.setSortExecutor(null);
+        assertSorted(controller, 0, true);
+        model.addRow(new Object[] {-1, "new"});
+        assertEquals(model.getRowCount() - 1, controller.convertRowIndexToModel(0));
+    }
+
+    private void assertMapping(TableSortController<TableModel> expected,
+            TableSortController<TableModel> actual) {
+        assertEquals(expected.getViewRowCount(), actual.getViewRowCount());
+        for (int i = 0; i < expected.getViewRowCount(); i++) {
+            assertEquals("view row " + i, expected.convertRowIndexToModel(i),
+                    actual.convertRowIndexToModel(i));
+        }
+    }
+
+    private void assertSorted(TableSortController<TableModel> sorter, int column,
+            boolean ascending) {
+        for (int i = 1; i < sorter.getViewRowCount(); i++) {
+            Integer previous = (Integer) model.getValueAt(sorter.convertRowIndexToModel(i - 1), column);
+            Integer current = (Integer) model.getValueAt(sorter.convertRowIndexToModel(i), column);
+            int result = previous.compareTo(current);
+            assertTrue("view row " + i, ascending ? result <= 0 : result >= 0);
+        }
+    }
+
+    private void waitForSort(TableSortController<TableModel> sorter) throws Exception {
+        long end = System.currentTimeMillis() + 30000;
+        while (sorter.isSorting() && System.currentTimeMillis() < end) {
+            Thread.sleep(20);
+            flushEDT();
+        }
+        assertFalse("sort must be finished", sorter.isSorting());
+    }
+
+    private void flushEDT() throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                // nothing to do, just wait for pending events
+            }
+        });
+    }
+
+    private DefaultTableModel createModel(int rows) {
+        DefaultTableModel result = new DefaultTableModel(0, 2) {
+
+            @Override
+            public Class<?> getColumnClass(int columnIndex) {
+                return columnIndex == 0 ? Integer.class : String.class;
+            }
+
+        };
+        Random random = new Random(rows);
+        for (int i = 0; i < rows; i++) {
+            result.addRow(new Object[] {random.nextInt(rows / 2),
+                    "value " + random.nextInt(100)});
+        }
+        return result;
+    }
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        model = createModel(200);
+        controller = new TableSortController<TableModel>(model);
+        model.addTableModelListener(new javax.swing.event.TableModelListener() {
+            @Override
+            public void tableChanged(javax.swing.event.TableModelEvent e) {
+                if (e.getType() == javax.swing.event.TableModelEvent.INSERT) {
+                    controller.rowsInserted(e.getFirstRow(), e.getLastRow());
+                } else if (e.getType() == javax.swing.event.TableModelEvent.DELETE) {
+                    controller.rowsDeleted(e.getFirstRow(), e.getLastRow());
+                }
+            }
+        });
+        executor = new ManualExecutor();
+        controller.setSortExecutor(executor);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdown();
+    }
+
+    /**
+     * Executor which collects the tasks and runs them on request.
+     */
+    public static class ManualExecutor extends AbstractExecutorService {
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        private boolean shutdown;
+
+        /**
+         * Runs all collected tasks, including those added while running.
+         */
+        public void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
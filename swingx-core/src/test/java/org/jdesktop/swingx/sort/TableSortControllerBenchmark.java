@@ -0,0 +1,195 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.sort;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Random;
+
+import javax.swing.RowSorter.SortKey;
+import javax.swing.SortOrder;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableModel;
+
+/**
+ * Benchmarks of TableSortController, not a unit test, run the main method. <p>
+ * 
+ * Sorting ticking updates: compares the incremental mode of
+ * TableSortController with the row sorter's default update handling and
+ * with a complete re-sort, at 10k/100k/1M rows. <p>
+ * 
+ * Complete sorts of 1M rows: compares the row sorter's default sort with 
+ * the controller's own sort by generic and by primitive keys, time and
+ * allocated bytes.
+ */
+public class TableSortControllerBenchmark {
+
+    private static final int[] ROW_COUNTS = {10000, 100000, 1000000};
+
+    public static void main(String[] args) {
+        benchmarkUpdates();
+        benchmarkSorts();
+    }
+
+    private static void benchmarkUpdates() {
+        for (int rowCount : ROW_COUNTS) {
+            TickingModel model = new TickingModel(rowCount);
+            System.out.println(rowCount + " rows, ms per single-row update:");
+            System.out.println("    full re-sort:      "
+                    + format(run(model, Mode.FULL, Math.max(10, 1000000 / rowCount))));
+            System.out.println("    DefaultRowSorter:  "
+                    + format(run(model, Mode.DEFAULT, Math.max(100, 100000000 / rowCount))));
+            System.out.println("    incremental:       "
+                    + format(run(model, Mode.INCREMENTAL, Math.max(1000, 1000000000 / rowCount))));
+        }
+    }
+
+    private static void benchmarkSorts() {
+        TickingModel model = new TickingModel(1000000);
+        System.out.println(model.getRowCount() + " rows, complete sort, ms / MB allocated:");
+        for (int column = 0; column < model.getColumnCount(); column++) {
+            System.out.println("  " + model.getColumnClass(column).getSimpleName() + " column");
+            System.out.println("    DefaultRowSorter:  " + sort(model, column, Mode.FULL));
+            System.out.println("    generic keys:      " + sort(model, column, Mode.DEFAULT));
+            System.out.println("    primitive keys:    " + sort(model, column, Mode.INCREMENTAL));
+        }
+    }
+
+    /**
+     * Sorts the column completely and returns time and allocated bytes
+     * per sort. Mode FULL uses DefaultRowSorter, DEFAULT the generic 
+     * and INCREMENTAL the primitive keys of the controller's own sort. 
+     */
+    @SuppressWarnings("unchecked")
+    private static String sort(TickingModel model, int column, Mode mode) {
+        TableSortController<TableModel> controller = new TableSortController<TableModel>(model);
+        controller.setSortsIncrementally(mode != Mode.FULL);
+        if (mode == Mode.DEFAULT) {
+            // not the shared instance: forces the generic path
+            controller.setComparator(column, new Comparator<Comparable<Object>>() {
+                @Override
+                public int compare(Comparable<Object> o1, Comparable<Object> o2) {
+                    return o1.compareTo(o2);
+                }
+            });
+        }
+        controller.setSortKeys(Collections.singletonList(new SortKey(column, SortOrder.ASCENDING)));
+        int sorts = 5;
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < sorts; i++) {
+            controller.allRowsChanged();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / sorts;
+        double megaBytes = (allocatedBytes() - bytes) / 1e6 / sorts;
+        return format(millis) + " / " + format(megaBytes);
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread, or 0 if not supported.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private enum Mode {
+        FULL, DEFAULT, INCREMENTAL
+    }
+
+    /**
+     * Ticks the given number of updates and returns the time per update
+     * in ms.
+     */
+    private static double run(TickingModel model, Mode mode, int updates) {
+        TableSortController<TableModel> controller = new TableSortController<TableModel>(model);
+        controller.setSortsOnUpdates(true);
+        controller.setSortsIncrementally(mode == Mode.INCREMENTAL);
+        controller.setSortKeys(Collections.singletonList(new SortKey(0, SortOrder.ASCENDING)));
+        Random random = new Random(0);
+        // warm up
+        tick(model, controller, mode, random, Math.min(updates, 1000));
+        long start = System.nanoTime();
+        tick(model, controller, mode, random, updates);
+        return (System.nanoTime() - start) / 1e6 / updates;
+    }
+
+    private static void tick(TickingModel model, TableSortController<TableModel> controller,
+            Mode mode, Random random, int updates) {
+        for (int i = 0; i < updates; i++) {
+            int row = random.nextInt(model.getRowCount());
+            model.values[row] = random.nextInt(model.getRowCount());
+            if (mode == Mode.FULL) {
+                controller.allRowsChanged();
+            } else {
+                controller.rowsUpdated(row, row, 0);
+            }
+        }
+    }
+
+    private static String format(double millis) {
+        return String.format("%.4f", millis);
+    }
+
+    /**
+     * Model with a primitive backing array to keep the model's overhead
+     * out of the measurement.
+     */
+    private static class TickingModel extends AbstractTableModel {
+        final int[] values;
+        final Date[] dates;
+
+        TickingModel(int rowCount) {
+            values = new int[rowCount];
+            dates = new Date[rowCount];
+            Random random = new Random(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                values[i] = random.nextInt(rowCount);
+                dates[i] = new Date(random.nextInt(rowCount) * 1000L);
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return values.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 2;
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return columnIndex == 0 ? Integer.class : Date.class;
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            return columnIndex == 0 ? values[rowIndex] : dates[rowIndex];
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.sort;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter.SortKey;
+import javax.swing.SortOrder;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.event.RowSorterListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+
+import org.jdesktop.swingx.InteractiveTestCase;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests of incremental sorting in TableSortController.
+ */
+@RunWith(JUnit4.class)
+public class TableSortControllerIncrementalTest extends InteractiveTestCase {
+
+    private DefaultTableModel model;
+    private TableSortController<TableModel> controller;
+    private TableSortController<TableModel> reference;
+    private Random random;
+    /** flag to not notify the controller. */
+    private boolean adjusting;
+
+    /**
+     * Single row updates of a sorted column: same order as a full sort.
+     */
+    @Test
+    public void testUpdateSingleRows() {
+        setSortKeys(new SortKey(0, SortOrder.ASCENDING));
+        for (int i = 0; i < 200; i++) {
+            model.setValueAt(random.nextInt(50), random.nextInt(model.getRowCount()), 0);
+            assertMapping();
+        }
+    }
+
+    /**
+     * Single row updates with secondary key and filter: same order as
+     * a full sort, rows filtered in and out.
+     */
+    @Test
+    public void testUpdateSingleRowsFiltered() {
+        RowFilter<Object, Object> filter = RowFilter.regexFilter("^[1-5]", 1);
+        controller.setRowFilter(filter);
+        reference.setRowFilter(filter);
+        setSortKeys(new SortKey(1, SortOrder.DESCENDING), new SortKey(0, SortOrder.ASCENDING));
+        for (int i = 0; i < 200; i++) {
+            int row = random.nextInt(model.getRowCount());
+            if (i % 2 == 0) {
+                model.setValueAt(random.nextInt(50), row, 0);
+            } else {
+                model.setValueAt("value " + random.nextInt(10), row, 1);
+            }
+            assertMapping();
+        }
+    }
+
+    /**
+     * Multi-row updates and inserts: same order as a full sort.
+     */
+    @Test
+    public void testUpdateAndInsertRanges() {
+        setSortKeys(new SortKey(0, SortOrder.DESCENDING));
+        for (int i = 0; i < 50; i++) {
+            int row = random.nextInt(model.getRowCount() - 5);
+            adjusting = true;
+            for (int j = row; j < row + 5; j++) {
+                model.setValueAt(random.nextInt(50), j, 0);
+            }
+            adjusting = false;
+            model.fireTableRowsUpdated(row, row + 4);
+            assertMapping();
+            model.insertRow(random.nextInt(model.getRowCount()),
+                    new Object[] {random.nextInt(50), "inserted"});
+            assertMapping();
+            model.removeRow(random.nextInt(model.getRowCount()));
+            assertMapping();
+        }
+    }
+
+    /**
+     * The previous mapping passed to listeners is the mapping before the
+     * change, new rows are in order.
+     */
+    @Test
+    public void testPreviousMapping() {
+        setSortKeys(new SortKey(0, SortOrder.ASCENDING));
+        final List<int[]> previous = new ArrayList<int[]>();
+        controller.addRowSorterListener(new RowSorterListener() {
+            @Override
+            public void sorterChanged(RowSorterEvent e) {
+                int[] mapping = new int[e.getPreviousRowCount()];
+                for (int i = 0; i < mapping.length; i++) {
+                    mapping[i] = e.convertPreviousRowIndexToModel(i);
+                }
+                previous.add(mapping);
+            }
+        });
+        for (int i = 0; i < 20; i++) {
+            int[] before = getMapping(controller);
+            int row = controller.convertRowIndexToModel(0);
+            model.setValueAt(1000 + i, row, 0);
+            assertEquals("moved row must be last", row,
+                    controller.convertRowIndexToModel(controller.getViewRowCount() - 1));
+            assertEquals(i + 1, previous.size());
+            assertEquals(before.length, previous.get(i).length);
+            for (int j = 0; j < before.length; j++) {
+                assertEquals(before[j], previous.get(i)[j]);
+            }
+        }
+    }
+
+    /**
+     * Updates of an unsorted column don't touch the mapping without filter.
+     */
+    @Test
+    public void testUpdateUnsortedColumn() {
+        setSortKeys(new SortKey(0, SortOrder.ASCENDING));
+        final List<RowSorterEvent> events = new ArrayList<RowSorterEvent>();
+        controller.addRowSorterListener(new RowSorterListener() {
+            @Override
+            public void sorterChanged(RowSorterEvent e) {
+                events.add(e);
+            }
+        });
+        model.setValueAt("changed", 5, 1);
+        assertEquals(0, events.size());
+        assertMapping();
+    }
+
+    /**
+     * Without sortsOnUpdates, updates don't change the order, the next
+     * insert re-sorts completely.
+     */
+    @Test
+    public void testNotSortsOnUpdates() {
+        setSortKeys(new SortKey(0, SortOrder.ASCENDING));
+        controller.setSortsOnUpdates(false);
+        int row = controller.convertRowIndexToModel(0);
+        model.setValueAt(1000, row, 0);
+        assertEquals(0, controller.convertRowIndexToView(row));
+        model.addRow(new Object[] {1, "new"});
+        assertMapping();
+    }
+
+    /**
+     * Switching back to non-incremental keeps the order.
+     */
+    @Test
+    public void testToggleIncremental() {
+        setSortKeys(new SortKey(0, SortOrder.ASCENDING));
+        controller.setSortsIncrementally(false);
+        assertFalse(controller.getSortsIncrementally());
+        assertMapping();
+        model.setValueAt(1000, 0, 0);
+        assertMapping();
+    }
+
+    /**
+     * Sorting by primitive keys of numeric and Date columns, including 
+     * nulls and the fallback for values of a subclass: same order as the 
+     * generic sort.
+     */
+    @Test
+    public void testPrimitiveKeys() {
+        final Class<?>[] classes = {Integer.class, Long.class, Double.class, 
+                Float.class, Date.class, Date.class};
+        DefaultTableModel primitives = new DefaultTableModel(0, classes.length) {
+
+            @Override
+            public Class<?> getColumnClass(int columnIndex) {
+                return classes[columnIndex];
+            }
+
+        };
+        for (int i = 0; i < 500; i++) {
+            int value = random.nextInt(100) - 50;
+            primitives.addRow(new Object[] {value, (long) value * Integer.MAX_VALUE,
+                    value / 7.0, i % 13 == 0 ? Float.NaN : value / 3.0f,
+                    new Date(value * 1000L), 
+                    i == 250 ? new Timestamp(value) : new Date(value)});
+            if (i % 10 == 0) {
+                primitives.setValueAt(null, i, i % classes.length);
+            }
+        }
+        controller.setModel(primitives);
+        reference.setModel(primitives);
+        for (int column = 0; column < classes.length; column++) {
+            for (SortOrder order : new SortOrder[] {SortOrder.ASCENDING, SortOrder.DESCENDING}) {
+                setSortKeys(new SortKey(column, order));
+                assertMapping(primitives);
+            }
+        }
+        setSortKeys(new SortKey(0, SortOrder.ASCENDING), new SortKey(2, SortOrder.DESCENDING));
+        assertMapping(primitives);
+    }
+
+    private void setSortKeys(SortKey... keys) {
+        List<SortKey> list = new ArrayList<SortKey>();
+        for (SortKey key : keys) {
+            list.add(key);
+        }
+        controller.setSortKeys(list);
+        reference.setSortKeys(list);
+    }
+
+    private void assertMapping() {
+        assertMapping(model);
+    }
+
+    private void assertMapping(TableModel model) {
+        reference.allRowsChanged();
+        assertEquals(reference.getViewRowCount(), controller.getViewRowCount());
+        for (int i = 0; i < reference.getViewRowCount(); i++) {
+            assertEquals("view row " + i, reference.convertRowIndexToModel(i),
+                    controller.convertRowIndexToModel(i));
+        }
+        for (int i = 0; i < model.getRowCount(); i++) {
+            assertEquals("model row " + i, reference.convertRowIndexToView(i),
+                    controller.convertRowIndexToView(i));
+        }
+    }
+
+    private int[] getMapping(TableSortController<TableModel> sorter) {
+        int[] mapping = new int[sorter.getViewRowCount()];
+        for (int i = 0; i < mapping.length; i++) {
+            mapping[i] = sorter.convertRowIndexToModel(i);
+        }
+        return mapping;
+    }
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        random = new Random(42);
+        model = new DefaultTableModel(0, 2) {
+
+            @Override
+            public Class<?> getColumnClass(int columnIndex) {
+                return columnIndex == 0 ? Integer.class : String.class;
+            }
+
+        };
+        for (int i = 0; i < 200; i++) {
+            model.addRow(new Object[] {random.nextInt(50), "value " + random.nextInt(10)});
+        }
+        controller = new TableSortController<TableModel>(model);
+        controller.setSortsOnUpdates(true);
+        controller.setSortsIncrementally(true);
+        assertTrue(controller.getSortsIncrementally());
+        reference = new TableSortController<TableModel>(model);
+        // JTable notifies the sorter, here we have no table
+        model.addTableModelListener(new TableModelListener() {
+            @Override
+            public void tableChanged(TableModelEvent e) {
+                if (adjusting) return;
+                if (e.getType() == TableModelEvent.INSERT) {
+                    controller.rowsInserted(e.getFirstRow(), e.getLastRow());
+                } else if (e.getType() == TableModelEvent.DELETE) {
+                    controller.rowsDeleted(e.getFirstRow(), e.getLastRow());
+                } else if (e.getLastRow() == Integer.MAX_VALUE) {
+                    controller.allRowsChanged();
+                } else if (e.getColumn() == TableModelEvent.ALL_COLUMNS) {
+                    controller.rowsUpdated(e.getFirstRow(), e.getLastRow());
+                } else {
+                    controller.rowsUpdated(e.getFirstRow(), e.getLastRow(), e.getColumn());
+                }
+            }
+        });
+    }
+}
@@ -5,9 +5,11 @@
 package org.jdesktop.swingx.table;
 
 import java.awt.Component;
+import java.awt.Point;
 
 import javax.swing.BorderFactory;
 import javax.swing.JTable;
+import javax.swing.JViewport;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
@@ -31,6 +33,115 @@ import org.junit.runners.JUnit4;
 @RunWith(JUnit4.class)
 public class ColumnFactoryTest extends InteractiveTestCase {
     
+    /**
+     * Pack with sampling: typical data (repeating pattern of values) results
+     * in the same width as the exhaustive pack.
+     */
+    @Test
+    public void testPackSampledEqualsExhaustive() {
+        DefaultTableModel model = new DefaultTableModel(5000, 2);
+        for (int row = 0; row < model.getRowCount(); row++) {
+            model.setValueAt("row " + row, row, 0);
+            model.setValueAt(row % 7 == 0 ? "the longest value of this column" : "short", row, 1);
+        }
+        JXTable table = new JXTable(model);
+        ColumnFactory factory = new ColumnFactory();
+        table.setColumnFactory(factory);
+        table.packAll();
+        int[] exhaustive = new int[table.getColumnCount()];
+        for (int i = 0; i < exhaustive.length; i++) {
+            exhaustive[i] = table.getColumnExt(i).getPreferredWidth();
+        }
+        factory.setPackSampleSize(200);
+        for (int i = 0; i < exhaustive.length; i++) {
+            table.getColumnExt(i).setPreferredWidth(10);
+        }
+        table.packAll();
+        for (int i = 0; i < exhaustive.length; i++) {
+            assertEquals("sampled pack width of column " + i, 
+                    exhaustive[i], table.getColumnExt(i).getPreferredWidth());
+        }
+    }
+    
+    /**
+     * Pack with sampling: measures no more than sampleSize rows, including
+     * first and last.
+     */
+    @Test
+    public void testPackSampleRows() {
+        final int sampleSize = 100;
+        final int[] measured = new int[1];
+        ColumnFactory factory = new ColumnFactory() {
+
+            @Override
+            protected int calcCellWidth(JXTable table,
+                    TableCellRenderer renderer, int row, int column) {
+                measured[0]++;
+                return super.calcCellWidth(table, renderer, row, column);
+            }
+            
+        };
+        factory.setPackSampleSize(sampleSize);
+        JXTable table = new JXTable(10000, 1);
+        table.setColumnFactory(factory);
+        factory.packColumn(table, table.getColumnExt(0), -1, -1);
+        assertEquals(sampleSize, measured[0]);
+        java.util.BitSet rows = factory.getPackSampleRows(table, sampleSize);
+        assertEquals(sampleSize, rows.cardinality());
+        assertTrue("first row must be sampled", rows.get(0));
+        assertTrue("last row must be sampled", rows.get(table.getRowCount() - 1));
+        assertEquals("sampling must be reproducible", rows, 
+                factory.getPackSampleRows(table, sampleSize));
+    }
+    
+    /**
+     * Pack with sampling: the edges don't exceed the sampleSize if the 
+     * visible rows take more than half of it.
+     */
+    @Test
+    public void testPackSampleRowsManyVisible() {
+        int sampleSize = 100;
+        JXTable table = new JXTable(10000, 1);
+        table.setSize(table.getPreferredSize());
+        JViewport viewport = new JViewport();
+        viewport.setView(table);
+        viewport.setSize(table.getWidth(), 60 * table.getRowHeight());
+        viewport.setViewPosition(new Point(0, table.getCellRect(5000, 0, true).y));
+        java.util.BitSet rows = new ColumnFactory().getPackSampleRows(table, sampleSize);
+        assertTrue("sanity: visible rows sampled", rows.get(5000) && rows.get(5059));
+        assertTrue("sampleSize exceeded: " + rows.cardinality(), rows.cardinality() <= sampleSize);
+        assertTrue("first row must be sampled", rows.get(0));
+        assertTrue("last row must be sampled", rows.get(table.getRowCount() - 1));
+    }
+
+    /**
+     * Pack with sampling: all rows are measured if not more than sampleSize.
+     */
+    @Test
+    public void testPackSampleSizeExceedsRowCount() {
+        final int[] measured = new int[1];
+        ColumnFactory factory = new ColumnFactory() {
+
+            @Override
+            protected int calcCellWidth(JXTable table,
+                    TableCellRenderer renderer, int row, int column) {
+                measured[0]++;
+                return super.calcCellWidth(table, renderer, row, column);
+            }
+            
+        };
+        factory.setPackSampleSize(100);
+        JXTable table = new JXTable(50, 1);
+        table.setColumnFactory(factory);
+        factory.packColumn(table, table.getColumnExt(0), -1, -1);
+        assertEquals(table.getRowCount(), measured[0]);
+    }
+    
+    @Test (expected = IllegalArgumentException.class)
+    public void testPackSampleSizeIllegal() {
+        new ColumnFactory().setPackSampleSize(-2);
+    }
+    
     /**
      * Issue #1215-swingx: ColumnFactory must pack with prepareRenderer.
      * Otherwise, doesn't catch sizing effective highlighters, like f.i. font.
@@ -0,0 +1,191 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.table;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+
+import org.jdesktop.swingx.InteractiveTestCase;
+import org.jdesktop.swingx.JXTable;
+import org.jdesktop.test.AncientSwingTeam;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for ColumnPackController.
+ */
+@RunWith(JUnit4.class)
+public class ColumnPackControllerTest extends InteractiveTestCase {
+
+    private JXTable table;
+    private ColumnPackController controller;
+
+    /**
+     * Incremental pack results in the same widths as the exhaustive pack.
+     */
+    @Test
+    public void testPackAllEqualsExhaustive() {
+        int[] exhaustive = packExhaustive();
+        controller.setChunkSize(3);
+        controller.packAll();
+        assertTrue("sanity: pack in progress", controller.isPacking());
+        finishPack();
+        for (int i = 0; i < exhaustive.length; i++) {
+            assertEquals("incremental pack width of column " + i,
+                    exhaustive[i], table.getColumnExt(i).getPreferredWidth());
+        }
+    }
+
+    /**
+     * Incremental pack respects margin and max.
+     */
+    @Test
+    public void testPackMarginAndMax() {
+        TableColumnExt columnExt = table.getColumnExt(0);
+        table.getColumnFactory().packColumn(table, columnExt, 10, -1);
+        int exhaustive = columnExt.getPreferredWidth();
+        controller.setMargin(10);
+        controller.packColumn(columnExt);
+        finishPack();
+        assertEquals(exhaustive, columnExt.getPreferredWidth());
+        controller.setMaxWidth(exhaustive - 5);
+        controller.packColumn(columnExt);
+        finishPack();
+        assertEquals(exhaustive - 5, columnExt.getPreferredWidth());
+    }
+
+    /**
+     * After the pack, updates of the model grow the width.
+     * @throws Exception
+     */
+    @Test
+    public void testUpdateGrowsWidth() throws Exception {
+        controller.packAll();
+        finishPack();
+        TableColumnExt columnExt = table.getColumnExt(0);
+        int width = columnExt.getPreferredWidth();
+        setValueAndFlush("a value much longer than anything in the ancient swing team");
+        assertTrue("width must grow on update", width < columnExt.getPreferredWidth());
+        width = columnExt.getPreferredWidth();
+        setValueAndFlush("");
+        assertEquals("width must not shrink", width, columnExt.getPreferredWidth());
+    }
+
+    /**
+     * After the pack, inserts of the model grow the width.
+     * @throws Exception
+     */
+    @Test
+    public void testInsertGrowsWidth() throws Exception {
+        final DefaultTableModel model = new DefaultTableModel(10, 2);
+        table.setModel(model);
+        controller.packAll();
+        finishPack();
+        TableColumnExt columnExt = table.getColumnExt(0);
+        int width = columnExt.getPreferredWidth();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                model.addRow(new Object[] {
+                        "a value much longer than anything in the ancient swing team"});
+            }
+        });
+        flushEvents();
+        assertTrue("width must grow on insert", width < columnExt.getPreferredWidth());
+    }
+
+    /**
+     * Released controller must not touch the columns.
+     * @throws Exception
+     */
+    @Test
+    public void testRelease() throws Exception {
+        controller.packAll();
+        finishPack();
+        controller.release();
+        TableColumnExt columnExt = table.getColumnExt(0);
+        int width = columnExt.getPreferredWidth();
+        setValueAndFlush("a value much longer than anything in the ancient swing team");
+        assertEquals(width, columnExt.getPreferredWidth());
+    }
+
+    @Test (expected = IllegalStateException.class)
+    public void testPackHiddenColumn() {
+        TableColumnExt columnExt = table.getColumnExt(0);
+        columnExt.setVisible(false);
+        controller.packColumn(columnExt);
+    }
+
+    @Test (expected = IllegalStateException.class)
+    public void testPackUnbound() {
+        new ColumnPackController().packAll();
+    }
+
+    private int[] packExhaustive() {
+        table.packAll();
+        int[] widths = new int[table.getColumnCount()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = table.getColumnExt(i).getPreferredWidth();
+            table.getColumnExt(i).setPreferredWidth(10);
+        }
+        return widths;
+    }
+
+    /**
+     * Runs the slices of the incremental pack without waiting for the timer.
+     */
+    private void finishPack() {
+        while (controller.isPacking()) {
+            controller.packChunk();
+        }
+    }
+
+    /**
+     * Sets the value of the first cell on the EDT and waits for the
+     * controller's update.
+     */
+    private void setValueAndFlush(final Object value) throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                table.setValueAt(value, 0, 0);
+            }
+        });
+        flushEvents();
+    }
+
+    private void flushEvents() throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                // nothing to do, just wait for pending events
+            }
+        });
+    }
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        table = new JXTable(new AncientSwingTeam());
+        controller = new ColumnPackController(table);
+    }
+}
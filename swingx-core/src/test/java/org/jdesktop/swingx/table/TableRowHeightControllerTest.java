@@ -23,6 +23,7 @@ package org.jdesktop.swingx.table;
 
 import java.awt.Component;
 import java.awt.Font;
+import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.lang.reflect.InvocationTargetException;
 import java.util.logging.Logger;
@@ -30,6 +31,7 @@ import java.util.logging.Logger;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.JTable;
+import javax.swing.JViewport;
 import javax.swing.SwingUtilities;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.AbstractTableModel;
@@ -273,6 +275,55 @@ public class TableRowHeightControllerTest extends InteractiveTestCase {
         });
      }
     
+    /**
+     * Lazy controller: adjusts visible rows only, others when scrolled into view.
+     */
+    @Test
+    public void testLazyAdjustsVisibleRows() {
+        JXTable table = createXTableWithIndyRowHeights();
+        int defaultHeight = table.getRowHeight();
+        table.setSize(table.getPreferredSize());
+        JViewport viewport = new JViewport();
+        viewport.setView(table);
+        viewport.setSize(table.getWidth(), 3 * defaultHeight);
+        TableRowHeightController lazy = new TableRowHeightController();
+        lazy.setLazy(true);
+        lazy.install(table);
+        assertEquals(getRendererRowHeight(table, 1, 0), table.getRowHeight(1));
+        assertTrue("sanity: big row adjusted", table.getRowHeight(1) > defaultHeight);
+        assertEquals("invisible row must not be adjusted", defaultHeight, table.getRowHeight(9));
+        table.setSize(table.getPreferredSize());
+        viewport.setViewPosition(new Point(0, table.getCellRect(9, 0, true).y));
+        assertEquals(getRendererRowHeight(table, 9, 0), table.getRowHeight(9));
+    }
+
+    /**
+     * Lazy controller: adjusts rows moved into view by sorting.
+     */
+    @Test
+    public void testLazyAdjustsRowsSortedIntoView() throws InterruptedException, InvocationTargetException {
+        final JXTable table = createXTableWithIndyRowHeights();
+        final int defaultHeight = table.getRowHeight();
+        table.setSize(table.getPreferredSize());
+        JViewport viewport = new JViewport();
+        viewport.setView(table);
+        viewport.setSize(table.getWidth(), 3 * defaultHeight);
+        TableRowHeightController lazy = new TableRowHeightController();
+        lazy.setLazy(true);
+        lazy.install(table);
+        assertEquals("sanity: invisible big row not adjusted", defaultHeight, table.getRowHeight(3));
+        // BIG before small: the big rows move to the top
+        table.toggleSortOrder(0);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(3, table.convertRowIndexToModel(1));
+                assertEquals(getRendererRowHeight(table, 1, 0), table.getRowHeight(1));
+                assertTrue("big row adjusted", table.getRowHeight(1) > defaultHeight);
+            }
+        });
+    }
+
     @Test
     public void testRowHeightAdjustedWithPrepare() {
         int rowHeight = table.getRowHeight(0);
@@ -287,6 +338,10 @@ public class TableRowHeightControllerTest extends InteractiveTestCase {
      * @return
      */
     private int getRendererRowHeight(int row, int column) {
+        return getRendererRowHeight(table, row, column);
+    }
+
+    private int getRendererRowHeight(JTable table, int row, int column) {
         TableCellRenderer renderer = table.getCellRenderer(row, column);
         Component comp = table.prepareRenderer(renderer, row, column);
         return comp.getPreferredSize().height;
@@ -0,0 +1,322 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.treetable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import javax.swing.tree.TreePath;
+
+import junit.framework.TestCase;
+
+import org.jdesktop.swingx.JXTreeTable;
+import org.jdesktop.test.TreeModelReport;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests of AsyncTreeTableModel, with an in-memory model which sleeps on
+ * loading and an executor which queues the loads until run.
+ */
+@RunWith(JUnit4.class)
+public class AsyncTreeTableModelTest extends TestCase {
+
+    /**
+     * The text of the placeholder is looked up in the UIManager.
+     */
+    @Test
+    public void testPlaceholderText() {
+        SlowModel model = createModel();
+        model.setLoadingExecutor(new QueueExecutor());
+        Object placeholder = model.getChild("root", 0);
+        Object old = UIManager.put(AsyncTreeTableModel.LOADING_TEXT_KEY, "Fetching");
+        try {
+            assertEquals("Fetching", placeholder.toString());
+        } finally {
+            UIManager.put(AsyncTreeTableModel.LOADING_TEXT_KEY, old);
+        }
+    }
+
+    /**
+     * Placeholder while loading, then the placeholder is removed and the
+     * children are added by a single insert event.
+     */
+    @Test
+    public void testLoadInBackground() throws Exception {
+        final SlowModel model = createModel();
+        QueueExecutor executor = new QueueExecutor();
+        model.setLoadingExecutor(executor);
+        final TreeModelReport report = new TreeModelReport(model);
+        assertFalse(model.isLeaf("root"));
+        assertEquals(1, model.getChildCount("root"));
+        Object placeholder = model.getChild("root", 0);
+        assertTrue(model.isPlaceholder(placeholder));
+        assertTrue(model.isLeaf(placeholder));
+        assertEquals(0, model.getIndexOfChild("root", placeholder));
+        assertSame(placeholder, model.getValueAt(placeholder, 0));
+        assertNull(model.getValueAt(placeholder, 1));
+        assertTrue(model.isLoading("root"));
+        assertEquals(1, executor.size());
+        executor.runAll();
+        flushEDT();
+        assertFalse(model.isLoading("root"));
+        assertTrue(model.isLoaded("root"));
+        assertEquals(1, report.getDeleteEventCount());
+        assertSame(placeholder, report.getLastDeleteEvent().getChildren()[0]);
+        assertEquals(1, report.getInsertEventCount());
+        assertEquals(Arrays.asList("a", "b", "c"),
+                Arrays.asList(report.getLastInsertEvent().getChildren()));
+        assertEquals(3, model.getChildCount("root"));
+        assertEquals("b", model.getChild("root", 1));
+        assertEquals(1, model.getIndexOfChild("root", "b"));
+        assertEquals(-1, model.getIndexOfChild("a", "b"));
+        assertEquals("value of b", model.getValueAt("b", 1));
+        assertEquals(1, model.loadCount);
+    }
+
+    /**
+     * Without executor, children are loaded on the calling thread, without
+     * events.
+     */
+    @Test
+    public void testLoadWithoutExecutor() {
+        SlowModel model = createModel();
+        TreeModelReport report = new TreeModelReport(model);
+        assertEquals(3, model.getChildCount("root"));
+        assertEquals(2, model.getChildCount("a"));
+        assertEquals(new TreePath(new Object[] {"root", "a", "a1"}),
+                new TreePath(new Object[] {"root", model.getChild("root", 0),
+                        model.getChild("a", 0)}));
+        assertTrue(model.isLeaf("c"));
+        assertEquals(0, model.getChildCount("c"));
+        assertFalse(report.hasEvents());
+    }
+
+    /**
+     * Siblings which may have children are prefetched, up to the prefetch
+     * count.
+     */
+    @Test
+    public void testPrefetchSiblings() {
+        SlowModel model = createModel();
+        model.children.put("d", new ArrayList<String>());
+        model.children.put("e", Arrays.asList("e1"));
+        model.children.put("root", Arrays.asList("a", "b", "c", "d", "e"));
+        model.getChildCount("root");
+        QueueExecutor executor = new QueueExecutor();
+        model.setLoadingExecutor(executor);
+        model.setPrefetchCount(2);
+        model.getChildCount("a");
+        // c is a leaf, skipped
+        assertEquals(3, executor.size());
+        assertTrue(model.isLoading("b"));
+        assertFalse(model.isLoading("c"));
+        assertTrue(model.isLoading("d"));
+        assertFalse(model.isLoading("e"));
+        // already loading, nothing prefetched again
+        model.getChildCount("b");
+        assertEquals(3, executor.size());
+    }
+
+    /**
+     * Loads completing after the root changed are ignored.
+     */
+    @Test
+    public void testLoadAfterSetRootIgnored() throws Exception {
+        SlowModel model = createModel();
+        QueueExecutor executor = new QueueExecutor();
+        model.setLoadingExecutor(executor);
+        model.getChildCount("root");
+        model.setRoot("root");
+        TreeModelReport report = new TreeModelReport(model);
+        executor.runAll();
+        flushEDT();
+        assertFalse(report.hasEvents());
+        assertFalse(model.isLoaded("root"));
+        assertEquals(1, model.getChildCount("root"));
+    }
+
+    /**
+     * Reload drops the children and their descendants and loads again.
+     */
+    @Test
+    public void testReload() throws Exception {
+        SlowModel model = createModel();
+        model.getChildCount("root");
+        model.getChildCount("a");
+        QueueExecutor executor = new QueueExecutor();
+        model.setLoadingExecutor(executor);
+        TreeModelReport report = new TreeModelReport(model);
+        model.children.put("root", Arrays.asList("a", "c"));
+        model.reload("root");
+        assertFalse(model.isLoaded("a"));
+        assertEquals(1, report.getDeleteEventCount());
+        assertEquals(3, report.getLastDeleteEvent().getChildren().length);
+        assertEquals(1, report.getInsertEventCount());
+        assertTrue(model.isPlaceholder(report.getLastInsertEvent().getChildren()[0]));
+        executor.runAll();
+        flushEDT();
+        assertEquals(2, report.getInsertEventCount());
+        assertEquals(Arrays.asList("a", "c"),
+                Arrays.asList(report.getLastInsertEvent().getChildren()));
+        assertEquals(1, model.getIndexOfChild("root", "c"));
+    }
+
+    /**
+     * A failed load leaves the node without children and calls loadFailed.
+     */
+    @Test
+    public void testLoadFailed() throws Exception {
+        SlowModel model = createModel();
+        model.children.remove("root");
+        QueueExecutor executor = new QueueExecutor();
+        model.setLoadingExecutor(executor);
+        TreeModelReport report = new TreeModelReport(model);
+        model.getChildCount("root");
+        executor.runAll();
+        flushEDT();
+        assertEquals("root", model.failed);
+        assertTrue(model.isLoaded("root"));
+        assertEquals(0, model.getChildCount("root"));
+        assertEquals(1, report.getDeleteEventCount());
+        assertFalse(report.hasInsertEvents());
+    }
+
+    /**
+     * The tree table shows the placeholder while loading and the children
+     * when done.
+     */
+    @Test
+    public void testTreeTable() throws Exception {
+        final SlowModel model = createModel();
+        final QueueExecutor executor = new QueueExecutor();
+        model.setLoadingExecutor(executor);
+        final JXTreeTable[] treeTable = new JXTreeTable[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                treeTable[0] = new JXTreeTable(model);
+                treeTable[0].setRootVisible(true);
+                treeTable[0].expandRow(0);
+                assertEquals(2, treeTable[0].getRowCount());
+                assertTrue(model.isPlaceholder(treeTable[0].getPathForRow(1)
+                        .getLastPathComponent()));
+            }
+        });
+        executor.runAll();
+        flushEDT();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(4, treeTable[0].getRowCount());
+                assertEquals("value of c", treeTable[0].getValueAt(3, 1));
+            }
+        });
+    }
+
+    private void flushEDT() throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    private SlowModel createModel() {
+        SlowModel model = new SlowModel();
+        model.children.put("root", Arrays.asList("a", "b", "c"));
+        model.children.put("a", Arrays.asList("a1", "a2"));
+        model.children.put("b", Arrays.asList("b1"));
+        return model;
+    }
+
+    /**
+     * In-memory model which sleeps on loading. Nodes without an entry in
+     * children are leaves, loading their children fails.
+     */
+    private static class SlowModel extends AsyncTreeTableModel {
+        private final Map<String, List<String>> children = new HashMap<String, List<String>>();
+        private int loadCount;
+        private Object failed;
+
+        SlowModel() {
+            super("root");
+        }
+
+        @Override
+        protected List<?> loadChildren(Object parent) throws Exception {
+            loadCount++;
+            Thread.sleep(10);
+            List<String> list = children.get(parent);
+            if (list == null) {
+                throw new IllegalStateException("no children: " + parent);
+            }
+            return list;
+        }
+
+        @Override
+        protected boolean mayHaveChildren(Object node) {
+            return children.containsKey(node) || "root".equals(node);
+        }
+
+        @Override
+        protected void loadFailed(Object parent, Exception e) {
+            failed = parent;
+        }
+
+        @Override
+        protected Object getNodeValueAt(Object node, int column) {
+            return column == 0 ? node : "value of " + node;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 2;
+        }
+    }
+
+    /**
+     * Executor which queues the commands until run.
+     */
+    private static class QueueExecutor implements Executor {
+        private final List<Runnable> commands = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            commands.add(command);
+        }
+
+        public int size() {
+            return commands.size();
+        }
+
+        public void runAll() {
+            for (Runnable command : commands) {
+                command.run();
+            }
+            commands.clear();
+        }
+    }
+}
@@ -3,7 +3,10 @@
  */
 package org.jdesktop.swingx.treetable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.List;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 
@@ -49,6 +52,61 @@ public class DefaultMutableTreeTableNodeUnitTest extends TestCase {
          assertEquals(root.getChildCount(), 1);
      }
      
+    @Test
+    public void testAddAll() {
+        DefaultMutableTreeTableNode root = createIndexedNode("root");
+        DefaultMutableTreeTableNode a = new DefaultMutableTreeTableNode("a");
+        DefaultMutableTreeTableNode b = new DefaultMutableTreeTableNode("b");
+        DefaultMutableTreeTableNode c = new DefaultMutableTreeTableNode("c");
+        root.add(a);
+        DefaultMutableTreeTableNode other = new DefaultMutableTreeTableNode("other");
+        other.add(c);
+        root.addAll(0, Arrays.asList(b, c));
+        assertEquals(3, root.getChildCount());
+        assertSame(b, root.getChildAt(0));
+        assertSame(c, root.getChildAt(1));
+        assertSame(a, root.getChildAt(2));
+        assertSame(root, c.getParent());
+        assertEquals("removed from previous parent", 0, other.getChildCount());
+        assertEquals(1, root.getIndex(c));
+        // move existing children
+        root.addAll(3, Arrays.asList(b, c));
+        assertSame(a, root.getChildAt(0));
+        assertSame(b, root.getChildAt(1));
+        assertSame(c, root.getChildAt(2));
+        assertEquals(3, root.getChildCount());
+    }
+
+    @Test
+    public void testRemoveAll() {
+        DefaultMutableTreeTableNode root = createIndexedNode("root");
+        List<DefaultMutableTreeTableNode> nodes = new ArrayList<DefaultMutableTreeTableNode>();
+        for (int i = 0; i < 10; i++) {
+            nodes.add(new DefaultMutableTreeTableNode(i));
+        }
+        root.addAll(nodes);
+        DefaultMutableTreeTableNode other = new DefaultMutableTreeTableNode("other");
+        root.removeAll(Arrays.asList(nodes.get(0), nodes.get(5), nodes.get(9), other));
+        assertEquals(7, root.getChildCount());
+        assertNull(nodes.get(5).getParent());
+        for (int i = 0; i < root.getChildCount(); i++) {
+            assertEquals(i, root.getIndex(root.getChildAt(i)));
+        }
+        assertEquals(-1, root.getIndex(nodes.get(5)));
+    }
+
+    /**
+     * Creates and returns a node with an indexed list of children.
+     */
+    private DefaultMutableTreeTableNode createIndexedNode(Object userObject) {
+        return new DefaultMutableTreeTableNode(userObject) {
+            @Override
+            protected List<MutableTreeTableNode> createChildrenList() {
+                return new IndexedChildList<MutableTreeTableNode>();
+            }
+        };
+    }
+
     @Test
      public void testChildren() {
          DefaultMutableTreeTableNode root = new DefaultMutableTreeTableNode("root");
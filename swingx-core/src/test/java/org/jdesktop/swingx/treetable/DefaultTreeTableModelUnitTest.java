@@ -1,12 +1,17 @@
 package org.jdesktop.swingx.treetable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Vector;
 
+import javax.swing.event.TreeModelEvent;
 import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 
 import junit.framework.TestCase;
 
+import org.jdesktop.test.TreeModelReport;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -396,6 +401,54 @@ public class DefaultTreeTableModelUnitTest extends TestCase {
     	//TODO test removing already removed nodes?
     }
     
+    @Test
+    public void testInsertNodesInto() {
+        TreeModelReport report = new TreeModelReport(model);
+        List<DefaultMutableTreeTableNode> nodes = new ArrayList<DefaultMutableTreeTableNode>();
+        for (int i = 0; i < 5; i++) {
+            nodes.add(new DefaultMutableTreeTableNode("added" + i));
+        }
+        model.insertNodesInto(nodes, child1, 1);
+        assertEquals(8, child1.getChildCount());
+        for (int i = 0; i < nodes.size(); i++) {
+            assertSame(nodes.get(i), child1.getChildAt(i + 1));
+            assertSame(child1, nodes.get(i).getParent());
+        }
+        assertSame(grandchild2, child1.getChildAt(6));
+        assertEquals("single event", 1, report.getEventCount());
+        TreeModelEvent event = report.getLastInsertEvent();
+        assertEquals(new TreePath(model.getPathToRoot(child1)), event.getTreePath());
+        assertTrue(Arrays.equals(new int[] {1, 2, 3, 4, 5}, event.getChildIndices()));
+        assertTrue(Arrays.equals(nodes.toArray(), event.getChildren()));
+    }
+
+    @Test
+    public void testRemoveNodesFromParent() {
+        TreeModelReport report = new TreeModelReport(model);
+        model.removeNodesFromParent(Arrays.asList(grandchild6, grandchild3, grandchild4, grandchild1));
+        assertEquals(1, child1.getChildCount());
+        assertSame(grandchild2, child1.getChildAt(0));
+        assertEquals(1, child2.getChildCount());
+        assertNull(grandchild1.getParent());
+        assertNull(grandchild6.getParent());
+        assertEquals("one event per parent", 2, report.getEventCount());
+        TreeModelEvent event = report.getLastDeleteEvent();
+        assertEquals(new TreePath(model.getPathToRoot(child1)), event.getTreePath());
+        assertTrue(Arrays.equals(new int[] {0, 2}, event.getChildIndices()));
+        assertTrue(Arrays.equals(new Object[] {grandchild1, grandchild3}, event.getChildren()));
+    }
+
+    @Test
+    public void testRemoveNodesFromParentWithoutParent() {
+        try {
+            model.removeNodesFromParent(Arrays.asList(grandchild1, new DefaultMutableTreeTableNode()));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            //success
+        }
+        assertSame("no node removed", child1, grandchild1.getParent());
+    }
+
     @Test
     public void testSetRoot() {
     	assertEquals(model.getRoot(), root);
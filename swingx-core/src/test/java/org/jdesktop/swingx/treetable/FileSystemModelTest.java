@@ -0,0 +1,224 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.treetable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import javax.swing.SwingUtilities;
+
+import org.jdesktop.swingx.InteractiveTestCase;
+import org.jdesktop.test.TreeModelReport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests the cached directory listings of the file system models.
+ */
+@RunWith(JUnit4.class)
+public class FileSystemModelTest extends InteractiveTestCase {
+
+    private File root;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        root = File.createTempFile("swingx", "");
+        root.delete();
+        root.mkdir();
+        createFile("b");
+        createFile("a");
+        new File(root, "c").mkdir();
+    }
+
+    @After
+    @Override
+    public void tearDown() throws Exception {
+        delete(root);
+    }
+
+    /**
+     * Children are consistent with getIndexOfChild.
+     */
+    @Test
+    public void testChildren() {
+        FileSystemModel model = new FileSystemModel(root);
+        assertEquals(3, model.getChildCount(root));
+        for (int i = 0; i < model.getChildCount(root); i++) {
+            assertEquals(i, model.getIndexOfChild(root, model.getChild(root, i)));
+        }
+        assertTrue(model.isLeaf(new File(root, "a")));
+        assertFalse(model.isLeaf(new File(root, "c")));
+        assertEquals(-1, model.getIndexOfChild(root, new File(root, "x")));
+    }
+
+    /**
+     * Listings are cached until refreshed.
+     */
+    @Test
+    public void testCachedUntilRefresh() throws IOException {
+        FileSystemModel model = new FileSystemModel(root);
+        assertEquals(3, model.getChildCount(root));
+        createFile("d");
+        assertEquals(3, model.getChildCount(root));
+        touch(root);
+        model.refresh();
+        assertEquals(4, model.getChildCount(root));
+    }
+
+    /**
+     * Refresh fires removed and added children of changed directories only.
+     */
+    @Test
+    public void testRefreshEvents() throws IOException {
+        FileSystemModel model = new FileSystemModel(root);
+        File c = new File(root, "c");
+        model.getChildCount(root);
+        model.getChildCount(c);
+        int removedIndex = model.getIndexOfChild(root, new File(root, "a"));
+        TreeModelReport report = new TreeModelReport(model);
+        model.refresh();
+        assertFalse("unchanged directories must not fire", report.hasEvents());
+
+        new File(root, "a").delete();
+        createFile("d");
+        touch(root);
+        model.refresh();
+        assertEquals(1, report.getDeleteEventCount());
+        assertEquals(1, report.getInsertEventCount());
+        assertEquals(removedIndex, report.getLastDeleteEvent().getChildIndices()[0]);
+        assertEquals(new File(root, "d"), report.getLastInsertEvent().getChildren()[0]);
+        assertEquals(model.getIndexOfChild(root, new File(root, "d")),
+                report.getLastInsertEvent().getChildIndices()[0]);
+        assertEquals(3, model.getChildCount(root));
+    }
+
+    /**
+     * Refresh of a sub-directory fires with the path to the directory.
+     */
+    @Test
+    public void testRefreshSubDirectory() throws IOException {
+        FileSystemModel model = new FileSystemModel(root);
+        File c = new File(root, "c");
+        assertEquals(0, model.getChildCount(c));
+        TreeModelReport report = new TreeModelReport(model);
+        new File(c, "e").createNewFile();
+        touch(c);
+        model.refresh();
+        assertEquals(1, report.getInsertEventCount());
+        assertEquals(2, report.getLastInsertEvent().getTreePath().getPathCount());
+        assertEquals(1, model.getChildCount(c));
+    }
+
+    /**
+     * A different relative order of the retained children is detected, 
+     * refresh fires a structure change instead of removed and added children.
+     */
+    @Test
+    public void testReordered() {
+        File a = new File(root, "a");
+        File b = new File(root, "b");
+        File c = new File(root, "c");
+        File d = new File(root, "d");
+        FileListingCache.Listing old = new FileListingCache.Listing(new File[] {a, b, c}, 0);
+        assertFalse(FileSystemModel.isReordered(old, 
+                new FileListingCache.Listing(new File[] {d, a, c}, 1)));
+        assertFalse(FileSystemModel.isReordered(old, 
+                new FileListingCache.Listing(new File[] {a, d, b}, 1)));
+        assertTrue(FileSystemModel.isReordered(old, 
+                new FileListingCache.Listing(new File[] {c, d, a}, 1)));
+    }
+
+    /**
+     * With a loading executor, directories are listed in the background.
+     */
+    @Test
+    public void testBackgroundLoading() throws Exception {
+        final FileSystemModel model = new FileSystemModel(root);
+        final TreeModelReport report = new TreeModelReport(model);
+        model.setLoadingExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(0, model.getChildCount(root));
+                assertFalse(model.isLeaf(root));
+            }
+        });
+        // wait for the listing to be installed
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        assertEquals(1, report.getInsertEventCount());
+        assertEquals(3, report.getLastInsertEvent().getChildren().length);
+        assertEquals(3, model.getChildCount(root));
+    }
+
+    /**
+     * SimpleFileSystemModel: listings are cached, refresh fires a structure
+     * change for changed directories.
+     */
+    @Test
+    public void testSimpleRefresh() throws IOException {
+        SimpleFileSystemModel model = new SimpleFileSystemModel(root);
+        assertEquals(3, model.getChildCount(root));
+        for (int i = 0; i < model.getChildCount(root); i++) {
+            assertEquals(i, model.getIndexOfChild(root, model.getChild(root, i)));
+        }
+        TreeModelReport report = new TreeModelReport(model);
+        createFile("d");
+        assertEquals(3, model.getChildCount(root));
+        touch(root);
+        model.refresh();
+        assertEquals(1, report.getStructureEventCount());
+        assertEquals(4, model.getChildCount(root));
+    }
+
+    private void createFile(String name) throws IOException {
+        new File(root, name).createNewFile();
+    }
+
+    /**
+     * Forces a change of the modification time, which might have a coarse
+     * resolution on some file systems.
+     */
+    private void touch(File directory) {
+        directory.setLastModified(directory.lastModified() - 10000);
+    }
+
+    private void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
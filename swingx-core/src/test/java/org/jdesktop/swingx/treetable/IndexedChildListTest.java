@@ -0,0 +1,132 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.treetable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests of IndexedChildList.
+ */
+@RunWith(JUnit4.class)
+public class IndexedChildListTest extends TestCase {
+
+    /**
+     * Random modifications, with duplicates: positions must be the same
+     * as those of an ArrayList.
+     */
+    @Test
+    public void testIndexOfRandomModifications() {
+        Object[] values = new Object[20];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new Object();
+        }
+        List<Object> expected = new ArrayList<Object>();
+        IndexedChildList<Object> list = new IndexedChildList<Object>();
+        Random random = new Random(0);
+        for (int step = 0; step < 5000; step++) {
+            Object value = values[random.nextInt(values.length)];
+            int operation = random.nextInt(6);
+            if ((operation == 0) || expected.isEmpty()) {
+                expected.add(value);
+                list.add(value);
+            } else if (operation == 1) {
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, value);
+                list.add(index, value);
+            } else if (operation == 2) {
+                int index = random.nextInt(expected.size());
+                assertSame(expected.remove(index), list.remove(index));
+            } else if (operation == 3) {
+                assertEquals(expected.remove(value), list.remove(value));
+            } else if (operation == 4) {
+                int index = random.nextInt(expected.size());
+                assertSame(expected.set(index, value), list.set(index, value));
+            } else if (expected.size() > 2) {
+                int from = random.nextInt(expected.size() - 1);
+                int to = from + random.nextInt(Math.min(3, expected.size() - from));
+                expected.subList(from, to).clear();
+                list.subList(from, to).clear();
+            }
+            assertEquals(expected, list);
+            for (Object o : values) {
+                assertEquals(expected.indexOf(o), list.indexOf(o));
+            }
+        }
+    }
+
+    @Test
+    public void testBulkOperationsByIdentity() {
+        String first = new String("node");
+        String second = new String("node");
+        IndexedChildList<String> list = new IndexedChildList<String>(Arrays.asList(first, second));
+        assertTrue(list.removeAll(Arrays.asList(second)));
+        assertEquals(1, list.size());
+        assertSame(first, list.get(0));
+        list.add(second);
+        assertTrue(list.retainAll(Arrays.asList(second)));
+        assertEquals(1, list.size());
+        assertSame(second, list.get(0));
+    }
+
+    @Test
+    public void testBulkOperations() {
+        Object[] values = new Object[10];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new Object();
+        }
+        IndexedChildList<Object> list = new IndexedChildList<Object>(Arrays.asList(values));
+        assertEquals(4, list.indexOf(values[4]));
+        assertTrue(list.removeAll(Arrays.asList(values[0], values[4])));
+        assertEquals(-1, list.indexOf(values[4]));
+        assertEquals(2, list.indexOf(values[3]));
+        assertTrue(list.retainAll(Arrays.asList(values[3], values[9])));
+        assertEquals(Arrays.asList(values[3], values[9]), list);
+        assertEquals(1, list.indexOf(values[9]));
+        list.addAll(1, Arrays.asList(values[0], values[1]));
+        assertEquals(3, list.indexOf(values[9]));
+        Iterator<Object> iterator = list.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(-1, list.indexOf(values[3]));
+        assertEquals(2, list.indexOf(values[9]));
+        list.clear();
+        assertFalse(list.contains(values[9]));
+    }
+
+    /**
+     * Elements are found by identity.
+     */
+    @Test
+    public void testIdentity() {
+        IndexedChildList<String> list = new IndexedChildList<String>();
+        String value = "value";
+        list.add(value);
+        assertEquals(0, list.indexOf(value));
+        assertEquals(-1, list.indexOf(new String(value)));
+    }
+}
@@ -544,6 +544,11 @@ public final class BlendComposite implements Composite {
                 ColorUtilities.HSLtoRGB(srcHSL[0], dstHSL[1], dstHSL[2], result);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendScanline(int[] srcPixels, int[] dstPixels, int[] result, int length) {
+                blendEachPixel(srcPixels, dstPixels, result, length);
+            }
         },
 
         /**
@@ -563,6 +568,11 @@ public final class BlendComposite implements Composite {
                 ColorUtilities.HSLtoRGB(dstHSL[0], srcHSL[1], dstHSL[2], result);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendScanline(int[] srcPixels, int[] dstPixels, int[] result, int length) {
+                blendEachPixel(srcPixels, dstPixels, result, length);
+            }
         },
 
         /**
@@ -581,6 +591,11 @@ public final class BlendComposite implements Composite {
                 ColorUtilities.HSLtoRGB(srcHSL[0], srcHSL[1], dstHSL[2], result);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendScanline(int[] srcPixels, int[] dstPixels, int[] result, int length) {
+                blendEachPixel(srcPixels, dstPixels, result, length);
+            }
         },
 
         /**
@@ -599,6 +614,11 @@ public final class BlendComposite implements Composite {
                 ColorUtilities.HSLtoRGB(dstHSL[0], dstHSL[1], srcHSL[2], result);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendScanline(int[] srcPixels, int[] dstPixels, int[] result, int length) {
+                blendEachPixel(srcPixels, dstPixels, result, length);
+            }
         },
 
         /**
@@ -629,6 +649,11 @@ public final class BlendComposite implements Composite {
                 result[2] = dst[2];
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendScanline(int[] srcPixels, int[] dstPixels, int[] result, int length) {
+                blendChannels(srcPixels, dstPixels, result, length, 0x00FF0000);
+            }
         },
         
         /**
@@ -643,6 +668,11 @@ public final class BlendComposite implements Composite {
                 result[2] = dst[2];
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendScanline(int[] srcPixels, int[] dstPixels, int[] result, int length) {
+                blendChannels(srcPixels, dstPixels, result, length, 0x0000FF00);
+            }
         },
         
         /**
@@ -657,6 +687,11 @@ public final class BlendComposite implements Composite {
                 result[2] = src[2];
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendScanline(int[] srcPixels, int[] dstPixels, int[] result, int length) {
+                blendChannels(srcPixels, dstPixels, result, length, 0x000000FF);
+            }
         },
         ;
 
@@ -673,6 +708,117 @@ public final class BlendComposite implements Composite {
          *             if any argument is {@code null}
          */
         abstract void blend(int[] src, int[] dst, int[] result);
+
+        /**
+         * The lookup tables of the color and alpha channels, indexed by
+         * {@code src << 8 | dst}, created on first use.
+         */
+        private volatile byte[][] tables;
+
+        /**
+         * Blends a scanline of source pixels with a scanline of destination
+         * pixels, stored as INT_ARGB, into the result, which may be the
+         * destination array. <p>
+         *
+         * The default implementation applies {@link #blend(int[], int[], int[])}
+         * through lookup tables, without branches. This requires the mode to
+         * blend each channel independently, and the red, green and blue
+         * channels alike; other modes override this method.
+         *
+         * @param srcPixels
+         *            the source pixels
+         * @param dstPixels
+         *            the destination pixels
+         * @param result
+         *            the blended pixels
+         * @param length
+         *            the number of pixels to blend
+         */
+        void blendScanline(int[] srcPixels, int[] dstPixels, int[] result, int length) {
+            byte[][] tables = getTables();
+            byte[] colors = tables[0];
+            byte[] alphas = tables[1];
+            for (int x = 0; x < length; x++) {
+                int src = srcPixels[x];
+                int dst = dstPixels[x];
+                result[x] = (alphas[(src >>> 16) & 0xFF00 | dst >>> 24] & 0xFF) << 24 |
+                            (colors[(src >>  8) & 0xFF00 | (dst >> 16) & 0xFF] & 0xFF) << 16 |
+                            (colors[(src      ) & 0xFF00 | (dst >>  8) & 0xFF] & 0xFF) <<  8 |
+                            (colors[(src <<  8) & 0xFF00 | (dst      ) & 0xFF] & 0xFF);
+            }
+        }
+
+        /**
+         * Blends the scanlines pixel by pixel with
+         * {@link #blend(int[], int[], int[])}, for modes mixing the channels.
+         */
+        final void blendEachPixel(int[] srcPixels, int[] dstPixels, int[] result, int length) {
+            int[] resultPixel = new int[4];
+            int[] srcPixel = new int[4];
+            int[] dstPixel = new int[4];
+            for (int x = 0; x < length; x++) {
+                // our arrays are [R, G, B, A]
+                int pixel = srcPixels[x];
+                srcPixel[0] = (pixel >> 16) & 0xFF;
+                srcPixel[1] = (pixel >>  8) & 0xFF;
+                srcPixel[2] = (pixel      ) & 0xFF;
+                srcPixel[3] = (pixel >> 24) & 0xFF;
+
+                pixel = dstPixels[x];
+                dstPixel[0] = (pixel >> 16) & 0xFF;
+                dstPixel[1] = (pixel >>  8) & 0xFF;
+                dstPixel[2] = (pixel      ) & 0xFF;
+                dstPixel[3] = (pixel >> 24) & 0xFF;
+
+                blend(srcPixel, dstPixel, resultPixel);
+
+                result[x] = (resultPixel[3] & 0xFF) << 24 |
+                            (resultPixel[0] & 0xFF) << 16 |
+                            (resultPixel[1] & 0xFF) <<  8 |
+                            (resultPixel[2] & 0xFF);
+            }
+        }
+
+        /**
+         * Blends the scanlines keeping the color channels of the source
+         * selected by the mask and the other color channels of the
+         * destination, for the modes selecting a channel.
+         */
+        final void blendChannels(int[] srcPixels, int[] dstPixels, int[] result, int length,
+                int srcMask) {
+            byte[] alphas = getTables()[1];
+            int dstMask = ~srcMask & 0x00FFFFFF;
+            for (int x = 0; x < length; x++) {
+                int src = srcPixels[x];
+                int dst = dstPixels[x];
+                result[x] = (alphas[(src >>> 16) & 0xFF00 | dst >>> 24] & 0xFF) << 24 |
+                            (src & srcMask) | (dst & dstMask);
+            }
+        }
+
+        private byte[][] getTables() {
+            byte[][] tables = this.tables;
+            if (tables == null) {
+                // computed concurrently at worst, to the same values
+                byte[] colors = new byte[256 * 256];
+                byte[] alphas = new byte[256 * 256];
+                int[] src = new int[4];
+                int[] dst = new int[4];
+                int[] result = new int[4];
+                for (int s = 0; s < 256; s++) {
+                    src[0] = src[1] = src[2] = src[3] = s;
+                    for (int d = 0; d < 256; d++) {
+                        dst[0] = dst[1] = dst[2] = dst[3] = d;
+                        blend(src, dst, result);
+                        colors[s << 8 | d] = (byte) result[0];
+                        alphas[s << 8 | d] = (byte) result[3];
+                    }
+                }
+                tables = new byte[][] {colors, alphas};
+                this.tables = tables;
+            }
+            return tables;
+        }
     }
 
     public static final BlendComposite Average = new BlendComposite(BlendingMode.AVERAGE);
@@ -711,9 +857,21 @@ public final class BlendComposite implements Composite {
     public static final BlendComposite Color = new BlendComposite(BlendingMode.COLOR);
     public static final BlendComposite Luminosity = new BlendComposite(BlendingMode.LUMINOSITY);
 
+    /**
+     * The minimum number of pixels composed at once to create the opacity
+     * lookup table.
+     */
+    private static final int MIN_OPACITY_TABLE_PIXELS = 256 * 256;
+
     private final float alpha;
     private final BlendingMode mode;
 
+    /**
+     * The lookup table mixing the destination with the blended colors
+     * according to the opacity, indexed by {@code blended << 8 | dst}.
+     */
+    private volatile byte[] opacityTable;
+
     private BlendComposite(BlendingMode mode) {
         this(mode, 1.0f);
     }
@@ -825,6 +983,26 @@ public final class BlendComposite implements Composite {
         return mode == bc.mode && alpha == bc.alpha;
     }
 
+    /**
+     * Returns the opacity lookup table, creating it if requested.
+     *
+     * @param create whether to create the table if it doesn't exist
+     * @return the opacity lookup table, or {@code null}
+     */
+    private byte[] getOpacityTable(boolean create) {
+        byte[] table = opacityTable;
+        if ((table == null) && create) {
+            table = new byte[256 * 256];
+            for (int blended = 0; blended < 256; blended++) {
+                for (int dst = 0; dst < 256; dst++) {
+                    table[blended << 8 | dst] = (byte) (dst + (blended - dst) * alpha);
+                }
+            }
+            opacityTable = table;
+        }
+        return table;
+    }
+
     private static boolean isRgbColorModel(ColorModel cm) {
         if (cm instanceof DirectColorModel &&
                 cm.getTransferType() == DataBuffer.TYPE_INT) {
@@ -863,29 +1041,21 @@ public final class BlendComposite implements Composite {
                                           ColorModel dstColorModel,
                                           RenderingHints hints) {
         if (isRgbColorModel(srcColorModel) && isRgbColorModel(dstColorModel)) {
-            return new BlendingRgbContext(this);
+            return new BlendingContext(this, false);
         } else if (isBgrColorModel(srcColorModel) && isBgrColorModel(dstColorModel)) {
-            return new BlendingBgrContext(this);
+            return new BlendingContext(this, true);
         }
 
         throw new RasterFormatException("Incompatible color models:\n  " + srcColorModel + "\n  " + dstColorModel);
     }
 
-    private static abstract class BlendingContext implements CompositeContext {
-        protected final BlendComposite composite;
+    private static class BlendingContext implements CompositeContext {
+        private final BlendComposite composite;
+        private final boolean bgr;
 
-        private BlendingContext(BlendComposite composite) {
+        private BlendingContext(BlendComposite composite, boolean bgr) {
             this.composite = composite;
-        }
-
-        @Override
-        public void dispose() {
-        }
-    }
-
-    private static class BlendingRgbContext extends BlendingContext {
-        private BlendingRgbContext(BlendComposite composite) {
-            super(composite);
+            this.bgr = bgr;
         }
 
         @Override
@@ -894,90 +1064,85 @@ public final class BlendComposite implements Composite {
             int height = Math.min(src.getHeight(), dstIn.getHeight());
 
             float alpha = composite.getAlpha();
+            BlendingMode mode = composite.getMode();
 
-            int[] result = new int[4];
-            int[] srcPixel = new int[4];
-            int[] dstPixel = new int[4];
             int[] srcPixels = new int[width];
             int[] dstPixels = new int[width];
+            // fully opaque, the blended pixels are the result
+            int[] result = alpha == 1.0f ? dstPixels : new int[width];
+            byte[] opacities = alpha == 1.0f ? null
+                    : composite.getOpacityTable(width * height >= MIN_OPACITY_TABLE_PIXELS);
 
             for (int y = 0; y < height; y++) {
                 src.getDataElements(0, y, width, 1, srcPixels);
                 dstIn.getDataElements(0, y, width, 1, dstPixels);
-                for (int x = 0; x < width; x++) {
-                    // pixels are stored as INT_ARGB
-                    // our arrays are [R, G, B, A]
-                    int pixel = srcPixels[x];
-                    srcPixel[0] = (pixel >> 16) & 0xFF;
-                    srcPixel[1] = (pixel >>  8) & 0xFF;
-                    srcPixel[2] = (pixel      ) & 0xFF;
-                    srcPixel[3] = (pixel >> 24) & 0xFF;
-
-                    pixel = dstPixels[x];
-                    dstPixel[0] = (pixel >> 16) & 0xFF;
-                    dstPixel[1] = (pixel >>  8) & 0xFF;
-                    dstPixel[2] = (pixel      ) & 0xFF;
-                    dstPixel[3] = (pixel >> 24) & 0xFF;
-
-                    composite.getMode().blend(srcPixel, dstPixel, result);
-
-                    // mixes the result with the opacity
-                    dstPixels[x] = ((int) (dstPixel[3] + (result[3] - dstPixel[3]) * alpha) & 0xFF) << 24 |
-                                   ((int) (dstPixel[0] + (result[0] - dstPixel[0]) * alpha) & 0xFF) << 16 |
-                                   ((int) (dstPixel[1] + (result[1] - dstPixel[1]) * alpha) & 0xFF) <<  8 |
-                                    (int) (dstPixel[2] + (result[2] - dstPixel[2]) * alpha) & 0xFF;
+                if (bgr) {
+                    // pixels are stored as INT_ABGR, the kernels blend INT_ARGB
+                    swapRedBlue(srcPixels, width);
+                    swapRedBlue(dstPixels, width);
+                }
+
+                mode.blendScanline(srcPixels, dstPixels, result, width);
+                if (opacities != null) {
+                    mix(dstPixels, result, width, opacities);
+                } else if (result != dstPixels) {
+                    mix(dstPixels, result, width, alpha);
+                }
+
+                if (bgr) {
+                    swapRedBlue(dstPixels, width);
                 }
                 dstOut.setDataElements(0, y, width, 1, dstPixels);
             }
         }
-    }
 
-    private static class BlendingBgrContext extends BlendingContext {
-        private BlendingBgrContext(BlendComposite composite) {
-            super(composite);
+        /**
+         * Mixes the destination pixels with the blended pixels according to
+         * the opacity, into the destination.
+         */
+        private static void mix(int[] dstPixels, int[] result, int length, float alpha) {
+            for (int x = 0; x < length; x++) {
+                int dst = dstPixels[x];
+                int dstA = (dst >>> 24);
+                int dstR = (dst >> 16) & 0xFF;
+                int dstG = (dst >>  8) & 0xFF;
+                int dstB = (dst      ) & 0xFF;
+                int pixel = result[x];
+                int resultA = (pixel >>> 24);
+                int resultR = (pixel >> 16) & 0xFF;
+                int resultG = (pixel >>  8) & 0xFF;
+                int resultB = (pixel      ) & 0xFF;
+                dstPixels[x] = ((int) (dstA + (resultA - dstA) * alpha) & 0xFF) << 24 |
+                               ((int) (dstR + (resultR - dstR) * alpha) & 0xFF) << 16 |
+                               ((int) (dstG + (resultG - dstG) * alpha) & 0xFF) <<  8 |
+                                (int) (dstB + (resultB - dstB) * alpha) & 0xFF;
+            }
         }
 
-        @Override
-        public void compose(Raster src, Raster dstIn, WritableRaster dstOut) {
-            int width = Math.min(src.getWidth(), dstIn.getWidth());
-            int height = Math.min(src.getHeight(), dstIn.getHeight());
-
-            float alpha = composite.getAlpha();
-
-            int[] result = new int[4];
-            int[] srcPixel = new int[4];
-            int[] dstPixel = new int[4];
-            int[] srcPixels = new int[width];
-            int[] dstPixels = new int[width];
+        /**
+         * Mixes the destination pixels with the blended pixels through the
+         * opacity lookup table, into the destination.
+         */
+        private static void mix(int[] dstPixels, int[] result, int length, byte[] opacities) {
+            for (int x = 0; x < length; x++) {
+                int dst = dstPixels[x];
+                int pixel = result[x];
+                dstPixels[x] = (opacities[(pixel >>> 16) & 0xFF00 | dst >>> 24] & 0xFF) << 24 |
+                               (opacities[(pixel >>  8) & 0xFF00 | (dst >> 16) & 0xFF] & 0xFF) << 16 |
+                               (opacities[(pixel      ) & 0xFF00 | (dst >>  8) & 0xFF] & 0xFF) <<  8 |
+                               (opacities[(pixel <<  8) & 0xFF00 | (dst      ) & 0xFF] & 0xFF);
+            }
+        }
 
-            for (int y = 0; y < height; y++) {
-                src.getDataElements(0, y, width, 1, srcPixels);
-                dstIn.getDataElements(0, y, width, 1, dstPixels);
-                for (int x = 0; x < width; x++) {
-                    // pixels are stored as INT_ABGR
-                    // our arrays are [R, G, B, A]
-                    int pixel = srcPixels[x];
-                    srcPixel[0] = (pixel      ) & 0xFF;
-                    srcPixel[1] = (pixel >>  8) & 0xFF;
-                    srcPixel[2] = (pixel >> 16) & 0xFF;
-                    srcPixel[3] = (pixel >> 24) & 0xFF;
-
-                    pixel = dstPixels[x];
-                    dstPixel[0] = (pixel      ) & 0xFF;
-                    dstPixel[1] = (pixel >>  8) & 0xFF;
-                    dstPixel[2] = (pixel >> 16) & 0xFF;
-                    dstPixel[3] = (pixel >> 24) & 0xFF;
-
-                    composite.getMode().blend(srcPixel, dstPixel, result);
-
-                    // mixes the result with the opacity
-                    dstPixels[x] = ((int) (dstPixel[3] + (result[3] - dstPixel[3]) * alpha) & 0xFF) << 24 |
-                                   ((int) (dstPixel[0] + (result[0] - dstPixel[0]) * alpha) & 0xFF)       |
-                                   ((int) (dstPixel[1] + (result[1] - dstPixel[1]) * alpha) & 0xFF) <<  8 |
-                                   ((int) (dstPixel[2] + (result[2] - dstPixel[2]) * alpha) & 0xFF) << 16;
-                }
-                dstOut.setDataElements(0, y, width, 1, dstPixels);
+        private static void swapRedBlue(int[] pixels, int length) {
+            for (int x = 0; x < length; x++) {
+                int pixel = pixels[x];
+                pixels[x] = (pixel & 0xFF00FF00) | (pixel >> 16) & 0xFF | (pixel & 0xFF) << 16;
             }
         }
+
+        @Override
+        public void dispose() {
+        }
     }
 }
@@ -27,7 +27,10 @@ import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 
+import org.jdesktop.swingx.image.AbstractFilter;
+import org.jdesktop.swingx.image.AbstractFilter.BandTask;
 import org.jdesktop.swingx.util.GraphicsUtilities;
+import org.jdesktop.swingx.util.ImageCache;
 
 /**
  * <p>A shadow renderer generates a drop shadow for any given picture, respecting
@@ -80,6 +83,12 @@ import org.jdesktop.swingx.util.GraphicsUtilities;
  * useful when you embed the renderer in a graphical component and give the API
  * user the ability to access the renderer. By listening to properties changes,
  * you can easily repaint the component when needed.</p>
+ * <h2>Caching and Parallel Generation</h2>
+ * <p>Generated shadows can be cached, see {@link #setCacheEnabled(boolean)},
+ * which avoids blurring the same picture again, for example the cards of a
+ * dashboard which all have the same shape and size. The blur passes of large
+ * pictures can be split into bands processed in parallel, see
+ * {@link #setParallelism(int)}.</p>
  * <h2>Threading Issues</h2>
  * <p><code>ShadowRenderer</code> is not guaranteed to be thread-safe.</p>
  * 
@@ -106,6 +115,23 @@ public class ShadowRenderer {
      */
     public static final String COLOR_CHANGED_PROPERTY = "shadow_color";
 
+    /**
+     * <p>Identifies a change to whether generated shadows are cached.</p>
+     */
+    public static final String CACHE_ENABLED_CHANGED_PROPERTY = "shadow_cache_enabled";
+
+    /**
+     * <p>Identifies a change to the number of bands the blur passes are
+     * split into.</p>
+     */
+    public static final String PARALLELISM_CHANGED_PROPERTY = "shadow_parallelism";
+
+    /** the default budget of the shadow cache, in bytes. */
+    private static final long DEFAULT_CACHE_BYTES = 4 * 1024 * 1024;
+
+    private static final ImageCache<ShadowKey> CACHE
+            = new ImageCache<ShadowKey>(DEFAULT_CACHE_BYTES);
+
     // size of the shadow in pixels (defines the fuzziness)
     private int size = 5;
     
@@ -115,6 +141,12 @@ public class ShadowRenderer {
     // color of the shadow
     private Color color = Color.BLACK;
     
+    // caches the generated shadows
+    private boolean cacheEnabled;
+    
+    // number of bands of the blur passes
+    private int parallelism = 1;
+    
     // notifies listeners of properties changes
     private PropertyChangeSupport changeSupport;
 
@@ -270,6 +302,70 @@ public class ShadowRenderer {
                                          new Integer(this.size));
     }
 
+    /**
+     * <p>Sets whether generated shadows are cached. If enabled,
+     * {@link #createShadow} returns the cached shadow for a picture with the
+     * same dimensions and alpha channel, and the same shadow properties, as
+     * an earlier picture. The cache is shared by all renderers, see
+     * {@link #getImageCache()}.</p>
+     * <p>Cached shadows are shared, so they must not be modified.</p>
+     * <p>Caching is disabled by default.</p>
+     * @param cacheEnabled true to cache generated shadows
+     */
+    public void setCacheEnabled(final boolean cacheEnabled) {
+        boolean oldCacheEnabled = this.cacheEnabled;
+        this.cacheEnabled = cacheEnabled;
+        changeSupport.firePropertyChange(CACHE_ENABLED_CHANGED_PROPERTY,
+                                         oldCacheEnabled,
+                                         this.cacheEnabled);
+    }
+
+    /**
+     * <p>Gets whether generated shadows are cached.</p>
+     * @return true if generated shadows are cached
+     */
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * <p>Sets the number of bands the blur passes are split into, which are
+     * processed in parallel, see {@link AbstractFilter#setParallelism(int)}.
+     * The default is 1, that is the shadow is generated serially by the
+     * calling thread.</p>
+     * @param parallelism the number of bands, must be greater than 0
+     * @throws IllegalArgumentException if parallelism is lower than 1
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be >= 1");
+        }
+
+        int oldParallelism = this.parallelism;
+        this.parallelism = parallelism;
+        changeSupport.firePropertyChange(PARALLELISM_CHANGED_PROPERTY,
+                                         oldParallelism,
+                                         this.parallelism);
+    }
+
+    /**
+     * <p>Gets the number of bands the blur passes are split into.</p>
+     * @return the number of bands processed in parallel
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * <p>Returns the cache of shadows shared by all renderers with caching
+     * enabled. Exposed to allow configuring its budget and to monitor its
+     * statistics. The default budget is 4 MB.</p>
+     * @return the cache of shadows
+     */
+    public static ImageCache<?> getImageCache() {
+        return CACHE;
+    }
+
     /**
      * <p>Generates the shadow for a given picture and the current properties
      * of the renderer.</p>
@@ -278,152 +374,276 @@ public class ShadowRenderer {
      * width  = imageWidth  + 2 * shadowSize
      * height = imageHeight + 2 * shadowSize
      * </pre>
+     * <p>If caching is enabled, the returned image may be shared and must
+     * not be modified.</p>
      * @param image the picture from which the shadow must be cast
      * @return the picture containing the shadow of <code>image</code> 
      */
     public BufferedImage createShadow(final BufferedImage image) {
-        // Written by Sesbastien Petrucci
-        int shadowSize = size * 2;
-
         int srcWidth = image.getWidth();
         int srcHeight = image.getHeight();
+        int[] srcBuffer = new int[srcWidth * srcHeight];
 
-        int dstWidth = srcWidth + shadowSize;
-        int dstHeight = srcHeight + shadowSize;
-
-        int left = size;
-        int right = shadowSize - left;
-
-        int yStop = dstHeight - right;
-
-        int shadowRgb = color.getRGB() & 0x00FFFFFF;
-        int[] aHistory = new int[shadowSize];
-        int historyIdx;
-
-        int aSum;
+        GraphicsUtilities.getPixels(image, 0, 0, srcWidth, srcHeight, srcBuffer);
 
-        BufferedImage dst = createCompatibleTranslucentImage(dstWidth, dstHeight);
+        ShadowKey key = null;
+        if (cacheEnabled) {
+            key = new ShadowKey(srcWidth, srcHeight, hashAlpha(srcBuffer),
+                                size, opacity, color);
+            BufferedImage shadow = CACHE.get(key);
+            if (shadow != null) {
+                return shadow;
+            }
+        }
 
-        int[] dstBuffer = new int[dstWidth * dstHeight];
-        int[] srcBuffer = new int[srcWidth * srcHeight];
+        // Written by Sesbastien Petrucci
+        final ShadowBlur blur = new ShadowBlur(srcBuffer, srcWidth, srcHeight,
+                                               size, opacity, color);
 
-        GraphicsUtilities.getPixels(image, 0, 0, srcWidth, srcHeight, srcBuffer);
+        // horizontal pass : extract the alpha mask from the source picture and
+        // blur it into the destination picture
+        AbstractFilter.processBands(parallelism, srcHeight, new BandTask() {
+            @Override
+            public void process(int fromRow, int toRow) {
+                blur.blurRows(fromRow, toRow);
+            }
+        });
+        // vertical pass
+        AbstractFilter.processBands(parallelism, blur.dstWidth, new BandTask() {
+            @Override
+            public void process(int fromColumn, int toColumn) {
+                blur.blurColumns(fromColumn, toColumn);
+            }
+        });
 
-        int lastPixelOffset = right * dstWidth;
-        float hSumDivider = 1.0f / shadowSize;
-        float vSumDivider = opacity / shadowSize;
+        BufferedImage dst = createCompatibleTranslucentImage(blur.dstWidth, blur.dstHeight);
+        GraphicsUtilities.setPixels(dst, 0, 0, blur.dstWidth, blur.dstHeight, blur.dstBuffer);
+        if (key != null) {
+            CACHE.put(key, dst);
+        }
+        return dst;
+    }
 
-        int[] hSumLookup = new int[256 * shadowSize];
-        for (int i = 0; i < hSumLookup.length; i++) {
-            hSumLookup[i] = (int) (i * hSumDivider);
+    /**
+     * Returns a 64 bit FNV-1a hash of the alpha values of the pixels.
+     */
+    private static long hashAlpha(int[] pixels) {
+        long hash = 0xcbf29ce484222325L;
+        for (int pixel : pixels) {
+            hash ^= pixel >>> 24;
+            hash *= 0x100000001b3L;
         }
+        return hash;
+    }
+
+    /**
+     * The two-pass box blur of the alpha mask of a picture into its shadow.
+     * The rows of the horizontal pass and the columns of the vertical pass
+     * are blurred independently, so they can be split into bands.
+     */
+    private static class ShadowBlur {
+        private final int[] srcBuffer;
+        private final int srcWidth;
+        private final int srcHeight;
+        private final int shadowSize;
+        private final int left;
+        private final int right;
+        private final int shadowRgb;
+        private final int dstWidth;
+        private final int dstHeight;
+        private final int[] dstBuffer;
+        private final int[] hSumLookup;
+        private final int[] vSumLookup;
+
+        ShadowBlur(int[] srcBuffer, int srcWidth, int srcHeight,
+                   int size, float opacity, Color color) {
+            this.srcBuffer = srcBuffer;
+            this.srcWidth = srcWidth;
+            this.srcHeight = srcHeight;
+
+            shadowSize = size * 2;
+            dstWidth = srcWidth + shadowSize;
+            dstHeight = srcHeight + shadowSize;
+            left = size;
+            right = shadowSize - left;
+            shadowRgb = color.getRGB() & 0x00FFFFFF;
+            dstBuffer = new int[dstWidth * dstHeight];
+
+            float hSumDivider = 1.0f / shadowSize;
+            float vSumDivider = opacity / shadowSize;
+
+            hSumLookup = new int[256 * shadowSize];
+            for (int i = 0; i < hSumLookup.length; i++) {
+                hSumLookup[i] = (int) (i * hSumDivider);
+            }
 
-        int[] vSumLookup = new int[256 * shadowSize];
-        for (int i = 0; i < vSumLookup.length; i++) {
-            vSumLookup[i] = (int) (i * vSumDivider);
+            vSumLookup = new int[256 * shadowSize];
+            for (int i = 0; i < vSumLookup.length; i++) {
+                vSumLookup[i] = (int) (i * vSumDivider);
+            }
         }
 
-        int srcOffset;
+        /**
+         * Horizontal pass of the source rows from fromRow to toRow.
+         */
+        void blurRows(int fromRow, int toRow) {
+            int[] aHistory = new int[shadowSize];
+            int historyIdx;
+            int aSum;
+            int srcOffset;
 
-        // horizontal pass : extract the alpha mask from the source picture and
-        // blur it into the destination picture
-        for (int srcY = 0, dstOffset = left * dstWidth; srcY < srcHeight; srcY++) {
+            for (int srcY = fromRow, dstOffset = (left + fromRow) * dstWidth; srcY < toRow; srcY++) {
 
-            // first pixels are empty
-            for (historyIdx = 0; historyIdx < shadowSize; ) {
-                aHistory[historyIdx++] = 0;
-            }
+                // first pixels are empty
+                for (historyIdx = 0; historyIdx < shadowSize; ) {
+                    aHistory[historyIdx++] = 0;
+                }
 
-            aSum = 0;
-            historyIdx = 0;
-            srcOffset = srcY * srcWidth;
+                aSum = 0;
+                historyIdx = 0;
+                srcOffset = srcY * srcWidth;
 
-            // compute the blur average with pixels from the source image
-            for (int srcX = 0; srcX < srcWidth; srcX++) {
+                // compute the blur average with pixels from the source image
+                for (int srcX = 0; srcX < srcWidth; srcX++) {
 
-                int a = hSumLookup[aSum];
-                dstBuffer[dstOffset++] = a << 24;   // store the alpha value only
-                                                    // the shadow color will be added in the next pass
+                    int a = hSumLookup[aSum];
+                    dstBuffer[dstOffset++] = a << 24;   // store the alpha value only
+                                                        // the shadow color will be added in the next pass
 
-                aSum -= aHistory[historyIdx]; // substract the oldest pixel from the sum
+                    aSum -= aHistory[historyIdx]; // substract the oldest pixel from the sum
 
-                // extract the new pixel ...
-                a = srcBuffer[srcOffset + srcX] >>> 24;
-                aHistory[historyIdx] = a;   // ... and store its value into history
-                aSum += a;                  // ... and add its value to the sum
+                    // extract the new pixel ...
+                    a = srcBuffer[srcOffset + srcX] >>> 24;
+                    aHistory[historyIdx] = a;   // ... and store its value into history
+                    aSum += a;                  // ... and add its value to the sum
 
-                if (++historyIdx >= shadowSize) {
-                    historyIdx -= shadowSize;
+                    if (++historyIdx >= shadowSize) {
+                        historyIdx -= shadowSize;
+                    }
                 }
-            }
 
-            // blur the end of the row - no new pixels to grab
-            for (int i = 0; i < shadowSize; i++) {
+                // blur the end of the row - no new pixels to grab
+                for (int i = 0; i < shadowSize; i++) {
 
-                int a = hSumLookup[aSum];
-                dstBuffer[dstOffset++] = a << 24;
+                    int a = hSumLookup[aSum];
+                    dstBuffer[dstOffset++] = a << 24;
 
-                // substract the oldest pixel from the sum ... and nothing new to add !
-                aSum -= aHistory[historyIdx];
+                    // substract the oldest pixel from the sum ... and nothing new to add !
+                    aSum -= aHistory[historyIdx];
 
-                if (++historyIdx >= shadowSize) {
-                    historyIdx -= shadowSize;
+                    if (++historyIdx >= shadowSize) {
+                        historyIdx -= shadowSize;
+                    }
                 }
             }
         }
 
-        // vertical pass
-        for (int x = 0, bufferOffset = 0; x < dstWidth; x++, bufferOffset = x) {
+        /**
+         * Vertical pass of the destination columns from fromColumn to
+         * toColumn, in place.
+         */
+        void blurColumns(int fromColumn, int toColumn) {
+            int[] aHistory = new int[shadowSize];
+            int historyIdx;
+            int aSum;
+            int lastPixelOffset = right * dstWidth;
+            int yStop = dstHeight - right;
 
-            aSum = 0;
+            for (int x = fromColumn, bufferOffset = x; x < toColumn; x++, bufferOffset = x) {
 
-            // first pixels are empty
-            for (historyIdx = 0; historyIdx < left;) {
-                aHistory[historyIdx++] = 0;
-            }
+                aSum = 0;
 
-            // and then they come from the dstBuffer
-            for (int y = 0; y < right; y++, bufferOffset += dstWidth) {
-                int a = dstBuffer[bufferOffset] >>> 24;         // extract alpha
-                aHistory[historyIdx++] = a;                     // store into history
-                aSum += a;                                      // and add to sum
-            }
+                // first pixels are empty
+                for (historyIdx = 0; historyIdx < left;) {
+                    aHistory[historyIdx++] = 0;
+                }
+
+                // and then they come from the dstBuffer
+                for (int y = 0; y < right; y++, bufferOffset += dstWidth) {
+                    int a = dstBuffer[bufferOffset] >>> 24;         // extract alpha
+                    aHistory[historyIdx++] = a;                     // store into history
+                    aSum += a;                                      // and add to sum
+                }
 
-            bufferOffset = x;
-            historyIdx = 0;
+                bufferOffset = x;
+                historyIdx = 0;
 
-            // compute the blur avera`ge with pixels from the previous pass
-            for (int y = 0; y < yStop; y++, bufferOffset += dstWidth) {
+                // compute the blur average with pixels from the previous pass
+                for (int y = 0; y < yStop; y++, bufferOffset += dstWidth) {
 
-                int a = vSumLookup[aSum];
-                dstBuffer[bufferOffset] = a << 24 | shadowRgb;  // store alpha value + shadow color
+                    int a = vSumLookup[aSum];
+                    dstBuffer[bufferOffset] = a << 24 | shadowRgb;  // store alpha value + shadow color
 
-                aSum -= aHistory[historyIdx];   // substract the oldest pixel from the sum
+                    aSum -= aHistory[historyIdx];   // substract the oldest pixel from the sum
 
-                a = dstBuffer[bufferOffset + lastPixelOffset] >>> 24;   // extract the new pixel ...
-                aHistory[historyIdx] = a;                               // ... and store its value into history
-                aSum += a;                                              // ... and add its value to the sum
+                    a = dstBuffer[bufferOffset + lastPixelOffset] >>> 24;   // extract the new pixel ...
+                    aHistory[historyIdx] = a;                               // ... and store its value into history
+                    aSum += a;                                              // ... and add its value to the sum
 
-                if (++historyIdx >= shadowSize) {
-                    historyIdx -= shadowSize;
+                    if (++historyIdx >= shadowSize) {
+                        historyIdx -= shadowSize;
+                    }
                 }
-            }
 
-            // blur the end of the column - no pixels to grab anymore
-            for (int y = yStop; y < dstHeight; y++, bufferOffset += dstWidth) {
+                // blur the end of the column - no pixels to grab anymore
+                for (int y = yStop; y < dstHeight; y++, bufferOffset += dstWidth) {
 
-                int a = vSumLookup[aSum];
-                dstBuffer[bufferOffset] = a << 24 | shadowRgb;
+                    int a = vSumLookup[aSum];
+                    dstBuffer[bufferOffset] = a << 24 | shadowRgb;
 
-                aSum -= aHistory[historyIdx];   // substract the oldest pixel from the sum
+                    aSum -= aHistory[historyIdx];   // substract the oldest pixel from the sum
 
-                if (++historyIdx >= shadowSize) {
-                    historyIdx -= shadowSize;
+                    if (++historyIdx >= shadowSize) {
+                        historyIdx -= shadowSize;
+                    }
                 }
             }
         }
+    }
 
-        GraphicsUtilities.setPixels(dst, 0, 0, dstWidth, dstHeight, dstBuffer);
-        return dst;
+    /**
+     * The value key of a cached shadow: the dimensions and the hash of the
+     * alpha channel of the picture, and the shadow properties.
+     */
+    private static class ShadowKey {
+        private final int width;
+        private final int height;
+        private final long alphaHash;
+        private final int size;
+        private final int opacityBits;
+        private final int rgb;
+
+        ShadowKey(int width, int height, long alphaHash, int size, float opacity, Color color) {
+            this.width = width;
+            this.height = height;
+            this.alphaHash = alphaHash;
+            this.size = size;
+            this.opacityBits = Float.floatToIntBits(opacity);
+            this.rgb = color.getRGB() & 0x00FFFFFF;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof ShadowKey)) return false;
+            ShadowKey other = (ShadowKey) obj;
+            return (width == other.width)
+                && (height == other.height)
+                && (alphaHash == other.alphaHash)
+                && (size == other.size)
+                && (opacityBits == other.opacityBits)
+                && (rgb == other.rgb);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + (int) (alphaHash ^ (alphaHash >>> 32));
+            result = 31 * result + size;
+            result = 31 * result + opacityBits;
+            result = 31 * result + rgb;
+            return result;
+        }
     }
 }
@@ -41,18 +41,330 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
 import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.jdesktop.beans.AbstractBean;
+import org.jdesktop.swingx.util.GraphicsUtilities;
 
 /**
  * <p>Provides an abstract implementation of the <code>BufferedImageOp</code>
  * interface. This class can be used to created new image filters based
  * on <code>BufferedImageOp</code>.</p>
+ * <p>Filters processing the rows of an image independently of each other can
+ * run in parallel by splitting the rows into bands, see
+ * {@link #setParallelism(int)} and {@link #processBands(int, BandTask)}. The
+ * bands are processed on a shared pool of daemon threads, one per available
+ * processor, and by the calling thread. The result is the same as when
+ * processing the rows serially.</p>
+ * <p>Filters working on <code>INT_ARGB</code> pixel arrays override
+ * {@link #filterPixels(int[], int[], int, int)} and implement
+ * {@link #filter(BufferedImage, BufferedImage)} by calling
+ * {@link #filterPixels(BufferedImage, BufferedImage)}, which reuses per-thread
+ * scratch buffers. Filters which compute each pixel from the same pixel only
+ * also override {@link #isPerPixel()} and {@link #filterPixel(int)}, so that
+ * a {@link FilterChain} can fuse them.</p>
  *
  * @author Romain Guy <romain.guy@mac.com>
  */
 
 public abstract class AbstractFilter extends AbstractBean implements BufferedImageOp {
+    /**
+     * The minimum number of rows of a band, smaller images are processed
+     * in fewer bands.
+     */
+    private static final int MIN_BAND_ROWS = 16;
+
+    private static ExecutorService bandExecutor;
+
+    private int parallelism = 1;
+
+    private boolean directAccess;
+
+    /**
+     * <p>Sets the number of bands to split the rows of an image into, which
+     * are processed in parallel. The default is 1, that is the rows are
+     * processed serially by the calling thread. The number of bands is
+     * reduced for small images. At most one band per available processor
+     * is processed at a time.</p>
+     *
+     * @param parallelism the number of bands, must be greater than 0
+     * @throws IllegalArgumentException if parallelism is lower than 1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be >= 1");
+        }
+
+        int old = getParallelism();
+        this.parallelism = parallelism;
+        firePropertyChange("parallelism", old, getParallelism());
+    }
+
+    /**
+     * <p>Returns the number of bands to split the rows of an image into.</p>
+     *
+     * @return the number of bands processed in parallel
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * <p>Sets whether {@link #filterPixels(BufferedImage, BufferedImage)}
+     * accesses the pixel arrays of <code>INT_ARGB</code> and
+     * <code>INT_RGB</code> images backed by a <code>DataBufferInt</code>
+     * directly. This saves copying the pixels from the source and to the
+     * destination, but keeps those images from being accelerated by Java2D
+     * from then on. Suited for images which are rewritten on every frame.
+     * The default is false.</p>
+     *
+     * @param directAccess true to access the pixel arrays directly
+     */
+    public void setDirectAccess(boolean directAccess) {
+        boolean old = isDirectAccess();
+        this.directAccess = directAccess;
+        firePropertyChange("directAccess", old, isDirectAccess());
+    }
+
+    /**
+     * <p>Returns whether the pixel arrays of images are accessed directly.</p>
+     *
+     * @return true if the pixel arrays are accessed directly
+     */
+    public boolean isDirectAccess() {
+        return directAccess;
+    }
+
+    /**
+     * <p>Processes the rows from 0 to rowCount, split into bands of
+     * consecutive rows according to the parallelism of this filter. Returns
+     * when all bands are processed. The task must process the rows of a band
+     * independently of those of other bands.</p>
+     * <p>The calling thread processes bands too, so this doesn't block if no
+     * pool thread is available.</p>
+     *
+     * @param rowCount the number of rows to process
+     * @param task the task processing a band
+     */
+    protected void processBands(int rowCount, BandTask task) {
+        processBands(getParallelism(), rowCount, task);
+    }
+
+    /**
+     * <p>Processes the rows from 0 to rowCount, split into the given number
+     * of bands, see {@link #processBands(int, BandTask)}. For users of the
+     * shared band pool which are not filters.</p>
+     *
+     * @param parallelism the number of bands, must be greater than 0
+     * @param rowCount the number of rows to process
+     * @param task the task processing a band
+     */
+    public static void processBands(int parallelism, int rowCount, final BandTask task) {
+        final int bandCount = Math.min(parallelism, rowCount / MIN_BAND_ROWS);
+        if (bandCount <= 1) {
+            task.process(0, rowCount);
+            return;
+        }
+
+        final int bandRows = (rowCount + bandCount - 1) / bandCount;
+        final int lastRow = rowCount;
+        final AtomicInteger nextBand = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(bandCount);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int band;
+                while ((band = nextBand.getAndIncrement()) < bandCount) {
+                    try {
+                        task.process(band * bandRows, Math.min(lastRow, (band + 1) * bandRows));
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+
+        ExecutorService executor = getBandExecutor();
+        for (int i = 1; i < bandCount; i++) {
+            executor.execute(worker);
+        }
+        worker.run();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * <p>Filters the source image into the destination image by way of
+     * {@link #filterPixels(int[], int[], int, int)}, on per-thread scratch
+     * buffers. With direct access, see {@link #setDirectAccess(boolean)},
+     * the pixel array of the destination is filtered directly if possible.
+     * The source and destination may be the same image. Allocates no pixel
+     * arrays once the scratch buffers are large enough.</p>
+     * <p>Subclasses calling this method must override
+     * <code>filterPixels(int[], int[], int, int)</code>.</p>
+     *
+     * @param src the source image
+     * @param dst the destination image, may be null
+     * @return the destination image, created if dst is null
+     */
+    protected BufferedImage filterPixels(BufferedImage src, BufferedImage dst) {
+        if (dst == null) {
+            dst = createCompatibleDestImage(src, null);
+        }
+
+        int width = src.getWidth();
+        int height = src.getHeight();
+        int length = width * height;
+        if (length == 0) {
+            return dst;
+        }
+
+        int[] dstData = isDirectAccess() ? ScratchBuffers.getData(dst) : null;
+        int[] pixels = dstData != null ? dstData : ScratchBuffers.get(0, length);
+        int[] srcData = isDirectAccess() ? ScratchBuffers.getData(src) : null;
+        if (srcData == null) {
+            GraphicsUtilities.getPixels(src, 0, 0, width, height, pixels);
+        } else if (srcData != pixels) {
+            System.arraycopy(srcData, 0, pixels, 0, length);
+        }
+        int[] scratch = ScratchBuffers.get(dstData != null ? 0 : 1, length);
+
+        int[] result = filterPixels(pixels, scratch, width, height);
+
+        if (dstData == null) {
+            GraphicsUtilities.setPixels(dst, 0, 0, width, height, result);
+        } else if (result != dstData) {
+            System.arraycopy(result, 0, dstData, 0, length);
+        }
+        return dst;
+    }
+
+    /**
+     * <p>Filters the <code>INT_ARGB</code> pixels of an image, stored row by
+     * row. The pixels may be filtered in place or into the scratch buffer,
+     * both arrays may be longer than width * height.</p>
+     * <p>This implementation wraps the arrays into images and filters them
+     * with {@link #filter(BufferedImage, BufferedImage)}.</p>
+     *
+     * @param pixels the pixels to filter
+     * @param scratch a buffer of the same length to filter into
+     * @param width the width of the image
+     * @param height the height of the image
+     * @return the array containing the filtered pixels, pixels or scratch
+     */
+    protected int[] filterPixels(int[] pixels, int[] scratch, int width, int height) {
+        filter(wrap(pixels, width, height), wrap(scratch, width, height));
+        return scratch;
+    }
+
+    /**
+     * <p>Returns a boolean indicating whether this filter computes each pixel
+     * from the same source pixel only, by {@link #filterPixel(int)}. The
+     * default is false.</p>
+     *
+     * @return true if this filter filters single pixels, false otherwise
+     */
+    protected boolean isPerPixel() {
+        return false;
+    }
+
+    /**
+     * <p>Filters a single <code>INT_ARGB</code> pixel. Called only if
+     * {@link #isPerPixel()} is true.</p>
+     *
+     * @param argb the pixel to filter
+     * @return the filtered pixel
+     * @throws UnsupportedOperationException if this filter doesn't filter
+     *   single pixels
+     */
+    protected int filterPixel(int argb) {
+        throw new UnsupportedOperationException("not a per-pixel filter");
+    }
+
+    /**
+     * Returns an <code>INT_ARGB</code> image backed by the pixels.
+     */
+    private static BufferedImage wrap(int[] pixels, int width, int height) {
+        DirectColorModel model = (DirectColorModel) ColorModel.getRGBdefault();
+        WritableRaster raster = Raster.createPackedRaster(
+                new DataBufferInt(pixels, width * height), width, height, width,
+                model.getMasks(), null);
+        return new BufferedImage(model, raster, false, null);
+    }
+
+    /**
+     * Returns the shared pool processing the bands, creates it if necessary.
+     */
+    private static synchronized ExecutorService getBandExecutor() {
+        if (bandExecutor == null) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                    10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "AbstractFilter band "
+                                    + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            bandExecutor = executor;
+        }
+        return bandExecutor;
+    }
+
+    /**
+     * <p>A task processing a band of consecutive rows, see
+     * {@link AbstractFilter#processBands(int, BandTask)}.</p>
+     */
+    public interface BandTask {
+        /**
+         * <p>Processes the rows from fromRow, inclusive, to toRow,
+         * exclusive.</p>
+         *
+         * @param fromRow the first row of the band
+         * @param toRow the row after the last row of the band
+         */
+        void process(int fromRow, int toRow);
+    }
+
     @Override
     public abstract BufferedImage filter(BufferedImage src, BufferedImage dest);
 
@@ -37,8 +37,6 @@ package org.jdesktop.swingx.image;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 
-import org.jdesktop.swingx.util.GraphicsUtilities;
-
 /**
  * <p>A color tint filter can be used to mix a solid color to an image. The
  * result is an image tinted by the specified color. The force of the effect
@@ -133,28 +131,37 @@ public class ColorTintFilter extends AbstractFilter {
      */
     @Override
     public BufferedImage filter(BufferedImage src, BufferedImage dst) {
-        if (dst == null) {
-            dst = createCompatibleDestImage(src, null);
-        }
-
-        int width = src.getWidth();
-        int height = src.getHeight();
+        return filterPixels(src, dst);
+    }
 
-        int[] pixels = new int[width * height];
-        GraphicsUtilities.getPixels(src, 0, 0, width, height, pixels);
-        mixColor(pixels);
-        GraphicsUtilities.setPixels(dst, 0, 0, width, height, pixels);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int[] filterPixels(int[] pixels, int[] scratch, int width, int height) {
+        int length = width * height;
+        for (int i = 0; i < length; i++) {
+            pixels[i] = filterPixel(pixels[i]);
+        }
+        return pixels;
+    }
 
-        return dst;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isPerPixel() {
+        return true;
     }
 
-    private void mixColor(int[] pixels) {
-        for (int i = 0; i < pixels.length; i++) {
-            int argb = pixels[i];
-            pixels[i] = (argb & 0xFF000000) |
-                        preMultipliedRed[(argb >> 16)   & 0xFF] << 16 |
-                        preMultipliedGreen[(argb >> 8)  & 0xFF] <<  8 |
-                        preMultipliedBlue[argb & 0xFF];
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int filterPixel(int argb) {
+        return (argb & 0xFF000000) |
+               preMultipliedRed[(argb >> 16)   & 0xFF] << 16 |
+               preMultipliedGreen[(argb >> 8)  & 0xFF] <<  8 |
+               preMultipliedBlue[argb & 0xFF];
     }
 }
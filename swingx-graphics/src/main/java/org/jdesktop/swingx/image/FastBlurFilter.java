@@ -36,8 +36,6 @@ package org.jdesktop.swingx.image;
 
 import java.awt.image.BufferedImage;
 
-import org.jdesktop.swingx.util.GraphicsUtilities;
-
 /**
  * <p>A fast blur filter can be used to blur pictures quickly. This filter is an
  * implementation of the box blur algorithm. The blurs generated by this
@@ -54,6 +52,7 @@ import org.jdesktop.swingx.util.GraphicsUtilities;
  */
 public class FastBlurFilter extends AbstractFilter {
     private final int radius;
+    private final int[] sumLookupTable;
 
     /**
      * <p>Creates a new blur filter with a default radius of 3.</p>
@@ -74,6 +73,7 @@ public class FastBlurFilter extends AbstractFilter {
         }
 
         this.radius = radius;
+        this.sumLookupTable = createSumLookupTable(radius);
     }
 
     /**
@@ -90,26 +90,41 @@ public class FastBlurFilter extends AbstractFilter {
      */
     @Override
     public BufferedImage filter(BufferedImage src, BufferedImage dst) {
-        int width = src.getWidth();
-        int height = src.getHeight();
-
-        if (dst == null) {
-            dst = createCompatibleDestImage(src, null);
-        }
-
-        int[] srcPixels = new int[width * height];
-        int[] dstPixels = new int[width * height];
+        return filterPixels(src, dst);
+    }
 
-        GraphicsUtilities.getPixels(src, 0, 0, width, height, srcPixels);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int[] filterPixels(int[] pixels, int[] scratch, int width, int height) {
         // horizontal pass
-        blur(srcPixels, dstPixels, width, height, radius);
+        blurBands(pixels, scratch, width, height);
         // vertical pass
         //noinspection SuspiciousNameCombination
-        blur(dstPixels, srcPixels, height, width, radius);
-        // the result is now stored in srcPixels due to the 2nd pass
-        GraphicsUtilities.setPixels(dst, 0, 0, width, height, srcPixels);
+        blurBands(scratch, pixels, height, width);
+        // the result is now stored in pixels due to the 2nd pass
+        return pixels;
+    }
 
-        return dst;
+    /**
+     * Blurs the rows of the source pixels in bands, see
+     * {@link AbstractFilter#processBands(int, BandTask)}.
+     */
+    private void blurBands(final int[] srcPixels, final int[] dstPixels,
+                           final int width, final int height) {
+        if (getParallelism() == 1) {
+            // don't create a task
+            blur(srcPixels, dstPixels, width, height, radius, sumLookupTable, 0, height);
+            return;
+        }
+        processBands(height, new BandTask() {
+            @Override
+            public void process(int fromRow, int toRow) {
+                blur(srcPixels, dstPixels, width, height, radius, sumLookupTable,
+                        fromRow, toRow);
+            }
+        });
     }
 
     /**
@@ -128,7 +143,44 @@ public class FastBlurFilter extends AbstractFilter {
      */
     static void blur(int[] srcPixels, int[] dstPixels,
                      int width, int height, int radius) {
+        blur(srcPixels, dstPixels, width, height, radius,
+                createSumLookupTable(radius), 0, height);
+    }
+
+    /**
+     * <p>Creates the table of the average of a sum of pixel components over
+     * the blur window, for the given radius.</p>
+     *
+     * @param radius the radius of the blur effect
+     * @return the lookup table of averages by sum
+     */
+    static int[] createSumLookupTable(int radius) {
         final int windowSize = radius * 2 + 1;
+        int[] sumLookupTable = new int[256 * windowSize];
+        for (int i = 0; i < sumLookupTable.length; i++) {
+            sumLookupTable[i] = i / windowSize;
+        }
+        return sumLookupTable;
+    }
+
+    /**
+     * <p>Blurs the rows from fromRow, inclusive, to toRow, exclusive, of the
+     * source pixels into the destination pixels, see
+     * {@link #blur(int[], int[], int, int, int)}.</p>
+     *
+     * @param srcPixels the source pixels
+     * @param dstPixels the destination pixels
+     * @param width the width of the source picture
+     * @param height the height of the source picture
+     * @param radius the radius of the blur effect
+     * @param sumLookupTable the table created by
+     *   {@link #createSumLookupTable(int)} for the radius
+     * @param fromRow the first row to blur
+     * @param toRow the row after the last row to blur
+     */
+    static void blur(int[] srcPixels, int[] dstPixels,
+                     int width, int height, int radius,
+                     int[] sumLookupTable, int fromRow, int toRow) {
         final int radiusPlusOne = radius + 1;
 
         int sumAlpha;
@@ -136,30 +188,11 @@ public class FastBlurFilter extends AbstractFilter {
         int sumGreen;
         int sumBlue;
 
-        int srcIndex = 0;
+        int srcIndex = fromRow * width;
         int dstIndex;
         int pixel;
 
-        int[] sumLookupTable = new int[256 * windowSize];
-        for (int i = 0; i < sumLookupTable.length; i++) {
-            sumLookupTable[i] = i / windowSize;
-        }
-
-        int[] indexLookupTable = new int[radiusPlusOne];
-        if (radius < width) {
-            for (int i = 0; i < indexLookupTable.length; i++) {
-                indexLookupTable[i] = i;
-            }
-        } else {
-            for (int i = 0; i < width; i++) {
-                indexLookupTable[i] = i;
-            }
-            for (int i = width; i < indexLookupTable.length; i++) {
-                indexLookupTable[i] = width - 1;
-            }
-        }
-
-        for (int y = 0; y < height; y++) {
+        for (int y = fromRow; y < toRow; y++) {
             sumAlpha = sumRed = sumGreen = sumBlue = 0;
             dstIndex = y;
 
@@ -170,7 +203,7 @@ public class FastBlurFilter extends AbstractFilter {
             sumBlue  += radiusPlusOne * ( pixel        & 0xFF);
 
             for (int i = 1; i <= radius; i++) {
-                pixel = srcPixels[srcIndex + indexLookupTable[i]];
+                pixel = srcPixels[srcIndex + Math.min(i, width - 1)];
                 sumAlpha += (pixel >> 24) & 0xFF;
                 sumRed   += (pixel >> 16) & 0xFF;
                 sumGreen += (pixel >>  8) & 0xFF;
@@ -0,0 +1,163 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.image;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>A filter applying a sequence of filters, one after the other. The pixels
+ * are passed from filter to filter in two per-thread scratch buffers, without
+ * intermediate images. Consecutive per-pixel filters, such as
+ * {@link ColorTintFilter}, are fused into a single pass over the pixels,
+ * which is split into bands according to the parallelism of the chain. Other
+ * filters run with their own parallelism.</p>
+ * <p>Once the scratch buffers are large enough, filtering with the blur and
+ * tint filters of this package allocates no pixel arrays, nor any other
+ * objects with a parallelism of 1. Filters which don't override
+ * {@link AbstractFilter#filterPixels(int[], int[], int, int)} are applied to
+ * images wrapping the scratch buffers.</p>
+ * <pre>
+ * FilterChain chain = new FilterChain(
+ *         new GaussianBlurFilter(8), new ColorTintFilter(Color.BLACK, 0.3f));
+ * chain.setDirectAccess(true);
+ * // on every frame
+ * chain.filter(frame, backdrop);
+ * </pre>
+ */
+public class FilterChain extends AbstractFilter {
+    private final AbstractFilter[] filters;
+
+    /**
+     * <p>Creates a new filter chain applying the given filters in order.</p>
+     *
+     * @param filters the filters to apply
+     * @throws IllegalArgumentException if filters or one of them is null
+     */
+    public FilterChain(AbstractFilter... filters) {
+        if (filters == null) {
+            throw new IllegalArgumentException("filters cannot be null");
+        }
+        for (AbstractFilter filter : filters) {
+            if (filter == null) {
+                throw new IllegalArgumentException("filter cannot be null");
+            }
+        }
+
+        this.filters = filters.clone();
+    }
+
+    /**
+     * <p>Returns the filters of this chain, in the order they are applied.</p>
+     *
+     * @return an unmodifiable list of the filters
+     */
+    public List<AbstractFilter> getFilters() {
+        return Collections.unmodifiableList(Arrays.asList(filters));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferedImage filter(BufferedImage src, BufferedImage dst) {
+        return filterPixels(src, dst);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int[] filterPixels(int[] pixels, int[] scratch, int width, int height) {
+        int i = 0;
+        while (i < filters.length) {
+            if (filters[i].isPerPixel()) {
+                int end = i + 1;
+                while ((end < filters.length) && filters[end].isPerPixel()) {
+                    end++;
+                }
+                filterPixelBands(pixels, width, height, i, end);
+                i = end;
+            } else {
+                int[] result = filters[i].filterPixels(pixels, scratch, width, height);
+                if (result != pixels) {
+                    scratch = pixels;
+                    pixels = result;
+                }
+                i++;
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Implemented to return true if all filters are per-pixel filters.</p>
+     */
+    @Override
+    protected boolean isPerPixel() {
+        for (AbstractFilter filter : filters) {
+            if (!filter.isPerPixel()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int filterPixel(int argb) {
+        for (AbstractFilter filter : filters) {
+            argb = filter.filterPixel(argb);
+        }
+        return argb;
+    }
+
+    /**
+     * Applies the per-pixel filters from first, inclusive, to last,
+     * exclusive, in place in one pass, in bands.
+     */
+    private void filterPixelBands(final int[] pixels, final int width, int height,
+                                  final int first, final int last) {
+        if (getParallelism() == 1) {
+            // don't create a task
+            filterPixels(pixels, 0, width * height, first, last);
+            return;
+        }
+        processBands(height, new BandTask() {
+            @Override
+            public void process(int fromRow, int toRow) {
+                filterPixels(pixels, fromRow * width, toRow * width, first, last);
+            }
+        });
+    }
+
+    private void filterPixels(int[] pixels, int from, int to, int first, int last) {
+        for (int p = from; p < to; p++) {
+            int argb = pixels[p];
+            for (int i = first; i < last; i++) {
+                argb = filters[i].filterPixel(argb);
+            }
+            pixels[p] = argb;
+        }
+    }
+}
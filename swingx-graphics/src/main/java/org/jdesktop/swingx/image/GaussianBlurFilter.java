@@ -36,10 +36,9 @@ package org.jdesktop.swingx.image;
 
 import java.awt.image.BufferedImage;
 
-import org.jdesktop.swingx.util.GraphicsUtilities;
-
 public class GaussianBlurFilter extends AbstractFilter {
     private final int radius;
+    private final float[] kernel;
 
     /**
      * <p>Creates a new blur filter with a default radius of 3.</p>
@@ -60,6 +59,7 @@ public class GaussianBlurFilter extends AbstractFilter {
         }
 
         this.radius = radius;
+        this.kernel = createGaussianKernel(radius);
     }
 
     /**
@@ -76,27 +76,39 @@ public class GaussianBlurFilter extends AbstractFilter {
      */
     @Override
     public BufferedImage filter(BufferedImage src, BufferedImage dst) {
-        int width = src.getWidth();
-        int height = src.getHeight();
-
-        if (dst == null) {
-            dst = createCompatibleDestImage(src, null);
-        }
-
-        int[] srcPixels = new int[width * height];
-        int[] dstPixels = new int[width * height];
-
-        float[] kernel = createGaussianKernel(radius);
+        return filterPixels(src, dst);
+    }
 
-        GraphicsUtilities.getPixels(src, 0, 0, width, height, srcPixels);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int[] filterPixels(int[] pixels, int[] scratch, int width, int height) {
         // horizontal pass
-        blur(srcPixels, dstPixels, width, height, kernel, radius);
+        blurBands(pixels, scratch, width, height);
         // vertical pass
-        blur(dstPixels, srcPixels, height, width, kernel, radius);
-        // the result is now stored in srcPixels due to the 2nd pass
-        GraphicsUtilities.setPixels(dst, 0, 0, width, height, srcPixels);
+        blurBands(scratch, pixels, height, width);
+        // the result is now stored in pixels due to the 2nd pass
+        return pixels;
+    }
 
-        return dst;
+    /**
+     * Blurs the rows of the source pixels in bands, see
+     * {@link AbstractFilter#processBands(int, BandTask)}.
+     */
+    private void blurBands(final int[] srcPixels, final int[] dstPixels,
+                           final int width, final int height) {
+        if (getParallelism() == 1) {
+            // don't create a task
+            blur(srcPixels, dstPixels, width, height, kernel, radius, 0, height);
+            return;
+        }
+        processBands(height, new BandTask() {
+            @Override
+            public void process(int fromRow, int toRow) {
+                blur(srcPixels, dstPixels, width, height, kernel, radius, fromRow, toRow);
+            }
+        });
     }
 
     /**
@@ -117,6 +129,27 @@ public class GaussianBlurFilter extends AbstractFilter {
     static void blur(int[] srcPixels, int[] dstPixels,
                      int width, int height,
                      float[] kernel, int radius) {
+        blur(srcPixels, dstPixels, width, height, kernel, radius, 0, height);
+    }
+
+    /**
+     * <p>Blurs the rows from fromRow, inclusive, to toRow, exclusive, of the
+     * source pixels into the destination pixels, see
+     * {@link #blur(int[], int[], int, int, float[], int)}.</p>
+     *
+     * @param srcPixels the source pixels
+     * @param dstPixels the destination pixels
+     * @param width the width of the source picture
+     * @param height the height of the source picture
+     * @param kernel the kernel of the blur effect
+     * @param radius the radius of the blur effect
+     * @param fromRow the first row to blur
+     * @param toRow the row after the last row to blur
+     */
+    static void blur(int[] srcPixels, int[] dstPixels,
+                     int width, int height,
+                     float[] kernel, int radius,
+                     int fromRow, int toRow) {
         float a;
         float r;
         float g;
@@ -127,7 +160,7 @@ public class GaussianBlurFilter extends AbstractFilter {
         int cg;
         int cb;
 
-        for (int y = 0; y < height; y++) {
+        for (int y = fromRow; y < toRow; y++) {
             int index = y;
             int offset = y * width;
 
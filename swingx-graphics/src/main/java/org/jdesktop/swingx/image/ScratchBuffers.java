@@ -0,0 +1,94 @@
+/*
+ * $Id$
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.lang.ref.SoftReference;
+
+/**
+ * Per-thread scratch pixel buffers and direct access to the pixels of
+ * {@code DataBufferInt} rasters, for filtering without allocating pixel
+ * arrays. The buffers are softly referenced, so they are released on
+ * memory pressure.
+ */
+final class ScratchBuffers {
+    private static final ThreadLocal<SoftReference<int[][]>> BUFFERS =
+            new ThreadLocal<SoftReference<int[][]>>();
+
+    private ScratchBuffers() {
+        // no instances
+    }
+
+    /**
+     * Returns the scratch buffer of the calling thread at the index, 0 or 1,
+     * with a length of at least the given length. The content is undefined.
+     *
+     * @param index the index of the buffer
+     * @param length the minimum length of the buffer
+     * @return the scratch buffer
+     */
+    static int[] get(int index, int length) {
+        SoftReference<int[][]> reference = BUFFERS.get();
+        int[][] buffers = reference != null ? reference.get() : null;
+        if (buffers == null) {
+            buffers = new int[2][];
+            BUFFERS.set(new SoftReference<int[][]>(buffers));
+        }
+        if ((buffers[index] == null) || (buffers[index].length < length)) {
+            buffers[index] = new int[length];
+        }
+        return buffers[index];
+    }
+
+    /**
+     * Returns the pixel array backing the image if it is of type
+     * {@code TYPE_INT_ARGB} or {@code TYPE_INT_RGB} and its pixels are stored
+     * row by row from the start of the array, that is as read by
+     * {@code GraphicsUtilities.getPixels}. Returns null otherwise. <p>
+     *
+     * Accessing the array keeps the image from being accelerated.
+     *
+     * @param image the image to get the pixels of
+     * @return the pixel array backing the image or null
+     */
+    static int[] getData(BufferedImage image) {
+        int type = image.getType();
+        if ((type != BufferedImage.TYPE_INT_ARGB) && (type != BufferedImage.TYPE_INT_RGB)) {
+            return null;
+        }
+
+        WritableRaster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        if (!(buffer instanceof DataBufferInt) || (buffer.getNumBanks() != 1)
+                || (buffer.getOffset() != 0)
+                || (raster.getSampleModelTranslateX() != 0)
+                || (raster.getSampleModelTranslateY() != 0)
+                || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+            return null;
+        }
+        SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+        if (model.getScanlineStride() != image.getWidth()) {
+            return null;
+        }
+        return ((DataBufferInt) buffer).getData();
+    }
+}
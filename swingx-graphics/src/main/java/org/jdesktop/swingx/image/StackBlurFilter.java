@@ -36,8 +36,6 @@ package org.jdesktop.swingx.image;
 
 import java.awt.image.BufferedImage;
 
-import org.jdesktop.swingx.util.GraphicsUtilities;
-
 /**
  * <p>A stack blur filter can be used to create an approximation of a
  * Gaussian blur. The approximation is controlled by the number of times the
@@ -55,6 +53,7 @@ import org.jdesktop.swingx.util.GraphicsUtilities;
 public class StackBlurFilter extends AbstractFilter {
     private final int radius;
     private final int iterations;
+    private final int[] sumLookupTable;
 
     /**
      * <p>Creates a new blur filter with a default radius of 3 and 3 iterations.</p>
@@ -93,6 +92,7 @@ public class StackBlurFilter extends AbstractFilter {
 
         this.radius = radius;
         this.iterations = iterations;
+        this.sumLookupTable = FastBlurFilter.createSumLookupTable(radius);
     }
 
     /**
@@ -129,26 +129,42 @@ public class StackBlurFilter extends AbstractFilter {
      */
     @Override
     public BufferedImage filter(BufferedImage src, BufferedImage dst) {
-        int width = src.getWidth();
-        int height = src.getHeight();
-
-        if (dst == null) {
-            dst = createCompatibleDestImage(src, null);
-        }
-
-        int[] srcPixels = new int[width * height];
-        int[] dstPixels = new int[width * height];
+        return filterPixels(src, dst);
+    }
 
-        GraphicsUtilities.getPixels(src, 0, 0, width, height, srcPixels);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int[] filterPixels(int[] pixels, int[] scratch, int width, int height) {
         for (int i = 0; i < iterations; i++) {
             // horizontal pass
-            FastBlurFilter.blur(srcPixels, dstPixels, width, height, radius);
+            blurBands(pixels, scratch, width, height);
             // vertical pass
-            FastBlurFilter.blur(dstPixels, srcPixels, height, width, radius);
+            blurBands(scratch, pixels, height, width);
         }
-        // the result is now stored in srcPixels due to the 2nd pass
-        GraphicsUtilities.setPixels(dst, 0, 0, width, height, srcPixels);
+        // the result is now stored in pixels due to the 2nd pass
+        return pixels;
+    }
 
-        return dst;
+    /**
+     * Blurs the rows of the source pixels in bands, see
+     * {@link AbstractFilter#processBands(int, BandTask)}.
+     */
+    private void blurBands(final int[] srcPixels, final int[] dstPixels,
+                           final int width, final int height) {
+        if (getParallelism() == 1) {
+            // don't create a task
+            FastBlurFilter.blur(srcPixels, dstPixels, width, height, radius,
+                    sumLookupTable, 0, height);
+            return;
+        }
+        processBands(height, new BandTask() {
+            @Override
+            public void process(int fromRow, int toRow) {
+                FastBlurFilter.blur(srcPixels, dstPixels, width, height, radius,
+                        sumLookupTable, fromRow, toRow);
+            }
+        });
     }
 }
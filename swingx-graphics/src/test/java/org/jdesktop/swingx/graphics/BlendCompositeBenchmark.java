@@ -0,0 +1,77 @@
+package org.jdesktop.swingx.graphics;
+
+import java.awt.CompositeContext;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.Random;
+
+import org.jdesktop.swingx.graphics.BlendComposite.BlendingMode;
+
+/**
+ * Benchmarks of the blending modes, not a unit test, run the main method. <p>
+ *
+ * Reports the throughput in megapixels per second of composing INT_ARGB
+ * rasters with each blending mode, opaque and with an opacity of 0.5, by size
+ * from 256x256 to 4096x4096.
+ */
+@SuppressWarnings("nls")
+public class BlendCompositeBenchmark {
+    private static final int[] SIZES = {256, 1024, 4096};
+
+    private static final float[] ALPHAS = {1.0f, 0.5f};
+
+    /** the minimum time to compose the rasters repeatedly, in ms. */
+    private static final long RUN_MILLIS = 500;
+
+    public static void main(String[] args) {
+        for (int size : SIZES) {
+            BufferedImage src = createRandomImage(size, 0);
+            BufferedImage dst = createRandomImage(size, 1);
+            System.out.println(size + "x" + size + ", megapixels/s by alpha:");
+            for (BlendingMode mode : BlendingMode.values()) {
+                StringBuilder line = new StringBuilder("    " + mode + ":");
+                for (float alpha : ALPHAS) {
+                    line.append("  ").append(alpha).append(" -> ")
+                            .append(format(benchmark(BlendComposite.getInstance(mode, alpha), src, dst)));
+                }
+                System.out.println(line);
+            }
+        }
+    }
+
+    private static double benchmark(BlendComposite composite, BufferedImage src, BufferedImage dst) {
+        CompositeContext context = composite.createContext(
+                src.getColorModel(), dst.getColorModel(), null);
+        WritableRaster srcRaster = src.getRaster();
+        WritableRaster dstRaster = dst.getRaster();
+        WritableRaster out = dst.getColorModel().createCompatibleWritableRaster(
+                dst.getWidth(), dst.getHeight());
+        // warm up
+        context.compose(srcRaster, dstRaster, out);
+        int runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            context.compose(srcRaster, dstRaster, out);
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < RUN_MILLIS * 1000000L);
+        context.dispose();
+        return runs * (double) dst.getWidth() * dst.getHeight() / (elapsed / 1e3);
+    }
+
+    private static BufferedImage createRandomImage(int size, long seed) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(seed);
+        int[] pixels = new int[size * size];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        image.getRaster().setDataElements(0, 0, size, size, pixels);
+        return image;
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+}
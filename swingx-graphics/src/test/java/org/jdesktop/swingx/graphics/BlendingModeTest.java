@@ -0,0 +1,122 @@
+package org.jdesktop.swingx.graphics;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.awt.CompositeContext;
+import java.awt.image.ColorModel;
+import java.awt.image.DirectColorModel;
+import java.awt.image.WritableRaster;
+import java.util.Random;
+
+import org.jdesktop.swingx.graphics.BlendComposite.BlendingMode;
+import org.junit.Test;
+
+/**
+ * Checks the scanline kernels of the blending modes against blending pixel by
+ * pixel with {@code BlendingMode.blend(int[], int[], int[])}.
+ */
+@SuppressWarnings("nls")
+public class BlendingModeTest {
+    private static final int WIDTH = 257;
+    /** with the width, large enough to mix with the opacity lookup table. */
+    private static final int LARGE_HEIGHT = 256;
+
+    private static final ColorModel RGB = new DirectColorModel(32,
+            0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000);
+    private static final ColorModel BGR = new DirectColorModel(32,
+            0x000000FF, 0x0000FF00, 0x00FF0000, 0xFF000000);
+
+    @Test
+    public void checkRgbOpaque() {
+        checkAllModes(RGB, 1.0f, 3);
+    }
+
+    @Test
+    public void checkRgbTranslucent() {
+        checkAllModes(RGB, 0.35f, 3);
+    }
+
+    @Test
+    public void checkBgrOpaque() {
+        checkAllModes(BGR, 1.0f, 3);
+    }
+
+    @Test
+    public void checkBgrTranslucent() {
+        checkAllModes(BGR, 0.6f, 3);
+    }
+
+    @Test
+    public void checkRgbTranslucentLarge() {
+        checkAllModes(RGB, 0.35f, LARGE_HEIGHT);
+    }
+
+    @Test
+    public void checkBgrTranslucentLarge() {
+        checkAllModes(BGR, 0.6f, LARGE_HEIGHT);
+    }
+
+    private void checkAllModes(ColorModel model, float alpha, int height) {
+        Random random = new Random(0);
+        int[] srcPixels = new int[WIDTH * height];
+        int[] dstPixels = new int[WIDTH * height];
+        for (int i = 0; i < srcPixels.length; i++) {
+            srcPixels[i] = random.nextInt();
+            dstPixels[i] = random.nextInt();
+        }
+        // the extremes of each channel
+        srcPixels[0] = 0x00000000;
+        srcPixels[1] = 0xFFFFFFFF;
+        dstPixels[2] = 0x00000000;
+        dstPixels[3] = 0xFFFFFFFF;
+
+        for (BlendingMode mode : BlendingMode.values()) {
+            WritableRaster src = createRaster(model, srcPixels, height);
+            WritableRaster dst = createRaster(model, dstPixels, height);
+            CompositeContext context = BlendComposite.getInstance(mode, alpha)
+                    .createContext(model, model, null);
+            context.compose(src, dst, dst);
+            context.dispose();
+
+            int[] actual = (int[]) dst.getDataElements(0, 0, WIDTH, height, null);
+            assertArrayEquals(mode.toString(),
+                    blend(mode, alpha, model == BGR, srcPixels, dstPixels), actual);
+        }
+    }
+
+    private WritableRaster createRaster(ColorModel model, int[] pixels, int height) {
+        WritableRaster raster = model.createCompatibleWritableRaster(WIDTH, height);
+        raster.setDataElements(0, 0, WIDTH, height, pixels);
+        return raster;
+    }
+
+    /**
+     * Blends pixel by pixel, as the composite did before the scanline kernels.
+     */
+    private int[] blend(BlendingMode mode, float alpha, boolean bgr, int[] srcPixels,
+            int[] dstPixels) {
+        int red = bgr ? 0 : 16;
+        int blue = bgr ? 16 : 0;
+        int[] expected = new int[dstPixels.length];
+        int[] src = new int[4];
+        int[] dst = new int[4];
+        int[] result = new int[4];
+        for (int i = 0; i < expected.length; i++) {
+            unpack(srcPixels[i], red, blue, src);
+            unpack(dstPixels[i], red, blue, dst);
+            mode.blend(src, dst, result);
+            expected[i] = ((int) (dst[3] + (result[3] - dst[3]) * alpha) & 0xFF) << 24
+                    | ((int) (dst[0] + (result[0] - dst[0]) * alpha) & 0xFF) << red
+                    | ((int) (dst[1] + (result[1] - dst[1]) * alpha) & 0xFF) << 8
+                    | ((int) (dst[2] + (result[2] - dst[2]) * alpha) & 0xFF) << blue;
+        }
+        return expected;
+    }
+
+    private void unpack(int pixel, int red, int blue, int[] rgba) {
+        rgba[0] = (pixel >> red) & 0xFF;
+        rgba[1] = (pixel >> 8) & 0xFF;
+        rgba[2] = (pixel >> blue) & 0xFF;
+        rgba[3] = (pixel >> 24) & 0xFF;
+    }
+}
@@ -0,0 +1,108 @@
+package org.jdesktop.swingx.graphics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.jdesktop.swingx.util.GraphicsUtilities;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the shadow cache and the parallel generation of ShadowRenderer.
+ */
+@SuppressWarnings("nls")
+public class ShadowRendererTest {
+    @Before
+    public void setUp() {
+        ShadowRenderer.getImageCache().clear();
+    }
+    
+    @Test
+    public void checkParallelEqualsSerial() {
+        BufferedImage image = createImage(301, 203, 0);
+        ShadowRenderer renderer = new ShadowRenderer(7, 0.6f, Color.BLUE);
+        int[] expected = getPixels(renderer.createShadow(image));
+        renderer.setParallelism(5);
+        assertArrayEquals(expected, getPixels(renderer.createShadow(image)));
+    }
+    
+    /**
+     * A picture with the same dimension and alpha channel gets the cached
+     * shadow, the color channels don't matter.
+     */
+    @Test
+    public void checkCachedByContent() {
+        ShadowRenderer renderer = new ShadowRenderer();
+        renderer.setCacheEnabled(true);
+        BufferedImage image = createImage(40, 30, 0);
+        BufferedImage shadow = renderer.createShadow(image);
+        BufferedImage other = createImage(40, 30, 0);
+        for (int x = 0; x < 40; x++) {
+            other.setRGB(x, 0, other.getRGB(x, 0) ^ 0x00FFFFFF);
+        }
+        assertSame(shadow, renderer.createShadow(other));
+        assertEquals(1, ShadowRenderer.getImageCache().getHitCount());
+        ShadowRenderer same = new ShadowRenderer(5, 0.5f, Color.BLACK);
+        same.setCacheEnabled(true);
+        assertSame(shadow, same.createShadow(image));
+    }
+    
+    /**
+     * A different alpha channel, size, opacity or color gets a new shadow.
+     */
+    @Test
+    public void checkCacheKey() {
+        ShadowRenderer renderer = new ShadowRenderer();
+        renderer.setCacheEnabled(true);
+        BufferedImage image = createImage(40, 30, 0);
+        BufferedImage shadow = renderer.createShadow(image);
+        assertNotSame(shadow, renderer.createShadow(createImage(40, 30, 1)));
+        renderer.setSize(6);
+        assertNotSame(shadow, renderer.createShadow(image));
+        renderer.setSize(5);
+        renderer.setOpacity(0.4f);
+        assertNotSame(shadow, renderer.createShadow(image));
+        renderer.setOpacity(0.5f);
+        renderer.setColor(Color.RED);
+        assertNotSame(shadow, renderer.createShadow(image));
+        renderer.setColor(Color.BLACK);
+        assertSame(shadow, renderer.createShadow(image));
+    }
+    
+    @Test
+    public void checkNotCachedByDefault() {
+        ShadowRenderer renderer = new ShadowRenderer();
+        BufferedImage image = createImage(40, 30, 0);
+        BufferedImage shadow = renderer.createShadow(image);
+        BufferedImage again = renderer.createShadow(image);
+        assertNotSame(shadow, again);
+        assertArrayEquals(getPixels(shadow), getPixels(again));
+        assertEquals(0, ShadowRenderer.getImageCache().size());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void checkThrowOnZeroParallelism() {
+        new ShadowRenderer().setParallelism(0);
+    }
+    
+    private BufferedImage createImage(int width, int height, long seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(seed);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+    
+    private int[] getPixels(BufferedImage image) {
+        return GraphicsUtilities.getPixels(image, 0, 0, image.getWidth(), image.getHeight(), null);
+    }
+}
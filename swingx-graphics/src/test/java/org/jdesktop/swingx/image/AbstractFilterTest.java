@@ -0,0 +1,104 @@
+package org.jdesktop.swingx.image;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.jdesktop.swingx.util.GraphicsUtilities;
+import org.junit.Test;
+
+/**
+ * Tests the parallel execution of the filters: the output must be the same
+ * as the serial output.
+ */
+@SuppressWarnings("nls")
+public class AbstractFilterTest {
+    @Test
+    public void checkParallelFastBlurEqualsSerial() {
+        assertParallelEqualsSerial(new FastBlurFilter(5), new FastBlurFilter(5));
+    }
+    
+    @Test
+    public void checkParallelGaussianBlurEqualsSerial() {
+        assertParallelEqualsSerial(new GaussianBlurFilter(4), new GaussianBlurFilter(4));
+    }
+    
+    @Test
+    public void checkParallelStackBlurEqualsSerial() {
+        assertParallelEqualsSerial(new StackBlurFilter(3, 3), new StackBlurFilter(3, 3));
+    }
+    
+    /**
+     * Each row is processed exactly once, for band counts which don't divide
+     * the row count.
+     */
+    @Test
+    public void checkBandsCoverAllRows() {
+        for (int parallelism = 1; parallelism < 10; parallelism++) {
+            final AtomicIntegerArray processed = new AtomicIntegerArray(203);
+            FastBlurFilter filter = new FastBlurFilter();
+            filter.setParallelism(parallelism);
+            filter.processBands(processed.length(), new AbstractFilter.BandTask() {
+                @Override
+                public void process(int fromRow, int toRow) {
+                    for (int row = fromRow; row < toRow; row++) {
+                        processed.incrementAndGet(row);
+                    }
+                }
+            });
+            for (int row = 0; row < processed.length(); row++) {
+                assertEquals(1, processed.get(row));
+            }
+        }
+    }
+    
+    @Test
+    public void checkBandFailureRethrown() {
+        FastBlurFilter filter = new FastBlurFilter();
+        filter.setParallelism(4);
+        try {
+            filter.processBands(100, new AbstractFilter.BandTask() {
+                @Override
+                public void process(int fromRow, int toRow) {
+                    if (fromRow > 0) {
+                        throw new IllegalStateException("band " + fromRow);
+                    }
+                }
+            });
+            fail("failure of a band must be rethrown");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void checkThrowOnZeroParallelism() {
+        new FastBlurFilter().setParallelism(0);
+    }
+    
+    private void assertParallelEqualsSerial(AbstractFilter serial, AbstractFilter parallel) {
+        BufferedImage image = createRandomImage(211, 173);
+        parallel.setParallelism(7);
+        assertArrayEquals(getPixels(serial.filter(image, null)),
+                getPixels(parallel.filter(image, null)));
+    }
+    
+    private BufferedImage createRandomImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(0);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        GraphicsUtilities.setPixels(image, 0, 0, width, height, pixels);
+        return image;
+    }
+    
+    private int[] getPixels(BufferedImage image) {
+        return GraphicsUtilities.getPixels(image, 0, 0, image.getWidth(), image.getHeight(), null);
+    }
+}
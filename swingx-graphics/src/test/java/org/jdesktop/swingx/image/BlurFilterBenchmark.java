@@ -0,0 +1,76 @@
+package org.jdesktop.swingx.image;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.jdesktop.swingx.util.GraphicsUtilities;
+
+/**
+ * Benchmarks of the blur filters, not a unit test, run the main method. <p>
+ * 
+ * Reports the throughput in megapixels per second of StackBlurFilter,
+ * GaussianBlurFilter and FastBlurFilter by image size, from VGA to 4K, and
+ * parallelism, doubling from 1 to the number of available processors.
+ */
+@SuppressWarnings("nls")
+public class BlurFilterBenchmark {
+    private static final int[][] SIZES = {{640, 480}, {1920, 1080}, {3840, 2160}};
+    
+    private static final int RADIUS = 10;
+    
+    /** the minimum time to filter an image repeatedly, in ms. */
+    private static final long RUN_MILLIS = 1000;
+    
+    public static void main(String[] args) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        AbstractFilter[] filters = {
+                new StackBlurFilter(RADIUS), new GaussianBlurFilter(RADIUS), new FastBlurFilter(RADIUS)
+        };
+        for (AbstractFilter filter : filters) {
+            System.out.println(filter.getClass().getSimpleName() + ", radius " + RADIUS
+                    + ", megapixels/s:");
+            for (int[] size : SIZES) {
+                BufferedImage image = createRandomImage(size[0], size[1]);
+                BufferedImage dst = filter.createCompatibleDestImage(image, null);
+                StringBuilder line = new StringBuilder("    " + size[0] + "x" + size[1] + ":");
+                for (int parallelism = 1; ; parallelism = Math.min(2 * parallelism, processors)) {
+                    line.append("  ").append(parallelism).append(" -> ")
+                            .append(format(benchmark(filter, parallelism, image, dst)));
+                    if (parallelism == processors) break;
+                }
+                System.out.println(line);
+            }
+        }
+    }
+    
+    private static double benchmark(AbstractFilter filter, int parallelism, BufferedImage image,
+            BufferedImage dst) {
+        filter.setParallelism(parallelism);
+        // warm up
+        filter.filter(image, dst);
+        int runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            filter.filter(image, dst);
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < RUN_MILLIS * 1000000L);
+        return runs * (double) image.getWidth() * image.getHeight() / (elapsed / 1e3);
+    }
+    
+    private static BufferedImage createRandomImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(0);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        GraphicsUtilities.setPixels(image, 0, 0, width, height, pixels);
+        return image;
+    }
+    
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+}
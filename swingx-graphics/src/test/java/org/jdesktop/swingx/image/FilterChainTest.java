@@ -0,0 +1,142 @@
+package org.jdesktop.swingx.image;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.jdesktop.swingx.util.GraphicsUtilities;
+import org.junit.Test;
+
+/**
+ * Tests of FilterChain and the scratch buffers of the filters.
+ */
+@SuppressWarnings("nls")
+public class FilterChainTest {
+    /**
+     * The chain's output is the same as applying the filters one after the
+     * other, with fused per-pixel filters.
+     */
+    @Test
+    public void checkChainEqualsSequence() {
+        AbstractFilter[] filters = {
+                new ColorTintFilter(Color.RED, 0.3f), new ColorTintFilter(Color.BLUE, 0.2f),
+                new GaussianBlurFilter(3), new StackBlurFilter(2), 
+                new ColorTintFilter(Color.GREEN, 0.5f)
+        };
+        BufferedImage image = createRandomImage(97, 61);
+        BufferedImage expected = image;
+        for (AbstractFilter filter : filters) {
+            expected = filter.filter(expected, null);
+        }
+        FilterChain chain = new FilterChain(filters);
+        assertArrayEquals(getPixels(expected), getPixels(chain.filter(image, null)));
+        chain.setParallelism(3);
+        chain.setDirectAccess(true);
+        assertArrayEquals(getPixels(expected), getPixels(chain.filter(image, null)));
+    }
+    
+    /**
+     * Filters which don't filter pixel arrays are applied to wrapping images.
+     */
+    @Test
+    public void checkChainWithImageFilter() {
+        AbstractFilter invert = new AbstractFilter() {
+            @Override
+            public BufferedImage filter(BufferedImage src, BufferedImage dst) {
+                if (dst == null) {
+                    dst = createCompatibleDestImage(src, null);
+                }
+                for (int y = 0; y < src.getHeight(); y++) {
+                    for (int x = 0; x < src.getWidth(); x++) {
+                        dst.setRGB(x, y, src.getRGB(x, y) ^ 0x00FFFFFF);
+                    }
+                }
+                return dst;
+            }
+        };
+        FastBlurFilter blur = new FastBlurFilter(2);
+        BufferedImage image = createRandomImage(40, 30);
+        BufferedImage expected = blur.filter(invert.filter(image, null), null);
+        assertArrayEquals(getPixels(expected),
+                getPixels(new FilterChain(invert, blur).filter(image, null)));
+    }
+    
+    /**
+     * Filtering in place, with and without direct access.
+     */
+    @Test
+    public void checkFilterInPlace() {
+        GaussianBlurFilter filter = new GaussianBlurFilter(4);
+        BufferedImage image = createRandomImage(50, 40);
+        int[] expected = getPixels(filter.filter(image, null));
+        BufferedImage copy = createRandomImage(50, 40);
+        assertEquals(copy, filter.filter(copy, copy));
+        assertArrayEquals(expected, getPixels(copy));
+        filter.setDirectAccess(true);
+        copy = createRandomImage(50, 40);
+        assertEquals(copy, filter.filter(copy, copy));
+        assertArrayEquals(expected, getPixels(copy));
+    }
+    
+    /**
+     * Once the scratch buffers are allocated, filtering by the chain doesn't
+     * allocate.
+     */
+    @Test
+    public void checkZeroAllocationSteadyState() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        
+        FilterChain chain = new FilterChain(new StackBlurFilter(4), new GaussianBlurFilter(2),
+                new FastBlurFilter(3), new ColorTintFilter(Color.BLACK, 0.3f),
+                new ColorTintFilter(Color.WHITE, 0.1f));
+        BufferedImage src = createRandomImage(256, 256);
+        BufferedImage dst = chain.createCompatibleDestImage(src, null);
+        for (boolean direct : new boolean[] {false, true}) {
+            chain.setDirectAccess(direct);
+            // warm up
+            for (int i = 0; i < 3; i++) {
+                chain.filter(src, dst);
+            }
+            long threadId = Thread.currentThread().getId();
+            int frames = 20;
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < frames; i++) {
+                chain.filter(src, dst);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            // a single frame's pixel array is 256 KB
+            assertTrue("allocated " + allocated + " bytes in " + frames + " frames",
+                    allocated < 1024);
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void checkThrowOnNullFilter() {
+        new FilterChain(new FastBlurFilter(), null);
+    }
+    
+    private BufferedImage createRandomImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(0);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        GraphicsUtilities.setPixels(image, 0, 0, width, height, pixels);
+        return image;
+    }
+    
+    private int[] getPixels(BufferedImage image) {
+        return GraphicsUtilities.getPixels(image, 0, 0, image.getWidth(), image.getHeight(), null);
+    }
+}